@@ -0,0 +1,159 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.aspect.DebounceAspect;
+import com.example.debounce.common.batch.MicroBatchExecutor;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.coalesce.SingleFlightExecutor;
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.config.DebounceRuleProperties;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.key.DebounceKeyProperties;
+import com.example.debounce.common.lock.DebounceLockManager;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.prefilter.DebouncePreFilter;
+import com.example.debounce.common.prefilter.DebouncePreFilterProperties;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.replay.ResultReplayExecutor;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.trailing.TrailingDebounceExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 完整的切面开销：AOP代理 + 方法描述 + key生成 + 本地缓存 + 加锁/释放 + 监控指标
+ * 防抖存储使用InMemoryDebounceStore，结果只反映切面本身，不含Redis往返
+ * @author maxiaoweii
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AdviceOverheadBenchmark {
+
+    @Param({"4", "32"})
+    public int headerCount;
+
+    @Param({"0", "4096"})
+    public int bodySize;
+
+    /**
+     * none：每个线程使用不同的用户，请求之间没有冲突；shared：所有线程使用同一用户，同时到达的请求会被拒绝
+     */
+    @Param({"none", "shared"})
+    public String contention;
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private AnnotationConfigApplicationContext applicationContext;
+    private InMemoryDebounceStore debounceStore;
+    private LeaseWatchdog leaseWatchdog;
+    private OrderEndpoint target;
+    private OrderEndpoint proxy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.registerBean(DebounceBodyProperties.class);
+        applicationContext.registerBean(DebounceKeyProperties.class);
+        applicationContext.refresh();
+
+        debounceStore = new InMemoryDebounceStore();
+        leaseWatchdog = new LeaseWatchdog(debounceStore);
+        ReplayCodec codec = new ReplayCodec();
+        DebounceAspect aspect = new DebounceAspect(
+                new DebounceLockManager(debounceStore, leaseWatchdog, new RateLimiter(debounceStore),
+                        new DebouncePreFilter(new DebouncePreFilterProperties(), debounceStore),
+                        new LocalDebounceCache()),
+                new ResultReplayExecutor(debounceStore, leaseWatchdog, codec),
+                new SingleFlightExecutor(debounceStore, codec),
+                new TrailingDebounceExecutor(debounceStore, leaseWatchdog, codec),
+                new MicroBatchExecutor(debounceStore),
+                new DebounceMetrics(new SimpleMeterRegistry(), new DebounceMetricsProperties()),
+                new DebounceRuleRegistry(new DebounceRuleProperties()));
+        aspect.setApplicationContext(applicationContext);
+
+        target = new OrderEndpoint();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        proxy = proxyFactory.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        leaseWatchdog.destroy();
+        debounceStore.destroy();
+        applicationContext.close();
+    }
+
+    /**
+     * 每个线程绑定自己的请求上下文
+     */
+    @State(Scope.Thread)
+    public static class RequestContext {
+
+        @Setup(Level.Trial)
+        public void bind(AdviceOverheadBenchmark benchmark) {
+            String userId = "shared".equals(benchmark.contention)
+                    ? "10001" : "user-" + benchmark.threadIndex.incrementAndGet();
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+                    BenchmarkRequests.orderRequest(userId, benchmark.headerCount, benchmark.bodySize)));
+        }
+
+        @TearDown(Level.Trial)
+        public void unbind() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    /**
+     * 不经过切面的直接调用，作为基线
+     */
+    @Benchmark
+    public String direct(RequestContext context) {
+        return target.createOrder("ORD-1");
+    }
+
+    @Benchmark
+    public String advised(RequestContext context) {
+        try {
+            return proxy.createOrder("ORD-1");
+        } catch (IllegalStateException e) {
+            return e.getMessage();
+        }
+    }
+
+    public static class OrderEndpoint {
+
+        @Debounce(prefix = "order", message = "订单正在处理中，请勿重复提交")
+        public String createOrder(String orderId) {
+            return orderId;
+        }
+    }
+}
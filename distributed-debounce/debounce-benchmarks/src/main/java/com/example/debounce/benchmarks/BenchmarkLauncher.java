@@ -0,0 +1,30 @@
+package com.example.debounce.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * benchmarks.jar的入口，参数与JMH命令行一致
+ * 未指定结果格式时默认输出JSON到jmh-result.json，便于不同版本之间对比
+ * @author maxiaoweii
+ */
+public class BenchmarkLauncher {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.web.CachedBodyHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试使用的请求样本
+ * @author maxiaoweii
+ */
+final class BenchmarkRequests {
+
+    static final int MAX_BODY_SIZE = 64 * 1024;
+
+    private BenchmarkRequests() {
+    }
+
+    /**
+     * 构造订单提交请求
+     *
+     * @param userId      X-User-Id请求头
+     * @param headerCount 额外请求头数量
+     * @param bodySize    JSON请求体的近似字节数，0表示没有请求体
+     * @return 已缓存请求体的请求，与DebounceBodyCachingFilter包装后的请求一致
+     */
+    static HttpServletRequest orderRequest(String userId, int headerCount, int bodySize) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-User-Id", userId);
+        for (int i = 0; i < headerCount; i++) {
+            request.addHeader("X-Bench-Header-" + i, "value-" + i);
+        }
+        request.addParameter("channel", "app");
+        request.addParameter("source", "benchmark");
+        if (bodySize <= 0) {
+            return request;
+        }
+        request.setContentType("application/json");
+        request.setContent(jsonBody(bodySize));
+        try {
+            return new CachedBodyHttpServletRequest(request, MAX_BODY_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 生成约bodySize字节的订单JSON，包含嵌套对象和数组
+     */
+    static byte[] jsonBody(int bodySize) {
+        StringBuilder json = new StringBuilder(bodySize + 64);
+        json.append("{\"orderNo\":\"ORD-20240101-0001\",\"amount\":199.00,\"timestamp\":1700000000000,\"items\":[");
+        int index = 0;
+        while (json.length() < bodySize) {
+            if (index > 0) {
+                json.append(',');
+            }
+            json.append("{\"sku\":\"SKU-").append(index)
+                    .append("\",\"quantity\":").append(index % 5 + 1)
+                    .append(",\"attrs\":{\"color\":\"red\",\"size\":\"L\"}}");
+            index++;
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.adapter.ServletRequestAdapter;
+import com.example.debounce.common.adapter.ServletRequestView;
+import com.example.debounce.common.fingerprint.CanonicalJsonHasher;
+import com.example.debounce.common.key.DebounceKeyFormat;
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+import com.example.debounce.common.strategy.CompatibleDefaultDebounceStrategy;
+import com.example.debounce.common.strategy.DefaultDebounceStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 防抖key生成与请求适配的开销，按请求头数量和请求体大小参数化
+ * @author maxiaoweii
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyGenerationBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int headerCount;
+
+    @Param({"0", "1024", "16384"})
+    public int bodySize;
+
+    private final DefaultDebounceStrategy defaultStrategy = new DefaultDebounceStrategy();
+    private final DefaultDebounceStrategy compactStrategy =
+            new DefaultDebounceStrategy(CanonicalJsonHasher.DEFAULT, DebounceKeyFormat.COMPACT);
+    private final CompatibleDefaultDebounceStrategy compatibleStrategy = new CompatibleDefaultDebounceStrategy();
+    private final DebounceKeyTemplate template = DebounceKeyTemplate.of("order");
+    private HttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        request = BenchmarkRequests.orderRequest("10001", headerCount, bodySize);
+    }
+
+    @Benchmark
+    public String defaultStrategy() {
+        return defaultStrategy.generateKey(request, template);
+    }
+
+    @Benchmark
+    public String compactKey() {
+        return compactStrategy.generateKey(request, template);
+    }
+
+    @Benchmark
+    public String compatibleStrategy() {
+        return compatibleStrategy.generateKey(ServletRequestView.of(request), template);
+    }
+
+    @Benchmark
+    public Map<String, Object> adapt() {
+        return ServletRequestAdapter.adapt(request);
+    }
+}
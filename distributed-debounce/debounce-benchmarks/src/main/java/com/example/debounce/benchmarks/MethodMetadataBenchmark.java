@@ -0,0 +1,112 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.config.DebounceRuleProperties;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.DebounceKeyProperties;
+import com.example.debounce.common.metadata.DebounceMethodDescriptor;
+import com.example.debounce.common.metadata.DebounceMethodRegistry;
+import com.example.debounce.common.strategy.DebounceStrategy;
+import com.example.debounce.common.strategy.DefaultDebounceStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.BeansException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 切面每次调用解析防抖元数据的开销
+ * legacy：每次调用读取注解并通过getBean查找策略，容器中没有策略Bean时靠异常回退到反射创建实例
+ * descriptor：方法描述在首次调用时构建，之后只有一次Map查找和一次规则版本比较
+ * @author maxiaoweii
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodMetadataBenchmark {
+
+    /**
+     * bean：策略已注册为Bean；absent：容器中没有策略Bean，旧实现每次走异常回退
+     */
+    @Param({"bean", "absent"})
+    public String strategyRegistration;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private DebounceRuleRegistry ruleRegistry;
+    private DebounceMethodRegistry<DebounceStrategy> methodRegistry;
+    private Method method;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.registerBean(DebounceBodyProperties.class);
+        applicationContext.registerBean(DebounceKeyProperties.class);
+        if ("bean".equals(strategyRegistration)) {
+            applicationContext.registerBean(DefaultDebounceStrategy.class);
+        }
+        applicationContext.refresh();
+
+        ruleRegistry = new DebounceRuleRegistry(new DebounceRuleProperties());
+        methodRegistry = new DebounceMethodRegistry<>(strategyClass -> {
+            DebounceStrategy strategy = applicationContext.getBeanProvider(strategyClass).getIfAvailable();
+            return strategy != null ? strategy : applicationContext.getAutowireCapableBeanFactory().createBean(strategyClass);
+        });
+        method = OrderEndpoint.class.getMethod("createOrder", String.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws Exception {
+        Debounce debounce = method.getAnnotation(Debounce.class);
+        blackhole.consume(debounce.enabled());
+
+        DebounceStrategy strategy;
+        try {
+            strategy = applicationContext.getBean(debounce.strategy());
+        } catch (BeansException e) {
+            strategy = debounce.strategy().getDeclaredConstructor().newInstance();
+        }
+        blackhole.consume(strategy);
+        blackhole.consume(debounce.prefix());
+    }
+
+    @Benchmark
+    public void descriptor(Blackhole blackhole) {
+        DebounceMethodDescriptor<DebounceStrategy> descriptor = methodRegistry.get(method);
+        DebounceSettings settings = descriptor.getSettings(ruleRegistry);
+        blackhole.consume(settings.isEnabled());
+        blackhole.consume(descriptor.getStrategy());
+        blackhole.consume(descriptor.getKeyTemplate());
+    }
+
+    public static class OrderEndpoint {
+
+        @Debounce(prefix = "order", message = "订单正在处理中，请勿重复提交")
+        public String createOrder(String orderId) {
+            return orderId;
+        }
+    }
+}
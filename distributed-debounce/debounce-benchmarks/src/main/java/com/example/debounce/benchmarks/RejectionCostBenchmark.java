@@ -0,0 +1,212 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.aspect.DebounceAspect;
+import com.example.debounce.common.batch.MicroBatchExecutor;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.coalesce.SingleFlightExecutor;
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.config.DebounceRuleProperties;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.key.DebounceKeyProperties;
+import com.example.debounce.common.lock.DebounceLockManager;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.prefilter.DebouncePreFilter;
+import com.example.debounce.common.prefilter.DebouncePreFilterProperties;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.replay.ResultReplayExecutor;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.trailing.TrailingDebounceExecutor;
+import com.example.debounce.common.web.DebounceAdmissionFilter;
+import com.example.debounce.common.web.DebounceBodyCachingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重试风暴下被拒绝请求的处理开销：完整的MockMvc请求，限流配额在预热前已用完，每次请求都被拒绝
+ * aspect：请求经过DispatcherServlet的处理器查找、@RequestBody反序列化后在切面中拒绝；
+ * filter：由DebounceAdmissionFilter在进入DispatcherServlet前拒绝。
+ * 两者的拒绝响应都由同一个@ExceptionHandler输出，差值即提前判断节省的开销
+ * @author maxiaoweii
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionCostBenchmark {
+
+    @Param({"aspect", "filter"})
+    public String admission;
+
+    @Param({"512", "8192"})
+    public int bodySize;
+
+    private AnnotationConfigWebApplicationContext applicationContext;
+    private MockMvc mockMvc;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        applicationContext = new AnnotationConfigWebApplicationContext();
+        applicationContext.setServletContext(new MockServletContext());
+        applicationContext.register(WebConfig.class);
+        applicationContext.refresh();
+
+        DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup(applicationContext)
+                .addFilters(applicationContext.getBean(DebounceBodyCachingFilter.class));
+        if ("filter".equals(admission)) {
+            builder.addFilters(applicationContext.getBean(DebounceAdmissionFilter.class));
+        }
+        mockMvc = builder.build();
+        body = BenchmarkRequests.jsonBody(bodySize);
+
+        // 用掉唯一的配额，之后的请求都被拒绝
+        int status = mockMvc.perform(order()).andReturn().getResponse().getStatus();
+        if (status != HttpStatus.OK.value()) {
+            throw new IllegalStateException("First request was not admitted: " + status);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public int rejected() throws Exception {
+        return mockMvc.perform(order()).andReturn().getResponse().getStatus();
+    }
+
+    private MockHttpServletRequestBuilder order() {
+        return MockMvcRequestBuilders.post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-User-Id", "10001")
+                .content(body);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableWebMvc
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class WebConfig implements WebMvcConfigurer {
+
+        /**
+         * 与Spring Boot默认的路径匹配方式一致
+         */
+        @Override
+        public void configurePathMatch(PathMatchConfigurer configurer) {
+            configurer.setPatternParser(new PathPatternParser());
+        }
+
+        @Bean
+        DebounceBodyProperties debounceBodyProperties() {
+            return new DebounceBodyProperties();
+        }
+
+        @Bean
+        DebounceKeyProperties debounceKeyProperties() {
+            return new DebounceKeyProperties();
+        }
+
+        @Bean
+        InMemoryDebounceStore debounceStore() {
+            return new InMemoryDebounceStore();
+        }
+
+        @Bean
+        LeaseWatchdog leaseWatchdog(DebounceStore debounceStore) {
+            return new LeaseWatchdog(debounceStore);
+        }
+
+        @Bean
+        DebounceAspect debounceAspect(DebounceStore debounceStore, LeaseWatchdog leaseWatchdog) {
+            ReplayCodec codec = new ReplayCodec();
+            return new DebounceAspect(
+                    new DebounceLockManager(debounceStore, leaseWatchdog, new RateLimiter(debounceStore),
+                            new DebouncePreFilter(new DebouncePreFilterProperties(), debounceStore),
+                            new LocalDebounceCache()),
+                    new ResultReplayExecutor(debounceStore, leaseWatchdog, codec),
+                    new SingleFlightExecutor(debounceStore, codec),
+                    new TrailingDebounceExecutor(debounceStore, leaseWatchdog, codec),
+                    new MicroBatchExecutor(debounceStore),
+                    new DebounceMetrics(new SimpleMeterRegistry(), new DebounceMetricsProperties()),
+                    new DebounceRuleRegistry(new DebounceRuleProperties()));
+        }
+
+        @Bean
+        DebounceBodyCachingFilter debounceBodyCachingFilter(DebounceBodyProperties properties) {
+            return new DebounceBodyCachingFilter(properties);
+        }
+
+        @Bean
+        DebounceAdmissionFilter debounceAdmissionFilter(ObjectProvider<DebounceAspect> aspectProvider) {
+            return new DebounceAdmissionFilter(aspectProvider);
+        }
+
+        @Bean
+        OrderController orderController() {
+            return new OrderController();
+        }
+    }
+
+    @RestController
+    public static class OrderController {
+
+        @PostMapping("/api/orders")
+        @Debounce(prefix = "order", mode = DebounceMode.RATE_LIMIT, value = 3_600_000,
+                message = "订单正在处理中，请勿重复提交")
+        public Map<String, Object> createOrder(@RequestBody Map<String, Object> order) {
+            return Collections.singletonMap("orderNo", order.get("orderNo"));
+        }
+
+        @ExceptionHandler(IllegalStateException.class)
+        public ResponseEntity<Map<String, Object>> debounced(IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Collections.singletonMap("message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.debounce.benchmarks;
+
+import com.example.debounce.common.web.UrlRuleMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UrlDebounceFilter的规则匹配开销
+ * linearScan为改造前的实现：对每个请求用AntPathMatcher逐条匹配全部规则
+ * @author maxiaoweii
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlRuleMatchBenchmark {
+
+    @Param({"16", "256"})
+    public int ruleCount;
+
+    /**
+     * 请求URI的分布：hot为少量热点URI，distinct为每次不同的URI（会穿透匹配缓存）
+     */
+    @Param({"hot", "distinct"})
+    public String uriSpread;
+
+    private static final int URI_COUNT = 4096;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private Map<String, Integer> rules;
+    private UrlRuleMatcher<Integer> matcher;
+    private String[] uris;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rules = new LinkedHashMap<>();
+        for (int i = 0; i < ruleCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    rules.put("/api/module" + i + "/submit", i);
+                    break;
+                case 1:
+                    rules.put("/api/module" + i + "/orders/{orderId}", i);
+                    break;
+                case 2:
+                    rules.put("/api/module" + i + "/upload/*", i);
+                    break;
+                default:
+                    rules.put("/api/module" + i + "/files/**", i);
+                    break;
+            }
+        }
+        matcher = UrlRuleMatcher.compile(rules);
+
+        int distinct = "hot".equals(uriSpread) ? 8 : URI_COUNT;
+        uris = new String[URI_COUNT];
+        for (int i = 0; i < URI_COUNT; i++) {
+            int n = i % distinct;
+            int module = n % ruleCount;
+            switch (module % 4) {
+                case 0:
+                    uris[i] = "/api/module" + module + "/submit";
+                    break;
+                case 1:
+                    uris[i] = "/api/module" + module + "/orders/" + n;
+                    break;
+                case 2:
+                    uris[i] = "/api/module" + module + "/upload/" + n + ".png";
+                    break;
+                default:
+                    uris[i] = "/api/module" + module + "/files/" + n + "/a/b.txt";
+                    break;
+            }
+        }
+    }
+
+    private String nextUri() {
+        cursor = (cursor + 1) & (URI_COUNT - 1);
+        return uris[cursor];
+    }
+
+    @Benchmark
+    public UrlRuleMatcher.Rule<Integer> trie() {
+        return matcher.match(nextUri());
+    }
+
+    @Benchmark
+    public Optional<Map.Entry<String, Integer>> linearScan() {
+        String uri = nextUri();
+        return rules.entrySet().stream()
+                .filter(entry -> pathMatcher.match(entry.getKey(), uri))
+                .findFirst();
+    }
+}
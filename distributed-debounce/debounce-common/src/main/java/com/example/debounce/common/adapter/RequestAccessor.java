@@ -0,0 +1,135 @@
+package com.example.debounce.common.adapter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Servlet请求访问器，按请求的实际类型缓存一次Jakarta或Javax版本的MethodHandle，
+ * 之后的每次访问都不再做反射查找
+ * @author maxiaoweii
+ */
+public final class RequestAccessor {
+
+    private static final String[] REQUEST_INTERFACES = {
+            "jakarta.servlet.http.HttpServletRequest",
+            "javax.servlet.http.HttpServletRequest"
+    };
+
+    private static final ClassValue<RequestAccessor> ACCESSORS = new ClassValue<RequestAccessor>() {
+        @Override
+        protected RequestAccessor computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final MethodHandle getHeader;
+    private final MethodHandle getHeaderNames;
+    private final MethodHandle getParameterMap;
+    private final MethodHandle getRequestURI;
+    private final MethodHandle getRemoteAddr;
+
+    private RequestAccessor(Class<?> requestInterface) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        this.getHeader = lookup.findVirtual(requestInterface, "getHeader",
+                        MethodType.methodType(String.class, String.class))
+                .asType(MethodType.methodType(String.class, Object.class, String.class));
+        this.getHeaderNames = lookup.findVirtual(requestInterface, "getHeaderNames",
+                        MethodType.methodType(Enumeration.class))
+                .asType(MethodType.methodType(Enumeration.class, Object.class));
+        this.getParameterMap = lookup.findVirtual(requestInterface, "getParameterMap",
+                        MethodType.methodType(Map.class))
+                .asType(MethodType.methodType(Map.class, Object.class));
+        this.getRequestURI = lookup.findVirtual(requestInterface, "getRequestURI",
+                        MethodType.methodType(String.class))
+                .asType(MethodType.methodType(String.class, Object.class));
+        this.getRemoteAddr = lookup.findVirtual(requestInterface, "getRemoteAddr",
+                        MethodType.methodType(String.class))
+                .asType(MethodType.methodType(String.class, Object.class));
+    }
+
+    /**
+     * 获取请求类型对应的访问器，同一类型只构建一次
+     *
+     * @param request HttpServletRequest对象（可以是Jakarta或Javax版本）
+     * @return 访问器
+     * @throws IllegalArgumentException 不是受支持的Servlet请求类型
+     */
+    public static RequestAccessor of(Object request) {
+        return ACCESSORS.get(request.getClass());
+    }
+
+    private static RequestAccessor create(Class<?> type) {
+        for (String name : REQUEST_INTERFACES) {
+            Class<?> requestInterface = loadInterface(name, type.getClassLoader());
+            if (requestInterface != null && requestInterface.isAssignableFrom(type)) {
+                try {
+                    return new RequestAccessor(requestInterface);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalArgumentException("Unsupported servlet request type: " + type.getName(), e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported servlet request type: " + type.getName());
+    }
+
+    private static Class<?> loadInterface(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader != null ? classLoader : RequestAccessor.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    public String getHeader(Object request, String name) {
+        try {
+            return (String) getHeader.invokeExact(request, name);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public Enumeration<?> getHeaderNames(Object request) {
+        try {
+            return (Enumeration<?>) getHeaderNames.invokeExact(request);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public Map<?, ?> getParameterMap(Object request) {
+        try {
+            return (Map<?, ?>) getParameterMap.invokeExact(request);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public String getRequestURI(Object request) {
+        try {
+            return (String) getRequestURI.invokeExact(request);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public String getRemoteAddr(Object request) {
+        try {
+            return (String) getRemoteAddr.invokeExact(request);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
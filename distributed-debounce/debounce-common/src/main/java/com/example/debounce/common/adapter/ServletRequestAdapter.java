@@ -8,6 +8,7 @@ import java.util.Map;
 /**
  * Servlet请求适配器，用于将不同版本的HttpServletRequest转换为统一的Map格式
  * 支持Jakarta和Javax两个版本的Servlet API
+ * 仅为基于Map的旧版策略保留，新策略请直接使用{@link ServletRequestView}
  */
 public class ServletRequestAdapter {
     /**
@@ -20,33 +21,29 @@ public class ServletRequestAdapter {
         Map<String, Object> requestMap = new HashMap<>();
         
         try {
+            RequestAccessor accessor = RequestAccessor.of(request);
+
             // 获取请求头
             Map<String, String> headers = new HashMap<>();
-            Enumeration<?> headerNames = (Enumeration<?>) request.getClass().getMethod("getHeaderNames").invoke(request);
+            Enumeration<?> headerNames = accessor.getHeaderNames(request);
             while (headerNames.hasMoreElements()) {
                 String name = (String) headerNames.nextElement();
-                String value = (String) request.getClass().getMethod("getHeader", String.class).invoke(request, name);
-                headers.put(name, value);
+                headers.put(name, accessor.getHeader(request, name));
             }
             requestMap.put("headers", headers);
             
             // 获取请求参数
             Map<String, String[]> parameters = new HashMap<>();
-            Map<?, ?> parameterMap = (Map<?, ?>) request.getClass().getMethod("getParameterMap").invoke(request);
-            for (Map.Entry<?, ?> entry : parameterMap.entrySet()) {
-                String name = (String) entry.getKey();
-                String[] values = (String[]) entry.getValue();
-                parameters.put(name, values);
+            for (Map.Entry<?, ?> entry : accessor.getParameterMap(request).entrySet()) {
+                parameters.put((String) entry.getKey(), (String[]) entry.getValue());
             }
             requestMap.put("parameters", parameters);
             
             // 获取请求路径
-            String requestURI = (String) request.getClass().getMethod("getRequestURI").invoke(request);
-            requestMap.put("requestURI", requestURI);
+            requestMap.put("requestURI", accessor.getRequestURI(request));
             
             // 获取远程地址
-            String remoteAddr = (String) request.getClass().getMethod("getRemoteAddr").invoke(request);
-            requestMap.put("remoteAddr", remoteAddr);
+            requestMap.put("remoteAddr", accessor.getRemoteAddr(request));
             
         } catch (Exception e) {
             // 如果出现异常，返回一个包含基本信息的Map
@@ -0,0 +1,55 @@
+package com.example.debounce.common.adapter;
+
+import java.util.Map;
+
+/**
+ * Servlet请求的轻量视图，绑定请求对象与其类型对应的{@link RequestAccessor}
+ * 策略按需读取字段，不再预先把请求头和参数复制成Map
+ * @author maxiaoweii
+ */
+public final class ServletRequestView {
+
+    private final Object request;
+    private final RequestAccessor accessor;
+
+    private ServletRequestView(Object request, RequestAccessor accessor) {
+        this.request = request;
+        this.accessor = accessor;
+    }
+
+    /**
+     * 创建请求视图
+     *
+     * @param request HttpServletRequest对象（可以是Jakarta或Javax版本）
+     */
+    public static ServletRequestView of(Object request) {
+        return new ServletRequestView(request, RequestAccessor.of(request));
+    }
+
+    public Object getRequest() {
+        return request;
+    }
+
+    public String getHeader(String name) {
+        return accessor.getHeader(request, name);
+    }
+
+    public Map<?, ?> getParameterMap() {
+        return accessor.getParameterMap(request);
+    }
+
+    public String getRequestURI() {
+        return accessor.getRequestURI(request);
+    }
+
+    public String getRemoteAddr() {
+        return accessor.getRemoteAddr(request);
+    }
+
+    /**
+     * 转换为旧版策略使用的Map格式
+     */
+    public Map<String, Object> toMap() {
+        return ServletRequestAdapter.adapt(request);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.debounce.common.annotation;
 
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.store.StoreFailurePolicy;
 import com.example.debounce.common.strategy.DebounceStrategy;
 import com.example.debounce.common.strategy.DefaultDebounceStrategy;
 
@@ -41,4 +43,62 @@ public @interface Debounce {
      * 防抖key的前缀，用于区分不同业务场景
      */
     String prefix() default "";
-}
\ No newline at end of file
+
+    /**
+     * 是否启用租约模式，开启后锁的过期时间为leaseTime，方法执行期间由看门狗自动续期，
+     * 适合执行时间不确定的接口；此时value不再作为锁的过期时间
+     */
+    boolean lease() default false;
+
+    /**
+     * 租约时长，单位毫秒，仅在租约模式下生效
+     * 节点宕机后锁最多保留该时长
+     */
+    long leaseTime() default 3000;
+
+    /**
+     * 防抖模式，默认拒绝重复请求
+     */
+    DebounceMode mode() default DebounceMode.REJECT;
+
+    /**
+     * 重放窗口，单位毫秒，仅在{@link DebounceMode#REPLAY}模式下生效
+     * 首个请求完成后该时长内的重复请求直接返回已保存的结果
+     */
+    long replayWindow() default 60000;
+
+    /**
+     * 限流算法，仅在{@link DebounceMode#RATE_LIMIT}模式下生效，窗口为value
+     */
+    RateLimitAlgorithm rateLimit() default RateLimitAlgorithm.SLIDING_WINDOW;
+
+    /**
+     * 每个窗口放行的请求数，仅在{@link DebounceMode#RATE_LIMIT}模式下生效
+     */
+    int permits() default 1;
+
+    /**
+     * 防抖存储不可用时的处理方式，默认退化为节点内防抖
+     */
+    StoreFailurePolicy failurePolicy() default StoreFailurePolicy.LOCAL_ONLY;
+
+    /**
+     * 批量方法名，仅在{@link DebounceMode#BATCH}模式下生效
+     * 批量方法与注解方法位于同一个类，参数个数相同，每个参数为对应参数类型的List；
+     * 返回与调用一一对应的List，注解方法无返回值时也可以没有返回值。
+     * 批量方法通过Spring代理调用，@Transactional等注解生效，需要是public且不能是final或static。
+     * 一次批量调用服务多个请求，在debounce-batch线程上执行，没有RequestContextHolder、MDC和安全上下文，
+     * 需要的用户、租户等信息应作为注解方法的参数传入
+     */
+    String batchMethod() default "";
+
+    /**
+     * 收集调用的最长时间，单位毫秒，仅在{@link DebounceMode#BATCH}模式下生效
+     */
+    long batchWindow() default 20;
+
+    /**
+     * 每批最多收集的调用数，达到后立即执行，仅在{@link DebounceMode#BATCH}模式下生效
+     */
+    int batchSize() default 100;
+}
@@ -0,0 +1,46 @@
+package com.example.debounce.common.annotation;
+
+/**
+ * 防抖模式，决定重复请求的处理方式
+ * @author maxiaoweii
+ */
+public enum DebounceMode {
+    /**
+     * 拒绝重复请求，抛出提示信息
+     */
+    REJECT,
+
+    /**
+     * 幂等重放：处理中的重复请求等待首个请求完成并获得相同结果，
+     * 完成后重放窗口内的重复请求直接返回已保存的结果
+     */
+    REPLAY,
+
+    /**
+     * 请求合并：适用于只读接口，相同key的并发请求共享一次执行的结果，
+     * 跨节点时由获得锁的leader执行并通过Redis发布结果，执行失败时其他请求各自执行
+     */
+    COALESCE,
+
+    /**
+     * 限流：防抖时间内每个key最多放行permits个请求，算法由rateLimit指定，
+     * 不限制并发，请求结束后也不释放配额
+     */
+    RATE_LIMIT,
+
+    /**
+     * 尾沿防抖：适用于自动保存、更新草稿等接口，窗口内的调用不拒绝而是替换待执行的调用，
+     * key静默value毫秒后只执行最后一次调用，本轮所有调用方共享其结果；跨节点时整个集群每轮只执行一次。
+     * key不应包含每次变化的请求体，通常配合{@link com.example.debounce.common.strategy.UserDebounceStrategy}使用；
+     * 只支持同步和CompletionStage返回值，其他返回值按拒绝模式处理
+     */
+    TRAILING,
+
+    /**
+     * 批量执行：batchWindow内或达到batchSize前收集key不同的调用，一次批量加锁后调用batchMethod执行，
+     * 再把结果分发给各调用方；key已被持有的调用按拒绝模式处理。
+     * 批量方法在执行器线程上通过代理调用，批量方法上的事务等切面生效，但没有请求上下文；
+     * 只支持同步返回值，其他返回值按拒绝模式处理
+     */
+    BATCH
+}
@@ -1,9 +1,22 @@
 package com.example.debounce.common.aspect;
 
-import com.example.debounce.common.adapter.ServletRequestAdapter;
-import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.adapter.ServletRequestView;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.batch.MicroBatchExecutor;
+import com.example.debounce.common.coalesce.SingleFlightExecutor;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.lock.DebounceLockManager;
+import com.example.debounce.common.metadata.DebounceMethodDescriptor;
+import com.example.debounce.common.metadata.DebounceMethodRegistry;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.replay.ResultReplayExecutor;
 import com.example.debounce.common.strategy.CompatibleDebounceStrategy;
 import com.example.debounce.common.strategy.CompatibleDefaultDebounceStrategy;
+import com.example.debounce.common.strategy.DebounceStrategy;
+import com.example.debounce.common.trailing.TrailingDebounceExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -11,16 +24,13 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 跨版本兼容的防抖切面
@@ -28,11 +38,17 @@ import java.util.concurrent.TimeUnit;
  */
 @Slf4j
 @Aspect
-@Component
 @RequiredArgsConstructor
-public class CompatibleDebounceAspect implements ApplicationContextAware {
+public class CompatibleDebounceAspect implements ApplicationContextAware, SmartInitializingSingleton {
 
-    private final StringRedisTemplate redisTemplate;
+    private final DebounceLockManager lockManager;
+    private final ResultReplayExecutor replayExecutor;
+    private final SingleFlightExecutor singleFlightExecutor;
+    private final TrailingDebounceExecutor trailingExecutor;
+    private final MicroBatchExecutor batchExecutor;
+    private final DebounceMetrics metrics;
+    private final DebounceRuleRegistry ruleRegistry;
+    private final DebounceMethodRegistry<CompatibleDebounceStrategy> methodRegistry = new DebounceMethodRegistry<>(this::resolveStrategy);
     private ApplicationContext applicationContext;
 
     @Around("@annotation(com.example.debounce.common.annotation.Debounce)")
@@ -44,52 +60,90 @@ public class CompatibleDebounceAspect implements ApplicationContextAware {
         }
         Object request = attributes.getRequest();
 
-        // 获取防抖注解
+        // 获取方法描述，注解、策略和key模板在启动时已建立索引
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Debounce debounce = method.getAnnotation(Debounce.class);
+        DebounceMethodDescriptor<CompatibleDebounceStrategy> descriptor = methodRegistry.get(signature.getMethod());
+        if (descriptor == null) {
+            return joinPoint.proceed();
+        }
+        Method method = descriptor.getMethod();
+
+        // 合并注解与热加载的覆盖配置，规则版本不变时直接复用
+        DebounceSettings settings = descriptor.getSettings(ruleRegistry);
 
         // 判断是否启用防抖
-        if (!debounce.enabled()) {
+        if (!settings.isEnabled()) {
             return joinPoint.proceed();
         }
 
-        // 获取防抖策略
-        CompatibleDebounceStrategy strategy;
-        try {
-            // 由于Debounce注解中的strategy字段类型是Class<? extends DebounceStrategy>，
-            // 需要确保获取到的Bean是CompatibleDebounceStrategy类型
-            Object bean = applicationContext.getBean(debounce.strategy());
-            if (!(bean instanceof CompatibleDebounceStrategy)) {
-                throw new IllegalStateException("Strategy must implement CompatibleDebounceStrategy");
-            }
-            strategy = (CompatibleDebounceStrategy) bean;
-        } catch (BeansException e) {
-            // 如果没有找到对应的Bean，则使用默认策略
-            strategy = new CompatibleDefaultDebounceStrategy();
+        // 监控指标在首次调用时注册，之后按方法直接复用
+        DebounceMetrics.Probe probe = metrics.probe(DebounceMetrics.Source.COMPATIBLE_ASPECT, method,
+                descriptor.getKeyTemplate().getPrefix());
+
+        // 生成防抖key，策略通过请求视图按需读取字段
+        long start = System.nanoTime();
+        String key = descriptor.getStrategy().generateKey(ServletRequestView.of(request), descriptor.getKeyTemplate());
+        probe.recordKey(key, start);
+        if (log.isDebugEnabled()) {
+            log.debug("Debounce key: {}", CompactDebounceKeys.toDisplay(key));
+        }
+
+        // 限流模式：窗口内放行permits个请求，不持有锁
+        if (settings.getMode() == DebounceMode.RATE_LIMIT) {
+            lockManager.acquirePermit(key, settings, probe);
+            return joinPoint.proceed();
         }
 
-        // 将请求对象转换为统一的Map格式
-        Map<String, Object> requestMap = ServletRequestAdapter.adapt(request);
+        // 重放与合并需要在方法返回时拿到结果，异步返回值按拒绝模式处理，锁在异步结果完成时释放
+        boolean sync = descriptor.getAsyncReturnType() == AsyncReturnType.SYNC;
 
-        // 生成防抖key
-        String key = strategy.generateKey(requestMap, debounce.prefix());
-        log.debug("Debounce key: {}", key);
+        // 幂等重放模式：重复请求等待或重放首个请求的结果
+        if (settings.getMode() == DebounceMode.REPLAY && sync) {
+            return replayExecutor.execute(joinPoint, method, settings, key, probe);
+        }
 
-        // 尝试获取分布式锁
-        Boolean locked = redisTemplate.opsForValue().setIfAbsent(key, "1", debounce.value(), TimeUnit.MILLISECONDS);
-        if (locked == null || !locked) {
-            log.debug("Request is debounced: {}", key);
-            throw new IllegalStateException(debounce.message());
+        // 请求合并模式：相同请求共享一次执行的结果
+        if (settings.getMode() == DebounceMode.COALESCE && sync) {
+            return singleFlightExecutor.execute(joinPoint, method, settings, key, probe);
         }
 
-        try {
-            // 执行目标方法
-            return joinPoint.proceed();
-        } finally {
-            // 释放锁
-            redisTemplate.delete(key);
+        // 尾沿防抖模式：窗口内的调用替换待执行的调用，静默后只执行最后一次
+        if (settings.getMode() == DebounceMode.TRAILING
+                && (sync || descriptor.getAsyncReturnType() == AsyncReturnType.COMPLETION_STAGE)) {
+            return trailingExecutor.execute(joinPoint, method, descriptor.getAsyncReturnType(), settings, key, probe);
         }
+
+        // 批量执行模式：key不同的调用合并为一次批量加锁和一次批量方法调用
+        if (settings.getMode() == DebounceMode.BATCH && sync) {
+            return batchExecutor.execute(joinPoint, method, settings, key, probe);
+        }
+
+        // 执行目标方法，CompletableFuture、DeferredResult、Mono等异步返回值在结果完成时才释放锁
+        Runnable release = lockManager.acquireLock(key, settings, probe);
+        return release != null ? descriptor.getAsyncReturnType().proceed(joinPoint, release) : joinPoint.proceed();
+    }
+
+    /**
+     * 由于Debounce注解中的strategy字段类型是Class<? extends DebounceStrategy>，
+     * 需要确保获取到的Bean是CompatibleDebounceStrategy类型，没有对应的Bean时使用默认策略
+     */
+    private CompatibleDebounceStrategy resolveStrategy(Class<? extends DebounceStrategy> strategyClass) {
+        Object bean = applicationContext.getBeanProvider(strategyClass).getIfAvailable();
+        if (bean == null) {
+            return new CompatibleDefaultDebounceStrategy();
+        }
+        if (!(bean instanceof CompatibleDebounceStrategy)) {
+            throw new IllegalStateException("Strategy must implement CompatibleDebounceStrategy");
+        }
+        return (CompatibleDebounceStrategy) bean;
+    }
+
+    /**
+     * 启动完成后为所有@Debounce方法建立索引，调用时不再查找注解和解析策略
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        log.info("Indexed {} debounce methods", methodRegistry.preload(applicationContext, method -> true));
     }
 
     @Override
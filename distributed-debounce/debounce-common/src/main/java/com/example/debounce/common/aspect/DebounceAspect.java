@@ -1,7 +1,20 @@
 package com.example.debounce.common.aspect;
 
-import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.batch.MicroBatchExecutor;
+import com.example.debounce.common.coalesce.SingleFlightExecutor;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.lock.DebounceLockManager;
+import com.example.debounce.common.metadata.DebounceMethodDescriptor;
+import com.example.debounce.common.metadata.DebounceMethodRegistry;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.replay.ResultReplayExecutor;
 import com.example.debounce.common.strategy.DebounceStrategy;
+import com.example.debounce.common.trailing.TrailingDebounceExecutor;
+import com.example.debounce.common.web.DebounceAdmissionFilter;
 import javax.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,26 +23,38 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 防抖切面，使用AOP实现接口防抖功能
  */
 @Slf4j
 @Aspect
-@Component
 @RequiredArgsConstructor
-public class DebounceAspect implements ApplicationContextAware {
+public class DebounceAspect implements ApplicationContextAware, SmartInitializingSingleton {
 
-    private final StringRedisTemplate redisTemplate;
+    /**
+     * 请求属性，值为过滤器已放行的方法描述
+     */
+    static final String ADMITTED_ATTRIBUTE = DebounceAspect.class.getName() + ".admitted";
+
+    private static final Runnable NO_RELEASE = () -> {
+    };
+
+    private final DebounceLockManager lockManager;
+    private final ResultReplayExecutor replayExecutor;
+    private final SingleFlightExecutor singleFlightExecutor;
+    private final TrailingDebounceExecutor trailingExecutor;
+    private final MicroBatchExecutor batchExecutor;
+    private final DebounceMetrics metrics;
+    private final DebounceRuleRegistry ruleRegistry;
+    private final DebounceMethodRegistry<DebounceStrategy> methodRegistry = new DebounceMethodRegistry<>(this::resolveStrategy);
     private ApplicationContext applicationContext;
 
     @Around("@annotation(com.example.debounce.common.annotation.Debounce)")
@@ -41,42 +66,147 @@ public class DebounceAspect implements ApplicationContextAware {
         }
         HttpServletRequest request = attributes.getRequest();
 
-        // 获取防抖注解
+        // 获取方法描述，注解、策略和key模板在启动时已建立索引
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Debounce debounce = method.getAnnotation(Debounce.class);
+        DebounceMethodDescriptor<DebounceStrategy> descriptor = methodRegistry.get(signature.getMethod());
+        if (descriptor == null) {
+            return joinPoint.proceed();
+        }
+        Method method = descriptor.getMethod();
 
-        // 判断是否启用防抖
-        if (!debounce.enabled()) {
+        // 已由DebounceAdmissionFilter在进入DispatcherServlet前放行，锁在请求结束时由过滤器释放
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) == descriptor) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
             return joinPoint.proceed();
         }
 
-        // 获取防抖策略
-        DebounceStrategy strategy;
-        try {
-            strategy = applicationContext.getBean(debounce.strategy());
-        } catch (BeansException e) {
-            strategy = debounce.strategy().getDeclaredConstructor().newInstance();
+        // 合并注解与热加载的覆盖配置，规则版本不变时直接复用
+        DebounceSettings settings = descriptor.getSettings(ruleRegistry);
+
+        // 判断是否启用防抖
+        if (!settings.isEnabled()) {
+            return joinPoint.proceed();
         }
 
+        // 监控指标在首次调用时注册，之后按方法直接复用
+        DebounceMetrics.Probe probe = metrics.probe(DebounceMetrics.Source.ASPECT, method,
+                descriptor.getKeyTemplate().getPrefix());
+
         // 生成防抖key
-        String key = strategy.generateKey(request, debounce.prefix());
-        log.debug("Debounce key: {}", key);
-
-        // 尝试获取分布式锁
-        Boolean locked = redisTemplate.opsForValue().setIfAbsent(key, "1", debounce.value(), TimeUnit.MILLISECONDS);
-        if (locked == null || !locked) {
-            log.debug("Request is debounced: {}", key);
-            throw new IllegalStateException(debounce.message());
+        long start = System.nanoTime();
+        String key = descriptor.getStrategy().generateKey(request, descriptor.getKeyTemplate());
+        probe.recordKey(key, start);
+        if (log.isDebugEnabled()) {
+            log.debug("Debounce key: {}", CompactDebounceKeys.toDisplay(key));
         }
 
-        try {
-            // 执行目标方法
+        // 限流模式：窗口内放行permits个请求，不持有锁
+        if (settings.getMode() == DebounceMode.RATE_LIMIT) {
+            lockManager.acquirePermit(key, settings, probe);
             return joinPoint.proceed();
-        } finally {
-            // 释放锁
-            redisTemplate.delete(key);
         }
+
+        // 重放与合并需要在方法返回时拿到结果，异步返回值按拒绝模式处理，锁在异步结果完成时释放
+        boolean sync = descriptor.getAsyncReturnType() == AsyncReturnType.SYNC;
+
+        // 幂等重放模式：重复请求等待或重放首个请求的结果
+        if (settings.getMode() == DebounceMode.REPLAY && sync) {
+            return replayExecutor.execute(joinPoint, method, settings, key, probe);
+        }
+
+        // 请求合并模式：相同请求共享一次执行的结果
+        if (settings.getMode() == DebounceMode.COALESCE && sync) {
+            return singleFlightExecutor.execute(joinPoint, method, settings, key, probe);
+        }
+
+        // 尾沿防抖模式：窗口内的调用替换待执行的调用，静默后只执行最后一次
+        if (settings.getMode() == DebounceMode.TRAILING
+                && (sync || descriptor.getAsyncReturnType() == AsyncReturnType.COMPLETION_STAGE)) {
+            return trailingExecutor.execute(joinPoint, method, descriptor.getAsyncReturnType(), settings, key, probe);
+        }
+
+        // 批量执行模式：key不同的调用合并为一次批量加锁和一次批量方法调用
+        if (settings.getMode() == DebounceMode.BATCH && sync) {
+            return batchExecutor.execute(joinPoint, method, settings, key, probe);
+        }
+
+        // 执行目标方法，CompletableFuture、DeferredResult、Mono等异步返回值在结果完成时才释放锁
+        Runnable release = lockManager.acquireLock(key, settings, probe);
+        return release != null ? descriptor.getAsyncReturnType().proceed(joinPoint, release) : joinPoint.proceed();
+    }
+
+    /**
+     * 在请求进入DispatcherServlet前执行防抖判断，由{@link DebounceAdmissionFilter}调用，
+     * 被拒绝的请求不再解析处理器参数和反序列化请求体。
+     * 只处理在方法执行前就能决定结果的拒绝和限流模式（包括按拒绝模式处理的异步返回值），其他模式返回null由切面处理
+     *
+     * @param request 已缓存请求体的请求
+     * @param method  路由索引解析出的处理器方法
+     * @return 放行时返回请求结束时执行的回调，需要由切面处理时返回null
+     * @throws IllegalStateException 请求被拒绝，异常信息为注解中的提示信息
+     */
+    public Runnable admitEarly(HttpServletRequest request, Method method) {
+        DebounceMethodDescriptor<DebounceStrategy> descriptor = methodRegistry.get(method);
+        if (descriptor == null) {
+            return null;
+        }
+        DebounceSettings settings = descriptor.getSettings(ruleRegistry);
+        if (!settings.isEnabled() || !decidedBeforeProceed(settings.getMode(), descriptor.getAsyncReturnType())) {
+            return null;
+        }
+
+        DebounceMetrics.Probe probe = metrics.probe(DebounceMetrics.Source.ASPECT, descriptor.getMethod(),
+                descriptor.getKeyTemplate().getPrefix());
+        long start = System.nanoTime();
+        String key = descriptor.getStrategy().generateKey(request, descriptor.getKeyTemplate());
+        probe.recordKey(key, start);
+        if (log.isDebugEnabled()) {
+            log.debug("Debounce key: {}", CompactDebounceKeys.toDisplay(key));
+        }
+
+        Runnable release = NO_RELEASE;
+        if (settings.getMode() == DebounceMode.RATE_LIMIT) {
+            lockManager.acquirePermit(key, settings, probe);
+        } else {
+            Runnable acquired = lockManager.acquireLock(key, settings, probe);
+            if (acquired != null) {
+                release = acquired;
+            }
+        }
+        // 切面执行该方法时直接调用，不再重复判断
+        request.setAttribute(ADMITTED_ATTRIBUTE, descriptor);
+        return release;
+    }
+
+    /**
+     * 与{@link #around}的模式分派一致：重放、合并、尾沿和批量模式只在支持的返回值上生效，其余按拒绝模式处理
+     */
+    private static boolean decidedBeforeProceed(DebounceMode mode, AsyncReturnType asyncReturnType) {
+        switch (mode) {
+            case REJECT:
+            case RATE_LIMIT:
+                return true;
+            case TRAILING:
+                return asyncReturnType != AsyncReturnType.SYNC && asyncReturnType != AsyncReturnType.COMPLETION_STAGE;
+            default:
+                return asyncReturnType != AsyncReturnType.SYNC;
+        }
+    }
+
+    /**
+     * 优先使用容器中的策略Bean，没有时由容器创建实例并注入依赖（如请求体配置）
+     */
+    private DebounceStrategy resolveStrategy(Class<? extends DebounceStrategy> strategyClass) {
+        DebounceStrategy strategy = applicationContext.getBeanProvider(strategyClass).getIfAvailable();
+        return strategy != null ? strategy : applicationContext.getAutowireCapableBeanFactory().createBean(strategyClass);
+    }
+
+    /**
+     * 启动完成后为所有@Debounce方法建立索引，调用时不再查找注解和解析策略
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        log.info("Indexed {} debounce methods", methodRegistry.preload(applicationContext, method -> true));
     }
 
     @Override
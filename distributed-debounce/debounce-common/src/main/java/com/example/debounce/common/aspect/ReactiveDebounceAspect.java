@@ -0,0 +1,372 @@
+package com.example.debounce.common.aspect;
+
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metadata.DebounceMethodDescriptor;
+import com.example.debounce.common.metadata.DebounceMethodRegistry;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.replay.ResultReplayExecutor;
+import com.example.debounce.common.store.ReactiveDebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import com.example.debounce.common.strategy.DebounceStrategy;
+import com.example.debounce.common.strategy.ReactiveDebounceStrategy;
+import com.example.debounce.common.web.ReactiveDebounceWebFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * WebFlux环境下的防抖切面
+ * 处理返回Mono、Flux等响应式类型的方法：防抖检查推迟到订阅时进行，请求从{@link ReactiveDebounceWebFilter}
+ * 写入的Reactor上下文中读取，不依赖RequestContextHolder；存储访问都是非阻塞调用，
+ * 锁在响应式流结束（完成、出错或取消）时释放。
+ * 支持拒绝、限流和单值类型的幂等重放，请求合并和多值类型的重放按拒绝模式处理
+ * @author maxiaoweii
+ */
+@Slf4j
+@Aspect
+@RequiredArgsConstructor
+public class ReactiveDebounceAspect implements ApplicationContextAware, SmartInitializingSingleton {
+
+    private final ReactiveDebounceStore debounceStore;
+    private final LeaseWatchdog leaseWatchdog;
+    private final RateLimiter rateLimiter;
+    private final ReplayCodec codec;
+    private final DebounceMetrics metrics;
+    private final LocalDebounceCache localCache;
+    private final DebounceRuleRegistry ruleRegistry;
+    private final DebounceMethodRegistry<ReactiveDebounceStrategy> methodRegistry = new DebounceMethodRegistry<>(this::resolveStrategy);
+    private ApplicationContext applicationContext;
+
+    @Around("@annotation(com.example.debounce.common.annotation.Debounce)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 获取方法描述，只处理响应式返回值
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        DebounceMethodDescriptor<ReactiveDebounceStrategy> descriptor = methodRegistry.get(signature.getMethod());
+        if (descriptor == null || descriptor.getAsyncReturnType() != AsyncReturnType.REACTIVE) {
+            return joinPoint.proceed();
+        }
+
+        // 目标方法和防抖检查都推迟到订阅时执行
+        ReactiveAdapter adapter = ReactiveAdapterRegistry.getSharedInstance()
+                .getAdapter(descriptor.getMethod().getReturnType());
+        Flux<Object> debounced = Flux.deferContextual(context -> debounce(joinPoint, adapter, descriptor, context));
+        return adapter.fromPublisher(adapter.isMultiValue() ? debounced : Mono.from(debounced));
+    }
+
+    private Flux<Object> debounce(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter,
+                                  DebounceMethodDescriptor<ReactiveDebounceStrategy> descriptor, ContextView context) {
+        // 获取当前请求，没有经过防抖过滤器时不做处理
+        ServerWebExchange exchange = context.getOrDefault(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, null);
+        if (exchange == null) {
+            return invoke(joinPoint, adapter);
+        }
+
+        // 合并注解与热加载的覆盖配置，规则版本不变时直接复用
+        DebounceSettings settings = descriptor.getSettings(ruleRegistry);
+        if (!settings.isEnabled()) {
+            return invoke(joinPoint, adapter);
+        }
+
+        DebounceMetrics.Probe probe = metrics.probe(DebounceMetrics.Source.REACTIVE_ASPECT, descriptor.getMethod(),
+                descriptor.getKeyTemplate().getPrefix());
+
+        // 生成防抖key
+        long start = System.nanoTime();
+        String key = descriptor.getStrategy().generateKey(exchange, descriptor.getKeyTemplate());
+        probe.recordKey(key, start);
+        if (log.isDebugEnabled()) {
+            log.debug("Debounce key: {}", CompactDebounceKeys.toDisplay(key));
+        }
+
+        if (settings.getMode() == DebounceMode.RATE_LIMIT) {
+            return rateLimit(joinPoint, adapter, settings, key, probe);
+        }
+        if (settings.getMode() == DebounceMode.REPLAY && !adapter.isMultiValue()) {
+            Type valueType = ResolvableType.forMethodReturnType(descriptor.getMethod()).getGeneric(0).getType();
+            return replay(joinPoint, adapter, valueType, settings, key, probe).flux();
+        }
+        return lock(joinPoint, adapter, settings, key, probe);
+    }
+
+    /**
+     * 限流模式：窗口内放行permits个请求，不持有锁
+     */
+    private Flux<Object> rateLimit(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter, DebounceSettings settings,
+                                   String key, DebounceMetrics.Probe probe) {
+        long start = System.nanoTime();
+        return rateLimiter.tryAcquire(debounceStore, key, settings.getRateLimit(), settings.getPermits(),
+                        settings.getValue())
+                .doOnNext(permitted -> probe.recordStore(start))
+                .onErrorResume(e -> {
+                    // 防抖存储不可用，LOCAL_ONLY时退化为节点内限流
+                    StoreFailurePolicy policy = settings.getFailurePolicy();
+                    probe.storeUnavailable(policy);
+                    log.debug("Debounce store unavailable, applying {}: {}", policy, e.getMessage());
+                    return Mono.just(policy == StoreFailurePolicy.FAIL_OPEN || policy == StoreFailurePolicy.LOCAL_ONLY
+                            && rateLimiter.tryAcquireLocally(key, settings.getRateLimit(), settings.getPermits(),
+                            settings.getValue()));
+                })
+                .flatMapMany(permitted -> {
+                    if (!permitted) {
+                        probe.rejected();
+                        return Flux.error(new IllegalStateException(settings.getMessage()));
+                    }
+                    probe.admitted();
+                    return invoke(joinPoint, adapter);
+                });
+    }
+
+    /**
+     * 拒绝模式：持有锁直到响应式流结束
+     */
+    private Flux<Object> lock(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter, DebounceSettings settings,
+                              String key, DebounceMetrics.Probe probe) {
+        long ttl = settings.getTtl();
+
+        // 本节点已持有该key时直接拒绝，无需访问防抖存储
+        long localStamp = localCache.tryAcquire(key, ttl);
+        if (localStamp == LocalDebounceCache.NOT_ACQUIRED) {
+            log.debug("Request is debounced locally: {}", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            return Flux.error(new IllegalStateException(settings.getMessage()));
+        }
+
+        String owner = debounceStore.newOwnerToken();
+        long start = System.nanoTime();
+        return debounceStore.tryAcquire(key, owner, ttl)
+                .onErrorMap(StoreFailure::new)
+                .doFinally(signal -> {
+                    // 加锁过程中请求被取消，不会再执行目标方法；加锁完成后的取消由目标方法的流处理
+                    if (signal == SignalType.CANCEL) {
+                        release(key, owner);
+                        localCache.release(key, localStamp);
+                    }
+                })
+                .flatMapMany(locked -> {
+                    probe.recordStore(start);
+                    if (!locked) {
+                        // 锁由其他节点持有，本地不保留记录，避免对方释放后仍在本地误拒
+                        localCache.release(key, localStamp);
+                        log.debug("Request is debounced: {}", CompactDebounceKeys.toDisplay(key));
+                        probe.rejected();
+                        return Flux.error(new IllegalStateException(settings.getMessage()));
+                    }
+                    probe.admitted();
+                    long acquiredAt = System.nanoTime();
+                    LeaseWatchdog.Lease lease = settings.isLease() ? leaseWatchdog.watch(key, owner, ttl) : null;
+                    return invoke(joinPoint, adapter).doFinally(signal -> {
+                        if (lease != null) {
+                            lease.cancel();
+                        }
+                        release(key, owner);
+                        localCache.release(key, localStamp);
+                        probe.recordHold(acquiredAt, settings.getValue());
+                    });
+                })
+                .onErrorResume(StoreFailure.class,
+                        e -> lockWithoutStore(joinPoint, adapter, settings, key, localStamp, probe, e.getCause()));
+    }
+
+    /**
+     * 防抖存储不可用时按规则的失败策略处理，调用前本节点已占用该key
+     */
+    private Flux<Object> lockWithoutStore(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter,
+                                          DebounceSettings settings, String key, long localStamp,
+                                          DebounceMetrics.Probe probe, Throwable cause) {
+        StoreFailurePolicy policy = settings.getFailurePolicy();
+        probe.storeUnavailable(policy);
+        log.debug("Debounce store unavailable, applying {}: {}", policy, cause.getMessage());
+        if (policy == StoreFailurePolicy.LOCAL_ONLY) {
+            // 退化为节点内防抖：本地占用一直持有到流结束
+            long acquiredAt = System.nanoTime();
+            return invoke(joinPoint, adapter).doFinally(signal -> {
+                localCache.release(key, localStamp);
+                probe.recordHold(acquiredAt, settings.getValue());
+            });
+        }
+        localCache.release(key, localStamp);
+        if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+            return Flux.error(new IllegalStateException(settings.getMessage()));
+        }
+        return invoke(joinPoint, adapter);
+    }
+
+    /**
+     * 幂等重放模式：重复请求重放首个请求的结果，等待其他请求的结果时不占用线程
+     */
+    private Mono<Object> replay(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter, Type valueType,
+                                DebounceSettings settings, String key, DebounceMetrics.Probe probe) {
+        long ttl = settings.getTtl();
+        String resultKey = key + ResultReplayExecutor.RESULT_SUFFIX;
+        String owner = debounceStore.newOwnerToken();
+        long start = System.nanoTime();
+        return debounceStore.tryAcquireOrReplay(key, resultKey, owner, ttl)
+                .onErrorMap(StoreFailure::new)
+                .flatMap(acquire -> {
+                    probe.recordStore(start);
+                    if (acquire.getReplay() != null) {
+                        log.debug("Replaying stored result: {}", CompactDebounceKeys.toDisplay(key));
+                        probe.replayed();
+                        return decode(acquire.getReplay(), valueType);
+                    }
+                    if (!acquire.isAcquired()) {
+                        return awaitRemote(key, resultKey, valueType, settings, probe, System.currentTimeMillis() + ttl);
+                    }
+                    probe.admitted();
+                    long acquiredAt = System.nanoTime();
+                    LeaseWatchdog.Lease lease = settings.isLease() ? leaseWatchdog.watch(key, owner, ttl) : null;
+                    // 先保存结果再释放锁，其他节点在锁释放前即可读到结果
+                    return Mono.from(invoke(joinPoint, adapter))
+                            .flatMap(result -> store(key, resultKey, result, settings).thenReturn(result))
+                            .switchIfEmpty(Mono.defer(() -> store(key, resultKey, null, settings).then(Mono.empty())))
+                            .doFinally(signal -> {
+                                if (lease != null) {
+                                    lease.cancel();
+                                }
+                                release(key, owner);
+                                probe.recordHold(acquiredAt, settings.getValue());
+                            });
+                })
+                .onErrorResume(StoreFailure.class, e -> {
+                    // 防抖存储不可用，除FAIL_CLOSED外都在本节点执行
+                    StoreFailurePolicy policy = settings.getFailurePolicy();
+                    probe.storeUnavailable(policy);
+                    log.debug("Debounce store unavailable, applying {}: {}", policy, e.getMessage());
+                    if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+                        return Mono.error(new IllegalStateException(settings.getMessage()));
+                    }
+                    return Mono.from(invoke(joinPoint, adapter));
+                });
+    }
+
+    /**
+     * 首个请求在处理中，定时轮询存储直到结果出现、锁被释放或超时
+     */
+    private Mono<Object> awaitRemote(String key, String resultKey, Type valueType, DebounceSettings settings,
+                                     DebounceMetrics.Probe probe, long deadline) {
+        if (System.currentTimeMillis() >= deadline) {
+            probe.rejected();
+            return Mono.error(new IllegalStateException(settings.getMessage()));
+        }
+        return Mono.delay(Duration.ofMillis(ResultReplayExecutor.POLL_INTERVAL_MILLIS))
+                .then(debounceStore.pollResult(key, resultKey).onErrorMap(StoreFailure::new))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(result -> {
+                    if (!result.isPresent()) {
+                        // 锁已释放但没有结果，首个请求执行失败
+                        probe.rejected();
+                        return Mono.error(new IllegalStateException(settings.getMessage()));
+                    }
+                    if (result.get().isEmpty()) {
+                        return awaitRemote(key, resultKey, valueType, settings, probe, deadline);
+                    }
+                    log.debug("Replaying result from remote request: {}", CompactDebounceKeys.toDisplay(key));
+                    probe.replayed();
+                    return decode(result.get(), valueType);
+                });
+    }
+
+    /**
+     * 保存结果，保存失败只影响其他请求的重放，不影响本次请求
+     */
+    private Mono<Void> store(String key, String resultKey, Object result, DebounceSettings settings) {
+        return Mono.fromCallable(() -> codec.encode(result))
+                .flatMap(encoded -> debounceStore.storeResult(key, resultKey, encoded, settings.getReplayWindow()))
+                .onErrorResume(e -> {
+                    log.warn("Failed to store debounce result {}: {}", CompactDebounceKeys.toDisplay(key),
+                            e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Object> decode(String json, Type valueType) {
+        return Mono.fromCallable(() -> codec.decode(json, valueType));
+    }
+
+    /**
+     * 异步释放锁，只删除自己持有的锁；释放失败时锁在过期后自动删除
+     */
+    private void release(String key, String owner) {
+        debounceStore.release(key, owner).subscribe(null,
+                e -> log.debug("Failed to release debounce lock {}: {}", CompactDebounceKeys.toDisplay(key),
+                        e.getMessage()));
+    }
+
+    /**
+     * 在订阅时调用目标方法
+     */
+    private static Flux<Object> invoke(ProceedingJoinPoint joinPoint, ReactiveAdapter adapter) {
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            return Flux.error(e);
+        }
+        return result != null ? Flux.from(adapter.toPublisher(result)) : Flux.empty();
+    }
+
+    /**
+     * 策略需要实现{@link ReactiveDebounceStrategy}，内置策略都已实现；没有对应的Bean时由容器创建实例
+     */
+    private ReactiveDebounceStrategy resolveStrategy(Class<? extends DebounceStrategy> strategyClass) {
+        Object strategy = applicationContext.getBeanProvider(strategyClass).getIfAvailable();
+        if (strategy == null) {
+            strategy = applicationContext.getAutowireCapableBeanFactory().createBean(strategyClass);
+        }
+        if (!(strategy instanceof ReactiveDebounceStrategy)) {
+            throw new IllegalStateException("Strategy must implement ReactiveDebounceStrategy: " + strategyClass.getName());
+        }
+        return (ReactiveDebounceStrategy) strategy;
+    }
+
+    /**
+     * 启动完成后为所有@Debounce方法建立索引，调用时不再查找注解和解析策略
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        log.info("Indexed {} debounce methods", methodRegistry.preload(applicationContext, method -> AsyncReturnType.of(method.getReturnType()) == AsyncReturnType.REACTIVE));
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 标记防抖存储访问失败，与目标方法抛出的异常区分开
+     */
+    private static final class StoreFailure extends RuntimeException {
+        StoreFailure(Throwable cause) {
+            super(cause.getMessage(), cause, false, false);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.debounce.common.async;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 防抖方法的返回值类型
+ * 异步返回值在方法返回时业务通常还没有开始执行，锁需要在异步结果完成时释放，而不是在方法返回时；
+ * 返回值类型按方法只解析一次，保存在方法描述中
+ * @author maxiaoweii
+ */
+public enum AsyncReturnType {
+
+    /**
+     * 同步返回值，方法返回即执行结束
+     */
+    SYNC {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            callback.run();
+            return result;
+        }
+    },
+
+    /**
+     * CompletableFuture等CompletionStage，在Future完成时回调
+     */
+    COMPLETION_STAGE {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            ((CompletionStage<?>) result).whenComplete((value, error) -> callback.run());
+            return result;
+        }
+    },
+
+    /**
+     * DeferredResult，在Spring MVC的异步请求结束（包括超时和出错）时回调；
+     * 不在Spring MVC请求中时使用DeferredResult自身的完成回调
+     */
+    DEFERRED_RESULT {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            WebAsyncManager asyncManager = currentAsyncManager();
+            if (asyncManager == null) {
+                ((DeferredResult<?>) result).onCompletion(callback);
+                return result;
+            }
+            asyncManager.registerDeferredResultInterceptor(callback, new DeferredResultProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+                    callback.run();
+                }
+            });
+            return result;
+        }
+    },
+
+    /**
+     * Callable，在Spring MVC的异步请求结束时回调；不在Spring MVC请求中时包装Callable，执行结束后回调
+     */
+    CALLABLE {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            if (registerCallableInterceptor(callback)) {
+                return result;
+            }
+            Callable<?> callable = (Callable<?>) result;
+            return (Callable<Object>) () -> {
+                try {
+                    return callable.call();
+                } finally {
+                    callback.run();
+                }
+            };
+        }
+    },
+
+    /**
+     * WebAsyncTask，在Spring MVC的异步请求结束时回调；不在Spring MVC请求中时使用任务自身的完成回调
+     */
+    WEB_ASYNC_TASK {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            if (!registerCallableInterceptor(callback)) {
+                ((WebAsyncTask<?>) result).onCompletion(callback);
+            }
+            return result;
+        }
+    },
+
+    /**
+     * Mono、Flux等响应式类型，在订阅结束（完成、出错或取消）时回调；
+     * 返回值未被订阅时锁在过期后自动释放
+     */
+    REACTIVE {
+        @Override
+        Object attach(Object result, Runnable callback) {
+            return ReactiveCompletion.whenComplete(result, callback);
+        }
+    };
+
+    /**
+     * 解析方法返回值类型
+     */
+    public static AsyncReturnType of(Class<?> returnType) {
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return COMPLETION_STAGE;
+        }
+        if (DeferredResult.class.isAssignableFrom(returnType)) {
+            return DEFERRED_RESULT;
+        }
+        if (Callable.class.isAssignableFrom(returnType)) {
+            return CALLABLE;
+        }
+        if (WebAsyncTask.class.isAssignableFrom(returnType)) {
+            return WEB_ASYNC_TASK;
+        }
+        if (ReactiveCompletion.isReactive(returnType)) {
+            return REACTIVE;
+        }
+        return SYNC;
+    }
+
+    /**
+     * 执行目标方法，在执行真正结束时回调一次
+     * 同步返回值和方法抛出异常时在返回前回调，异步返回值在结果完成时回调
+     *
+     * @param joinPoint  切点
+     * @param onComplete 执行结束的回调，例如释放锁，不应抛出异常
+     * @return 交给调用方的返回值，异步类型可能被包装
+     */
+    public Object proceed(ProceedingJoinPoint joinPoint, Runnable onComplete) throws Throwable {
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            onComplete.run();
+            throw e;
+        }
+        return whenComplete(result, onComplete);
+    }
+
+    /**
+     * 在返回值完成时回调一次，返回值为null时立即回调
+     *
+     * @return 交给调用方的返回值，异步类型可能被包装
+     */
+    public Object whenComplete(Object result, Runnable callback) {
+        if (result == null) {
+            callback.run();
+            return null;
+        }
+        // 框架回调与包装可能重复触发，只执行一次，避免释放其他请求持有的本地占用
+        AtomicBoolean done = new AtomicBoolean(false);
+        return attach(result, () -> {
+            if (done.compareAndSet(false, true)) {
+                callback.run();
+            }
+        });
+    }
+
+    abstract Object attach(Object result, Runnable callback);
+
+    private static boolean registerCallableInterceptor(Runnable callback) {
+        WebAsyncManager asyncManager = currentAsyncManager();
+        if (asyncManager == null) {
+            return false;
+        }
+        asyncManager.registerCallableInterceptor(callback, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                callback.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 当前Spring MVC请求的异步管理器，在调用处理方法前由RequestMappingHandlerAdapter创建
+     */
+    private static WebAsyncManager currentAsyncManager() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object asyncManager = attributes != null
+                ? attributes.getAttribute(WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        return asyncManager instanceof WebAsyncManager ? (WebAsyncManager) asyncManager : null;
+    }
+}
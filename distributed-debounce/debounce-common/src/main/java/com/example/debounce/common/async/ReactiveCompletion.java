@@ -0,0 +1,38 @@
+package com.example.debounce.common.async;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 响应式返回值的完成回调，单独成类，classpath中没有Reactor时不会被加载
+ * @author maxiaoweii
+ */
+final class ReactiveCompletion {
+
+    private static final boolean REACTOR_PRESENT =
+            ClassUtils.isPresent("reactor.core.publisher.Flux", ReactiveCompletion.class.getClassLoader());
+
+    private ReactiveCompletion() {
+    }
+
+    static boolean isReactive(Class<?> type) {
+        return REACTOR_PRESENT && ReactiveAdapterRegistry.getSharedInstance().getAdapter(type) != null;
+    }
+
+    static Object whenComplete(Object result, Runnable callback) {
+        ReactiveAdapter adapter = ReactiveAdapterRegistry.getSharedInstance().getAdapter(result.getClass());
+        if (adapter == null) {
+            callback.run();
+            return result;
+        }
+        Publisher<?> publisher = adapter.toPublisher(result);
+        Publisher<?> guarded = adapter.isMultiValue()
+                ? Flux.from(publisher).doFinally(signal -> callback.run())
+                : Mono.from(publisher).doFinally(signal -> callback.run());
+        return adapter.fromPublisher(guarded);
+    }
+}
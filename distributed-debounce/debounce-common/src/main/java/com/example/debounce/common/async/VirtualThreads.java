@@ -0,0 +1,94 @@
+package com.example.debounce.common.async;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程（Java 21+）的运行时适配
+ * 项目按Java 11编译，虚拟线程相关的API通过MethodHandle在运行时查找，低版本JVM上{@link #isSupported()}返回false
+ * @author maxiaoweii
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle IS_VIRTUAL;
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle isVirtual = null;
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle threadPerTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderType));
+            name = lookup.findVirtual(virtualBuilderType, "name",
+                    MethodType.methodType(virtualBuilderType, String.class, long.class));
+            factory = lookup.findVirtual(builderType, "factory", MethodType.methodType(ThreadFactory.class));
+            threadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            // Java 21以下没有虚拟线程
+            isVirtual = null;
+        }
+        IS_VIRTUAL = isVirtual;
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        THREAD_PER_TASK_EXECUTOR = threadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return IS_VIRTUAL != null;
+    }
+
+    /**
+     * 判断线程是否为虚拟线程，不支持虚拟线程的JVM上总是返回false
+     * 虚拟线程按请求创建、用完即弃，按线程缓存的对象无法复用，调用方据此改为直接创建
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器，线程名为prefix加序号
+     *
+     * @throws IllegalStateException 当前JVM不支持虚拟线程
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), prefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.debounce.common.batch;
+
+import com.example.debounce.common.async.VirtualThreads;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import com.example.debounce.common.timer.HashedTimingWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批量执行模式的执行器
+ * 每个@Debounce方法有一个收集中的批次，第一个调用加入时在时间轮上登记batchWindow后到期，
+ * 到期或达到batchSize时关闭批次交给执行器：一次{@link DebounceStore#tryAcquireAll}为所有key加锁，
+ * 加锁成功的调用按参数列组装后调用一次批量方法，结果按顺序分发给各调用方，执行结束后释放锁。
+ * 同一批次内key相同的调用和key已被其他请求持有的调用按提示信息拒绝。
+ * 调用方最多等待batchWindow加锁的过期时间，超时或批次无法提交给执行器时按提示信息失败。
+ * 批量方法通过代理对象调用，批量方法上的@Transactional等切面照常生效，
+ * 因此批量方法必须是public且不能是final或static。
+ * 防抖存储不可用时FAIL_CLOSED拒绝整批，其他策略不加锁直接执行
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MicroBatchExecutor implements InitializingBean, DisposableBean {
+
+    /**
+     * 时间轮刻度，单位毫秒，决定批次到期的精度
+     */
+    private static final long TICK_MILLIS = 5;
+
+    private final DebounceStore debounceStore;
+
+    private final Map<Method, Batcher> batchers = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Batch> wheel =
+            new HashedTimingWheel<>("debounce-batch", TICK_MILLIS, 512, due -> due.forEach(this::expire));
+    private ExecutorService executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = VirtualThreads.isSupported()
+                ? VirtualThreads.newThreadPerTaskExecutor("debounce-batch-")
+                : Executors.newCachedThreadPool(new BatchThreadFactory());
+    }
+
+    /**
+     * 以批量模式执行目标方法，调用方阻塞到所在批次执行结束
+     *
+     * @param joinPoint 切点，只使用代理对象和参数
+     * @param method    注解方法，用于查找批量方法
+     * @param settings  生效的防抖配置，value为锁的过期时间
+     * @param key       防抖key
+     * @param probe     该方法的监控指标
+     * @return 批量方法返回值中与本次调用对应的元素
+     */
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings, String key,
+                          DebounceMetrics.Probe probe) throws Throwable {
+        // 通过代理调用批量方法，批量方法上的事务等切面才会生效
+        Object proxy = joinPoint.getThis();
+        Batcher batcher = batchers.computeIfAbsent(method,
+                m -> new Batcher(resolveBatchMethod(proxy, m, settings.getBatchMethod())));
+        Entry entry = new Entry(key, joinPoint.getArgs());
+        List<Batch> closed = new ArrayList<>(2);
+        Batch created = null;
+        boolean duplicate;
+        // 不使用synchronized，竞争时虚拟线程可以让出载体线程
+        batcher.lock.lock();
+        try {
+            Batch batch = batcher.current;
+            if (batch != null && batch.proxy != proxy) {
+                // 同一方法的多个目标对象不混在一批
+                closed.add(batcher.close(batch));
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(batcher, proxy, settings, probe);
+                batcher.current = batch;
+                created = batch;
+            }
+            duplicate = !batch.keys.add(key);
+            if (!duplicate) {
+                batch.entries.add(entry);
+                if (batch.entries.size() >= settings.getBatchSize()) {
+                    closed.add(batcher.close(batch));
+                }
+            }
+        } finally {
+            batcher.lock.unlock();
+        }
+        if (duplicate) {
+            log.debug("Request is debounced in batch: {}", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+        if (created != null) {
+            wheel.schedule(created, settings.getBatchWindow());
+        }
+        closed.forEach(this::dispatch);
+
+        // 锁在ttl后过期，批量方法执行超过该时长时不再等待
+        try {
+            return entry.future.get(settings.getBatchWindow() + settings.getTtl(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            log.debug("Batch call timed out: {}", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+    }
+
+    /**
+     * 时间轮线程上的到期处理，批次已因数量关闭时忽略
+     */
+    private void expire(Batch batch) {
+        Batcher batcher = batch.batcher;
+        batcher.lock.lock();
+        try {
+            if (batch.closed) {
+                return;
+            }
+            batcher.close(batch);
+        } finally {
+            batcher.lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * 提交给执行器，执行器已关闭时整批按提示信息失败
+     */
+    private void dispatch(Batch batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            log.debug("Batch executor rejected a batch of {}: {}", batch.entries.size(), e.getMessage());
+            batch.entries.forEach(entry -> entry.future.completeExceptionally(
+                    new IllegalStateException(batch.settings.getMessage())));
+        }
+    }
+
+    private void run(Batch batch) {
+        DebounceSettings settings = batch.settings;
+        DebounceMetrics.Probe probe = batch.probe;
+        int size = batch.entries.size();
+        String owner = debounceStore.newOwnerToken();
+        List<String> keys = new ArrayList<>(size);
+        for (Entry entry : batch.entries) {
+            keys.add(entry.key);
+        }
+
+        boolean[] acquired;
+        boolean locked = true;
+        long start = System.nanoTime();
+        try {
+            acquired = debounceStore.tryAcquireAll(keys, Collections.nCopies(size, owner),
+                    Collections.nCopies(size, settings.getTtl()));
+            probe.recordStore(start);
+        } catch (RuntimeException e) {
+            StoreFailurePolicy policy = settings.getFailurePolicy();
+            probe.storeUnavailable(policy);
+            log.debug("Debounce store unavailable for batch of {}, applying {}: {}", size, policy, e.getMessage());
+            if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+                batch.entries.forEach(entry -> entry.future.completeExceptionally(
+                        new IllegalStateException(settings.getMessage())));
+                return;
+            }
+            acquired = new boolean[size];
+            Arrays.fill(acquired, true);
+            locked = false;
+        }
+
+        List<Entry> admitted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Entry entry = batch.entries.get(i);
+            if (acquired[i]) {
+                admitted.add(entry);
+                probe.admitted();
+            } else {
+                log.debug("Request is debounced: {}", CompactDebounceKeys.toDisplay(entry.key));
+                probe.rejected();
+                entry.future.completeExceptionally(new IllegalStateException(settings.getMessage()));
+            }
+        }
+        if (admitted.isEmpty()) {
+            return;
+        }
+
+        long acquiredAt = System.nanoTime();
+        try {
+            List<?> results = invoke(batch, admitted);
+            for (int i = 0; i < admitted.size(); i++) {
+                admitted.get(i).future.complete(results != null ? results.get(i) : null);
+            }
+        } catch (Throwable e) {
+            admitted.forEach(entry -> entry.future.completeExceptionally(e));
+        } finally {
+            if (locked) {
+                release(admitted, owner);
+            }
+            probe.recordHold(acquiredAt, settings.getValue());
+        }
+    }
+
+    /**
+     * 按参数列组装后调用批量方法
+     *
+     * @return 与调用一一对应的结果，批量方法无返回值时为null
+     */
+    private static List<?> invoke(Batch batch, List<Entry> admitted) throws Throwable {
+        Method batchMethod = batch.batcher.batchMethod;
+        Object[] columns = new Object[batchMethod.getParameterCount()];
+        for (int column = 0; column < columns.length; column++) {
+            List<Object> values = new ArrayList<>(admitted.size());
+            for (Entry entry : admitted) {
+                values.add(entry.args[column]);
+            }
+            columns[column] = values;
+        }
+        Object result;
+        try {
+            result = batchMethod.invoke(batch.proxy, columns);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+        if (batchMethod.getReturnType() == void.class) {
+            return null;
+        }
+        List<?> results = (List<?>) result;
+        if (results == null || results.size() != admitted.size()) {
+            throw new IllegalStateException("Batch method " + batchMethod.getName() + " returned "
+                    + (results == null ? "null" : results.size() + " results") + " for " + admitted.size() + " calls");
+        }
+        return results;
+    }
+
+    private void release(List<Entry> admitted, String owner) {
+        List<String> keys = new ArrayList<>(admitted.size());
+        for (Entry entry : admitted) {
+            keys.add(entry.key);
+        }
+        try {
+            debounceStore.releaseAll(keys, Collections.nCopies(keys.size(), owner));
+        } catch (RuntimeException e) {
+            log.debug("Failed to release {} debounce locks: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 查找并校验批量方法：同一个类、参数个数相同、每个参数都能接收List，返回void或List；
+     * 批量方法需要能通过代理调用，返回代理上可调用的方法（JDK动态代理时为接口方法）
+     */
+    private static Method resolveBatchMethod(Object proxy, Method method, String name) {
+        Class<?> targetClass = AopUtils.getTargetClass(proxy);
+        for (Method candidate : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+            if (!candidate.getName().equals(name) || candidate.getParameterCount() != method.getParameterCount()) {
+                continue;
+            }
+            boolean listParameters = Arrays.stream(candidate.getParameterTypes())
+                    .allMatch(type -> type.isAssignableFrom(ArrayList.class));
+            boolean returnsList = candidate.getReturnType() == void.class
+                    ? method.getReturnType() == void.class || method.getReturnType() == Void.class
+                    : List.class.isAssignableFrom(candidate.getReturnType());
+            if (listParameters && returnsList) {
+                int modifiers = candidate.getModifiers();
+                if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+                    // 代理不会拦截这些方法，调用时会跳过批量方法上的切面
+                    throw new IllegalStateException("Batch method " + targetClass.getName() + "." + name
+                            + " must be public, non-final and non-static to be invoked through the proxy");
+                }
+                Method invocable = AopUtils.selectInvocableMethod(candidate, proxy.getClass());
+                ReflectionUtils.makeAccessible(invocable);
+                return invocable;
+            }
+        }
+        throw new IllegalStateException("No batch method " + targetClass.getName() + "." + name + " with "
+                + method.getParameterCount() + " List parameters returning List for " + method.getName());
+    }
+
+    /**
+     * 关闭时尚未执行的批次按提示信息失败
+     */
+    @Override
+    public void destroy() {
+        wheel.close();
+        for (Batcher batcher : batchers.values()) {
+            Batch batch;
+            batcher.lock.lock();
+            try {
+                batch = batcher.current;
+                if (batch == null) {
+                    continue;
+                }
+                batcher.close(batch);
+            } finally {
+                batcher.lock.unlock();
+            }
+            batch.entries.forEach(entry -> entry.future.completeExceptionally(
+                    new IllegalStateException(batch.settings.getMessage())));
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 单个方法的批次收集器，当前批次由自身的锁保护
+     */
+    private static final class Batcher {
+        final ReentrantLock lock = new ReentrantLock();
+        final Method batchMethod;
+        Batch current;
+
+        Batcher(Method batchMethod) {
+            this.batchMethod = batchMethod;
+        }
+
+        Batch close(Batch batch) {
+            batch.closed = true;
+            if (current == batch) {
+                current = null;
+            }
+            return batch;
+        }
+    }
+
+    private static final class Batch {
+        final Batcher batcher;
+        /**
+         * 注解方法所在的代理对象，同一批次只有一个
+         */
+        final Object proxy;
+        final DebounceSettings settings;
+        final DebounceMetrics.Probe probe;
+        final Set<String> keys = new HashSet<>();
+        final List<Entry> entries = new ArrayList<>();
+        boolean closed;
+
+        Batch(Batcher batcher, Object proxy, DebounceSettings settings, DebounceMetrics.Probe probe) {
+            this.batcher = batcher;
+            this.proxy = proxy;
+            this.settings = settings;
+            this.probe = probe;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final Object[] args;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Entry(String key, Object[] args) {
+            this.key = key;
+            this.args = args;
+        }
+    }
+
+    private static final class BatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "debounce-batch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.debounce.common.cache;
+
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本地防抖近端缓存，记录当前节点正在持有的防抖key及其过期时间
+ * 同一节点上的重复请求直接在本地拒绝，只有每个key在本节点的第一次请求才会访问Redis
+ * @author maxiaoweii
+ */
+public class LocalDebounceCache {
+
+    /**
+     * 缓存条目超过该数量时触发一次过期清理
+     */
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    /**
+     * key -> 过期时间戳(毫秒)
+     */
+    private final ConcurrentHashMap<String, Long> heldKeys = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean cleaning = new AtomicBoolean(false);
+
+    /**
+     * {@link #tryAcquire}未占用成功时的返回值
+     */
+    public static final long NOT_ACQUIRED = 0;
+
+    /**
+     * 尝试在本地占用防抖key
+     *
+     * @param key       防抖key
+     * @param ttlMillis 占用时间，单位毫秒
+     * @return 占用成功返回本次占用的过期时间戳，释放时原样传入；本节点已持有未过期的同名key返回{@link #NOT_ACQUIRED}
+     */
+    public long tryAcquire(String key, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        // 过期时间晚于任何已过期的条目，可以作为本次占用的标识
+        Long expireAt = now + Math.max(ttlMillis, 1);
+        Long previous = heldKeys.putIfAbsent(key, expireAt);
+        if (previous == null) {
+            cleanupIfNecessary(now);
+            return expireAt;
+        }
+        // 已过期的条目允许被新的请求覆盖
+        return previous <= now && heldKeys.replace(key, previous, expireAt) ? expireAt : NOT_ACQUIRED;
+    }
+
+    /**
+     * 释放本地占用的key，只删除本次占用写入的条目；
+     * 本次占用过期后已被其他请求覆盖时不做任何事，避免删除新请求的占用
+     *
+     * @param stamp {@link #tryAcquire}的返回值
+     */
+    public void release(String key, long stamp) {
+        heldKeys.remove(key, stamp);
+    }
+
+    /**
+     * 当前缓存的条目数
+     */
+    public int size() {
+        return heldKeys.size();
+    }
+
+    /**
+     * 正常情况下key会在finally中释放，这里只清理因异常未释放而残留的过期条目
+     */
+    private void cleanupIfNecessary(long now) {
+        if (heldKeys.size() < CLEANUP_THRESHOLD || !cleaning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            heldKeys.entrySet().removeIf(entry -> entry.getValue() <= now);
+        } finally {
+            cleaning.set(false);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.debounce.common.coalesce;
+
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.replay.ResultReplayExecutor;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.KeyedMessage;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 请求合并执行器（single-flight）
+ * 同一节点上相同key的并发请求共享一个Future；跨节点时获得防抖锁的节点作为leader执行，
+ * 执行结束后将结果短暂保存并通过防抖存储发布，其他节点收到后直接返回。
+ * 等待超时或leader执行失败时，跟随者自行执行目标方法，因此只适用于幂等的只读接口。
+ * 防抖存储不可用时除FAIL_CLOSED外都在本节点执行，节点内的合并仍然生效
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SingleFlightExecutor implements InitializingBean {
+
+    public static final String CHANNEL = "debounce:coalesce";
+
+    /**
+     * 结果在存储中的保留时间，覆盖跟随者订阅前leader已发布的情况，单位毫秒
+     */
+    private static final long RESULT_GRACE_MILLIS = 1000;
+
+    private static final char SUCCESS = 'S';
+    private static final char FAILURE = 'F';
+
+    private final DebounceStore debounceStore;
+    private final ReplayCodec codec;
+
+    private final SingleFlightStats stats = new SingleFlightStats();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> remoteWaiters = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        debounceStore.subscribe(CHANNEL, this::onMessage);
+    }
+
+    public SingleFlightStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 以请求合并模式执行目标方法
+     *
+     * @param joinPoint 切点
+     * @param method    目标方法，用于还原返回值类型
+     * @param settings  生效的防抖配置，锁过期时间也是跟随者的最长等待时间
+     * @param key       防抖key
+     * @param probe     该方法的监控指标
+     */
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings, String key,
+                          DebounceMetrics.Probe probe) throws Throwable {
+        long ttl = settings.getTtl();
+        stats.recordRequest();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return awaitLocal(joinPoint, existing, ttl, probe);
+        }
+        try {
+            Object result = executeOrFollow(joinPoint, method, settings, key, probe);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object executeOrFollow(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings,
+                                   String key, DebounceMetrics.Probe probe) throws Throwable {
+        long ttl = settings.getTtl();
+        String owner = debounceStore.newOwnerToken();
+        long acquireStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = debounceStore.tryAcquire(key, owner, ttl);
+            probe.recordStore(acquireStart);
+        } catch (RuntimeException e) {
+            StoreFailurePolicy policy = settings.getFailurePolicy();
+            probe.storeUnavailable(policy);
+            log.debug("Debounce store unavailable, applying {}: {}", policy, e.getMessage());
+            if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+                throw new IllegalStateException(settings.getMessage());
+            }
+            return joinPoint.proceed();
+        }
+        if (acquired) {
+            return lead(joinPoint, key, owner, ttl, probe);
+        }
+
+        // 其他节点正在执行，等待其发布结果；先注册再查询，避免错过注册前发布的结果
+        long start = System.nanoTime();
+        CompletableFuture<String> remote = new CompletableFuture<>();
+        remoteWaiters.put(key, remote);
+        try {
+            String published = debounceStore.pollResult(key, key + ResultReplayExecutor.RESULT_SUFFIX);
+            if (published == null || published.isEmpty()) {
+                published = remote.get(ttl, TimeUnit.MILLISECONDS);
+            }
+            if (published != null) {
+                Object result = codec.decode(published, method);
+                stats.recordFollower(true, System.nanoTime() - start);
+                probe.coalesced();
+                log.debug("Coalesced with remote leader: {}", CompactDebounceKeys.toDisplay(key));
+                return result;
+            }
+        } catch (TimeoutException e) {
+            log.debug("Timed out waiting for remote leader: {}", CompactDebounceKeys.toDisplay(key));
+        } catch (RuntimeException e) {
+            log.debug("Failed to poll result of remote leader {}: {}", CompactDebounceKeys.toDisplay(key),
+                    e.getMessage());
+        } finally {
+            remoteWaiters.remove(key, remote);
+        }
+        stats.recordFallback();
+        probe.admitted();
+        return joinPoint.proceed();
+    }
+
+    private Object lead(ProceedingJoinPoint joinPoint, String key, String owner, long ttl,
+                        DebounceMetrics.Probe probe) throws Throwable {
+        stats.recordLeader();
+        probe.admitted();
+        long acquiredAt = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            publish(key, SUCCESS, codec.encode(result));
+            return result;
+        } catch (Throwable e) {
+            publish(key, FAILURE, "");
+            throw e;
+        } finally {
+            try {
+                debounceStore.release(key, owner);
+            } catch (RuntimeException e) {
+                log.debug("Failed to release debounce lock {}: {}", CompactDebounceKeys.toDisplay(key), e.getMessage());
+            }
+            probe.recordHold(acquiredAt, ttl);
+        }
+    }
+
+    private Object awaitLocal(ProceedingJoinPoint joinPoint, CompletableFuture<Object> leader, long ttl,
+                              DebounceMetrics.Probe probe) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = leader.get(ttl, TimeUnit.MILLISECONDS);
+            stats.recordFollower(false, System.nanoTime() - start);
+            probe.coalesced();
+            return result;
+        } catch (ExecutionException e) {
+            stats.recordFollower(false, System.nanoTime() - start);
+            probe.coalesced();
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            stats.recordFallback();
+            probe.admitted();
+            return joinPoint.proceed();
+        }
+    }
+
+    private void publish(String key, char status, String payload) {
+        try {
+            String message = KeyedMessage.encode(key, status + payload);
+            debounceStore.publish(CHANNEL, key, key + ResultReplayExecutor.RESULT_SUFFIX,
+                    payload, RESULT_GRACE_MILLIS, message);
+        } catch (RuntimeException e) {
+            // 发布失败时跟随者会在超时后自行执行
+            log.warn("Failed to publish coalesced result {}: {}", CompactDebounceKeys.toDisplay(key), e.getMessage());
+        }
+    }
+
+    private void onMessage(String body) {
+        KeyedMessage message = KeyedMessage.decode(body);
+        if (message == null || message.getBody().isEmpty()) {
+            return;
+        }
+        CompletableFuture<String> waiter = remoteWaiters.get(message.getKey());
+        if (waiter != null) {
+            boolean success = message.getBody().charAt(0) == SUCCESS;
+            waiter.complete(success ? message.getBody().substring(1) : null);
+        }
+    }
+}
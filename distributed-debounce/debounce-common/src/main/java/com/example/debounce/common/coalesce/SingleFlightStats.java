@@ -0,0 +1,84 @@
+package com.example.debounce.common.coalesce;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求合并统计
+ * @author maxiaoweii
+ */
+public class SingleFlightStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder leaderExecutions = new LongAdder();
+    private final LongAdder localFollowers = new LongAdder();
+    private final LongAdder remoteFollowers = new LongAdder();
+    private final LongAdder fallbackExecutions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordLeader() {
+        leaderExecutions.increment();
+    }
+
+    void recordFallback() {
+        fallbackExecutions.increment();
+    }
+
+    void recordFollower(boolean remote, long waitedNanos) {
+        (remote ? remoteFollowers : localFollowers).increment();
+        waitNanos.add(waitedNanos);
+        maxWaitNanos.accumulate(waitedNanos);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getLeaderExecutions() {
+        return leaderExecutions.sum();
+    }
+
+    public long getLocalFollowers() {
+        return localFollowers.sum();
+    }
+
+    public long getRemoteFollowers() {
+        return remoteFollowers.sum();
+    }
+
+    /**
+     * 等待失败后自行执行的次数
+     */
+    public long getFallbackExecutions() {
+        return fallbackExecutions.sum();
+    }
+
+    /**
+     * 合并率：共享了其他请求结果的请求占比
+     */
+    public double getCoalescingRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) (localFollowers.sum() + remoteFollowers.sum()) / total;
+    }
+
+    /**
+     * 跟随者等待leader结果的平均时间，单位毫秒
+     */
+    public double getAverageLeaderWaitMillis() {
+        long followers = localFollowers.sum() + remoteFollowers.sum();
+        return followers == 0 ? 0 : (double) waitNanos.sum() / followers / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 跟随者等待leader结果的最长时间，单位毫秒
+     */
+    public double getMaxLeaderWaitMillis() {
+        return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
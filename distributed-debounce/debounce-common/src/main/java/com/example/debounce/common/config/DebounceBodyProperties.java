@@ -0,0 +1,39 @@
+package com.example.debounce.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求体防抖配置
+ * 路径使用点号分隔的字段名，数组元素沿用所在字段的路径，"*"匹配任意一级字段，
+ * 例如：order.items.skuId、*.timestamp
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.body")
+public class DebounceBodyProperties {
+    /**
+     * 是否缓存JSON请求体用于生成防抖key
+     */
+    private boolean enabled = true;
+
+    /**
+     * 可缓存的最大请求体大小(字节)，不超过时按规范化JSON参与防抖key的计算；
+     * 超过时按原始字节哈希前maxSize+1个字节再加入Content-Length，includePaths和ignorePaths不再生效，
+     * 没有Content-Length（分块传输）时该请求不做防抖
+     */
+    private int maxSize = 64 * 1024;
+
+    /**
+     * 参与哈希的JSON路径，为空表示全部字段
+     */
+    private List<String> includePaths = new ArrayList<>();
+
+    /**
+     * 不参与哈希的JSON路径，例如时间戳、随机数等每次请求都会变化的字段
+     */
+    private List<String> ignorePaths = new ArrayList<>();
+}
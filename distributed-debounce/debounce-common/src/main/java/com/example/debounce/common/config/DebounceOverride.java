@@ -0,0 +1,56 @@
+package com.example.debounce.common.config;
+
+import com.example.debounce.common.store.StoreFailurePolicy;
+import lombok.Data;
+
+/**
+ * 按前缀覆盖@Debounce注解的配置，未设置的字段沿用注解中的值
+ * @author maxiaoweii
+ */
+@Data
+public class DebounceOverride {
+    /**
+     * 是否启用防抖
+     */
+    private Boolean enabled;
+
+    /**
+     * 防抖时间(毫秒)
+     */
+    private Long value;
+
+    /**
+     * 提示信息
+     */
+    private String message;
+
+    /**
+     * 租约时长(毫秒)
+     */
+    private Long leaseTime;
+
+    /**
+     * 重放窗口(毫秒)
+     */
+    private Long replayWindow;
+
+    /**
+     * 每个窗口放行的请求数
+     */
+    private Integer permits;
+
+    /**
+     * 防抖存储不可用时的处理方式
+     */
+    private StoreFailurePolicy failurePolicy;
+
+    /**
+     * 批量收集时长(毫秒)
+     */
+    private Long batchWindow;
+
+    /**
+     * 每批最多收集的调用数
+     */
+    private Integer batchSize;
+}
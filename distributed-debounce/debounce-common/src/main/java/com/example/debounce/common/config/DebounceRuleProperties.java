@@ -0,0 +1,36 @@
+package com.example.debounce.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 防抖规则配置，支持运行时从本地文件或Redis Hash热加载
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.rules")
+public class DebounceRuleProperties {
+    /**
+     * 启动时的覆盖配置，前缀 -> 覆盖配置，版本号为0
+     */
+    private Map<String, DebounceOverride> overrides = new LinkedHashMap<>();
+
+    /**
+     * 监听的规则文件路径(YAML或JSON)，为空表示不启用
+     */
+    private String file;
+
+    /**
+     * 规则所在的Redis Hash，"version"字段为版本号，其余字段为前缀 -> 覆盖配置的JSON，为空表示不启用
+     */
+    private String redisKey;
+
+    /**
+     * Redis规则的轮询间隔
+     */
+    private Duration pollInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,41 @@
+package com.example.debounce.common.config;
+
+import com.example.debounce.common.annotation.Debounce;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 防抖规则注册表
+ * 覆盖配置按版本整体替换，合并后的配置由方法描述按版本号缓存，版本变化后自动重新合并
+ * @author maxiaoweii
+ */
+public class DebounceRuleRegistry extends RuleSetRegistry<DebounceRuleSet, Map<String, DebounceOverride>> {
+
+    public DebounceRuleRegistry(DebounceRuleProperties properties) {
+        super("debounce", copyOf(properties.getOverrides()));
+    }
+
+    /**
+     * 合并注解与当前版本的覆盖配置，调用方按版本号缓存结果
+     */
+    public DebounceSettings resolve(Debounce debounce) {
+        Snapshot<Map<String, DebounceOverride>> current = snapshot();
+        return DebounceSettings.of(current.getVersion(), debounce, current.getRules().get(debounce.prefix()));
+    }
+
+    @Override
+    protected Map<String, DebounceOverride> compile(DebounceRuleSet ruleSet) {
+        return copyOf(ruleSet.getOverrides());
+    }
+
+    @Override
+    protected int size(DebounceRuleSet ruleSet) {
+        return ruleSet.getOverrides().size();
+    }
+
+    private static Map<String, DebounceOverride> copyOf(Map<String, DebounceOverride> overrides) {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(overrides));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.debounce.common.config;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 防抖规则热加载
+ * 监听本地规则文件的变更，并定期检查Redis Hash中的规则版本，有新版本时加载并应用到{@link DebounceRuleRegistry}
+ * @author maxiaoweii
+ */
+public class DebounceRuleReloader extends RuleSetReloader<DebounceRuleSet> {
+
+    public DebounceRuleReloader(DebounceRuleProperties properties, DebounceRuleRegistry registry,
+                                StringRedisTemplate redisTemplate) {
+        super("debounce-rule", properties.getFile(), properties.getRedisKey(), properties.getPollInterval(),
+                DebounceRuleSet.class, "overrides", registry, redisTemplate);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.debounce.common.config;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个版本的防抖规则，版本号只增不减，旧版本的规则不会覆盖新版本
+ * @author maxiaoweii
+ */
+@Data
+public class DebounceRuleSet implements VersionedRuleSet {
+    /**
+     * 规则版本
+     */
+    private long version;
+
+    /**
+     * 前缀 -> 覆盖配置
+     */
+    private Map<String, DebounceOverride> overrides = new LinkedHashMap<>();
+}
@@ -0,0 +1,61 @@
+package com.example.debounce.common.config;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import lombok.Getter;
+
+/**
+ * 生效的防抖配置，由@Debounce注解与当前版本的覆盖配置合并而成，不可变
+ * @author maxiaoweii
+ */
+@Getter
+public final class DebounceSettings {
+    /**
+     * 生成该配置时的规则版本
+     */
+    private final long version;
+    private final boolean enabled;
+    private final long value;
+    private final String message;
+    private final DebounceMode mode;
+    private final boolean lease;
+    private final long leaseTime;
+    private final long replayWindow;
+    private final RateLimitAlgorithm rateLimit;
+    private final int permits;
+    private final StoreFailurePolicy failurePolicy;
+    private final String batchMethod;
+    private final long batchWindow;
+    private final int batchSize;
+
+    private DebounceSettings(long version, Debounce debounce, DebounceOverride override) {
+        this.version = version;
+        this.enabled = override.getEnabled() != null ? override.getEnabled() : debounce.enabled();
+        this.value = override.getValue() != null ? override.getValue() : debounce.value();
+        this.message = override.getMessage() != null ? override.getMessage() : debounce.message();
+        this.mode = debounce.mode();
+        this.lease = debounce.lease();
+        this.leaseTime = override.getLeaseTime() != null ? override.getLeaseTime() : debounce.leaseTime();
+        this.replayWindow = override.getReplayWindow() != null ? override.getReplayWindow() : debounce.replayWindow();
+        this.rateLimit = debounce.rateLimit();
+        this.permits = override.getPermits() != null ? override.getPermits() : debounce.permits();
+        this.failurePolicy = override.getFailurePolicy() != null
+                ? override.getFailurePolicy() : debounce.failurePolicy();
+        this.batchMethod = debounce.batchMethod();
+        this.batchWindow = override.getBatchWindow() != null ? override.getBatchWindow() : debounce.batchWindow();
+        this.batchSize = override.getBatchSize() != null ? override.getBatchSize() : debounce.batchSize();
+    }
+
+    public static DebounceSettings of(long version, Debounce debounce, DebounceOverride override) {
+        return new DebounceSettings(version, debounce, override != null ? override : new DebounceOverride());
+    }
+
+    /**
+     * 锁的过期时间，租约模式下为租约时长
+     */
+    public long getTtl() {
+        return lease ? leaseTime : value;
+    }
+}
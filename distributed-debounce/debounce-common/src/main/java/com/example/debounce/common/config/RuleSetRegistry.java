@@ -0,0 +1,97 @@
+package com.example.debounce.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按版本号热替换的规则注册表
+ * 编译好的规则保存在不可变快照中，重新加载时整体替换快照（写时复制），
+ * 请求路径只读取volatile引用，不加锁，也不会看到只应用了一半的规则
+ * @param <S> 规则集
+ * @param <R> 编译后的规则
+ * @author maxiaoweii
+ */
+@Slf4j
+public abstract class RuleSetRegistry<S extends VersionedRuleSet, R> {
+
+    private final String name;
+    private volatile Snapshot<R> snapshot;
+    /**
+     * 最近一次应用的规则集，同一次保存触发的多个文件事件不重复告警
+     */
+    private S lastApplied;
+
+    /**
+     * @param name         规则名称，用于日志
+     * @param initialRules 启动时的规则，版本号为0
+     */
+    protected RuleSetRegistry(String name, R initialRules) {
+        this.name = name;
+        this.snapshot = new Snapshot<>(0, initialRules);
+    }
+
+    /**
+     * 编译规则集，在替换快照前调用
+     */
+    protected abstract R compile(S ruleSet);
+
+    /**
+     * 规则集中的规则数量，用于日志
+     */
+    protected abstract int size(S ruleSet);
+
+    /**
+     * 当前快照，同一次判断中需要版本号和规则一致时只读取一次
+     */
+    protected final Snapshot<R> snapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * 应用新版本的规则，版本号不大于当前版本时忽略并告警：
+     * 没有配置version（默认为0）或修改后没有增加版本号的规则不会生效
+     *
+     * @param ruleSet 规则
+     * @param source  规则来源，用于日志
+     * @return 是否已应用
+     */
+    public synchronized boolean apply(S ruleSet, String source) {
+        if (ruleSet.getVersion() <= snapshot.version) {
+            if (!ruleSet.equals(lastApplied)) {
+                log.warn("Ignored {} rules version {} from {}: current version is {}, bump the version to apply",
+                        name, ruleSet.getVersion(), source, snapshot.version);
+            }
+            return false;
+        }
+        // 先在快照外完成编译，再一次性替换
+        R rules = compile(ruleSet);
+        snapshot = new Snapshot<>(ruleSet.getVersion(), rules);
+        lastApplied = ruleSet;
+        log.info("Applied {} rules version {} from {}: {} rules", name, ruleSet.getVersion(), source, size(ruleSet));
+        return true;
+    }
+
+    /**
+     * 某个版本的规则
+     */
+    protected static final class Snapshot<R> {
+        private final long version;
+        private final R rules;
+
+        Snapshot(long version, R rules) {
+            this.version = version;
+            this.rules = rules;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public R getRules() {
+            return rules;
+        }
+    }
+}
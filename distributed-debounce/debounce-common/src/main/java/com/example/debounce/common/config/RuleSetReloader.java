@@ -0,0 +1,168 @@
+package com.example.debounce.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.util.StringUtils;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则热加载
+ * 监听本地规则文件的变更，并定期检查Redis Hash中的规则版本，有新版本时加载并应用到{@link RuleSetRegistry}。
+ * 规则文件是规则集的YAML或JSON；Redis Hash的"version"字段为版本号，其余字段为规则名 -> 规则的JSON
+ * @param <S> 规则集
+ * @author maxiaoweii
+ */
+@Slf4j
+public class RuleSetReloader<S extends VersionedRuleSet> implements InitializingBean, DisposableBean {
+
+    private static final String VERSION_FIELD = "version";
+
+    private final String name;
+    private final String file;
+    private final String redisKey;
+    private final Duration pollInterval;
+    private final Class<S> ruleSetType;
+    private final String rulesProperty;
+    private final RuleSetRegistry<S, ?> registry;
+    private final RedisOperations<String, String> redisOperations;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ScheduledExecutorService redisPoller;
+    private WatchService watchService;
+
+    /**
+     * @param name            名称，用于线程名和日志
+     * @param file            规则文件路径，为空表示不启用
+     * @param redisKey        规则所在的Redis Hash，为空表示不启用
+     * @param pollInterval    Redis规则的轮询间隔
+     * @param ruleSetType     规则集类型
+     * @param rulesProperty   规则集中保存规则的属性名，Redis Hash的规则字段放入该属性
+     * @param registry        应用规则的注册表
+     * @param redisOperations 读取Redis Hash，键和值都是字符串
+     */
+    public RuleSetReloader(String name, String file, String redisKey, Duration pollInterval, Class<S> ruleSetType,
+                           String rulesProperty, RuleSetRegistry<S, ?> registry,
+                           RedisOperations<String, String> redisOperations) {
+        this.name = name;
+        this.file = file;
+        this.redisKey = redisKey;
+        this.pollInterval = pollInterval;
+        this.ruleSetType = ruleSetType;
+        this.rulesProperty = rulesProperty;
+        this.registry = registry;
+        this.redisOperations = redisOperations;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (StringUtils.hasText(file)) {
+            Path path = Paths.get(file).toAbsolutePath();
+            loadFile(path);
+            watchFile(path);
+        }
+        if (StringUtils.hasText(redisKey)) {
+            redisPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, name + "-redis-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            redisPoller.scheduleWithFixedDelay(this::pollRedis, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void watchFile(Path path) throws IOException {
+        watchService = path.getFileSystem().newWatchService();
+        path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = key.pollEvents().stream()
+                            .anyMatch(event -> path.getFileName().equals(event.context()));
+                    key.reset();
+                    if (changed) {
+                        loadFile(path);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                // 应用关闭
+            }
+        }, name + "-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void loadFile(Path path) {
+        if (!Files.isRegularFile(path)) {
+            log.warn("Rule file for {} not found: {}", name, path);
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Object content = new Yaml().load(reader);
+            registry.apply(objectMapper.convertValue(content, ruleSetType), path.toString());
+        } catch (IOException | RuntimeException e) {
+            // 文件可能正在写入，等待下一次变更事件
+            log.warn("Failed to load {} rule file {}: {}", name, path, e.getMessage());
+        }
+    }
+
+    /**
+     * 先只读取版本号，版本变化时才读取整个Hash
+     */
+    private void pollRedis() {
+        try {
+            Object version = redisOperations.opsForHash().get(redisKey, VERSION_FIELD);
+            if (version == null || Long.parseLong(version.toString()) <= registry.getVersion()) {
+                return;
+            }
+            Map<Object, Object> entries = redisOperations.opsForHash().entries(redisKey);
+            Map<String, Object> content = new LinkedHashMap<>();
+            Map<String, Object> rules = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                String field = entry.getKey().toString();
+                if (VERSION_FIELD.equals(field)) {
+                    content.put(VERSION_FIELD, Long.parseLong(entry.getValue().toString()));
+                } else {
+                    rules.put(field, objectMapper.readTree(entry.getValue().toString()));
+                }
+            }
+            content.put(rulesProperty, rules);
+            registry.apply(objectMapper.convertValue(content, ruleSetType), "redis:" + redisKey);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load {} rules from redis {}: {}", name, redisKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (redisPoller != null) {
+            redisPoller.shutdownNow();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.debounce.common.config;
+
+/**
+ * 带版本号的规则集，版本号只增不减，旧版本的规则不会覆盖新版本
+ * @author maxiaoweii
+ */
+public interface VersionedRuleSet {
+
+    /**
+     * 规则版本
+     */
+    long getVersion();
+}
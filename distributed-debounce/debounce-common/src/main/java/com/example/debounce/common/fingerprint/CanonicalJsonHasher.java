@@ -0,0 +1,245 @@
+package com.example.debounce.common.fingerprint;
+
+import com.example.debounce.common.async.VirtualThreads;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于JsonParser的流式规范化JSON哈希
+ * 对象的每个字段单独哈希后累加，结果与字段顺序无关，等价于按key排序后哈希，
+ * 但无需构建对象树或缓冲字段；数组按元素顺序哈希。
+ * 只读取解析器内部的字符缓冲，稳定状态下除解析器本身外不产生对象
+ * @author maxiaoweii
+ */
+public class CanonicalJsonHasher {
+
+    public static final CanonicalJsonHasher DEFAULT =
+            new CanonicalJsonHasher(Collections.emptyList(), Collections.emptyList());
+
+    private static final int MAX_DEPTH = 64;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private static final int SKIP = 0;
+    private static final int DESCEND = 1;
+    private static final int HASH = 2;
+
+    private final String[][] includePaths;
+    private final String[][] ignorePaths;
+
+    public CanonicalJsonHasher(List<String> includePaths, List<String> ignorePaths) {
+        this.includePaths = split(includePaths);
+        this.ignorePaths = split(ignorePaths);
+    }
+
+    /**
+     * 计算JSON的规范化哈希，结果写入目标哈希器
+     *
+     * @return JSON格式错误或嵌套过深时返回false，目标哈希器不被修改
+     */
+    public boolean hash(byte[] json, int offset, int length, Hasher128 target) {
+        // 虚拟线程用完即弃，线程内缓存只会增加每个请求的开销，直接创建
+        State state = VirtualThreads.isVirtual(Thread.currentThread()) ? new State() : STATE.get();
+        try (JsonParser parser = JSON_FACTORY.createParser(json, offset, length)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return false;
+            }
+            if (!value(parser, token, state, 0, 0, includePaths.length == 0)) {
+                return false;
+            }
+            target.putLong(state.high).putLong(state.low);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 计算当前值的哈希，结果存放在state.high/low中
+     *
+     * @return 值被跳过时返回false
+     */
+    private boolean value(JsonParser parser, JsonToken token, State state, int depth, int pathLength,
+                          boolean included) throws IOException {
+        if (depth >= MAX_DEPTH) {
+            throw new IOException("JSON nested too deep");
+        }
+        switch (token) {
+            case START_OBJECT:
+                return object(parser, state, depth, pathLength, included);
+            case START_ARRAY:
+                return array(parser, state, depth, pathLength, included);
+            default:
+                if (!included) {
+                    return false;
+                }
+                scalar(parser, token, state.scratch.reset());
+                state.high = state.scratch.high();
+                state.low = state.scratch.low();
+                return true;
+        }
+    }
+
+    private boolean object(JsonParser parser, State state, int depth, int pathLength, boolean included)
+            throws IOException {
+        long sumHigh = 0;
+        long sumLow = 0;
+        int fields = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            state.path[pathLength] = name;
+            JsonToken valueToken = parser.nextToken();
+            int decision = included ? (matches(ignorePaths, state.path, pathLength + 1) ? SKIP : HASH)
+                    : decide(state.path, pathLength + 1);
+            if (decision == SKIP
+                    || !value(parser, valueToken, state, depth + 1, pathLength + 1, decision == HASH)) {
+                parser.skipChildren();
+                continue;
+            }
+            Hasher128 scratch = state.scratch.reset()
+                    .putString(name)
+                    .putLong(state.high)
+                    .putLong(state.low)
+                    .finish();
+            sumHigh += scratch.high();
+            sumLow += scratch.low();
+            fields++;
+        }
+        if (!included && fields == 0) {
+            return false;
+        }
+        state.scratch.reset()
+                .putByte('{')
+                .putLong(sumHigh)
+                .putLong(sumLow)
+                .putInt(fields)
+                .finish();
+        state.high = state.scratch.high();
+        state.low = state.scratch.low();
+        return true;
+    }
+
+    private boolean array(JsonParser parser, State state, int depth, int pathLength, boolean included)
+            throws IOException {
+        Hasher128 sequence = state.sequence(depth).reset().putByte('[');
+        int elements = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!value(parser, token, state, depth + 1, pathLength, included)) {
+                parser.skipChildren();
+                continue;
+            }
+            sequence.putLong(state.high).putLong(state.low);
+            elements++;
+        }
+        if (!included && elements == 0) {
+            return false;
+        }
+        sequence.putInt(elements).finish();
+        state.high = sequence.high();
+        state.low = sequence.low();
+        return true;
+    }
+
+    private static void scalar(JsonParser parser, JsonToken token, Hasher128 hasher) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                hasher.putByte('s');
+                break;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                hasher.putByte('n');
+                break;
+            case VALUE_TRUE:
+                hasher.putByte('t').finish();
+                return;
+            case VALUE_FALSE:
+                hasher.putByte('f').finish();
+                return;
+            default:
+                hasher.putByte('0').finish();
+                return;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        for (int i = offset; i < offset + length; i++) {
+            hasher.putChar(text[i]);
+        }
+        hasher.putInt(length).finish();
+    }
+
+    /**
+     * 未处于包含路径下时，判断当前字段是整体哈希、继续向下查找还是跳过
+     */
+    private int decide(String[] path, int length) {
+        if (matches(ignorePaths, path, length)) {
+            return SKIP;
+        }
+        int decision = SKIP;
+        for (String[] include : includePaths) {
+            if (prefixMatches(include, path, length)) {
+                if (include.length <= length) {
+                    return HASH;
+                }
+                decision = DESCEND;
+            }
+        }
+        return decision;
+    }
+
+    private static boolean matches(String[][] patterns, String[] path, int length) {
+        for (String[] pattern : patterns) {
+            if (pattern.length == length && prefixMatches(pattern, path, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean prefixMatches(String[] pattern, String[] path, int length) {
+        int n = Math.min(pattern.length, length);
+        for (int i = 0; i < n; i++) {
+            if (!"*".equals(pattern[i]) && !pattern[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[][] split(List<String> paths) {
+        if (paths == null) {
+            return new String[0][];
+        }
+        return paths.stream()
+                .filter(path -> path != null && !path.trim().isEmpty())
+                .map(path -> path.trim().split("\\."))
+                .toArray(String[][]::new);
+    }
+
+    /**
+     * 线程内复用的解析状态
+     */
+    private static final class State {
+        final String[] path = new String[MAX_DEPTH];
+        final Hasher128 scratch = new Hasher128();
+        final Hasher128[] sequences = new Hasher128[MAX_DEPTH];
+        long high;
+        long low;
+
+        Hasher128 sequence(int depth) {
+            Hasher128 sequence = sequences[depth];
+            if (sequence == null) {
+                sequence = new Hasher128();
+                sequences[depth] = sequence;
+            }
+            return sequence;
+        }
+    }
+}
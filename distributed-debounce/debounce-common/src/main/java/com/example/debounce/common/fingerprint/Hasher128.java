@@ -0,0 +1,180 @@
+package com.example.debounce.common.fingerprint;
+
+import com.example.debounce.common.async.VirtualThreads;
+
+/**
+ * 流式128位非加密哈希（MurmurHash3 x64_128）
+ * 字段直接写入哈希状态，不产生中间的Map、JSON字符串或十六进制字符串；
+ * 实例可通过{@link #reset()}复用，非线程安全，建议配合{@link #current()}按线程复用
+ * @author maxiaoweii
+ */
+public final class Hasher128 {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<Hasher128> CURRENT = ThreadLocal.withInitial(Hasher128::new);
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private int pending;
+    private long length;
+
+    private long high;
+    private long low;
+
+    /**
+     * 获取当前线程复用的哈希器，返回前已重置；虚拟线程上返回新的实例
+     */
+    public static Hasher128 current() {
+        if (VirtualThreads.isVirtual(Thread.currentThread())) {
+            return new Hasher128();
+        }
+        return CURRENT.get().reset();
+    }
+
+    public Hasher128 reset() {
+        h1 = 0;
+        h2 = 0;
+        k1 = 0;
+        k2 = 0;
+        pending = 0;
+        length = 0;
+        return this;
+    }
+
+    public Hasher128 putByte(int b) {
+        long v = b & 0xFFL;
+        if (pending < 8) {
+            k1 |= v << (pending << 3);
+        } else {
+            k2 |= v << ((pending - 8) << 3);
+        }
+        length++;
+        if (++pending == 16) {
+            mixBlock();
+        }
+        return this;
+    }
+
+    public Hasher128 putBytes(byte[] bytes, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            putByte(bytes[i]);
+        }
+        return this;
+    }
+
+    public Hasher128 putChar(char c) {
+        putByte(c);
+        return putByte(c >>> 8);
+    }
+
+    public Hasher128 putInt(int v) {
+        putByte(v);
+        putByte(v >>> 8);
+        putByte(v >>> 16);
+        return putByte(v >>> 24);
+    }
+
+    public Hasher128 putLong(long v) {
+        putInt((int) v);
+        return putInt((int) (v >>> 32));
+    }
+
+    /**
+     * 写入字符串，末尾附加长度作为分隔，保证("ab","c")与("a","bc")的哈希不同
+     */
+    public Hasher128 putString(CharSequence s) {
+        if (s == null) {
+            return putInt(-1);
+        }
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            putChar(s.charAt(i));
+        }
+        return putInt(len);
+    }
+
+    /**
+     * 结束计算，结果通过{@link #high()}、{@link #low()}获取
+     */
+    public Hasher128 finish() {
+        long a = h1;
+        long b = h2;
+        if (pending > 0) {
+            long t1 = k1 * C1;
+            t1 = Long.rotateLeft(t1, 31);
+            t1 *= C2;
+            a ^= t1;
+            long t2 = k2 * C2;
+            t2 = Long.rotateLeft(t2, 33);
+            t2 *= C1;
+            b ^= t2;
+        }
+        a ^= length;
+        b ^= length;
+        a += b;
+        b += a;
+        a = fmix(a);
+        b = fmix(b);
+        a += b;
+        b += a;
+        high = a;
+        low = b;
+        return this;
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    /**
+     * 将结果以32位十六进制形式直接写入builder
+     */
+    public StringBuilder appendHex(StringBuilder builder) {
+        return appendHex(appendHex(builder, high), low);
+    }
+
+    public static StringBuilder appendHex(StringBuilder builder, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            builder.append(HEX[(int) (value >>> shift) & 0xF]);
+        }
+        return builder;
+    }
+
+    private void mixBlock() {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0;
+        k2 = 0;
+        pending = 0;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.debounce.common.key;
+
+import com.example.debounce.common.fingerprint.Hasher128;
+
+/**
+ * 紧凑格式防抖key的编码
+ * key为"d:{prefix}:"后接16个字符的指纹，每个字符取值0~255，对应一个原始字节，
+ * 由{@link DebounceKeySerializer}按字节写入Redis；结果key等在其后追加的后缀仍为ASCII
+ * @author maxiaoweii
+ */
+public final class CompactDebounceKeys {
+
+    /**
+     * 紧凑key的命名空间，与可读key的"debounce:"不会互为前缀
+     */
+    public static final String NAMESPACE = "d:";
+
+    /**
+     * 指纹的字节数
+     */
+    public static final int FINGERPRINT_BYTES = 16;
+
+    private CompactDebounceKeys() {
+    }
+
+    /**
+     * 是否为紧凑格式的key
+     */
+    public static boolean isCompact(CharSequence key) {
+        return key.length() >= 2 && key.charAt(0) == 'd' && key.charAt(1) == ':';
+    }
+
+    /**
+     * 将哈希器的结果以大端字节序写入builder，每个字节一个字符
+     */
+    public static StringBuilder appendFingerprint(StringBuilder builder, Hasher128 hasher) {
+        return appendBytes(appendBytes(builder, hasher.high()), hasher.low());
+    }
+
+    private static StringBuilder appendBytes(StringBuilder builder, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            builder.append((char) ((value >>> shift) & 0xFF));
+        }
+        return builder;
+    }
+
+    /**
+     * 用于日志和监控展示的形式，紧凑key中的非可见字符以十六进制表示，其他key原样返回
+     */
+    public static String toDisplay(String key) {
+        if (!isCompact(key)) {
+            return key;
+        }
+        StringBuilder display = new StringBuilder(key.length() * 2);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 0x20 && c < 0x7F && c != '\\') {
+                display.append(c);
+            } else {
+                display.append("\\x").append(Character.forDigit(c >>> 4 & 0xF, 16))
+                        .append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        return display.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.debounce.common.key;
+
+/**
+ * 防抖key格式
+ * @author maxiaoweii
+ */
+public enum DebounceKeyFormat {
+    /**
+     * 可读格式：debounce:{prefix}:{路径}:{用户标识}:{参数哈希}，长度随路径和用户标识变化
+     */
+    READABLE,
+
+    /**
+     * 紧凑格式：d:{prefix}:后接路径、用户标识和参数的128位指纹，指纹以16个原始字节写入Redis
+     */
+    COMPACT
+}
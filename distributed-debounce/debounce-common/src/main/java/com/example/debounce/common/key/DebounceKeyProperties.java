@@ -0,0 +1,29 @@
+package com.example.debounce.common.key;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 防抖key格式配置
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.key")
+public class DebounceKeyProperties {
+    /**
+     * key格式，紧凑格式每个key约节省一半以上的Redis内存和网络字节
+     */
+    private DebounceKeyFormat format = DebounceKeyFormat.READABLE;
+
+    /**
+     * 调试模式，开启后忽略format始终生成可读key，便于在日志和Redis中按路径和用户查找
+     */
+    private boolean debug = false;
+
+    /**
+     * 实际使用的key格式
+     */
+    public DebounceKeyFormat getEffectiveFormat() {
+        return debug ? DebounceKeyFormat.READABLE : format;
+    }
+}
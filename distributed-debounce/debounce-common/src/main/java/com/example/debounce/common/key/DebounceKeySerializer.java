@@ -0,0 +1,63 @@
+package com.example.debounce.common.key;
+
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 防抖key的序列化器
+ * 紧凑key的每个字符直接写为一个字节，16字节指纹不会因UTF-8编码膨胀；其他key按UTF-8编码，与StringRedisSerializer一致。
+ * 防抖存储的模板始终使用该序列化器，切换key格式不需要修改存储配置
+ * @author maxiaoweii
+ */
+public final class DebounceKeySerializer implements RedisSerializer<String> {
+
+    public static final DebounceKeySerializer INSTANCE = new DebounceKeySerializer();
+
+    private DebounceKeySerializer() {
+    }
+
+    @Override
+    public byte[] serialize(String key) {
+        if (key == null) {
+            return null;
+        }
+        return key.getBytes(CompactDebounceKeys.isCompact(key) ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        boolean compact = bytes.length >= 2 && bytes[0] == 'd' && bytes[1] == ':';
+        return new String(bytes, compact ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 防抖存储使用的模板，值和脚本参数仍按UTF-8编码
+     */
+    public static StringRedisTemplate template(RedisConnectionFactory connectionFactory) {
+        StringRedisTemplate template = new StringRedisTemplate();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(INSTANCE);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 响应式防抖存储使用的模板
+     */
+    public static ReactiveStringRedisTemplate reactiveTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, String> context = RedisSerializationContext
+                .<String, String>newSerializationContext(RedisSerializer.string())
+                .key(INSTANCE)
+                .build();
+        return new ReactiveStringRedisTemplate(connectionFactory, context);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.debounce.common.lock;
+
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.prefilter.DebouncePreFilter;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 拒绝模式加锁与限流模式获取配额，Servlet切面共用
+ * 依次经过本地近缓存、预过滤和防抖存储，存储不可用时按规则的失败策略处理
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DebounceLockManager {
+
+    private final DebounceStore debounceStore;
+    private final LeaseWatchdog leaseWatchdog;
+    private final RateLimiter rateLimiter;
+    private final DebouncePreFilter preFilter;
+    private final LocalDebounceCache localCache;
+
+    /**
+     * 限流模式获取配额，不持有锁
+     *
+     * @throws IllegalStateException 窗口内的配额已用完
+     */
+    public void acquirePermit(String key, DebounceSettings settings, DebounceMetrics.Probe probe) {
+        long start = System.nanoTime();
+        boolean permitted;
+        try {
+            permitted = rateLimiter.tryAcquire(key, settings.getRateLimit(), settings.getPermits(),
+                    settings.getValue());
+            probe.recordStore(start);
+        } catch (RuntimeException e) {
+            // 防抖存储不可用，LOCAL_ONLY时退化为节点内限流
+            StoreFailurePolicy policy = settings.getFailurePolicy();
+            probe.storeUnavailable(policy);
+            log.debug("Debounce store unavailable, applying {}: {}", policy, e.getMessage());
+            permitted = policy == StoreFailurePolicy.FAIL_OPEN || policy == StoreFailurePolicy.LOCAL_ONLY
+                    && rateLimiter.tryAcquireLocally(key, settings.getRateLimit(), settings.getPermits(),
+                    settings.getValue());
+        }
+        if (!permitted) {
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+        probe.admitted();
+    }
+
+    /**
+     * 拒绝模式加锁
+     *
+     * @return 执行结束后释放锁的回调，存储不可用且按FAIL_OPEN放行时返回null
+     * @throws IllegalStateException 锁已被其他请求持有
+     */
+    public Runnable acquireLock(String key, DebounceSettings settings, DebounceMetrics.Probe probe) {
+        // 租约模式下锁只设置较短的过期时间，由看门狗续期
+        long ttl = settings.getTtl();
+
+        // 本节点已持有该key时直接拒绝，无需访问防抖存储
+        long localStamp = localCache.tryAcquire(key, ttl);
+        if (localStamp == LocalDebounceCache.NOT_ACQUIRED) {
+            log.debug("Request is debounced locally: {}", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+
+        // 尝试获取分布式锁，锁值为本次请求的owner令牌；预过滤确定是新key时锁异步写入
+        String owner = debounceStore.newOwnerToken();
+        DebouncePreFilter.Admission admission = preFilter.admit(key, owner, ttl, settings.isLease());
+        boolean locked = true;
+        if (!admission.isNew()) {
+            long start = System.nanoTime();
+            try {
+                locked = debounceStore.tryAcquire(key, owner, ttl);
+                probe.recordStore(start);
+            } catch (RuntimeException e) {
+                return acquireWithoutStore(settings, key, localStamp, probe, e);
+            }
+            admission.recordAcquired(locked);
+        }
+        if (!locked) {
+            // 锁由其他节点持有，本地不保留记录，避免对方释放后仍在本地误拒
+            localCache.release(key, localStamp);
+            log.debug("Request is debounced: {}", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+
+        probe.admitted();
+        long acquiredAt = System.nanoTime();
+        LeaseWatchdog.Lease lease = settings.isLease() ? leaseWatchdog.watch(key, owner, ttl) : null;
+        return () -> release(key, owner, localStamp, admission, lease, acquiredAt, settings, probe);
+    }
+
+    /**
+     * 释放锁，只删除自己持有的锁；释放失败时锁在过期后自动删除，不影响本次结果
+     */
+    private void release(String key, String owner, long localStamp, DebouncePreFilter.Admission admission,
+                         LeaseWatchdog.Lease lease, long acquiredAt, DebounceSettings settings,
+                         DebounceMetrics.Probe probe) {
+        if (lease != null) {
+            lease.cancel();
+        }
+        try {
+            preFilter.release(admission, key, owner);
+        } catch (RuntimeException e) {
+            log.debug("Failed to release debounce lock {}: {}", CompactDebounceKeys.toDisplay(key), e.getMessage());
+        } finally {
+            localCache.release(key, localStamp);
+            probe.recordHold(acquiredAt, settings.getValue());
+        }
+    }
+
+    /**
+     * 防抖存储不可用时按规则的失败策略处理，调用前本节点已占用该key
+     *
+     * @return LOCAL_ONLY时返回释放本地占用的回调，FAIL_OPEN时返回null
+     */
+    private Runnable acquireWithoutStore(DebounceSettings settings, String key, long localStamp,
+                                         DebounceMetrics.Probe probe, RuntimeException cause) {
+        StoreFailurePolicy policy = settings.getFailurePolicy();
+        probe.storeUnavailable(policy);
+        log.debug("Debounce store unavailable, applying {}: {}", policy, cause.getMessage());
+        if (policy == StoreFailurePolicy.LOCAL_ONLY) {
+            // 退化为节点内防抖：本地占用一直持有到执行结束
+            long acquiredAt = System.nanoTime();
+            return () -> {
+                localCache.release(key, localStamp);
+                probe.recordHold(acquiredAt, settings.getValue());
+            };
+        }
+        localCache.release(key, localStamp);
+        if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+            throw new IllegalStateException(settings.getMessage());
+        }
+        return null;
+    }
+}
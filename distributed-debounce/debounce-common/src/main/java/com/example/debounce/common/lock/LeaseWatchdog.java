@@ -0,0 +1,149 @@
+package com.example.debounce.common.lock;
+
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.timer.HashedTimingWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 防抖锁看门狗
+ * 租约模式下锁只设置较短的过期时间，方法执行期间由看门狗定期续期；
+ * 所有租约共享一个时间轮线程，同一刻度到期的租约合并为一次续期调用；
+ * 时间轮线程只负责调度，续期调用交给续期线程执行，存储变慢时不会推迟其他租约的到期处理
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LeaseWatchdog implements DisposableBean {
+
+    /**
+     * 时间轮刻度，单位毫秒
+     */
+    private static final long TICK_MILLIS = 50;
+
+    /**
+     * 续期线程数；每个租约同一时刻最多有一个续期任务，队列长度不超过租约数
+     */
+    private static final int RENEW_THREADS = 2;
+
+    private final DebounceStore debounceStore;
+    private final HashedTimingWheel<Lease> wheel =
+            new HashedTimingWheel<>("debounce-lease-watchdog", TICK_MILLIS, 512, this::dispatch);
+    private final ExecutorService renewer = Executors.newFixedThreadPool(RENEW_THREADS, new RenewerThreadFactory());
+
+    /**
+     * 开始为已获取的锁续期，在租约时长的1/3处续期一次
+     *
+     * @param key       防抖key
+     * @param owner     owner令牌
+     * @param leaseTime 租约时长，单位毫秒
+     * @return 租约，方法执行结束后需调用{@link Lease#cancel()}
+     */
+    public Lease watch(String key, String owner, long leaseTime) {
+        Lease lease = new Lease(key, owner, leaseTime);
+        wheel.schedule(lease, lease.renewInterval());
+        return lease;
+    }
+
+    /**
+     * 在时间轮线程上执行，只筛选仍有效的租约并提交续期任务；时间轮会复用传入的列表，需要复制
+     */
+    private void dispatch(List<Lease> due) {
+        List<Lease> active = new ArrayList<>(due.size());
+        for (Lease lease : due) {
+            if (lease.active) {
+                active.add(lease);
+            }
+        }
+        if (active.isEmpty()) {
+            return;
+        }
+        try {
+            renewer.execute(() -> renew(active));
+        } catch (RejectedExecutionException e) {
+            // 看门狗已关闭
+            log.debug("Debounce lease renewer is shut down, dropped {} leases", active.size());
+        }
+    }
+
+    private void renew(List<Lease> active) {
+        List<String> keys = new ArrayList<>(active.size());
+        List<String> owners = new ArrayList<>(active.size());
+        List<Long> ttls = new ArrayList<>(active.size());
+        for (Lease lease : active) {
+            keys.add(lease.key);
+            owners.add(lease.owner);
+            ttls.add(lease.leaseTime);
+        }
+        boolean[] renewed;
+        try {
+            renewed = debounceStore.extendAll(keys, owners, ttls);
+        } catch (RuntimeException e) {
+            // 续期失败时保留租约，下个周期重试，锁在租约时长内仍然有效
+            log.warn("Failed to renew {} debounce leases: {}", active.size(), e.getMessage());
+            active.forEach(lease -> wheel.schedule(lease, lease.renewInterval()));
+            return;
+        }
+        for (int i = 0; i < active.size(); i++) {
+            Lease lease = active.get(i);
+            if (renewed[i]) {
+                wheel.schedule(lease, lease.renewInterval());
+            } else if (lease.active) {
+                log.warn("Debounce lease lost before method completed: {}", lease.key);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        wheel.close();
+        renewer.shutdownNow();
+    }
+
+    /**
+     * 锁租约
+     */
+    public static final class Lease {
+        private final String key;
+        private final String owner;
+        private final long leaseTime;
+        private volatile boolean active = true;
+
+        Lease(String key, String owner, long leaseTime) {
+            this.key = key;
+            this.owner = owner;
+            this.leaseTime = leaseTime;
+        }
+
+        long renewInterval() {
+            return Math.max(leaseTime / 3, TICK_MILLIS);
+        }
+
+        /**
+         * 停止续期，锁的释放由调用方负责
+         */
+        public void cancel() {
+            active = false;
+        }
+    }
+
+    private static final class RenewerThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "debounce-lease-renewer-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
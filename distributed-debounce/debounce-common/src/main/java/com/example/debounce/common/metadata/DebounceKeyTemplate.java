@@ -0,0 +1,61 @@
+package com.example.debounce.common.metadata;
+
+import com.example.debounce.common.key.CompactDebounceKeys;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预编译的防抖key模板，固定部分"debounce:{prefix}:"和紧凑格式的"d:{prefix}:"只拼接一次
+ * @author maxiaoweii
+ */
+public final class DebounceKeyTemplate {
+
+    private static final String NAMESPACE = "debounce:";
+
+    private final String prefix;
+    private final String head;
+    private final String compactHead;
+
+    private DebounceKeyTemplate(String prefix) {
+        this.prefix = prefix;
+        this.head = StringUtils.hasText(prefix) ? NAMESPACE + prefix + ":" : NAMESPACE;
+        // 紧凑key的每个字符对应一个字节，前缀预先转换为UTF-8字节
+        this.compactHead = StringUtils.hasText(prefix)
+                ? CompactDebounceKeys.NAMESPACE
+                + new String(prefix.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1) + ":"
+                : CompactDebounceKeys.NAMESPACE;
+    }
+
+    public static DebounceKeyTemplate of(String prefix) {
+        return new DebounceKeyTemplate(prefix);
+    }
+
+    /**
+     * 注解中的原始前缀
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * key的固定部分
+     */
+    public String getHead() {
+        return head;
+    }
+
+    /**
+     * 以固定部分开头的key构建器
+     */
+    public StringBuilder newKeyBuilder() {
+        return new StringBuilder(128).append(head);
+    }
+
+    /**
+     * 以紧凑格式固定部分开头的key构建器，容量恰好容纳指纹
+     */
+    public StringBuilder newCompactKeyBuilder() {
+        return new StringBuilder(compactHead.length() + CompactDebounceKeys.FINGERPRINT_BYTES).append(compactHead);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.debounce.common.metadata;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceSettings;
+
+import java.lang.reflect.Method;
+
+/**
+ * 防抖方法描述，每个方法只构建一次
+ * 保存解析好的注解、策略单例、key模板和返回值类型，切面的常规路径不再做反射和Bean查找
+ * @author maxiaoweii
+ */
+public final class DebounceMethodDescriptor<S> {
+
+    private final Method method;
+    private final Debounce debounce;
+    private final S strategy;
+    private final DebounceKeyTemplate keyTemplate;
+    private final AsyncReturnType asyncReturnType;
+    private volatile DebounceSettings settings;
+
+    DebounceMethodDescriptor(Method method, Debounce debounce, S strategy) {
+        this.method = method;
+        this.debounce = debounce;
+        this.strategy = strategy;
+        this.keyTemplate = DebounceKeyTemplate.of(debounce.prefix());
+        this.asyncReturnType = AsyncReturnType.of(method.getReturnType());
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Debounce getDebounce() {
+        return debounce;
+    }
+
+    public S getStrategy() {
+        return strategy;
+    }
+
+    public DebounceKeyTemplate getKeyTemplate() {
+        return keyTemplate;
+    }
+
+    /**
+     * 返回值类型，异步返回值在结果完成时才释放锁
+     */
+    public AsyncReturnType getAsyncReturnType() {
+        return asyncReturnType;
+    }
+
+    /**
+     * 获取当前生效的配置，规则版本未变化时直接返回缓存的结果
+     */
+    public DebounceSettings getSettings(DebounceRuleRegistry ruleRegistry) {
+        DebounceSettings current = settings;
+        if (current == null || current.getVersion() != ruleRegistry.getVersion()) {
+            current = ruleRegistry.resolve(debounce);
+            settings = current;
+        }
+        return current;
+    }
+}
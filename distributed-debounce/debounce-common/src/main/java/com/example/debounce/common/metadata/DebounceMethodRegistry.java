@@ -0,0 +1,84 @@
+package com.example.debounce.common.metadata;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.strategy.DebounceStrategy;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 防抖方法描述注册表
+ * 启动时通过{@link #preload}为容器中所有@Debounce方法建立索引，策略按类型只解析一次；
+ * 之后每次调用只有一次Map查找，启动后才创建的Bean在首次调用时补充构建
+ * @author maxiaoweii
+ */
+public class DebounceMethodRegistry<S> {
+
+    private final Map<Method, DebounceMethodDescriptor<S>> descriptors = new ConcurrentHashMap<>();
+    /**
+     * 经过切点但没有@Debounce注解的方法，例如JDK代理传入的接口方法，记录后不再重复查找注解
+     */
+    private final Set<Method> undecorated = ConcurrentHashMap.newKeySet();
+    private final Map<Class<? extends DebounceStrategy>, S> strategies = new ConcurrentHashMap<>();
+    private final Function<Class<? extends DebounceStrategy>, S> strategyResolver;
+
+    /**
+     * @param strategyResolver 根据注解中的策略类型解析策略实例
+     */
+    public DebounceMethodRegistry(Function<Class<? extends DebounceStrategy>, S> strategyResolver) {
+        this.strategyResolver = strategyResolver;
+    }
+
+    /**
+     * 获取方法描述
+     *
+     * @return 方法上没有@Debounce注解时返回null
+     */
+    public DebounceMethodDescriptor<S> get(Method method) {
+        DebounceMethodDescriptor<S> descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            if (undecorated.contains(method)) {
+                return null;
+            }
+            Debounce debounce = AnnotatedElementUtils.findMergedAnnotation(method, Debounce.class);
+            if (debounce == null) {
+                undecorated.add(method);
+                return null;
+            }
+            descriptor = descriptors.computeIfAbsent(method, m -> new DebounceMethodDescriptor<>(m, debounce,
+                    strategies.computeIfAbsent(debounce.strategy(), strategyResolver)));
+        }
+        return descriptor;
+    }
+
+    /**
+     * 为容器中所有Bean的@Debounce方法构建描述，策略不合法时在启动阶段失败
+     *
+     * @param beanFactory 应用容器，只读取Bean的类型，不会提前创建Bean
+     * @param filter      只索引当前切面处理的方法
+     * @return 已索引的方法数量
+     */
+    public int preload(ListableBeanFactory beanFactory, Predicate<Method> filter) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(ClassUtils.getUserClass(beanType), this::get,
+                    method -> filter.test(method) && AnnotatedElementUtils.hasAnnotation(method, Debounce.class));
+        }
+        return descriptors.size();
+    }
+
+    public int size() {
+        return descriptors.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.debounce.common.metrics;
+
+import com.example.debounce.common.key.CompactDebounceKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 热点防抖key监控端点，通过/actuator/debounceHotKeys访问
+ * 紧凑格式的key以{@link CompactDebounceKeys#toDisplay}的形式展示
+ * @author maxiaoweii
+ */
+@Endpoint(id = "debounceHotKeys")
+@RequiredArgsConstructor
+public class DebounceHotKeysEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final DebounceMetrics metrics;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("capacity", metrics.getHotKeyCapacity());
+        report.put("samples", metrics.getHotKeySamples());
+        report.put("dropped", metrics.getHotKeyDropped());
+        report.put("keys", metrics.hotKeys(DEFAULT_LIMIT).stream()
+                .map(hotKey -> new HotKey(CompactDebounceKeys.toDisplay(hotKey.getKey()), hotKey.getCount(),
+                        hotKey.getError()))
+                .collect(Collectors.toList()));
+        return report;
+    }
+
+    /**
+     * 清空统计，重新开始观察
+     */
+    @DeleteOperation
+    public void reset() {
+        metrics.resetHotKeys();
+    }
+}
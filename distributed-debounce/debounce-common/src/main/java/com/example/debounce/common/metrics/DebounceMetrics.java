@@ -0,0 +1,224 @@
+package com.example.debounce.common.metrics;
+
+import com.example.debounce.common.store.StoreFailurePolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 防抖监控指标
+ * 每个防抖方法或URL规则对应一组预先注册的指标，首次调用时创建并缓存，
+ * 之后的请求只有一次Map查找，记录时不再构造标签；所有请求的key同时进入热点key统计。
+ * 容器中没有MeterRegistry时注册到全局注册表，未配置具体实现时指标为空操作
+ * @author maxiaoweii
+ */
+public class DebounceMetrics {
+
+    private final MeterRegistry registry;
+    private final SpaceSavingTopK hotKeys;
+    private final Map<Source, Map<Object, Probe>> probes = new EnumMap<>(Source.class);
+
+    @Autowired
+    public DebounceMetrics(ObjectProvider<MeterRegistry> registry, DebounceMetricsProperties properties) {
+        this(registry.getIfAvailable(() -> Metrics.globalRegistry), properties);
+    }
+
+    public DebounceMetrics(MeterRegistry registry, DebounceMetricsProperties properties) {
+        this.registry = registry;
+        this.hotKeys = new SpaceSavingTopK(properties.getHotKeyCapacity());
+        for (Source source : Source.values()) {
+            probes.put(source, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 获取防抖方法的指标，以注解前缀作为规则标签，未设置前缀时使用方法名
+     */
+    public Probe probe(Source source, Method method, String prefix) {
+        Map<Object, Probe> cached = probes.get(source);
+        Probe probe = cached.get(method);
+        if (probe == null) {
+            String rule = prefix.isEmpty()
+                    ? method.getDeclaringClass().getSimpleName() + "#" + method.getName() : prefix;
+            probe = cached.computeIfAbsent(method, m -> new Probe(source, rule));
+        }
+        return probe;
+    }
+
+    /**
+     * 获取URL规则的指标，以配置中的URL规则作为规则标签
+     */
+    public Probe probe(Source source, String pattern) {
+        Map<Object, Probe> cached = probes.get(source);
+        Probe probe = cached.get(pattern);
+        if (probe == null) {
+            probe = cached.computeIfAbsent(pattern, p -> new Probe(source, pattern));
+        }
+        return probe;
+    }
+
+    /**
+     * 按请求次数从高到低返回热点key
+     */
+    public List<HotKey> hotKeys(int limit) {
+        return hotKeys.top(limit);
+    }
+
+    public int getHotKeyCapacity() {
+        return hotKeys.getCapacity();
+    }
+
+    /**
+     * 参与热点统计的请求数
+     */
+    public long getHotKeySamples() {
+        return hotKeys.getTotal();
+    }
+
+    /**
+     * 因锁竞争未参与热点统计的请求数
+     */
+    public long getHotKeyDropped() {
+        return hotKeys.getDropped();
+    }
+
+    public void resetHotKeys() {
+        hotKeys.reset();
+    }
+
+    /**
+     * 指标来源
+     */
+    public enum Source {
+        ASPECT("aspect"),
+        COMPATIBLE_ASPECT("compatible-aspect"),
+        REACTIVE_ASPECT("reactive-aspect"),
+        URL_FILTER("url-filter");
+
+        private final String tag;
+
+        Source(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 单个防抖方法或URL规则的指标
+     */
+    public final class Probe {
+        private final Timer keyGeneration;
+        private final Timer storeRoundTrip;
+        private final Timer lockHold;
+        private final DistributionSummary windowUsage;
+        private final Counter admitted;
+        private final Counter rejected;
+        private final Counter replayed;
+        private final Counter coalesced;
+        private final Counter failedOpen;
+        private final Counter failedClosed;
+        private final Counter localOnly;
+
+        private Probe(Source source, String rule) {
+            Tags tags = Tags.of("source", source.tag, "rule", rule);
+            this.keyGeneration = Timer.builder("debounce.key.generation")
+                    .description("防抖key生成耗时").tags(tags).register(registry);
+            this.storeRoundTrip = Timer.builder("debounce.store.round.trip")
+                    .description("加锁、重放或限流时访问防抖存储的耗时").tags(tags).register(registry);
+            this.lockHold = Timer.builder("debounce.lock.hold")
+                    .description("防抖锁的实际持有时间").tags(tags).register(registry);
+            this.windowUsage = DistributionSummary.builder("debounce.lock.window.usage")
+                    .description("锁持有时间与配置的防抖窗口之比，大于1说明请求执行超过了窗口")
+                    .baseUnit("ratio").tags(tags).register(registry);
+            this.admitted = outcome(tags, "admitted");
+            this.rejected = outcome(tags, "rejected");
+            this.replayed = outcome(tags, "replayed");
+            this.coalesced = outcome(tags, "coalesced");
+            this.failedOpen = outcome(tags, "failed-open");
+            this.failedClosed = outcome(tags, "failed-closed");
+            this.localOnly = outcome(tags, "local-only");
+        }
+
+        private Counter outcome(Tags tags, String outcome) {
+            return Counter.builder("debounce.requests")
+                    .description("防抖处理的请求数").tags(tags.and("outcome", outcome)).register(registry);
+        }
+
+        /**
+         * 记录key生成耗时，并将key计入热点统计
+         *
+         * @param key        生成的防抖key
+         * @param startNanos 开始生成时的System.nanoTime()
+         */
+        public void recordKey(String key, long startNanos) {
+            keyGeneration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            hotKeys.offer(key);
+        }
+
+        /**
+         * 记录一次防抖存储访问的耗时
+         *
+         * @param startNanos 访问开始时的System.nanoTime()
+         */
+        public void recordStore(long startNanos) {
+            storeRoundTrip.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * 记录锁的持有时间
+         *
+         * @param startNanos   获得锁时的System.nanoTime()
+         * @param windowMillis 配置的防抖窗口，单位毫秒
+         */
+        public void recordHold(long startNanos, long windowMillis) {
+            long held = System.nanoTime() - startNanos;
+            lockHold.record(held, TimeUnit.NANOSECONDS);
+            if (windowMillis > 0) {
+                windowUsage.record((double) held / TimeUnit.MILLISECONDS.toNanos(windowMillis));
+            }
+        }
+
+        public void admitted() {
+            admitted.increment();
+        }
+
+        public void rejected() {
+            rejected.increment();
+        }
+
+        public void replayed() {
+            replayed.increment();
+        }
+
+        public void coalesced() {
+            coalesced.increment();
+        }
+
+        /**
+         * 防抖存储不可用，按失败策略放行、拒绝或退化为节点内防抖
+         */
+        public void storeUnavailable(StoreFailurePolicy policy) {
+            switch (policy) {
+                case FAIL_OPEN:
+                    failedOpen.increment();
+                    break;
+                case FAIL_CLOSED:
+                    failedClosed.increment();
+                    break;
+                default:
+                    localOnly.increment();
+            }
+        }
+    }
+}
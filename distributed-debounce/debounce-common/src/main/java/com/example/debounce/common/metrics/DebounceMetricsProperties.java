@@ -0,0 +1,17 @@
+package com.example.debounce.common.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 防抖监控指标配置
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.metrics")
+public class DebounceMetricsProperties {
+    /**
+     * 热点key统计的槽位数量，内存占用固定；为0时不统计热点key
+     */
+    private int hotKeyCapacity = 128;
+}
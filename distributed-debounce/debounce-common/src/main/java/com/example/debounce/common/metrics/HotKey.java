@@ -0,0 +1,36 @@
+package com.example.debounce.common.metrics;
+
+/**
+ * 热点key统计结果
+ * @author maxiaoweii
+ */
+public final class HotKey {
+
+    private final String key;
+    private final long count;
+    private final long error;
+
+    HotKey(String key, long count, long error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 估计的请求次数，不小于真实值
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 估计值的误差上界，真实次数不小于count-error
+     */
+    public long getError() {
+        return error;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.debounce.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于Space-Saving算法的热点key统计
+ * 固定数量的槽位按计数组成小顶堆，新key替换计数最小的槽位并继承其计数作为误差上界，
+ * 频率超过 总数/槽位数 的key一定会被保留。
+ * 记录时只尝试加锁，竞争失败的样本直接丢弃，请求线程不会在统计上阻塞；丢弃与key无关，不改变热点的相对排序
+ * @author maxiaoweii
+ */
+final class SpaceSavingTopK {
+
+    private final int capacity;
+    private final Slot[] heap;
+    private final Map<String, Slot> slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder dropped = new LongAdder();
+    private int size;
+    private long total;
+
+    SpaceSavingTopK(int capacity) {
+        this.capacity = capacity;
+        this.heap = new Slot[Math.max(capacity, 0)];
+        this.slots = new HashMap<>(Math.max(capacity, 1) * 2);
+    }
+
+    void offer(String key) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (!lock.tryLock()) {
+            dropped.increment();
+            return;
+        }
+        try {
+            total++;
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                slot.count++;
+                siftDown(slot.index);
+            } else if (size < capacity) {
+                slot = new Slot(key, 1, 0);
+                slot.index = size;
+                heap[size++] = slot;
+                slots.put(key, slot);
+                siftUp(slot.index);
+            } else {
+                // 替换计数最小的槽位，新key的真实计数不超过被替换者的计数+1
+                slot = heap[0];
+                slots.remove(slot.key);
+                slot.error = slot.count;
+                slot.count++;
+                slot.key = key;
+                slots.put(key, slot);
+                siftDown(0);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按计数从高到低返回热点key
+     *
+     * @param limit 最多返回的数量
+     */
+    List<HotKey> top(int limit) {
+        Slot[] snapshot;
+        lock.lock();
+        try {
+            snapshot = new Slot[size];
+            for (int i = 0; i < size; i++) {
+                Slot slot = heap[i];
+                snapshot[i] = new Slot(slot.key, slot.count, slot.error);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(snapshot, Comparator.comparingLong((Slot slot) -> slot.count).reversed());
+        int count = Math.min(Math.max(limit, 0), snapshot.length);
+        List<HotKey> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new HotKey(snapshot[i].key, snapshot[i].count, snapshot[i].error));
+        }
+        return result;
+    }
+
+    void reset() {
+        lock.lock();
+        try {
+            Arrays.fill(heap, null);
+            slots.clear();
+            size = 0;
+            total = 0;
+        } finally {
+            lock.unlock();
+        }
+        dropped.reset();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 参与统计的请求数
+     */
+    long getTotal() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 因锁竞争未参与统计的请求数
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private void siftUp(int index) {
+        Slot slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= slot.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(slot, index);
+    }
+
+    private void siftDown(int index) {
+        Slot slot = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (slot.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(slot, index);
+    }
+
+    private void place(Slot slot, int index) {
+        heap[index] = slot;
+        slot.index = index;
+    }
+
+    private static final class Slot {
+        String key;
+        long count;
+        long error;
+        int index;
+
+        Slot(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.debounce.common.prefilter;
+
+import com.example.debounce.common.fingerprint.Hasher128;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.store.DebounceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 防抖key本地预过滤
+ * 每个节点用固定内存的分代布隆过滤器记录最近出现过的key指纹，新指纹定期通过防抖存储的发布订阅广播给其他节点。
+ * 过滤器确定没有出现过的key不再同步访问Redis：锁由后台线程批量异步写入（请求在写入前结束则完全不访问Redis），
+ * 或在SKIP策略下完全不写；可能重复的key照常同步加锁。
+ * 待写入的锁数量有上限，Redis变慢导致积压时新key退回同步加锁，内存不随积压增长；
+ * 写入中的锁由请求线程登记释放，写入线程在写入完成后释放，写入失败只影响失败的锁。
+ * 广播间隔内首次到达不同节点的相同请求可能同时被放行，只适用于能容忍该窗口的接口；租约模式不经过预过滤
+ * @author maxiaoweii
+ */
+@Slf4j
+public class DebouncePreFilter implements InitializingBean, DisposableBean {
+
+    public static final String CHANNEL = "debounce:prefilter";
+
+    private static final int MAX_WRITE_BATCH = 256;
+
+    private final DebouncePreFilterProperties properties;
+    private final DebounceStore debounceStore;
+    private final GenerationalBloomFilter filter;
+    private final PreFilterStats stats;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final BlockingQueue<PendingLock> pendingWrites;
+
+    private final Admission bypass = new Admission();
+    private final Admission probable = new Admission() {
+        @Override
+        public void recordAcquired(boolean acquired) {
+            stats.recordProbable(!acquired);
+        }
+    };
+    private final Admission skipped = new Admission() {
+        @Override
+        public boolean isNew() {
+            return true;
+        }
+    };
+
+    private volatile DeltaBuffer delta;
+    private ScheduledExecutorService scheduler;
+    private Thread writer;
+    private volatile boolean running;
+
+    public DebouncePreFilter(DebouncePreFilterProperties properties, DebounceStore debounceStore) {
+        this.properties = properties;
+        this.debounceStore = debounceStore;
+        // 未启用时不分配过滤器内存
+        int sizeBytes = properties.isEnabled() ? properties.getSizeBytes() : Long.BYTES;
+        this.filter = new GenerationalBloomFilter(sizeBytes, properties.getGenerations(), properties.getHashes());
+        this.stats = new PreFilterStats(filter);
+        this.delta = new DeltaBuffer(properties.getMaxBroadcastSize());
+        this.pendingWrites = new LinkedBlockingQueue<>(Math.max(properties.getMaxPendingWrites(), 1));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        debounceStore.subscribe(CHANNEL, this::onDelta);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "debounce-prefilter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long rotateInterval = properties.getWindow().toMillis() / Math.max(properties.getGenerations() - 1, 1);
+        scheduler.scheduleAtFixedRate(filter::rotate, rotateInterval, rotateInterval, TimeUnit.MILLISECONDS);
+        long broadcastInterval = properties.getBroadcastInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::broadcast, broadcastInterval, broadcastInterval, TimeUnit.MILLISECONDS);
+
+        running = true;
+        if (properties.getPolicy() == DebouncePreFilterProperties.Policy.WRITE_BEHIND) {
+            writer = new Thread(this::writeLoop, "debounce-prefilter-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        log.info("Debounce pre-filter enabled: {} bytes, {} generations, policy {}", filter.sizeInBytes(),
+                properties.getGenerations(), properties.getPolicy());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public PreFilterStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 判断key是否需要同步加锁，本地已占用key之后调用
+     *
+     * @param key       防抖key
+     * @param owner     owner令牌
+     * @param ttlMillis 锁过期时间，单位毫秒
+     * @param lease     是否为租约模式
+     * @return {@link Admission#isNew()}为true时视为已加锁，否则需要同步加锁；
+     * 待写入队列已满时返回需要同步加锁的结果
+     */
+    public Admission admit(String key, String owner, long ttlMillis, boolean lease) {
+        if (!running || lease) {
+            return bypass;
+        }
+        long fingerprint = Hasher128.current().putString(key).finish().high();
+        if (filter.mightContain(fingerprint)) {
+            return probable;
+        }
+        filter.put(fingerprint);
+        if (!delta.add(fingerprint)) {
+            stats.recordDropped();
+        }
+        stats.recordNew();
+        if (properties.getPolicy() == DebouncePreFilterProperties.Policy.SKIP) {
+            return skipped;
+        }
+        PendingLock pending = new PendingLock(key, owner, ttlMillis);
+        if (!pendingWrites.offer(pending)) {
+            stats.recordWriteBehindOverflow();
+            return bypass;
+        }
+        return pending;
+    }
+
+    /**
+     * 释放锁，替代直接调用{@link DebounceStore#release(String, String)}
+     */
+    public void release(Admission admission, String key, String owner) {
+        if (admission == skipped) {
+            return;
+        }
+        if (!(admission instanceof PendingLock)) {
+            debounceStore.release(key, owner);
+            return;
+        }
+        PendingLock pending = (PendingLock) admission;
+        while (true) {
+            int state = pending.state.get();
+            if (state == PendingLock.QUEUED) {
+                if (pending.state.compareAndSet(PendingLock.QUEUED, PendingLock.CANCELLED)) {
+                    // 锁还未写入，请求已结束，无需访问Redis
+                    stats.recordWriteBehindCancelled();
+                    return;
+                }
+            } else if (state == PendingLock.WRITING) {
+                if (pending.state.compareAndSet(PendingLock.WRITING, PendingLock.RELEASE_REQUESTED)) {
+                    // 锁正在写入，由写入线程在写入完成后释放
+                    return;
+                }
+            } else {
+                if (state == PendingLock.WRITTEN) {
+                    debounceStore.release(key, owner);
+                }
+                // 未写入成功时没有需要释放的锁
+                return;
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingLock> batch = new ArrayList<>(MAX_WRITE_BATCH);
+        while (running || !pendingWrites.isEmpty()) {
+            try {
+                PendingLock first = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingWrites.drainTo(batch, MAX_WRITE_BATCH - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} debounce locks behind: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批锁，写入期间请求已结束的锁在写入后立即释放；
+     * 写入失败时该批请求失去跨节点保护，不影响请求本身，也不影响其他批次
+     */
+    void flush(List<PendingLock> batch) {
+        List<PendingLock> acquires = new ArrayList<>(batch.size());
+        List<String> keys = new ArrayList<>(batch.size());
+        List<String> owners = new ArrayList<>(batch.size());
+        List<Long> ttls = new ArrayList<>(batch.size());
+        for (PendingLock pending : batch) {
+            if (pending.state.compareAndSet(PendingLock.QUEUED, PendingLock.WRITING)) {
+                acquires.add(pending);
+                keys.add(pending.key);
+                owners.add(pending.owner);
+                ttls.add(pending.ttlMillis);
+            }
+        }
+        if (acquires.isEmpty()) {
+            return;
+        }
+        boolean[] acquired = null;
+        try {
+            acquired = debounceStore.tryAcquireAll(keys, owners, ttls);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} debounce locks behind: {}", acquires.size(), e.getMessage());
+        }
+
+        List<String> releaseKeys = new ArrayList<>();
+        List<String> releaseOwners = new ArrayList<>();
+        for (int i = 0; i < acquires.size(); i++) {
+            PendingLock pending = acquires.get(i);
+            boolean written = acquired != null && i < acquired.length && acquired[i];
+            if (acquired != null && !written) {
+                // 其他节点在指纹到达前已持有该key，本次请求已被放行
+                stats.recordWriteBehindConflict();
+                log.debug("Debounce key was already held by another node: {}",
+                        CompactDebounceKeys.toDisplay(pending.key));
+            }
+            int next = written ? PendingLock.WRITTEN : PendingLock.NOT_WRITTEN;
+            if (!pending.state.compareAndSet(PendingLock.WRITING, next) && written) {
+                releaseKeys.add(pending.key);
+                releaseOwners.add(pending.owner);
+            }
+        }
+        if (releaseKeys.isEmpty()) {
+            return;
+        }
+        try {
+            debounceStore.releaseAll(releaseKeys, releaseOwners);
+        } catch (RuntimeException e) {
+            // 锁在过期后自动失效
+            log.warn("Failed to release {} debounce locks written behind: {}", releaseKeys.size(), e.getMessage());
+        }
+    }
+
+    private void broadcast() {
+        DeltaBuffer current = delta;
+        if (current.isEmpty()) {
+            return;
+        }
+        delta = new DeltaBuffer(properties.getMaxBroadcastSize());
+        long[] fingerprints = current.drain();
+        ByteBuffer buffer = ByteBuffer.allocate(fingerprints.length * Long.BYTES);
+        for (long fingerprint : fingerprints) {
+            buffer.putLong(fingerprint);
+        }
+        String message = nodeId + '\n' + Base64.getEncoder().encodeToString(buffer.array());
+        try {
+            debounceStore.publish(CHANNEL, CHANNEL, CHANNEL, "", 0, message);
+            stats.recordBroadcast(fingerprints.length);
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast {} debounce fingerprints: {}", fingerprints.length, e.getMessage());
+        }
+    }
+
+    private void onDelta(String message) {
+        int separator = message.indexOf('\n');
+        if (separator < 0 || message.startsWith(nodeId + '\n')) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(message.substring(separator + 1)));
+        int count = buffer.remaining() / Long.BYTES;
+        for (int i = 0; i < count; i++) {
+            filter.put(buffer.getLong());
+        }
+        stats.recordReceived(count);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 预过滤结果
+     */
+    public static class Admission {
+
+        Admission() {
+        }
+
+        /**
+         * 是否为确定的新key，为true时无需同步加锁
+         */
+        public boolean isNew() {
+            return false;
+        }
+
+        /**
+         * 记录同步加锁的结果，用于统计误判率
+         */
+        public void recordAcquired(boolean acquired) {
+        }
+    }
+
+    /**
+     * 等待异步写入的锁
+     */
+    static final class PendingLock extends Admission {
+        static final int QUEUED = 0;
+        static final int WRITING = 1;
+        static final int WRITTEN = 2;
+        static final int NOT_WRITTEN = 3;
+        static final int CANCELLED = 4;
+        /**
+         * 写入期间请求已结束，写入成功后由写入线程释放
+         */
+        static final int RELEASE_REQUESTED = 5;
+
+        final String key;
+        final String owner;
+        final long ttlMillis;
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        PendingLock(String key, String owner, long ttlMillis) {
+            this.key = key;
+            this.owner = owner;
+            this.ttlMillis = ttlMillis;
+        }
+
+        @Override
+        public boolean isNew() {
+            return true;
+        }
+    }
+
+    /**
+     * 一个广播周期内的新指纹，容量固定，写满后新指纹不再广播
+     */
+    private static final class DeltaBuffer {
+        private final long[] fingerprints;
+        private final AtomicInteger size = new AtomicInteger();
+
+        DeltaBuffer(int capacity) {
+            this.fingerprints = new long[Math.max(capacity, 1)];
+        }
+
+        boolean add(long fingerprint) {
+            int index = size.getAndIncrement();
+            if (index >= fingerprints.length) {
+                return false;
+            }
+            fingerprints[index] = fingerprint;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size.get() == 0;
+        }
+
+        /**
+         * 替换为新缓冲区后调用，替换前已取得下标的写入可能尚未完成，这些位置为0并被跳过
+         */
+        long[] drain() {
+            int count = Math.min(size.get(), fingerprints.length);
+            long[] result = new long[count];
+            int written = 0;
+            for (int i = 0; i < count; i++) {
+                if (fingerprints[i] != 0) {
+                    result[written++] = fingerprints[i];
+                }
+            }
+            return written == count ? result : Arrays.copyOf(result, written);
+        }
+    }
+}
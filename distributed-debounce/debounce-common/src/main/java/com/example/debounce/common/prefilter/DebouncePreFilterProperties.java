@@ -0,0 +1,70 @@
+package com.example.debounce.common.prefilter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 防抖key本地预过滤配置
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.prefilter")
+public class DebouncePreFilterProperties {
+    /**
+     * 是否启用，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 确定是新key时的处理方式
+     */
+    private Policy policy = Policy.WRITE_BEHIND;
+
+    /**
+     * 过滤器占用的内存，单位字节，与key数量无关
+     */
+    private int sizeBytes = 1 << 20;
+
+    /**
+     * 代数，指纹在(generations-1)到generations个代周期后过期
+     */
+    private int generations = 4;
+
+    /**
+     * 每个指纹置位的数量
+     */
+    private int hashes = 3;
+
+    /**
+     * 指纹至少保留的时长，应大于各接口的防抖时间
+     */
+    private Duration window = Duration.ofSeconds(30);
+
+    /**
+     * 向其他节点广播新指纹的间隔
+     */
+    private Duration broadcastInterval = Duration.ofMillis(200);
+
+    /**
+     * 单次广播的最大指纹数，超出的指纹只在本节点生效
+     */
+    private int maxBroadcastSize = 8192;
+
+    /**
+     * WRITE_BEHIND策略下等待写入的锁数量上限，超出时新key退回同步加锁
+     */
+    private int maxPendingWrites = 10_000;
+
+    public enum Policy {
+        /**
+         * 新key的锁异步批量写入Redis，请求在写入前结束时不访问Redis
+         */
+        WRITE_BEHIND,
+        /**
+         * 新key不访问Redis，其他节点只能通过指纹广播得知，广播间隔内跨节点的重复请求可能被放行
+         */
+        SKIP
+    }
+}
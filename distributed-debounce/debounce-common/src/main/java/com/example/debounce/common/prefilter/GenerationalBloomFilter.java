@@ -0,0 +1,135 @@
+package com.example.debounce.common.prefilter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按时间分代的布隆过滤器
+ * 内存固定为generations个等长位数组，新指纹只写入当前代，查询检查所有代；
+ * 每经过一个代周期清空最老的一代并作为新的当前代，指纹因此在(generations-1)到generations个周期后自然过期，
+ * 无需计数器即可删除过期元素。写入通过CAS置位，读写都不加锁
+ * @author maxiaoweii
+ */
+final class GenerationalBloomFilter {
+
+    private final AtomicLongArray[] generations;
+    private final LongAdder[] setBits;
+    private final long bitsPerGeneration;
+    private final int hashes;
+    private final AtomicInteger current = new AtomicInteger();
+
+    /**
+     * @param totalBytes  总内存，平均分配给各代
+     * @param generations 代数，至少为2
+     * @param hashes      每个指纹置位的数量
+     */
+    GenerationalBloomFilter(int totalBytes, int generations, int hashes) {
+        int count = Math.max(generations, 2);
+        int words = Math.max(totalBytes / count / Long.BYTES, 1);
+        this.generations = new AtomicLongArray[count];
+        this.setBits = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            this.generations[i] = new AtomicLongArray(words);
+            this.setBits[i] = new LongAdder();
+        }
+        this.bitsPerGeneration = (long) words * Long.SIZE;
+        this.hashes = Math.max(hashes, 1);
+    }
+
+    /**
+     * 指纹是否可能已存在于任意一代中；返回false时一定不存在
+     */
+    boolean mightContain(long fingerprint) {
+        for (AtomicLongArray generation : generations) {
+            if (contains(generation, fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 写入当前代
+     */
+    void put(long fingerprint) {
+        int index = current.get();
+        AtomicLongArray generation = generations[index];
+        long h1 = fingerprint;
+        long h2 = secondHash(fingerprint);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitsPerGeneration);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = generation.getAndAccumulate(word, mask, (value, m) -> value | m);
+            if ((previous & mask) == 0) {
+                setBits[index].increment();
+            }
+        }
+    }
+
+    /**
+     * 清空最老的一代并切换为当前代，只应由单个线程调用
+     */
+    void rotate() {
+        int next = (current.get() + 1) % generations.length;
+        AtomicLongArray oldest = generations[next];
+        for (int i = 0; i < oldest.length(); i++) {
+            oldest.set(i, 0);
+        }
+        setBits[next].reset();
+        current.set(next);
+    }
+
+    /**
+     * 根据各代的填充率估算的误判率：任意一代误判即误判
+     */
+    double estimatedFalsePositiveRate() {
+        double allNegative = 1;
+        for (LongAdder bits : setBits) {
+            double fill = Math.min((double) bits.sum() / bitsPerGeneration, 1);
+            allNegative *= 1 - Math.pow(fill, hashes);
+        }
+        return 1 - allNegative;
+    }
+
+    /**
+     * 所有代的平均填充率
+     */
+    double fillRatio() {
+        long total = 0;
+        for (LongAdder bits : setBits) {
+            total += bits.sum();
+        }
+        return (double) total / (bitsPerGeneration * generations.length);
+    }
+
+    long sizeInBytes() {
+        return bitsPerGeneration / Byte.SIZE * generations.length;
+    }
+
+    private boolean contains(AtomicLongArray generation, long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = secondHash(fingerprint);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitsPerGeneration);
+            if ((generation.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 由64位指纹派生第二个哈希（双重哈希），节点间广播时每个指纹只需8字节
+     */
+    private static long secondHash(long fingerprint) {
+        long h = fingerprint;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
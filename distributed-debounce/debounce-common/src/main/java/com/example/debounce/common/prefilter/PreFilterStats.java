@@ -0,0 +1,142 @@
+package com.example.debounce.common.prefilter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预过滤统计
+ * @author maxiaoweii
+ */
+public class PreFilterStats {
+
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder probableDuplicates = new LongAdder();
+    private final LongAdder confirmedDuplicates = new LongAdder();
+    private final LongAdder writeBehindConflicts = new LongAdder();
+    private final LongAdder writeBehindCancelled = new LongAdder();
+    private final LongAdder writeBehindOverflows = new LongAdder();
+    private final LongAdder fingerprintsBroadcast = new LongAdder();
+    private final LongAdder fingerprintsReceived = new LongAdder();
+    private final LongAdder fingerprintsDropped = new LongAdder();
+    private final GenerationalBloomFilter filter;
+
+    PreFilterStats(GenerationalBloomFilter filter) {
+        this.filter = filter;
+    }
+
+    void recordNew() {
+        definitelyNew.increment();
+    }
+
+    void recordProbable(boolean confirmed) {
+        probableDuplicates.increment();
+        if (confirmed) {
+            confirmedDuplicates.increment();
+        }
+    }
+
+    void recordWriteBehindConflict() {
+        writeBehindConflicts.increment();
+    }
+
+    void recordWriteBehindCancelled() {
+        writeBehindCancelled.increment();
+    }
+
+    void recordWriteBehindOverflow() {
+        writeBehindOverflows.increment();
+    }
+
+    void recordBroadcast(int fingerprints) {
+        fingerprintsBroadcast.add(fingerprints);
+    }
+
+    void recordReceived(int fingerprints) {
+        fingerprintsReceived.add(fingerprints);
+    }
+
+    void recordDropped() {
+        fingerprintsDropped.increment();
+    }
+
+    /**
+     * 确定是新key、未同步访问Redis的请求数
+     */
+    public long getDefinitelyNew() {
+        return definitelyNew.sum();
+    }
+
+    /**
+     * 过滤器命中、走Redis的请求数
+     */
+    public long getProbableDuplicates() {
+        return probableDuplicates.sum();
+    }
+
+    /**
+     * 过滤器命中且Redis确认锁已被持有的请求数
+     */
+    public long getConfirmedDuplicates() {
+        return confirmedDuplicates.sum();
+    }
+
+    /**
+     * 观测误判率：过滤器命中但Redis中没有锁的请求占所有"不是重复"请求的比例。
+     * 其中包含锁已释放但指纹尚未过期的真实旧key，因此是误判率的上界
+     */
+    public double getObservedFalsePositiveRate() {
+        long unconfirmed = probableDuplicates.sum() - confirmedDuplicates.sum();
+        long negatives = definitelyNew.sum() + unconfirmed;
+        return negatives == 0 ? 0 : (double) unconfirmed / negatives;
+    }
+
+    /**
+     * 按当前填充率估算的理论误判率
+     */
+    public double getEstimatedFalsePositiveRate() {
+        return filter.estimatedFalsePositiveRate();
+    }
+
+    public double getFillRatio() {
+        return filter.fillRatio();
+    }
+
+    public long getSizeInBytes() {
+        return filter.sizeInBytes();
+    }
+
+    /**
+     * 异步写入时发现锁已被其他节点持有的次数，即广播间隔内漏过的跨节点重复请求
+     */
+    public long getWriteBehindConflicts() {
+        return writeBehindConflicts.sum();
+    }
+
+    /**
+     * 请求在锁写入前已结束、无需访问Redis的次数
+     */
+    public long getWriteBehindCancelled() {
+        return writeBehindCancelled.sum();
+    }
+
+    /**
+     * 待写入队列已满、退回同步加锁的次数
+     */
+    public long getWriteBehindOverflows() {
+        return writeBehindOverflows.sum();
+    }
+
+    public long getFingerprintsBroadcast() {
+        return fingerprintsBroadcast.sum();
+    }
+
+    public long getFingerprintsReceived() {
+        return fingerprintsReceived.sum();
+    }
+
+    /**
+     * 超过单次广播上限而未广播的指纹数
+     */
+    public long getFingerprintsDropped() {
+        return fingerprintsDropped.sum();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.debounce.common.ratelimit;
+
+/**
+ * 限流算法，窗口内最多放行permits个请求
+ * @author maxiaoweii
+ */
+public enum RateLimitAlgorithm {
+    /**
+     * 令牌桶：容量为permits，每个窗口匀速补充permits个令牌，允许短时突发
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * 滑动窗口日志：记录窗口内每个请求的时间戳，计数精确，内存占用与permits成正比
+     */
+    SLIDING_LOG,
+
+    /**
+     * 滑动窗口计数：当前窗口计数加上一窗口按剩余比例加权的计数，每个key只保存两个计数
+     */
+    SLIDING_WINDOW
+}
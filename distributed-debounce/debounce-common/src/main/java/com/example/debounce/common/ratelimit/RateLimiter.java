@@ -0,0 +1,169 @@
+package com.example.debounce.common.ratelimit;
+
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.store.ReactiveDebounceStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 限流器
+ * 每个请求在防抖存储中执行一次原子的检查并扣减；被拒绝时存储返回最早可能获得配额的等待时间，
+ * 该时间内同一key的请求直接在本地拒绝，超限的客户端持续重试也不会产生存储访问。
+ * 存储不可用时可退化为进程内限流，配额按节点计算
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RateLimiter implements DisposableBean {
+
+    /**
+     * 限流key后缀，与防抖锁使用不同的数据结构，规则切换模式时不会互相冲突
+     */
+    public static final String KEY_SUFFIX = ":rate";
+
+    /**
+     * 本地拒绝条目超过该数量时触发一次过期清理
+     */
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final DebounceStore debounceStore;
+
+    /**
+     * key -> 本地拒绝截止时间戳(毫秒)
+     */
+    private final ConcurrentHashMap<String, Long> blockedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean cleaning = new AtomicBoolean(false);
+
+    /**
+     * 进程内限流使用的存储，首次退化时创建
+     */
+    private volatile InMemoryDebounceStore localStore;
+    private final ReentrantLock localStoreLock = new ReentrantLock();
+
+    /**
+     * 申请一个配额
+     *
+     * @param key          防抖key
+     * @param algorithm    限流算法
+     * @param permits      每个窗口的配额
+     * @param windowMillis 窗口长度，单位毫秒
+     * @return 获得配额返回true
+     */
+    public boolean tryAcquire(String key, RateLimitAlgorithm algorithm, int permits, long windowMillis) {
+        long now = System.currentTimeMillis();
+        if (isBlocked(key, now)) {
+            return false;
+        }
+        long wait = debounceStore.acquirePermit(key + KEY_SUFFIX, debounceStore.newOwnerToken(), algorithm,
+                Math.max(permits, 1), windowMillis);
+        return wait <= 0 || block(key, now, wait);
+    }
+
+    /**
+     * 通过响应式存储申请一个配额，本地拒绝与同步调用共用
+     *
+     * @param store        响应式防抖存储
+     * @param key          防抖key
+     * @param algorithm    限流算法
+     * @param permits      每个窗口的配额
+     * @param windowMillis 窗口长度，单位毫秒
+     * @return 获得配额时为true
+     */
+    public Mono<Boolean> tryAcquire(ReactiveDebounceStore store, String key, RateLimitAlgorithm algorithm,
+                                    int permits, long windowMillis) {
+        return Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            if (isBlocked(key, now)) {
+                return Mono.just(false);
+            }
+            return store.acquirePermit(key + KEY_SUFFIX, store.newOwnerToken(), algorithm, Math.max(permits, 1),
+                    windowMillis).map(wait -> wait <= 0 || block(key, now, wait));
+        });
+    }
+
+    private boolean isBlocked(String key, long now) {
+        Long until = blockedUntil.get(key);
+        if (until != null) {
+            if (until > now) {
+                log.debug("Request is rate limited locally: {}", CompactDebounceKeys.toDisplay(key));
+                return true;
+            }
+            blockedUntil.remove(key, until);
+        }
+        return false;
+    }
+
+    /**
+     * 记录本地拒绝截止时间
+     *
+     * @return 总是返回false，表示本次请求被拒绝
+     */
+    private boolean block(String key, long now, long wait) {
+        // 存储返回的是最早可能获得配额的时间，本地拒绝不会超过该时间，不会误拒
+        blockedUntil.merge(key, now + wait, Math::max);
+        cleanupIfNecessary(now);
+        log.debug("Request is rate limited: {}, retry after {}ms", CompactDebounceKeys.toDisplay(key), wait);
+        return false;
+    }
+
+    /**
+     * 在进程内申请一个配额，用于防抖存储不可用时退化为节点内限流
+     *
+     * @return 获得配额返回true
+     */
+    public boolean tryAcquireLocally(String key, RateLimitAlgorithm algorithm, int permits, long windowMillis) {
+        InMemoryDebounceStore store = localStore;
+        if (store == null) {
+            localStoreLock.lock();
+            try {
+                store = localStore;
+                if (store == null) {
+                    store = new InMemoryDebounceStore();
+                    localStore = store;
+                }
+            } finally {
+                localStoreLock.unlock();
+            }
+        }
+        return store.acquirePermit(key + KEY_SUFFIX, "", algorithm, Math.max(permits, 1), windowMillis) <= 0;
+    }
+
+    /**
+     * 当前本地拒绝的key数量
+     */
+    public int blockedSize() {
+        return blockedUntil.size();
+    }
+
+    private void cleanupIfNecessary(long now) {
+        if (blockedUntil.size() < CLEANUP_THRESHOLD || !cleaning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            blockedUntil.entrySet().removeIf(entry -> entry.getValue() <= now);
+        } finally {
+            cleaning.set(false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        localStoreLock.lock();
+        try {
+            if (localStore != null) {
+                localStore.destroy();
+            }
+        } finally {
+            localStoreLock.unlock();
+        }
+    }
+}
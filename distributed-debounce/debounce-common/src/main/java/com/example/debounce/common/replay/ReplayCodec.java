@@ -0,0 +1,71 @@
+package com.example.debounce.common.replay;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法返回值的序列化，用于在Redis中保存并重放首个请求的结果
+ * ResponseEntity会保存状态码、响应头和响应体，重放时按方法声明的泛型类型还原
+ * @author maxiaoweii
+ */
+public class ReplayCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public String encode(Object result) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        if (result instanceof ResponseEntity) {
+            ResponseEntity<?> entity = (ResponseEntity<?>) result;
+            node.put("status", entity.getStatusCodeValue());
+            node.set("headers", objectMapper.valueToTree(entity.getHeaders()));
+            node.set("body", objectMapper.valueToTree(entity.getBody()));
+        } else {
+            node.set("body", objectMapper.valueToTree(result));
+        }
+        return objectMapper.writeValueAsString(node);
+    }
+
+    public Object decode(String json, Method method) throws IOException {
+        return decode(json, method.getGenericReturnType());
+    }
+
+    /**
+     * 按指定类型还原结果，用于Mono等包装类型中的元素类型
+     */
+    public Object decode(String json, Type type) throws IOException {
+        JsonNode node = objectMapper.readTree(json);
+        JavaType returnType = objectMapper.getTypeFactory().constructType(type);
+        if (!ResponseEntity.class.isAssignableFrom(returnType.getRawClass())) {
+            return readBody(node, returnType);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        JsonNode headersNode = node.get("headers");
+        if (headersNode != null && headersNode.isObject()) {
+            Map<String, List<String>> values = objectMapper.convertValue(headersNode,
+                    objectMapper.getTypeFactory().constructMapType(Map.class,
+                            objectMapper.getTypeFactory().constructType(String.class),
+                            objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)));
+            values.forEach(headers::addAll);
+        }
+        Object body = readBody(node, returnType.containedTypeOrUnknown(0));
+        return new ResponseEntity<>(body, headers, node.get("status").asInt());
+    }
+
+    private Object readBody(JsonNode node, JavaType type) throws IOException {
+        JsonNode body = node.get("body");
+        if (body == null || body.isNull() || type.getRawClass() == void.class || type.getRawClass() == Void.class) {
+            return null;
+        }
+        return objectMapper.readerFor(type).readValue(body);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.debounce.common.replay;
+
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.store.AcquireResult;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 幂等重放模式的执行器
+ * 同一节点上处理中的重复请求直接等待首个请求的Future；其他节点的重复请求轮询存储中的结果；
+ * 首个请求完成后结果同时保存在本地和防抖存储，重放窗口内的重复请求直接返回该结果。
+ * 防抖存储不可用时除FAIL_CLOSED外都在本节点执行，节点内的等待和本地重放仍然生效
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ResultReplayExecutor {
+
+    public static final String RESULT_SUFFIX = ":result";
+
+    /**
+     * 等待其他节点结果时的轮询间隔，单位毫秒
+     */
+    public static final long POLL_INTERVAL_MILLIS = 50;
+
+    /**
+     * 本地结果条目超过该数量时触发一次过期清理
+     */
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final DebounceStore debounceStore;
+    private final LeaseWatchdog leaseWatchdog;
+    private final ReplayCodec codec;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResult> localResults = new ConcurrentHashMap<>();
+
+    /**
+     * 以幂等重放模式执行目标方法
+     *
+     * @param joinPoint 切点
+     * @param method    目标方法，用于还原返回值类型
+     * @param settings  生效的防抖配置
+     * @param key       防抖key
+     * @param probe     该方法的监控指标
+     * @return 本次执行或首个请求的结果
+     */
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings, String key,
+                          DebounceMetrics.Probe probe) throws Throwable {
+        long ttl = settings.getTtl();
+        StoredResult stored = localResults.get(key);
+        if (stored != null && stored.expireAt > System.currentTimeMillis()) {
+            log.debug("Replaying local result: {}", CompactDebounceKeys.toDisplay(key));
+            probe.replayed();
+            return stored.value;
+        }
+
+        // 本节点已有相同请求在处理中，等待其结果
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            log.debug("Waiting for in-flight request: {}", CompactDebounceKeys.toDisplay(key));
+            return await(existing, ttl, settings, probe);
+        }
+
+        try {
+            Object result = executeOrReplay(joinPoint, method, settings, key, ttl, probe);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object executeOrReplay(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings,
+                                   String key, long ttl, DebounceMetrics.Probe probe) throws Throwable {
+        String resultKey = key + RESULT_SUFFIX;
+        String owner = debounceStore.newOwnerToken();
+        long start = System.nanoTime();
+        AcquireResult acquire;
+        try {
+            acquire = debounceStore.tryAcquireOrReplay(key, resultKey, owner, ttl);
+            probe.recordStore(start);
+        } catch (RuntimeException e) {
+            return executeWithoutStore(joinPoint, settings, key, probe, e);
+        }
+        if (acquire.getReplay() != null) {
+            log.debug("Replaying stored result: {}", CompactDebounceKeys.toDisplay(key));
+            probe.replayed();
+            return codec.decode(acquire.getReplay(), method);
+        }
+        if (!acquire.isAcquired()) {
+            return awaitRemote(joinPoint, method, settings, key, resultKey, ttl, probe);
+        }
+
+        probe.admitted();
+        long acquiredAt = System.nanoTime();
+        LeaseWatchdog.Lease lease = settings.isLease() ? leaseWatchdog.watch(key, owner, ttl) : null;
+        try {
+            Object result = joinPoint.proceed();
+            store(key, resultKey, result, settings.getReplayWindow());
+            return result;
+        } finally {
+            if (lease != null) {
+                lease.cancel();
+            }
+            try {
+                debounceStore.release(key, owner);
+            } catch (RuntimeException e) {
+                log.debug("Failed to release debounce lock {}: {}", CompactDebounceKeys.toDisplay(key), e.getMessage());
+            }
+            probe.recordHold(acquiredAt, settings.getValue());
+        }
+    }
+
+    /**
+     * 防抖存储不可用时按规则的失败策略处理，结果只保存在本地
+     */
+    private Object executeWithoutStore(ProceedingJoinPoint joinPoint, DebounceSettings settings, String key,
+                                       DebounceMetrics.Probe probe, RuntimeException cause) throws Throwable {
+        StoreFailurePolicy policy = settings.getFailurePolicy();
+        probe.storeUnavailable(policy);
+        log.debug("Debounce store unavailable, applying {}: {}", policy, cause.getMessage());
+        if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+            throw new IllegalStateException(settings.getMessage());
+        }
+        Object result = joinPoint.proceed();
+        storeLocally(key, result, settings.getReplayWindow());
+        return result;
+    }
+
+    /**
+     * 保存结果，先写存储再释放锁，其他节点在锁释放前即可读到结果
+     */
+    private void store(String key, String resultKey, Object result, long replayWindow) {
+        storeLocally(key, result, replayWindow);
+        try {
+            debounceStore.storeResult(key, resultKey, codec.encode(result), replayWindow);
+        } catch (Exception e) {
+            // 结果保存失败只影响其他节点的重放，不影响本次请求
+            log.warn("Failed to store debounce result {}: {}", CompactDebounceKeys.toDisplay(key), e.getMessage());
+        }
+    }
+
+    private void storeLocally(String key, Object result, long replayWindow) {
+        long now = System.currentTimeMillis();
+        if (localResults.size() >= CLEANUP_THRESHOLD) {
+            localResults.entrySet().removeIf(entry -> entry.getValue().expireAt <= now);
+        }
+        localResults.put(key, new StoredResult(result, now + replayWindow));
+    }
+
+    private Object await(CompletableFuture<Object> future, long ttl, DebounceSettings settings,
+                         DebounceMetrics.Probe probe) throws Throwable {
+        try {
+            Object result = future.get(ttl, TimeUnit.MILLISECONDS);
+            probe.replayed();
+            return result;
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            probe.rejected();
+            throw new IllegalStateException(settings.getMessage());
+        }
+    }
+
+    /**
+     * 首个请求在其他节点处理中，轮询存储直到结果出现、锁被释放或超时
+     */
+    private Object awaitRemote(ProceedingJoinPoint joinPoint, Method method, DebounceSettings settings, String key,
+                               String resultKey, long ttl, DebounceMetrics.Probe probe) throws Throwable {
+        long deadline = System.currentTimeMillis() + ttl;
+        while (System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+            String result;
+            try {
+                result = debounceStore.pollResult(key, resultKey);
+            } catch (RuntimeException e) {
+                return executeWithoutStore(joinPoint, settings, key, probe, e);
+            }
+            if (result == null) {
+                // 锁已释放但没有结果，首个请求执行失败
+                break;
+            }
+            if (!result.isEmpty()) {
+                log.debug("Replaying result from remote request: {}", CompactDebounceKeys.toDisplay(key));
+                probe.replayed();
+                return codec.decode(result, method);
+            }
+        }
+        probe.rejected();
+        throw new IllegalStateException(settings.getMessage());
+    }
+
+    private static final class StoredResult {
+        final Object value;
+        final long expireAt;
+
+        StoredResult(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
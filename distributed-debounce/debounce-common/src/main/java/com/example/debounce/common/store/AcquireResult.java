@@ -0,0 +1,37 @@
+package com.example.debounce.common.store;
+
+/**
+ * 加锁结果
+ * @author maxiaoweii
+ */
+public final class AcquireResult {
+
+    public static final AcquireResult ACQUIRED = new AcquireResult(true, null);
+    public static final AcquireResult BUSY = new AcquireResult(false, null);
+
+    private final boolean acquired;
+    private final String replay;
+
+    private AcquireResult(boolean acquired, String replay) {
+        this.acquired = acquired;
+        this.replay = replay;
+    }
+
+    /**
+     * 已有保存的结果，直接重放
+     */
+    public static AcquireResult replay(String result) {
+        return new AcquireResult(false, result);
+    }
+
+    public boolean isAcquired() {
+        return acquired;
+    }
+
+    /**
+     * 已保存的首个请求结果，没有时为null
+     */
+    public String getReplay() {
+        return replay;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 同步防抖存储的响应式包装，用于内存存储和分片Redis存储
+ * @author maxiaoweii
+ */
+class BlockingReactiveDebounceStore implements ReactiveDebounceStore {
+
+    private final DebounceStore delegate;
+    private final boolean offload;
+
+    /**
+     * @param offload 是否切换到boundedElastic线程调用，进程内存储不会阻塞，无需切换
+     */
+    BlockingReactiveDebounceStore(DebounceStore delegate, boolean offload) {
+        this.delegate = delegate;
+        this.offload = offload;
+    }
+
+    private <T> Mono<T> call(Callable<T> operation) {
+        Mono<T> mono = Mono.fromCallable(operation);
+        return offload ? mono.subscribeOn(Schedulers.boundedElastic()) : mono;
+    }
+
+    private Mono<Void> run(Runnable operation) {
+        Mono<Void> mono = Mono.fromRunnable(operation);
+        return offload ? mono.subscribeOn(Schedulers.boundedElastic()) : mono;
+    }
+
+    @Override
+    public String newOwnerToken() {
+        return delegate.newOwnerToken();
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String key, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquire(key, owner, ttlMillis));
+    }
+
+    @Override
+    public Mono<AcquireResult> tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquireOrReplay(key, resultKey, owner, ttlMillis));
+    }
+
+    @Override
+    public Mono<String> pollResult(String key, String resultKey) {
+        return call(() -> delegate.pollResult(key, resultKey));
+    }
+
+    @Override
+    public Mono<Void> storeResult(String key, String resultKey, String result, long ttlMillis) {
+        return run(() -> delegate.storeResult(key, resultKey, result, ttlMillis));
+    }
+
+    /**
+     * 同步存储的释放本身是异步合并执行的，无需切换线程
+     */
+    @Override
+    public Mono<Void> release(String key, String owner) {
+        return Mono.fromRunnable(() -> delegate.release(key, owner));
+    }
+
+    @Override
+    public Mono<Long> acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                                   long windowMillis) {
+        return call(() -> delegate.acquirePermit(key, owner, algorithm, permits, windowMillis));
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 带熔断器的防抖存储
+ * 包装Redis存储，调用异常、超过延迟预算和熔断打开都统一抛出{@link DebounceStoreUnavailableException}，
+ * 由切面和过滤器按规则的{@link StoreFailurePolicy}决定放行、拒绝或退化为节点内防抖；
+ * 熔断打开期间不再访问Redis，Redis故障时每个请求只增加有界的延迟；
+ * 配置了并发上限时同时限制访问存储的调用数，虚拟线程下请求并发不再受线程池约束。
+ * 释放锁不经过熔断器也不计入失败比例：熔断期间或释放失败的锁暂存在有界队列中，
+ * 存储恢复后补发，熔断前加的锁不会一直占用到过期
+ * @author maxiaoweii
+ */
+@Slf4j
+public class CircuitBreakingDebounceStore implements DebounceStore, InitializingBean, DisposableBean {
+
+    /**
+     * 暂存释放请求的上限，超出时丢弃，锁在过期后自动失效
+     */
+    private static final int MAX_DEFERRED_RELEASES = 10_000;
+
+    private final DebounceStore delegate;
+    private final StoreCircuitBreaker breaker;
+    /**
+     * 并发上限，不限制时为null
+     */
+    private final Semaphore permits;
+    private final long permitTimeoutNanos;
+
+    private final BlockingQueue<String[]> deferredReleases = new LinkedBlockingQueue<>(MAX_DEFERRED_RELEASES);
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+    private final ExecutorService releaseReplayer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "debounce-store-release-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CircuitBreakingDebounceStore(DebounceStore delegate, DebounceStoreProperties.Breaker properties) {
+        this.delegate = delegate;
+        this.breaker = new StoreCircuitBreaker(properties);
+        this.permits = properties.getMaxConcurrentCalls() > 0 ? new Semaphore(properties.getMaxConcurrentCalls()) : null;
+        this.permitTimeoutNanos = properties.getTimeout().toNanos();
+        breaker.onRecovery(this::scheduleReplay);
+    }
+
+    DebounceStore getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 访问同一个存储的响应式调用共用该熔断器
+     */
+    StoreCircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * 熔断器当前状态：CLOSED、OPEN或HALF_OPEN
+     */
+    public String getState() {
+        return breaker.getState().name();
+    }
+
+    private <T> T call(Supplier<T> operation) {
+        if (!breaker.tryAcquirePermission()) {
+            throw DebounceStoreUnavailableException.CIRCUIT_OPEN;
+        }
+        if (permits != null && !acquirePermit()) {
+            // 本地排队超时，不说明存储有故障
+            breaker.onCancel();
+            throw DebounceStoreUnavailableException.SATURATED;
+        }
+        try {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = operation.get();
+            } catch (RuntimeException e) {
+                breaker.onFailure();
+                throw new DebounceStoreUnavailableException("Debounce store call failed: " + e.getMessage(), e);
+            }
+            breaker.onSuccess(System.nanoTime() - start);
+            // 熔断器没有打开过但释放失败时，由之后成功的调用触发补发
+            scheduleReplay();
+            return result;
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(permitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run(Runnable operation) {
+        call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    @Override
+    public String newOwnerToken() {
+        return delegate.newOwnerToken();
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquire(key, owner, ttlMillis));
+    }
+
+    @Override
+    public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return call(() -> delegate.tryAcquireAll(keys, owners, ttlMillis));
+    }
+
+    @Override
+    public AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquireOrReplay(key, resultKey, owner, ttlMillis));
+    }
+
+    @Override
+    public String pollResult(String key, String resultKey) {
+        return call(() -> delegate.pollResult(key, resultKey));
+    }
+
+    @Override
+    public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+        run(() -> delegate.storeResult(key, resultKey, result, ttlMillis));
+    }
+
+    @Override
+    public boolean extend(String key, String owner, long ttlMillis) {
+        return call(() -> delegate.extend(key, owner, ttlMillis));
+    }
+
+    @Override
+    public boolean[] extendAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return call(() -> delegate.extendAll(keys, owners, ttlMillis));
+    }
+
+    /**
+     * 熔断器未关闭时暂存，存储恢复后补发；释放失败同样暂存，不计入失败比例
+     */
+    @Override
+    public void release(String key, String owner) {
+        if (breaker.getState() != StoreCircuitBreaker.State.CLOSED) {
+            deferRelease(key, owner);
+            return;
+        }
+        try {
+            delegate.release(key, owner);
+        } catch (RuntimeException e) {
+            log.debug("Deferred debounce release after failure: {}", e.getMessage());
+            deferRelease(key, owner);
+        }
+    }
+
+    /**
+     * 与{@link #release}相同，熔断器未关闭或释放失败时全部暂存
+     */
+    @Override
+    public void releaseAll(List<String> keys, List<String> owners) {
+        if (breaker.getState() == StoreCircuitBreaker.State.CLOSED) {
+            try {
+                delegate.releaseAll(keys, owners);
+                return;
+            } catch (RuntimeException e) {
+                log.debug("Deferred {} debounce releases after failure: {}", keys.size(), e.getMessage());
+            }
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            deferRelease(keys.get(i), owners.get(i));
+        }
+    }
+
+    /**
+     * 暂存释放请求，同一个存储的响应式调用也使用该队列
+     */
+    void deferRelease(String key, String owner) {
+        if (!deferredReleases.offer(new String[]{key, owner})) {
+            log.debug("Deferred debounce release queue is full, the lock expires with its ttl");
+        }
+    }
+
+    private void scheduleReplay() {
+        if (deferredReleases.isEmpty() || !replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            releaseReplayer.execute(this::replayReleases);
+        } catch (RejectedExecutionException e) {
+            // 应用关闭
+            replaying.set(false);
+        }
+    }
+
+    /**
+     * 逐个补发暂存的释放请求，熔断器重新打开或再次失败时停止，剩余的等待下一次恢复
+     */
+    private void replayReleases() {
+        int replayed = 0;
+        try {
+            String[] release;
+            while (breaker.getState() != StoreCircuitBreaker.State.OPEN
+                    && (release = deferredReleases.poll()) != null) {
+                try {
+                    delegate.release(release[0], release[1]);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    deferRelease(release[0], release[1]);
+                    log.warn("Failed to replay deferred debounce releases, {} pending: {}",
+                            deferredReleases.size(), e.getMessage());
+                    return;
+                }
+            }
+        } finally {
+            replaying.set(false);
+            if (replayed > 0) {
+                log.info("Replayed {} debounce releases deferred while the store was unavailable", replayed);
+            }
+        }
+    }
+
+    @Override
+    public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                              long windowMillis) {
+        return call(() -> delegate.acquirePermit(key, owner, algorithm, permits, windowMillis));
+    }
+
+    @Override
+    public void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message) {
+        run(() -> delegate.publish(channel, key, resultKey, result, ttlMillis, message));
+    }
+
+    /**
+     * 订阅在启动时建立，不经过熔断器
+     */
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        delegate.subscribe(channel, listener);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (delegate instanceof InitializingBean) {
+            ((InitializingBean) delegate).afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        releaseReplayer.shutdownNow();
+        if (delegate instanceof DisposableBean) {
+            ((DisposableBean) delegate).destroy();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 带熔断器的响应式防抖存储
+ * 与同步存储共用同一个熔断器，两种调用方式看到的是同一个Redis的健康状态；
+ * 熔断期间或失败的释放请求交给同步存储暂存，存储恢复后补发
+ * @author maxiaoweii
+ */
+class CircuitBreakingReactiveDebounceStore implements ReactiveDebounceStore {
+
+    private final ReactiveDebounceStore delegate;
+    private final CircuitBreakingDebounceStore blockingStore;
+    private final StoreCircuitBreaker breaker;
+
+    CircuitBreakingReactiveDebounceStore(ReactiveDebounceStore delegate, CircuitBreakingDebounceStore blockingStore) {
+        this.delegate = delegate;
+        this.blockingStore = blockingStore;
+        this.breaker = blockingStore.getBreaker();
+    }
+
+    /**
+     * 订阅时申请调用许可，完成时按耗时记录成功或失败，失败统一转换为{@link DebounceStoreUnavailableException}
+     */
+    private <T> Mono<T> call(Supplier<Mono<T>> operation) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquirePermission()) {
+                return Mono.error(DebounceStoreUnavailableException.CIRCUIT_OPEN);
+            }
+            long start = System.nanoTime();
+            return operation.get()
+                    .doOnSuccess(result -> breaker.onSuccess(System.nanoTime() - start))
+                    .doOnCancel(breaker::onCancel)
+                    .onErrorMap(e -> {
+                        breaker.onFailure();
+                        return new DebounceStoreUnavailableException("Debounce store call failed: " + e.getMessage(), e);
+                    });
+        });
+    }
+
+    @Override
+    public String newOwnerToken() {
+        return delegate.newOwnerToken();
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String key, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquire(key, owner, ttlMillis));
+    }
+
+    @Override
+    public Mono<AcquireResult> tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        return call(() -> delegate.tryAcquireOrReplay(key, resultKey, owner, ttlMillis));
+    }
+
+    @Override
+    public Mono<String> pollResult(String key, String resultKey) {
+        return call(() -> delegate.pollResult(key, resultKey));
+    }
+
+    @Override
+    public Mono<Void> storeResult(String key, String resultKey, String result, long ttlMillis) {
+        return call(() -> delegate.storeResult(key, resultKey, result, ttlMillis));
+    }
+
+    @Override
+    public Mono<Void> release(String key, String owner) {
+        return Mono.defer(() -> {
+            if (breaker.getState() != StoreCircuitBreaker.State.CLOSED) {
+                blockingStore.deferRelease(key, owner);
+                return Mono.empty();
+            }
+            return delegate.release(key, owner).onErrorResume(e -> {
+                blockingStore.deferRelease(key, owner);
+                return Mono.empty();
+            });
+        });
+    }
+
+    @Override
+    public Mono<Long> acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                                   long windowMillis) {
+        return call(() -> delegate.acquirePermit(key, owner, algorithm, permits, windowMillis));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.fingerprint.Hasher128;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一致性哈希环
+ * 每个节点按名称生成若干虚拟节点，环上的点保存为有序long数组，查找为一次二分查找，无对象分配。
+ * 节点增减时只有相邻区间的key需要迁移
+ * @author maxiaoweii
+ */
+final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param nodes        节点名称，查找结果为节点在列表中的下标
+     * @param virtualNodes 每个节点的虚拟节点数量
+     */
+    ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("Consistent hash ring requires at least one node");
+        }
+        int replicas = Math.max(virtualNodes, 1);
+        long[][] ring = new long[nodes.size() * replicas][];
+        int index = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int replica = 0; replica < replicas; replica++) {
+                long point = Hasher128.current().putString(nodes.get(node)).putChar('#').putInt(replica)
+                        .finish().high();
+                ring[index++] = new long[]{point, node};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[ring.length];
+        this.owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * 返回负责该key的节点下标
+     */
+    int locate(String key) {
+        long hash = Hasher128.current().putString(key).finish().high();
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return owners[index];
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 防抖存储SPI
+ * 切面、请求合并、结果重放和URL过滤器都通过该接口加锁和保存结果，不直接依赖Redis。
+ * 内置内存、Redis、客户端分片Redis和应用节点集群四种实现，通过debounce.store.type选择。
+ * 同一个防抖key及其结果key必须落在同一个存储节点上，分片和集群实现按防抖key路由
+ * @author maxiaoweii
+ */
+public interface DebounceStore {
+
+    /**
+     * 生成本次请求的owner令牌
+     */
+    default String newOwnerToken() {
+        return OwnerTokens.next();
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param key       防抖key
+     * @param owner     owner令牌
+     * @param ttlMillis 锁过期时间，单位毫秒
+     * @return 加锁成功返回true
+     */
+    boolean tryAcquire(String key, String owner, long ttlMillis);
+
+    /**
+     * 尝试加锁，已有保存的结果时直接返回结果
+     *
+     * @param key       防抖key
+     * @param resultKey 结果key
+     * @param owner     owner令牌
+     * @param ttlMillis 锁过期时间，单位毫秒
+     * @return 加锁结果
+     */
+    AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis);
+
+    /**
+     * 批量加锁，实现可以合并为一次调用
+     *
+     * @return 与key一一对应的加锁结果
+     */
+    default boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        boolean[] acquired = new boolean[keys.size()];
+        for (int i = 0; i < acquired.length; i++) {
+            acquired[i] = tryAcquire(keys.get(i), owners.get(i), ttlMillis.get(i));
+        }
+        return acquired;
+    }
+
+    /**
+     * 查询首个请求的结果
+     *
+     * @return 已保存的结果；首个请求仍在处理中返回空字符串；锁已释放且没有结果返回null
+     */
+    String pollResult(String key, String resultKey);
+
+    /**
+     * 保存首个请求的结果
+     *
+     * @param key       防抖key，用于路由
+     * @param resultKey 结果key
+     * @param result    编码后的结果
+     * @param ttlMillis 保留时间，单位毫秒
+     */
+    void storeResult(String key, String resultKey, String result, long ttlMillis);
+
+    /**
+     * 为仍持有的锁续期
+     *
+     * @return 锁仍由该owner持有并续期成功返回true
+     */
+    boolean extend(String key, String owner, long ttlMillis);
+
+    /**
+     * 为多个锁续期，实现可以合并为一次调用
+     *
+     * @return 与key一一对应的续期结果
+     */
+    default boolean[] extendAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        boolean[] extended = new boolean[keys.size()];
+        for (int i = 0; i < extended.length; i++) {
+            extended[i] = extend(keys.get(i), owners.get(i), ttlMillis.get(i));
+        }
+        return extended;
+    }
+
+    /**
+     * 释放锁，只有令牌一致时才会删除；返回时锁已删除，同一客户端随后重新提交不会被旧锁拒绝
+     */
+    void release(String key, String owner);
+
+    /**
+     * 释放多个锁，实现可以合并为一次调用
+     *
+     * @param keys   防抖key
+     * @param owners 与key一一对应的owner令牌
+     */
+    default void releaseAll(List<String> keys, List<String> owners) {
+        for (int i = 0; i < keys.size(); i++) {
+            release(keys.get(i), owners.get(i));
+        }
+    }
+
+    /**
+     * 按限流算法申请一个配额，检查与扣减在一次原子操作中完成，时间以存储端时钟为准
+     *
+     * @param key          限流key
+     * @param owner        owner令牌，滑动窗口日志中作为请求的唯一标识
+     * @param algorithm    限流算法
+     * @param permits      每个窗口的配额
+     * @param windowMillis 窗口长度，单位毫秒
+     * @return 获得配额返回0，否则返回最早可能获得配额的等待时间，单位毫秒
+     */
+    long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits, long windowMillis);
+
+    /**
+     * 保存结果并向频道发布消息，通知其他节点上等待同一个key的请求
+     *
+     * @param channel   频道
+     * @param key       防抖key，用于路由
+     * @param resultKey 结果key
+     * @param result    编码后的结果，为空字符串时只发布消息
+     * @param ttlMillis 结果保留时间，单位毫秒
+     * @param message   消息内容
+     */
+    void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message);
+
+    /**
+     * 订阅频道
+     */
+    void subscribe(String channel, Consumer<String> listener);
+}
@@ -0,0 +1,84 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.key.DebounceKeySerializer;
+import com.example.debounce.common.store.cluster.ClusteredDebounceStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * 按debounce.store.type创建防抖存储，默认使用Redis
+ * Redis存储和集群存储默认包装熔断器，进程内存储不会不可用，直接使用；WebFlux应用额外创建响应式存储。
+ * Redis存储使用与应用共享连接的独立模板，key由{@link DebounceKeySerializer}序列化
+ * @author maxiaoweii
+ */
+@Configuration
+public class DebounceStoreConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "debounce.store", name = "type", havingValue = "redis", matchIfMissing = true)
+    public DebounceStore redisDebounceStore(StringRedisTemplate stringRedisTemplate,
+                                            DebounceStoreProperties storeProperties) {
+        return withBreaker(new RedisDebounceStore(
+                DebounceKeySerializer.template(stringRedisTemplate.getRequiredConnectionFactory())), storeProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "debounce.store", name = "type", havingValue = "memory")
+    public InMemoryDebounceStore inMemoryDebounceStore() {
+        return new InMemoryDebounceStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "debounce.store", name = "type", havingValue = "sharded")
+    public DebounceStore shardedRedisDebounceStore(DebounceStoreProperties storeProperties) {
+        if (storeProperties.getShards().isEmpty()) {
+            throw new IllegalStateException("debounce.store.shards must not be empty when type is sharded");
+        }
+        return withBreaker(new ShardedRedisDebounceStore(storeProperties.getShards(),
+                storeProperties.getVirtualNodes(), storeProperties.getBreaker().getTimeout()), storeProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "debounce.store", name = "type", havingValue = "cluster")
+    public DebounceStore clusteredDebounceStore(DebounceStoreProperties storeProperties) {
+        DebounceStoreProperties.Cluster cluster = storeProperties.getCluster();
+        if (cluster.getMembers().isEmpty() && !StringUtils.hasText(cluster.getMembersFile())) {
+            throw new IllegalStateException(
+                    "debounce.store.cluster.members or members-file must be set when type is cluster");
+        }
+        return withBreaker(new ClusteredDebounceStore(cluster, storeProperties.getBreaker().getTimeout()),
+                storeProperties);
+    }
+
+    /**
+     * WebFlux应用的响应式防抖存储，Redis存储使用响应式客户端并与同步存储共用熔断器，
+     * 其他存储包装为响应式接口
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveDebounceStore reactiveDebounceStore(DebounceStore debounceStore,
+                                                       ObjectProvider<ReactiveStringRedisTemplate> reactiveRedisTemplate) {
+        ReactiveStringRedisTemplate template = reactiveRedisTemplate.getIfAvailable();
+        DebounceStore store = debounceStore instanceof CircuitBreakingDebounceStore
+                ? ((CircuitBreakingDebounceStore) debounceStore).getDelegate() : debounceStore;
+        if (template == null || !(store instanceof RedisDebounceStore)) {
+            return ReactiveDebounceStore.of(debounceStore);
+        }
+        ReactiveDebounceStore reactiveStore = new ReactiveRedisDebounceStore(
+                DebounceKeySerializer.reactiveTemplate(template.getConnectionFactory()));
+        return debounceStore instanceof CircuitBreakingDebounceStore
+                ? new CircuitBreakingReactiveDebounceStore(reactiveStore, (CircuitBreakingDebounceStore) debounceStore)
+                : reactiveStore;
+    }
+
+    private static DebounceStore withBreaker(DebounceStore store, DebounceStoreProperties storeProperties) {
+        DebounceStoreProperties.Breaker breaker = storeProperties.getBreaker();
+        return breaker.isEnabled() ? new CircuitBreakingDebounceStore(store, breaker) : store;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.debounce.common.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 防抖存储配置
+ * @author maxiaoweii
+ */
+@Data
+@ConfigurationProperties(prefix = "debounce.store")
+public class DebounceStoreProperties {
+    /**
+     * 存储类型
+     */
+    private Type type = Type.REDIS;
+
+    /**
+     * 分片模式下各Redis实例的地址，格式为redis://[password@]host:port[/database]
+     */
+    private List<String> shards = new ArrayList<>();
+
+    /**
+     * 分片模式下每个实例在哈希环上的虚拟节点数量
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * Redis存储的熔断配置，进程内存储不经过熔断器
+     */
+    private Breaker breaker = new Breaker();
+
+    /**
+     * 集群模式配置
+     */
+    private Cluster cluster = new Cluster();
+
+    @Data
+    public static class Breaker {
+        /**
+         * 是否启用熔断，关闭后存储异常按{@link StoreFailurePolicy}处理，但每次调用都会等待超时
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单次调用的延迟预算，超过预算的调用即使成功也计为失败；
+         * 分片模式下同时作为Redis命令超时，单个Redis时需将spring.redis.timeout设置为相同的值
+         */
+        private Duration timeout = Duration.ofMillis(200);
+
+        /**
+         * 统计窗口内失败（含超时）比例达到该百分比时打开熔断器
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 统计窗口内调用次数达到该值后才计算失败比例
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败比例的统计窗口
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * 首次打开的时长，半开探测失败后连续翻倍
+         */
+        private Duration openDuration = Duration.ofSeconds(1);
+
+        /**
+         * 打开时长的上限
+         */
+        private Duration maxOpenDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态放行的探测调用次数，全部成功后关闭熔断器
+         */
+        private int halfOpenCalls = 5;
+
+        /**
+         * 同时访问存储的调用数上限，0表示不限制。超出时最多等待一个延迟预算，仍无空位按存储不可用处理，不计入失败比例。
+         * Lettuce所有命令共用一个多路复用连接，不需要按线程数配置连接池；
+         * 使用虚拟线程后Tomcat不再以线程数限制并发，需要通过该值限制同时排队的Redis命令
+         */
+        private int maxConcurrentCalls = 0;
+    }
+
+    @Data
+    public static class Cluster {
+        /**
+         * 当前节点的地址，格式为host:port，同时作为节点间通信的监听端口；为空时当前节点只转发请求
+         */
+        private String self;
+
+        /**
+         * 静态成员列表，格式为host:port，所有节点的列表必须一致
+         */
+        private List<String> members = new ArrayList<>();
+
+        /**
+         * 成员文件，每行一个host:port，设置后忽略members并在文件变更时重新加载
+         */
+        private String membersFile;
+
+        /**
+         * 连接其他节点的超时，请求超时使用breaker.timeout
+         */
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 每条连接一次合并写出的请求数上限
+         */
+        private int maxBatch = 256;
+    }
+
+    public enum Type {
+        /**
+         * 单个Redis（spring.redis配置的连接），锁和结果通过Lua脚本原子操作
+         */
+        REDIS,
+        /**
+         * 进程内存储，只适用于单实例部署
+         */
+        MEMORY,
+        /**
+         * 客户端一致性哈希分片的多个Redis实例
+         */
+        SHARDED,
+        /**
+         * 应用节点组成集群，按rendezvous哈希分配key，不依赖Redis
+         */
+        CLUSTER
+    }
+}
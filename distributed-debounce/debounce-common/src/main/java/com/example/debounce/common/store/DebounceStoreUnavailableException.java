@@ -0,0 +1,32 @@
+package com.example.debounce.common.store;
+
+/**
+ * 防抖存储调用失败、超时或熔断器打开，调用方按{@link StoreFailurePolicy}处理
+ * @author maxiaoweii
+ */
+public class DebounceStoreUnavailableException extends RuntimeException {
+
+    /**
+     * 熔断期间每次调用都直接失败，共享一个不带堆栈的实例
+     */
+    static final DebounceStoreUnavailableException CIRCUIT_OPEN =
+            new DebounceStoreUnavailableException("Debounce store circuit breaker is open", null, false);
+
+    /**
+     * 同时访问存储的调用数达到上限
+     */
+    static final DebounceStoreUnavailableException SATURATED =
+            new DebounceStoreUnavailableException("Debounce store concurrent call limit reached", null, false);
+
+    public DebounceStoreUnavailableException(String message) {
+        super(message);
+    }
+
+    public DebounceStoreUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    private DebounceStoreUnavailableException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.timer.HashedTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 单节点内存防抖存储
+ * 锁和结果保存在ConcurrentHashMap中，条目不可变，加锁、续期和释放都通过CAS替换整个条目完成，
+ * 读路径无锁；限流状态在ConcurrentHashMap.compute中原子更新；过期由时间轮统一清理，发布订阅只在本节点内分发。
+ * 适用于单实例部署、本地开发和基准测试
+ * @author maxiaoweii
+ */
+@Slf4j
+public class InMemoryDebounceStore implements DebounceStore, DisposableBean {
+
+    /**
+     * 过期清理时间轮刻度，单位毫秒
+     */
+    private static final long TICK_MILLIS = 100;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, RateLimitState> rateLimits = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Runnable> expiryWheel =
+            new HashedTimingWheel<>("debounce-store-expiry", TICK_MILLIS, 512, due -> due.forEach(Runnable::run));
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        Entry entry = new Entry(key, owner, System.currentTimeMillis() + ttlMillis);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            // 已过期但尚未被时间轮清理的条目视为不存在
+            if (existing.isAlive(System.currentTimeMillis())) {
+                return false;
+            }
+            if (entries.replace(key, existing, entry)) {
+                break;
+            }
+        }
+        scheduleExpiry(entry, ttlMillis);
+        return true;
+    }
+
+    @Override
+    public AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        String result = get(resultKey);
+        if (result != null) {
+            return AcquireResult.replay(result);
+        }
+        return tryAcquire(key, owner, ttlMillis) ? AcquireResult.ACQUIRED : AcquireResult.BUSY;
+    }
+
+    @Override
+    public String pollResult(String key, String resultKey) {
+        String result = get(resultKey);
+        if (result != null) {
+            return result;
+        }
+        return get(key) != null ? "" : null;
+    }
+
+    @Override
+    public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+        Entry entry = new Entry(resultKey, result, System.currentTimeMillis() + ttlMillis);
+        entries.put(resultKey, entry);
+        scheduleExpiry(entry, ttlMillis);
+    }
+
+    @Override
+    public boolean extend(String key, String owner, long ttlMillis) {
+        Entry existing = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (existing == null || !existing.isAlive(now) || !existing.value.equals(owner)) {
+            return false;
+        }
+        Entry extended = new Entry(key, owner, now + ttlMillis);
+        if (!entries.replace(key, existing, extended)) {
+            return false;
+        }
+        scheduleExpiry(extended, ttlMillis);
+        return true;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        Entry existing = entries.get(key);
+        if (existing != null && existing.value.equals(owner)) {
+            entries.remove(key, existing);
+        }
+    }
+
+    @Override
+    public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                              long windowMillis) {
+        long now = System.currentTimeMillis();
+        long[] wait = new long[1];
+        boolean[] created = new boolean[1];
+        RateLimitState state = rateLimits.compute(key, (k, existing) -> {
+            RateLimitState current = existing;
+            if (current == null || current.expireAt <= now) {
+                current = RateLimitState.create(algorithm);
+                created[0] = true;
+            }
+            wait[0] = current.acquire(now, permits, windowMillis);
+            return current;
+        });
+        if (created[0]) {
+            scheduleExpiry(key, state);
+        }
+        return wait[0];
+    }
+
+    @Override
+    public void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message) {
+        if (!result.isEmpty()) {
+            storeResult(key, resultKey, result, ttlMillis);
+        }
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.warn("Debounce store listener failed on channel {}: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 当前条目数量（含已过期未清理的条目）
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private String get(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isAlive(System.currentTimeMillis()) ? entry.value : null;
+    }
+
+    /**
+     * 到期时只删除仍是同一实例的条目，续期或重新加锁后的新条目由其自身的定时任务负责
+     */
+    private void scheduleExpiry(Entry entry, long delayMillis) {
+        expiryWheel.schedule(() -> {
+            long now = System.currentTimeMillis();
+            if (entry.isAlive(now)) {
+                scheduleExpiry(entry, entry.expireAt - now);
+            } else {
+                entries.remove(entry.key, entry);
+            }
+        }, delayMillis);
+    }
+
+    /**
+     * 限流状态每次获得配额都会延后失效时间，到期时检查后决定删除还是继续等待
+     */
+    private void scheduleExpiry(String key, RateLimitState state) {
+        expiryWheel.schedule(() -> {
+            long now = System.currentTimeMillis();
+            RateLimitState remaining = rateLimits.computeIfPresent(key,
+                    (k, current) -> current == state && current.expireAt <= now ? null : current);
+            if (remaining == state) {
+                scheduleExpiry(key, state);
+            }
+        }, Math.max(state.expireAt - System.currentTimeMillis(), TICK_MILLIS));
+    }
+
+    @Override
+    public void destroy() {
+        expiryWheel.close();
+        entries.clear();
+        rateLimits.clear();
+    }
+
+    private static final class Entry {
+        final String key;
+        final String value;
+        final long expireAt;
+
+        Entry(String key, String value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isAlive(long now) {
+            return expireAt > now;
+        }
+    }
+}
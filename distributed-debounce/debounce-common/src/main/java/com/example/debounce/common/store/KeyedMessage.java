@@ -0,0 +1,51 @@
+package com.example.debounce.common.store;
+
+/**
+ * 携带防抖key的发布订阅消息
+ * 格式为key的长度、':'、key、消息内容。紧凑格式的key中是原始字节，可能包含换行等任意字符，
+ * 不能用分隔符与消息内容分开
+ * @author maxiaoweii
+ */
+public final class KeyedMessage {
+
+    private final String key;
+    private final String body;
+
+    private KeyedMessage(String key, String body) {
+        this.key = key;
+        this.body = body;
+    }
+
+    public static String encode(String key, String body) {
+        return key.length() + ":" + key + body;
+    }
+
+    /**
+     * @return 格式不正确时返回null
+     */
+    public static KeyedMessage decode(String message) {
+        int colon = message.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        int length;
+        try {
+            length = Integer.parseInt(message.substring(0, colon));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int keyEnd = colon + 1 + length;
+        if (length < 0 || keyEnd > message.length()) {
+            return null;
+        }
+        return new KeyedMessage(message.substring(colon + 1, keyEnd), message.substring(keyEnd));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
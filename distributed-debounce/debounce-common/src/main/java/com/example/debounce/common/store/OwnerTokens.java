@@ -0,0 +1,21 @@
+package com.example.debounce.common.store;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * owner令牌生成器，节点标识加自增序号，避免每次请求生成UUID
+ * @author maxiaoweii
+ */
+final class OwnerTokens {
+
+    private static final String NODE_ID = UUID.randomUUID().toString().substring(0, 8);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private OwnerTokens() {
+    }
+
+    static String next() {
+        return NODE_ID + ":" + SEQUENCE.incrementAndGet();
+    }
+}
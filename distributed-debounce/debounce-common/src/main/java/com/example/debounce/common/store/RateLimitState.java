@@ -0,0 +1,100 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+
+import java.util.ArrayDeque;
+
+/**
+ * 内存存储中单个限流key的状态，与{@link RedisDebounceStore}中的限流脚本逐行对应
+ * 非线程安全，由调用方在ConcurrentHashMap.compute中串行访问
+ * @author maxiaoweii
+ */
+abstract class RateLimitState {
+
+    /**
+     * 状态失效时间，之后的请求等价于从空状态开始
+     */
+    long expireAt;
+
+    static RateLimitState create(RateLimitAlgorithm algorithm) {
+        switch (algorithm) {
+            case TOKEN_BUCKET:
+                return new TokenBucket();
+            case SLIDING_LOG:
+                return new SlidingLog();
+            default:
+                return new SlidingWindow();
+        }
+    }
+
+    /**
+     * 申请一个配额
+     *
+     * @return 获得配额返回0，否则返回等待时间，单位毫秒
+     */
+    abstract long acquire(long now, int permits, long window);
+
+    private static final class TokenBucket extends RateLimitState {
+        private double tokens = -1;
+        private long timestamp;
+
+        @Override
+        long acquire(long now, int permits, long window) {
+            if (tokens < 0) {
+                tokens = permits;
+                timestamp = now;
+            }
+            tokens = Math.min(permits, tokens + Math.max(now - timestamp, 0) * (double) permits / window);
+            timestamp = now;
+            expireAt = now + window;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * window / permits);
+        }
+    }
+
+    private static final class SlidingLog extends RateLimitState {
+        private final ArrayDeque<Long> timestamps = new ArrayDeque<>();
+
+        @Override
+        long acquire(long now, int permits, long window) {
+            while (!timestamps.isEmpty() && timestamps.peekFirst() <= now - window) {
+                timestamps.pollFirst();
+            }
+            if (timestamps.size() < permits) {
+                timestamps.addLast(now);
+                expireAt = now + window;
+                return 0;
+            }
+            return Math.max(timestamps.peekFirst() + window - now, 1);
+        }
+    }
+
+    private static final class SlidingWindow extends RateLimitState {
+        private long windowIndex = Long.MIN_VALUE;
+        private long count;
+        private long previous;
+
+        @Override
+        long acquire(long now, int permits, long window) {
+            long current = now / window;
+            if (current != windowIndex) {
+                previous = current == windowIndex + 1 ? count : 0;
+                count = 0;
+                windowIndex = current;
+            }
+            long elapsed = now - current * window;
+            if (previous * (double) (window - elapsed) / window + count + 1 <= permits) {
+                count++;
+                expireAt = now + window * 2;
+                return 0;
+            }
+            if (count + 1 > permits || previous == 0) {
+                return window - elapsed;
+            }
+            return Math.max((long) Math.ceil(window - elapsed - (permits - count - 1) * (double) window / previous), 1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import reactor.core.publisher.Mono;
+
+/**
+ * 响应式防抖存储，供WebFlux环境下的防抖切面使用
+ * 语义与{@link DebounceStore}中的同名方法一致，key和结果格式相同，同一个key在Servlet和WebFlux节点之间互斥；
+ * Redis存储使用响应式客户端，不阻塞事件循环线程
+ * @author maxiaoweii
+ */
+public interface ReactiveDebounceStore {
+
+    /**
+     * 生成本次请求的owner令牌
+     */
+    default String newOwnerToken() {
+        return OwnerTokens.next();
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @return 加锁成功时为true
+     */
+    Mono<Boolean> tryAcquire(String key, String owner, long ttlMillis);
+
+    /**
+     * 尝试加锁，已有保存的结果时直接返回结果
+     */
+    Mono<AcquireResult> tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis);
+
+    /**
+     * 查询首个请求的结果
+     *
+     * @return 已保存的结果；首个请求仍在处理中为空字符串；锁已释放且没有结果时为空的Mono
+     */
+    Mono<String> pollResult(String key, String resultKey);
+
+    /**
+     * 保存首个请求的结果
+     */
+    Mono<Void> storeResult(String key, String resultKey, String result, long ttlMillis);
+
+    /**
+     * 释放锁，只有令牌一致时才会删除
+     */
+    Mono<Void> release(String key, String owner);
+
+    /**
+     * 按限流算法申请一个配额
+     *
+     * @return 获得配额为0，否则为最早可能获得配额的等待时间，单位毫秒
+     */
+    Mono<Long> acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits, long windowMillis);
+
+    /**
+     * 将同步存储包装为响应式接口，会访问网络的存储在boundedElastic线程上调用
+     */
+    static ReactiveDebounceStore of(DebounceStore store) {
+        return new BlockingReactiveDebounceStore(store, !(store instanceof InMemoryDebounceStore));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于响应式Redis客户端的防抖存储
+ * 与{@link RedisDebounceStore}执行相同的Lua脚本，结果在Lettuce的事件循环上返回，不占用线程等待
+ * @author maxiaoweii
+ */
+public class ReactiveRedisDebounceStore implements ReactiveDebounceStore {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public ReactiveRedisDebounceStore(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String key, String owner, long ttlMillis) {
+        return redisTemplate.execute(RedisDebounceStore.ACQUIRE_SCRIPT, Collections.singletonList(key),
+                        Arrays.asList(owner, String.valueOf(ttlMillis)))
+                .next()
+                .map(result -> result == 1L)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<AcquireResult> tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        return toList(redisTemplate.execute(RedisDebounceStore.ACQUIRE_OR_REPLAY_SCRIPT,
+                Arrays.asList(key, resultKey), Arrays.asList(owner, String.valueOf(ttlMillis))))
+                .map(result -> {
+                    if (result.isEmpty()) {
+                        return AcquireResult.BUSY;
+                    }
+                    long state = ((Number) result.get(0)).longValue();
+                    if (state == 2L) {
+                        return AcquireResult.replay((String) result.get(1));
+                    }
+                    return state == 1L ? AcquireResult.ACQUIRED : AcquireResult.BUSY;
+                });
+    }
+
+    @Override
+    public Mono<String> pollResult(String key, String resultKey) {
+        return redisTemplate.execute(RedisDebounceStore.POLL_RESULT_SCRIPT, Arrays.asList(key, resultKey),
+                Collections.emptyList()).next();
+    }
+
+    @Override
+    public Mono<Void> storeResult(String key, String resultKey, String result, long ttlMillis) {
+        return redisTemplate.opsForValue().set(resultKey, result, Duration.ofMillis(ttlMillis)).then();
+    }
+
+    @Override
+    public Mono<Void> release(String key, String owner) {
+        return redisTemplate.execute(RedisDebounceStore.RELEASE_SCRIPT, Collections.singletonList(key),
+                Collections.singletonList(owner)).then();
+    }
+
+    @Override
+    public Mono<Long> acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                                   long windowMillis) {
+        return redisTemplate.execute(RedisDebounceStore.rateLimitScript(algorithm), Collections.singletonList(key),
+                        Arrays.asList(String.valueOf(permits), String.valueOf(windowMillis), owner))
+                .next()
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 多值脚本的结果可能作为一个列表发出，也可能逐个元素发出，统一为列表
+     */
+    @SuppressWarnings("rawtypes")
+    private static Mono<List<?>> toList(Flux<List> result) {
+        return result.collectList().map(items -> items.size() == 1 && items.get(0) instanceof List
+                ? (List<?>) items.get(0) : items);
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 基于Lua脚本的Redis防抖存储
+ * 每个请求使用独立的owner令牌加锁，释放和续期时先比对令牌，避免慢请求删除新请求持有的锁。
+ * 脚本在启动时预加载，调用走EVALSHA；释放同步执行，返回时锁已删除，
+ * 批量释放的多个锁只需一次多key脚本调用
+ * @author maxiaoweii
+ */
+@Slf4j
+public class RedisDebounceStore implements DebounceStore, InitializingBean, DisposableBean {
+
+    public static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end return 0",
+            Long.class);
+
+    public static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "local released = 0 "
+                    + "for i = 1, #KEYS do "
+                    + "  if redis.call('get', KEYS[i]) == ARGV[i] then "
+                    + "    released = released + redis.call('del', KEYS[i]) "
+                    + "  end "
+                    + "end "
+                    + "return released",
+            Long.class);
+
+    public static final RedisScript<Long> EXTEND_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0",
+            Long.class);
+
+    public static final RedisScript<List> ACQUIRE_ALL_SCRIPT = RedisScript.of(
+            "local result = {} "
+                    + "for i = 1, #KEYS do "
+                    + "  if redis.call('set', KEYS[i], ARGV[2 * i - 1], 'PX', ARGV[2 * i], 'NX') then "
+                    + "    result[i] = 1 "
+                    + "  else "
+                    + "    result[i] = 0 "
+                    + "  end "
+                    + "end "
+                    + "return result",
+            List.class);
+
+    public static final RedisScript<List> EXTEND_ALL_SCRIPT = RedisScript.of(
+            "local result = {} "
+                    + "for i = 1, #KEYS do "
+                    + "  if redis.call('get', KEYS[i]) == ARGV[2 * i - 1] then "
+                    + "    result[i] = redis.call('pexpire', KEYS[i], ARGV[2 * i]) "
+                    + "  else "
+                    + "    result[i] = 0 "
+                    + "  end "
+                    + "end "
+                    + "return result",
+            List.class);
+
+    public static final RedisScript<List> ACQUIRE_OR_REPLAY_SCRIPT = RedisScript.of(
+            "local result = redis.call('get', KEYS[2]) "
+                    + "if result then return {2, result} end "
+                    + "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return {1} end "
+                    + "return {0}",
+            List.class);
+
+    public static final RedisScript<String> POLL_RESULT_SCRIPT = RedisScript.of(
+            "local result = redis.call('get', KEYS[2]) "
+                    + "if result then return result end "
+                    + "if redis.call('exists', KEYS[1]) == 1 then return '' end "
+                    + "return false",
+            String.class);
+
+    public static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of(
+            "if ARGV[2] ~= '' then redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) end "
+                    + "return redis.call('publish', ARGV[1], ARGV[4])",
+            Long.class);
+
+    /**
+     * 限流脚本共用的前缀：以Redis服务端时间为准，避免各节点时钟不一致；
+     * 旧版本Redis在非确定性命令后写入需要开启命令复制
+     */
+    private static final String NOW =
+            "redis.replicate_commands() "
+                    + "local time = redis.call('time') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local permits = tonumber(ARGV[1]) "
+                    + "local window = tonumber(ARGV[2]) ";
+
+    public static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = RedisScript.of(NOW
+                    + "local state = redis.call('hmget', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(state[1]) or permits "
+                    + "local ts = tonumber(state[2]) or now "
+                    + "tokens = math.min(permits, tokens + math.max(now - ts, 0) * permits / window) "
+                    + "local wait = 0 "
+                    + "if tokens >= 1 then tokens = tokens - 1 "
+                    + "else wait = math.ceil((1 - tokens) * window / permits) end "
+                    + "redis.call('hset', KEYS[1], 'tokens', tostring(tokens), 'ts', now) "
+                    + "redis.call('pexpire', KEYS[1], window) "
+                    + "return wait",
+            Long.class);
+
+    public static final RedisScript<Long> SLIDING_LOG_SCRIPT = RedisScript.of(NOW
+                    + "redis.call('zremrangebyscore', KEYS[1], '-inf', now - window) "
+                    + "if redis.call('zcard', KEYS[1]) < permits then "
+                    + "redis.call('zadd', KEYS[1], now, ARGV[3]) "
+                    + "redis.call('pexpire', KEYS[1], window) "
+                    + "return 0 end "
+                    + "local oldest = redis.call('zrange', KEYS[1], 0, 0, 'WITHSCORES') "
+                    + "return math.max(tonumber(oldest[2]) + window - now, 1)",
+            Long.class);
+
+    public static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = RedisScript.of(NOW
+                    + "local current = math.floor(now / window) "
+                    + "local elapsed = now - current * window "
+                    + "local counts = redis.call('hmget', KEYS[1], current, current - 1) "
+                    + "local count = tonumber(counts[1]) or 0 "
+                    + "local previous = tonumber(counts[2]) or 0 "
+                    + "if previous * (window - elapsed) / window + count + 1 <= permits then "
+                    + "redis.call('hincrby', KEYS[1], current, 1) "
+                    + "redis.call('hdel', KEYS[1], current - 2) "
+                    + "redis.call('pexpire', KEYS[1], window * 2) "
+                    + "return 0 end "
+                    + "if count + 1 > permits or previous == 0 then return window - elapsed end "
+                    + "return math.max(math.ceil(window - elapsed - (permits - count - 1) * window / previous), 1)",
+            Long.class);
+
+    /**
+     * 单次脚本调用释放的最大key数量
+     */
+    private static final int MAX_RELEASE_BATCH = 256;
+
+    private final StringRedisTemplate redisTemplate;
+    /**
+     * 订阅时会建立连接，使用ReentrantLock而不是synchronized，虚拟线程等待时不会占住载体线程
+     */
+    private final ReentrantLock subscribeLock = new ReentrantLock();
+    private RedisMessageListenerContainer listenerContainer;
+
+    public RedisDebounceStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            loadScripts();
+        } catch (RuntimeException e) {
+            // Redis暂不可用时不影响启动，首次调用会通过EVAL自动加载脚本
+            log.warn("Failed to preload debounce lock scripts: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        Long result = redisTemplate.execute(ACQUIRE_SCRIPT, Collections.singletonList(key),
+                owner, String.valueOf(ttlMillis));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 一次脚本调用加多个锁
+     */
+    @Override
+    public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeAll(ACQUIRE_ALL_SCRIPT, keys, owners, ttlMillis);
+    }
+
+    /**
+     * 已有结果、加锁在一次往返中完成
+     */
+    @Override
+    public AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        List<?> result = redisTemplate.execute(ACQUIRE_OR_REPLAY_SCRIPT, Arrays.asList(key, resultKey),
+                owner, String.valueOf(ttlMillis));
+        if (result == null || result.isEmpty()) {
+            return AcquireResult.BUSY;
+        }
+        long state = ((Number) result.get(0)).longValue();
+        if (state == 2L) {
+            return AcquireResult.replay((String) result.get(1));
+        }
+        return state == 1L ? AcquireResult.ACQUIRED : AcquireResult.BUSY;
+    }
+
+    @Override
+    public String pollResult(String key, String resultKey) {
+        return redisTemplate.execute(POLL_RESULT_SCRIPT, Arrays.asList(key, resultKey));
+    }
+
+    @Override
+    public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+        redisTemplate.opsForValue().set(resultKey, result, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean extend(String key, String owner, long ttlMillis) {
+        Long result = redisTemplate.execute(EXTEND_SCRIPT, Collections.singletonList(key),
+                owner, String.valueOf(ttlMillis));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 一次脚本调用为多个锁续期
+     */
+    @Override
+    public boolean[] extendAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeAll(EXTEND_ALL_SCRIPT, keys, owners, ttlMillis);
+    }
+
+    private boolean[] executeAll(RedisScript<List> script, List<String> keys, List<String> owners,
+                                 List<Long> ttlMillis) {
+        Object[] args = new Object[keys.size() * 2];
+        for (int i = 0; i < keys.size(); i++) {
+            args[2 * i] = owners.get(i);
+            args[2 * i + 1] = String.valueOf(ttlMillis.get(i));
+        }
+        List<?> result = redisTemplate.execute(script, keys, args);
+        boolean[] succeeded = new boolean[keys.size()];
+        for (int i = 0; result != null && i < result.size() && i < succeeded.length; i++) {
+            succeeded[i] = Long.valueOf(1L).equals(result.get(i));
+        }
+        return succeeded;
+    }
+
+    /**
+     * 一次脚本调用比对令牌并删除，失败时抛出异常，由调用方决定是否重试
+     */
+    @Override
+    public void release(String key, String owner) {
+        releaseNow(Collections.singletonList(key), Collections.singletonList(owner));
+    }
+
+    /**
+     * 一次脚本调用释放多个锁，超过单次上限时分批调用
+     */
+    @Override
+    public void releaseAll(List<String> keys, List<String> owners) {
+        for (int from = 0; from < keys.size(); from += MAX_RELEASE_BATCH) {
+            int to = Math.min(from + MAX_RELEASE_BATCH, keys.size());
+            releaseNow(keys.subList(from, to), owners.subList(from, to));
+        }
+    }
+
+    @Override
+    public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                              long windowMillis) {
+        Long wait = redisTemplate.execute(rateLimitScript(algorithm), Collections.singletonList(key),
+                String.valueOf(permits), String.valueOf(windowMillis), owner);
+        return wait != null ? wait : 0;
+    }
+
+    static RedisScript<Long> rateLimitScript(RateLimitAlgorithm algorithm) {
+        switch (algorithm) {
+            case TOKEN_BUCKET:
+                return TOKEN_BUCKET_SCRIPT;
+            case SLIDING_LOG:
+                return SLIDING_LOG_SCRIPT;
+            default:
+                return SLIDING_WINDOW_SCRIPT;
+        }
+    }
+
+    /**
+     * 保存结果和发布消息在同一个脚本中完成
+     */
+    @Override
+    public void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message) {
+        redisTemplate.execute(PUBLISH_SCRIPT, Collections.singletonList(resultKey),
+                channel, result, String.valueOf(ttlMillis), message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        subscribeLock.lock();
+        try {
+            if (listenerContainer == null) {
+                listenerContainer = new RedisMessageListenerContainer();
+                listenerContainer.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+                listenerContainer.afterPropertiesSet();
+                listenerContainer.start();
+            }
+            listenerContainer.addMessageListener(
+                    (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(channel));
+        } finally {
+            subscribeLock.unlock();
+        }
+    }
+
+    private void releaseNow(List<String> keys, List<String> owners) {
+        Long released = redisTemplate.execute(RELEASE_SCRIPT, keys, owners.toArray());
+        if (log.isDebugEnabled() && released != null && released < keys.size()) {
+            log.debug("{} of {} debounce locks were already expired or taken over", keys.size() - released, keys.size());
+        }
+    }
+
+    private void loadScripts() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            RedisScriptingCommands scripting = connection.scriptingCommands();
+            for (RedisScript<?> script : new RedisScript<?>[]{ACQUIRE_SCRIPT, ACQUIRE_ALL_SCRIPT, RELEASE_SCRIPT, EXTEND_SCRIPT,
+                    EXTEND_ALL_SCRIPT, ACQUIRE_OR_REPLAY_SCRIPT, POLL_RESULT_SCRIPT, PUBLISH_SCRIPT,
+                    TOKEN_BUCKET_SCRIPT, SLIDING_LOG_SCRIPT, SLIDING_WINDOW_SCRIPT}) {
+                scripting.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+}
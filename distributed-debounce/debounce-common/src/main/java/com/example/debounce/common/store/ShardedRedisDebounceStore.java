@@ -0,0 +1,208 @@
+package com.example.debounce.common.store;
+
+import com.example.debounce.common.key.DebounceKeySerializer;
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import io.lettuce.core.RedisURI;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 客户端分片的Redis防抖存储
+ * 多个独立的Redis实例按防抖key做一致性哈希，每个分片是一个完整的{@link RedisDebounceStore}，
+ * 结果key与防抖key落在同一分片，Lua脚本不会跨节点。
+ * 无需Redis Cluster即可水平扩展锁的吞吐，分片增减时只有少量key改变归属
+ * @author maxiaoweii
+ */
+@Slf4j
+public class ShardedRedisDebounceStore implements DebounceStore, InitializingBean, DisposableBean {
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private final List<RedisDebounceStore> shards = new ArrayList<>();
+    private final ConsistentHashRing ring;
+
+    /**
+     * @param uris         分片地址，格式为redis://[password@]host:port[/database]
+     * @param virtualNodes 每个分片的虚拟节点数量
+     * @param timeout      Redis命令超时
+     */
+    public ShardedRedisDebounceStore(List<String> uris, int virtualNodes, Duration timeout) {
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(timeout)
+                .build();
+        for (String uri : uris) {
+            LettuceConnectionFactory connectionFactory =
+                    new LettuceConnectionFactory(toConfiguration(uri), clientConfiguration);
+            connectionFactories.add(connectionFactory);
+            shards.add(new RedisDebounceStore(DebounceKeySerializer.template(connectionFactory)));
+        }
+        this.ring = new ConsistentHashRing(uris, virtualNodes);
+    }
+
+    private static RedisStandaloneConfiguration toConfiguration(String uri) {
+        RedisURI redisUri = RedisURI.create(uri);
+        RedisStandaloneConfiguration configuration =
+                new RedisStandaloneConfiguration(redisUri.getHost(), redisUri.getPort());
+        configuration.setDatabase(redisUri.getDatabase());
+        if (redisUri.getUsername() != null) {
+            configuration.setUsername(redisUri.getUsername());
+        }
+        if (redisUri.getPassword() != null) {
+            configuration.setPassword(redisUri.getPassword());
+        }
+        return configuration;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        connectionFactories.forEach(LettuceConnectionFactory::afterPropertiesSet);
+        shards.forEach(RedisDebounceStore::afterPropertiesSet);
+        log.info("Debounce store sharded across {} Redis instances", shards.size());
+    }
+
+    private RedisDebounceStore shard(String key) {
+        return shards.get(ring.locate(key));
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        return shard(key).tryAcquire(key, owner, ttlMillis);
+    }
+
+    @Override
+    public AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        return shard(key).tryAcquireOrReplay(key, resultKey, owner, ttlMillis);
+    }
+
+    @Override
+    public String pollResult(String key, String resultKey) {
+        return shard(key).pollResult(key, resultKey);
+    }
+
+    @Override
+    public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+        shard(key).storeResult(key, resultKey, result, ttlMillis);
+    }
+
+    @Override
+    public boolean extend(String key, String owner, long ttlMillis) {
+        return shard(key).extend(key, owner, ttlMillis);
+    }
+
+    /**
+     * 按分片分组，每个分片一次脚本调用
+     */
+    @Override
+    public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeByShard(keys, owners, ttlMillis, RedisDebounceStore::tryAcquireAll);
+    }
+
+    /**
+     * 按分片分组，每个分片一次脚本调用
+     */
+    @Override
+    public boolean[] extendAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeByShard(keys, owners, ttlMillis, RedisDebounceStore::extendAll);
+    }
+
+    private boolean[] executeByShard(List<String> keys, List<String> owners, List<Long> ttlMillis,
+                                     BatchOperation operation) {
+        int shardCount = shards.size();
+        List<List<Integer>> groups = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            groups.get(ring.locate(keys.get(i))).add(i);
+        }
+        boolean[] succeeded = new boolean[keys.size()];
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<Integer> group = groups.get(shard);
+            if (group.isEmpty()) {
+                continue;
+            }
+            List<String> groupKeys = new ArrayList<>(group.size());
+            List<String> groupOwners = new ArrayList<>(group.size());
+            List<Long> groupTtls = new ArrayList<>(group.size());
+            for (int index : group) {
+                groupKeys.add(keys.get(index));
+                groupOwners.add(owners.get(index));
+                groupTtls.add(ttlMillis.get(index));
+            }
+            boolean[] result = operation.apply(shards.get(shard), groupKeys, groupOwners, groupTtls);
+            for (int i = 0; i < group.size(); i++) {
+                succeeded[group.get(i)] = result[i];
+            }
+        }
+        return succeeded;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        shard(key).release(key, owner);
+    }
+
+    /**
+     * 按分片分组，每个分片一次脚本调用
+     */
+    @Override
+    public void releaseAll(List<String> keys, List<String> owners) {
+        int shardCount = shards.size();
+        List<List<String>> groupKeys = new ArrayList<>(shardCount);
+        List<List<String>> groupOwners = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            groupKeys.add(new ArrayList<>());
+            groupOwners.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            int shard = ring.locate(keys.get(i));
+            groupKeys.get(shard).add(keys.get(i));
+            groupOwners.get(shard).add(owners.get(i));
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (!groupKeys.get(shard).isEmpty()) {
+                shards.get(shard).releaseAll(groupKeys.get(shard), groupOwners.get(shard));
+            }
+        }
+    }
+
+    @Override
+    public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                              long windowMillis) {
+        return shard(key).acquirePermit(key, owner, algorithm, permits, windowMillis);
+    }
+
+    /**
+     * 消息只发布到防抖key所在分片，订阅方在所有分片上订阅
+     */
+    @Override
+    public void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message) {
+        shard(key).publish(channel, key, resultKey, result, ttlMillis, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        shards.forEach(shard -> shard.subscribe(channel, listener));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (RedisDebounceStore shard : shards) {
+            shard.destroy();
+        }
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    @FunctionalInterface
+    private interface BatchOperation {
+        boolean[] apply(RedisDebounceStore shard, List<String> keys, List<String> owners, List<Long> ttlMillis);
+    }
+}
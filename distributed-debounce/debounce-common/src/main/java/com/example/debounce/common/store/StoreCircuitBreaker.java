@@ -0,0 +1,193 @@
+package com.example.debounce.common.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 防抖存储熔断器
+ * 关闭状态下按时间分桶统计最近一个窗口的调用，失败（含超过延迟预算的慢调用）比例达到阈值后打开；
+ * 打开期间调用直接失败，到期后进入半开状态放行少量探测调用，全部成功则关闭，任一失败则重新打开，
+ * 连续打开的时长逐次翻倍直到上限，存储恢复后归零
+ * @author maxiaoweii
+ */
+@Slf4j
+final class StoreCircuitBreaker {
+
+    private static final int BUCKETS = 10;
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final long budgetNanos;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketMillis;
+    private final long openMillis;
+    private final long maxOpenMillis;
+    private final int halfOpenCalls;
+
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    private final AtomicInteger consecutiveOpens = new AtomicInteger();
+    private volatile long openUntil;
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    StoreCircuitBreaker(DebounceStoreProperties.Breaker properties) {
+        this.budgetNanos = properties.getTimeout().toNanos();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.minimumCalls = Math.max(properties.getMinimumCalls(), 1);
+        this.bucketMillis = Math.max(properties.getWindow().toMillis() / BUCKETS, 1);
+        this.openMillis = Math.max(properties.getOpenDuration().toMillis(), 1);
+        this.maxOpenMillis = Math.max(properties.getMaxOpenDuration().toMillis(), openMillis);
+        this.halfOpenCalls = Math.max(properties.getHalfOpenCalls(), 1);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    /**
+     * 注册存储恢复时的回调，半开状态下每次探测成功（包括最终关闭熔断器的一次）都会调用，回调不能阻塞
+     */
+    void onRecovery(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * 判断本次调用能否访问存储
+     */
+    boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            halfOpenSuccesses.set(0);
+            halfOpenPermits.set(halfOpenCalls);
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                log.info("Debounce store circuit breaker half-open, probing with {} calls", halfOpenCalls);
+            }
+            current = state.get();
+        }
+        return current == State.CLOSED || current == State.HALF_OPEN && halfOpenPermits.getAndDecrement() > 0;
+    }
+
+    /**
+     * 记录一次成功的调用，超过延迟预算时按失败处理
+     *
+     * @param elapsedNanos 调用耗时
+     */
+    void onSuccess(long elapsedNanos) {
+        if (elapsedNanos > budgetNanos) {
+            onFailure();
+            return;
+        }
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                for (Bucket bucket : buckets) {
+                    bucket.reset(-1);
+                }
+                consecutiveOpens.set(0);
+                log.info("Debounce store circuit breaker closed");
+            }
+            recoveryListeners.forEach(Runnable::run);
+        } else if (current == State.CLOSED) {
+            bucket(System.currentTimeMillis()).calls.increment();
+        }
+    }
+
+    /**
+     * 调用在完成前被取消，既不算成功也不算失败，归还半开状态下占用的探测名额
+     */
+    void onCancel() {
+        if (state.get() == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN, "probe failed");
+            return;
+        }
+        if (current != State.CLOSED) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Bucket bucket = bucket(now);
+        bucket.calls.increment();
+        bucket.failures.increment();
+
+        long epoch = now / bucketMillis;
+        long calls = 0;
+        long failures = 0;
+        for (Bucket each : buckets) {
+            if (each.epoch > epoch - BUCKETS) {
+                calls += each.calls.sum();
+                failures += each.failures.sum();
+            }
+        }
+        if (calls >= minimumCalls && failures * 100 >= calls * failureRateThreshold) {
+            open(State.CLOSED, failures + "/" + calls + " calls failed");
+        }
+    }
+
+    private void open(State from, String reason) {
+        int opens = consecutiveOpens.get();
+        long duration = Math.min(openMillis << Math.min(opens, 20), maxOpenMillis);
+        // 先设置截止时间再切换状态，其他线程看到OPEN时截止时间已经生效
+        openUntil = System.currentTimeMillis() + duration;
+        if (state.compareAndSet(from, State.OPEN)) {
+            consecutiveOpens.incrementAndGet();
+            log.warn("Debounce store circuit breaker opened for {}ms: {}", duration, reason);
+        }
+    }
+
+    private Bucket bucket(long now) {
+        long epoch = now / bucketMillis;
+        Bucket bucket = buckets[(int) (epoch % BUCKETS)];
+        if (bucket.epoch != epoch) {
+            // 不使用synchronized，竞争时虚拟线程可以让出载体线程
+            bucket.lock.lock();
+            try {
+                if (bucket.epoch != epoch) {
+                    bucket.reset(epoch);
+                }
+            } finally {
+                bucket.lock.unlock();
+            }
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long epoch = -1;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        void reset(long newEpoch) {
+            calls.reset();
+            failures.reset();
+            epoch = newEpoch;
+        }
+    }
+}
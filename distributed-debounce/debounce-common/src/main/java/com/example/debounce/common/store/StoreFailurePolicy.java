@@ -0,0 +1,20 @@
+package com.example.debounce.common.store;
+
+/**
+ * 防抖存储不可用（超时、异常或熔断）时的处理方式
+ * @author maxiaoweii
+ */
+public enum StoreFailurePolicy {
+    /**
+     * 放行请求，不做防抖
+     */
+    FAIL_OPEN,
+    /**
+     * 拒绝请求，适用于重复执行代价高于不可用的接口
+     */
+    FAIL_CLOSED,
+    /**
+     * 退化为节点内防抖，只拦截到达同一节点的重复请求
+     */
+    LOCAL_ONLY
+}
@@ -0,0 +1,84 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.fingerprint.Hasher128;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 某一时刻的集群成员，不可变
+ * key的归属按最高随机权重（rendezvous）哈希计算：每个成员与key组合打分，分数最高的成员负责该key。
+ * 成员增减时只有归属于变化成员的key改变归属，不需要虚拟节点；查找只读取数组，无锁、无对象分配
+ * @author maxiaoweii
+ */
+final class ClusterMembers {
+
+    private final List<String> members;
+    private final long[] seeds;
+    private final int self;
+
+    /**
+     * @param members 成员地址，格式为host:port，重复的地址只保留一个
+     * @param self    当前节点的地址，不在成员中时当前节点不负责任何key
+     */
+    ClusterMembers(List<String> members, String self) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(members));
+        if (distinct.isEmpty()) {
+            throw new IllegalStateException("Debounce cluster requires at least one member");
+        }
+        this.members = Collections.unmodifiableList(distinct);
+        this.seeds = new long[distinct.size()];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = Hasher128.current().putString(distinct.get(i)).finish().high();
+        }
+        this.self = distinct.indexOf(self);
+    }
+
+    /**
+     * 返回负责该key的成员下标
+     */
+    int ownerOf(String key) {
+        if (seeds.length == 1) {
+            return 0;
+        }
+        long hash = Hasher128.current().putString(key).finish().high();
+        int owner = 0;
+        long best = score(hash, seeds[0]);
+        for (int i = 1; i < seeds.length; i++) {
+            long score = score(hash, seeds[i]);
+            if (Long.compareUnsigned(score, best) > 0) {
+                best = score;
+                owner = i;
+            }
+        }
+        return owner;
+    }
+
+    boolean isSelf(int index) {
+        return index == self;
+    }
+
+    String get(int index) {
+        return members.get(index);
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    List<String> getMembers() {
+        return members;
+    }
+
+    private static long score(long hash, long seed) {
+        long k = hash ^ seed;
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.debounce.common.store.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 集群成员列表，来自静态配置或成员文件
+ * 成员文件每行一个host:port，#开头的行为注释；文件变更后重新加载，内容无效时保留原来的成员。
+ * 当前成员保存在volatile字段中，读取不加锁
+ * @author maxiaoweii
+ */
+@Slf4j
+final class ClusterMembership implements AutoCloseable {
+
+    private final String self;
+    private final Path file;
+    private final Consumer<ClusterMembers> listener;
+    private volatile ClusterMembers members;
+    private WatchService watchService;
+
+    /**
+     * 静态成员列表
+     */
+    ClusterMembership(List<String> members, String self) {
+        this.self = self;
+        this.file = null;
+        this.listener = null;
+        this.members = new ClusterMembers(members, self);
+    }
+
+    /**
+     * 成员文件，变更后通知listener
+     */
+    ClusterMembership(Path file, String self, Consumer<ClusterMembers> listener) throws IOException {
+        this.self = self;
+        this.file = file.toAbsolutePath();
+        this.listener = listener;
+        this.members = new ClusterMembers(read(this.file), self);
+        watch();
+    }
+
+    ClusterMembers current() {
+        return members;
+    }
+
+    private void watch() throws IOException {
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = key.pollEvents().stream()
+                            .anyMatch(event -> file.getFileName().equals(event.context()));
+                    key.reset();
+                    if (changed) {
+                        reload();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                // 应用关闭
+            }
+        }, "debounce-cluster-members-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void reload() {
+        try {
+            ClusterMembers loaded = new ClusterMembers(read(file), self);
+            if (loaded.getMembers().equals(members.getMembers())) {
+                return;
+            }
+            members = loaded;
+            log.info("Debounce cluster members changed: {}", loaded.getMembers());
+            listener.accept(loaded);
+        } catch (IOException | RuntimeException e) {
+            // 文件可能正在写入，等待下一次变更事件
+            log.warn("Failed to load debounce cluster members from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        List<String> members = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String member = line.trim();
+            if (!member.isEmpty() && !member.startsWith("#")) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
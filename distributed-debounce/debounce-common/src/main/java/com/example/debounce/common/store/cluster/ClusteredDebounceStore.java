@@ -0,0 +1,328 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.store.AcquireResult;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.DebounceStoreProperties;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 不依赖Redis的集群防抖存储
+ * 应用节点本身组成集群，每个key按rendezvous哈希归属于一个成员，锁、结果和限流状态保存在该成员的内存存储中。
+ * 归属于本节点的key直接在本地执行，其他key通过{@link PeerClient}转发给所属节点；
+ * 成员变化时只有归属于变化成员的key改变归属，这些key上的锁视为已释放。
+ * 消息由key的所属节点保存结果后广播给所有成员
+ * @author maxiaoweii
+ */
+@Slf4j
+public class ClusteredDebounceStore implements DebounceStore, InitializingBean, DisposableBean {
+
+    private final DebounceStoreProperties.Cluster properties;
+    private final long requestTimeoutMillis;
+    private final InMemoryDebounceStore local = new InMemoryDebounceStore();
+    private final Map<String, PeerClient> peers = new ConcurrentHashMap<>();
+    private ClusterMembership membership;
+    private PeerServer server;
+
+    /**
+     * @param properties 集群配置
+     * @param timeout    转发请求的超时
+     */
+    public ClusteredDebounceStore(DebounceStoreProperties.Cluster properties, Duration timeout) {
+        this.properties = properties;
+        this.requestTimeoutMillis = timeout.toMillis();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (StringUtils.hasText(properties.getMembersFile())) {
+            membership = new ClusterMembership(Paths.get(properties.getMembersFile()), properties.getSelf(),
+                    this::onMembersChanged);
+        } else {
+            membership = new ClusterMembership(properties.getMembers(), properties.getSelf());
+        }
+        if (StringUtils.hasText(properties.getSelf())) {
+            String self = properties.getSelf();
+            int port = Integer.parseInt(self.substring(self.lastIndexOf(':') + 1));
+            server = new PeerServer(new InetSocketAddress(port), local, this::broadcast);
+        }
+        log.info("Debounce store clustered across {}, self {}", membership.current().getMembers(),
+                properties.getSelf());
+    }
+
+    /**
+     * 关闭已移除成员的连接
+     */
+    private void onMembersChanged(ClusterMembers members) {
+        peers.keySet().removeIf(address -> {
+            if (members.getMembers().contains(address)) {
+                return false;
+            }
+            peers.get(address).close();
+            return true;
+        });
+    }
+
+    private PeerClient peer(ClusterMembers members, int index) {
+        return peers.computeIfAbsent(members.get(index), address -> new PeerClient(address,
+                (int) properties.getConnectTimeout().toMillis(), requestTimeoutMillis, properties.getMaxBatch()));
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            return local.tryAcquire(key, owner, ttlMillis);
+        }
+        return peer(members, index).call(PeerProtocol.ACQUIRE, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeString(out, owner);
+            out.writeLong(ttlMillis);
+        }, in -> in.readBoolean());
+    }
+
+    @Override
+    public AcquireResult tryAcquireOrReplay(String key, String resultKey, String owner, long ttlMillis) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            return local.tryAcquireOrReplay(key, resultKey, owner, ttlMillis);
+        }
+        return peer(members, index).call(PeerProtocol.ACQUIRE_OR_REPLAY, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeKey(out, resultKey);
+            PeerProtocol.writeString(out, owner);
+            out.writeLong(ttlMillis);
+        }, in -> {
+            byte state = in.readByte();
+            if (state == PeerProtocol.REPLAY) {
+                return AcquireResult.replay(PeerProtocol.readString(in));
+            }
+            return state == PeerProtocol.ACQUIRED ? AcquireResult.ACQUIRED : AcquireResult.BUSY;
+        });
+    }
+
+    /**
+     * 按所属节点分组，每个节点一次请求
+     */
+    @Override
+    public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeByOwner(PeerProtocol.ACQUIRE_ALL, keys, owners, ttlMillis);
+    }
+
+    /**
+     * 按所属节点分组，每个节点一次请求
+     */
+    @Override
+    public boolean[] extendAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        return executeByOwner(PeerProtocol.EXTEND_ALL, keys, owners, ttlMillis);
+    }
+
+    private boolean[] executeByOwner(byte op, List<String> keys, List<String> owners, List<Long> ttlMillis) {
+        ClusterMembers members = membership.current();
+        List<List<Integer>> groups = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            groups.get(members.ownerOf(keys.get(i))).add(i);
+        }
+        boolean[] succeeded = new boolean[keys.size()];
+        for (int member = 0; member < members.size(); member++) {
+            List<Integer> group = groups.get(member);
+            if (group.isEmpty()) {
+                continue;
+            }
+            List<String> groupKeys = new ArrayList<>(group.size());
+            List<String> groupOwners = new ArrayList<>(group.size());
+            List<Long> groupTtls = new ArrayList<>(group.size());
+            for (int index : group) {
+                groupKeys.add(keys.get(index));
+                groupOwners.add(owners.get(index));
+                groupTtls.add(ttlMillis.get(index));
+            }
+            boolean[] result;
+            if (members.isSelf(member)) {
+                result = op == PeerProtocol.ACQUIRE_ALL
+                        ? local.tryAcquireAll(groupKeys, groupOwners, groupTtls)
+                        : local.extendAll(groupKeys, groupOwners, groupTtls);
+            } else {
+                result = peer(members, member).call(op, out -> {
+                    out.writeInt(groupKeys.size());
+                    for (int i = 0; i < groupKeys.size(); i++) {
+                        PeerProtocol.writeKey(out, groupKeys.get(i));
+                        PeerProtocol.writeString(out, groupOwners.get(i));
+                        out.writeLong(groupTtls.get(i));
+                    }
+                }, in -> {
+                    boolean[] values = new boolean[groupKeys.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = in.readBoolean();
+                    }
+                    return values;
+                });
+            }
+            for (int i = 0; i < group.size(); i++) {
+                succeeded[group.get(i)] = result[i];
+            }
+        }
+        return succeeded;
+    }
+
+    @Override
+    public String pollResult(String key, String resultKey) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            return local.pollResult(key, resultKey);
+        }
+        return peer(members, index).call(PeerProtocol.POLL_RESULT, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeKey(out, resultKey);
+        }, PeerProtocol::readString);
+    }
+
+    @Override
+    public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            local.storeResult(key, resultKey, result, ttlMillis);
+            return;
+        }
+        peer(members, index).call(PeerProtocol.STORE_RESULT, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeKey(out, resultKey);
+            PeerProtocol.writeString(out, result);
+            out.writeLong(ttlMillis);
+        }, in -> null);
+    }
+
+    @Override
+    public boolean extend(String key, String owner, long ttlMillis) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            return local.extend(key, owner, ttlMillis);
+        }
+        return peer(members, index).call(PeerProtocol.EXTEND, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeString(out, owner);
+            out.writeLong(ttlMillis);
+        }, in -> in.readBoolean());
+    }
+
+    /**
+     * 等待所属节点确认释放，与同一时刻的其他请求合并写出，同一客户端随后从其他节点重新提交也不会被旧锁拒绝
+     */
+    @Override
+    public void release(String key, String owner) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            local.release(key, owner);
+            return;
+        }
+        peer(members, index).call(PeerProtocol.RELEASE, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeString(out, owner);
+        }, in -> null);
+    }
+
+    /**
+     * 以所属节点的时钟计算限流窗口
+     */
+    @Override
+    public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                              long windowMillis) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            return local.acquirePermit(key, owner, algorithm, permits, windowMillis);
+        }
+        return peer(members, index).call(PeerProtocol.ACQUIRE_PERMIT, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeString(out, owner);
+            out.writeByte(algorithm.ordinal());
+            out.writeInt(permits);
+            out.writeLong(windowMillis);
+        }, in -> in.readLong());
+    }
+
+    /**
+     * 由key的所属节点保存结果并广播消息
+     */
+    @Override
+    public void publish(String channel, String key, String resultKey, String result, long ttlMillis, String message) {
+        ClusterMembers members = membership.current();
+        int index = members.ownerOf(key);
+        if (members.isSelf(index)) {
+            local.publish(channel, key, resultKey, result, ttlMillis, message);
+            broadcast(channel, message);
+            return;
+        }
+        peer(members, index).call(PeerProtocol.PUBLISH, out -> {
+            PeerProtocol.writeString(out, channel);
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeKey(out, resultKey);
+            PeerProtocol.writeString(out, result);
+            out.writeLong(ttlMillis);
+            PeerProtocol.writeString(out, message);
+        }, in -> null);
+    }
+
+    /**
+     * 向本节点以外的所有成员发送消息
+     */
+    private void broadcast(String channel, String message) {
+        ClusterMembers members = membership.current();
+        for (int i = 0; i < members.size(); i++) {
+            if (!members.isSelf(i)) {
+                peer(members, i).send(PeerProtocol.MESSAGE, out -> {
+                    PeerProtocol.writeString(out, channel);
+                    PeerProtocol.writeString(out, message);
+                });
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        local.subscribe(channel, listener);
+    }
+
+    /**
+     * 当前集群成员
+     */
+    public List<String> getMembers() {
+        return membership.current().getMembers();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (membership != null) {
+            membership.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+        peers.values().forEach(PeerClient::close);
+        peers.clear();
+        local.destroy();
+    }
+}
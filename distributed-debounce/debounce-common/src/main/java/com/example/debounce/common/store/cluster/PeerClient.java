@@ -0,0 +1,316 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 到单个节点的客户端
+ * 所有调用复用一条TCP连接：调用方把请求放入队列后等待响应，写线程一次取出队列中所有待发请求连续写出后只flush一次，
+ * 读线程按请求ID完成对应的调用。连接断开后在下一批请求发出前重新连接，断开时在途的调用按存储不可用失败。
+ * 每个请求先编码到缓冲区再写入连接，序列化失败只影响该请求，连接上不会留下半个帧
+ * @author maxiaoweii
+ */
+@Slf4j
+final class PeerClient implements AutoCloseable {
+
+    private final String address;
+    private final String host;
+    private final int port;
+    private final int connectTimeoutMillis;
+    private final long requestTimeoutMillis;
+    private final int maxBatch;
+
+    private final BlockingQueue<Call<?>> outgoing = new LinkedBlockingQueue<>();
+    private final Map<Integer, Call<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final Thread writer;
+    /**
+     * 写线程编码请求使用的缓冲区
+     */
+    private final ByteArrayOutputStream frameBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream frame = new DataOutputStream(frameBuffer);
+    private volatile boolean running = true;
+
+    /**
+     * 由写线程创建，断开时置空
+     */
+    private volatile Connection connection;
+
+    PeerClient(String address, int connectTimeoutMillis, long requestTimeoutMillis, int maxBatch) {
+        this.address = address;
+        int separator = address.lastIndexOf(':');
+        this.host = address.substring(0, separator);
+        this.port = Integer.parseInt(address.substring(separator + 1));
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::writeLoop, "debounce-peer-writer-" + address);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    String getAddress() {
+        return address;
+    }
+
+    /**
+     * 发送请求并等待响应，超过请求超时按存储不可用处理
+     */
+    <T> T call(byte op, PeerProtocol.PayloadWriter payload, PeerProtocol.ResponseReader<T> reader) {
+        Call<T> call = new Call<>(nextRequestId(), op, payload, reader);
+        if (!running) {
+            throw new DebounceStoreUnavailableException("Debounce peer client is closed: " + address);
+        }
+        outgoing.add(call);
+        try {
+            return call.future.get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 保留在途记录，迟到的响应仍需要按请求读取返回值后丢弃
+            throw new DebounceStoreUnavailableException("Debounce peer " + address + " timed out after "
+                    + requestTimeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DebounceStoreUnavailableException) {
+                throw (DebounceStoreUnavailableException) e.getCause();
+            }
+            throw new DebounceStoreUnavailableException("Debounce peer " + address + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DebounceStoreUnavailableException("Interrupted while waiting for debounce peer " + address, e);
+        }
+    }
+
+    /**
+     * 发送单向请求，不等待也不关心结果，连接不可用时丢弃
+     */
+    void send(byte op, PeerProtocol.PayloadWriter payload) {
+        if (running) {
+            outgoing.add(new Call<>(0, op, payload, null));
+        }
+    }
+
+    private int nextRequestId() {
+        int id = requestIds.incrementAndGet();
+        // 0保留给单向请求
+        return id != 0 ? id : requestIds.incrementAndGet();
+    }
+
+    private void writeLoop() {
+        List<Call<?>> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Call<?> first = outgoing.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outgoing.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // 写线程是到该节点的唯一出口，不能因为个别请求的异常退出
+                log.warn("Unexpected error writing to debounce peer {}", address, e);
+            } finally {
+                batch.clear();
+            }
+        }
+        failAll(new DebounceStoreUnavailableException("Debounce peer client is closed: " + address));
+    }
+
+    private void write(List<Call<?>> batch) {
+        Connection current = connection;
+        try {
+            if (current == null) {
+                current = connect();
+            }
+            for (Call<?> call : batch) {
+                if (!encode(call)) {
+                    continue;
+                }
+                if (call.id != 0) {
+                    inFlight.put(call.id, call);
+                }
+                frameBuffer.writeTo(current.out);
+            }
+            current.out.flush();
+        } catch (IOException | RuntimeException e) {
+            // 连接上可能已写出部分帧，断开后重新连接
+            DebounceStoreUnavailableException failure =
+                    new DebounceStoreUnavailableException("Debounce peer " + address + " is unreachable", e);
+            for (Call<?> call : batch) {
+                inFlight.remove(call.id);
+                call.fail(failure);
+            }
+            disconnect(current, failure);
+        }
+    }
+
+    /**
+     * 将请求编码到缓冲区，负载序列化失败时只让该调用失败
+     *
+     * @return 是否编码成功
+     */
+    private boolean encode(Call<?> call) throws IOException {
+        frameBuffer.reset();
+        try {
+            frame.writeInt(call.id);
+            frame.writeByte(call.op);
+            call.payload.write(frame);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to encode request to debounce peer {}: {}", address, e.toString());
+            call.fail(new DebounceStoreUnavailableException("Failed to encode request to debounce peer " + address, e));
+            return false;
+        }
+    }
+
+    private Connection connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        Connection created = new Connection(socket);
+        Thread reader = new Thread(() -> readLoop(created), "debounce-peer-reader-" + address);
+        reader.setDaemon(true);
+        reader.start();
+        connection = created;
+        log.debug("Connected to debounce peer {}", address);
+        return created;
+    }
+
+    private void readLoop(Connection current) {
+        try {
+            while (running) {
+                int id = current.in.readInt();
+                byte status = current.in.readByte();
+                Call<?> call = inFlight.remove(id);
+                if (status != PeerProtocol.STATUS_OK) {
+                    String message = PeerProtocol.readString(current.in);
+                    if (call != null) {
+                        call.fail(new DebounceStoreUnavailableException("Debounce peer " + address + ": " + message));
+                    }
+                    continue;
+                }
+                if (call == null) {
+                    // 响应的格式由请求决定，找不到请求时无法跳过返回值
+                    throw new IOException("Unexpected response id " + id);
+                }
+                call.complete(current.in);
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.warn("Connection to debounce peer {} lost: {}", address, e.getMessage());
+            }
+        }
+        disconnect(current, new DebounceStoreUnavailableException("Connection to debounce peer " + address + " lost"));
+    }
+
+    /**
+     * 关闭连接，连接上在途的调用全部失败；新的请求会在下一批写出前重新连接
+     */
+    private void disconnect(Connection current, DebounceStoreUnavailableException failure) {
+        if (current == null) {
+            return;
+        }
+        current.close();
+        // 先让在途调用失败再置空，写线程不会在旧连接的调用失败前建立新连接
+        failAll(failure);
+        if (connection == current) {
+            connection = null;
+        }
+    }
+
+    private void failAll(DebounceStoreUnavailableException failure) {
+        for (Integer id : inFlight.keySet()) {
+            Call<?> call = inFlight.remove(id);
+            if (call != null) {
+                call.fail(failure);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        Connection current = connection;
+        if (current != null) {
+            current.close();
+        }
+        for (Call<?> call = outgoing.poll(); call != null; call = outgoing.poll()) {
+            call.fail(new DebounceStoreUnavailableException("Debounce peer client is closed: " + address));
+        }
+    }
+
+    private static final class Call<T> {
+        final int id;
+        final byte op;
+        final PeerProtocol.PayloadWriter payload;
+        final PeerProtocol.ResponseReader<T> reader;
+        final CompletableFuture<T> future;
+
+        Call(int id, byte op, PeerProtocol.PayloadWriter payload, PeerProtocol.ResponseReader<T> reader) {
+            this.id = id;
+            this.op = op;
+            this.payload = payload;
+            this.reader = reader;
+            this.future = id != 0 ? new CompletableFuture<>() : null;
+        }
+
+        void complete(DataInputStream in) throws IOException {
+            future.complete(reader.read(in));
+        }
+
+        void fail(DebounceStoreUnavailableException failure) {
+            if (future != null) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+}
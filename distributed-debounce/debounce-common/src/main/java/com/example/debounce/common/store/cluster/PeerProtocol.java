@@ -0,0 +1,104 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.key.DebounceKeySerializer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 节点间的二进制协议
+ * 请求：int请求ID、byte操作码、参数；请求ID为0的单向请求没有响应。
+ * 响应：int请求ID、byte状态、返回值，状态非0时返回值为错误信息。
+ * 同一连接上的请求可以连续写出，响应按服务端处理顺序返回，通过请求ID对应；
+ * 字符串为int长度加内容，长度为-1表示null，防抖key按{@link DebounceKeySerializer}编码
+ * @author maxiaoweii
+ */
+final class PeerProtocol {
+
+    static final byte ACQUIRE = 1;
+    static final byte ACQUIRE_OR_REPLAY = 2;
+    static final byte ACQUIRE_ALL = 3;
+    static final byte POLL_RESULT = 4;
+    static final byte STORE_RESULT = 5;
+    static final byte EXTEND = 6;
+    static final byte EXTEND_ALL = 7;
+    static final byte RELEASE = 8;
+    static final byte ACQUIRE_PERMIT = 9;
+    static final byte PUBLISH = 10;
+    static final byte MESSAGE = 11;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    /**
+     * tryAcquireOrReplay的返回状态
+     */
+    static final byte BUSY = 0;
+    static final byte ACQUIRED = 1;
+    static final byte REPLAY = 2;
+
+    /**
+     * 单个字符串的长度上限，防止错误的数据导致分配过大的数组
+     */
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    private PeerProtocol() {
+    }
+
+    static void writeKey(DataOutputStream out, String key) throws IOException {
+        writeBytes(out, DebounceKeySerializer.INSTANCE.serialize(key));
+    }
+
+    static String readKey(DataInputStream in) throws IOException {
+        return DebounceKeySerializer.INSTANCE.deserialize(readBytes(in));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Peer frame string too large: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * 写出请求参数
+     */
+    @FunctionalInterface
+    interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * 读取响应的返回值，在连接的读线程上执行
+     */
+    @FunctionalInterface
+    interface ResponseReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.store.AcquireResult;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 节点的服务端，在本地存储上执行其他节点转发来的请求
+ * 每条连接一个线程顺序处理请求，响应写入缓冲区，连接上暂时没有更多请求时才flush，
+ * 客户端连续写出的一批请求的响应也会合并发送
+ * @author maxiaoweii
+ */
+@Slf4j
+final class PeerServer implements AutoCloseable {
+
+    private static final RateLimitAlgorithm[] ALGORITHMS = RateLimitAlgorithm.values();
+
+    private final InMemoryDebounceStore local;
+    private final BiConsumer<String, String> broadcaster;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    /**
+     * @param local       本节点负责的key所在的存储
+     * @param broadcaster 向其他节点广播消息，参数为频道和消息
+     */
+    PeerServer(InetSocketAddress bindAddress, InMemoryDebounceStore local, BiConsumer<String, String> broadcaster)
+            throws IOException {
+        this.local = local;
+        this.broadcaster = broadcaster;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(bindAddress);
+        Thread acceptor = new Thread(this::acceptLoop, "debounce-peer-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Debounce peer server listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "debounce-peer-" + socket.getRemoteSocketAddress());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept debounce peer connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (running) {
+                int id = in.readInt();
+                byte op = in.readByte();
+                handle(id, op, in, out);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // 对端关闭连接
+        } catch (IOException e) {
+            log.warn("Debounce peer connection {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            connections.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 先读完整个请求再执行，执行失败时返回错误状态，连接继续可用
+     */
+    private void handle(int id, byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        PeerProtocol.PayloadWriter response;
+        switch (op) {
+            case PeerProtocol.ACQUIRE: {
+                String key = PeerProtocol.readKey(in);
+                String owner = PeerProtocol.readString(in);
+                long ttl = in.readLong();
+                response = execute(() -> {
+                    boolean acquired = local.tryAcquire(key, owner, ttl);
+                    return o -> o.writeBoolean(acquired);
+                });
+                break;
+            }
+            case PeerProtocol.ACQUIRE_OR_REPLAY: {
+                String key = PeerProtocol.readKey(in);
+                String resultKey = PeerProtocol.readKey(in);
+                String owner = PeerProtocol.readString(in);
+                long ttl = in.readLong();
+                response = execute(() -> {
+                    AcquireResult result = local.tryAcquireOrReplay(key, resultKey, owner, ttl);
+                    return o -> {
+                        if (result.getReplay() != null) {
+                            o.writeByte(PeerProtocol.REPLAY);
+                            PeerProtocol.writeString(o, result.getReplay());
+                        } else {
+                            o.writeByte(result.isAcquired() ? PeerProtocol.ACQUIRED : PeerProtocol.BUSY);
+                        }
+                    };
+                });
+                break;
+            }
+            case PeerProtocol.ACQUIRE_ALL:
+            case PeerProtocol.EXTEND_ALL: {
+                int count = in.readInt();
+                List<String> keys = new ArrayList<>(count);
+                List<String> owners = new ArrayList<>(count);
+                List<Long> ttls = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    keys.add(PeerProtocol.readKey(in));
+                    owners.add(PeerProtocol.readString(in));
+                    ttls.add(in.readLong());
+                }
+                response = execute(() -> {
+                    boolean[] result = op == PeerProtocol.ACQUIRE_ALL
+                            ? local.tryAcquireAll(keys, owners, ttls) : local.extendAll(keys, owners, ttls);
+                    return o -> {
+                        for (boolean succeeded : result) {
+                            o.writeBoolean(succeeded);
+                        }
+                    };
+                });
+                break;
+            }
+            case PeerProtocol.POLL_RESULT: {
+                String key = PeerProtocol.readKey(in);
+                String resultKey = PeerProtocol.readKey(in);
+                response = execute(() -> {
+                    String result = local.pollResult(key, resultKey);
+                    return o -> PeerProtocol.writeString(o, result);
+                });
+                break;
+            }
+            case PeerProtocol.STORE_RESULT: {
+                String key = PeerProtocol.readKey(in);
+                String resultKey = PeerProtocol.readKey(in);
+                String result = PeerProtocol.readString(in);
+                long ttl = in.readLong();
+                response = execute(() -> {
+                    local.storeResult(key, resultKey, result, ttl);
+                    return o -> {
+                    };
+                });
+                break;
+            }
+            case PeerProtocol.EXTEND: {
+                String key = PeerProtocol.readKey(in);
+                String owner = PeerProtocol.readString(in);
+                long ttl = in.readLong();
+                response = execute(() -> {
+                    boolean extended = local.extend(key, owner, ttl);
+                    return o -> o.writeBoolean(extended);
+                });
+                break;
+            }
+            case PeerProtocol.RELEASE: {
+                String key = PeerProtocol.readKey(in);
+                String owner = PeerProtocol.readString(in);
+                response = execute(() -> {
+                    local.release(key, owner);
+                    return o -> {
+                    };
+                });
+                break;
+            }
+            case PeerProtocol.ACQUIRE_PERMIT: {
+                String key = PeerProtocol.readKey(in);
+                String owner = PeerProtocol.readString(in);
+                RateLimitAlgorithm algorithm = ALGORITHMS[in.readByte()];
+                int permits = in.readInt();
+                long window = in.readLong();
+                response = execute(() -> {
+                    long wait = local.acquirePermit(key, owner, algorithm, permits, window);
+                    return o -> o.writeLong(wait);
+                });
+                break;
+            }
+            case PeerProtocol.PUBLISH: {
+                String channel = PeerProtocol.readString(in);
+                String key = PeerProtocol.readKey(in);
+                String resultKey = PeerProtocol.readKey(in);
+                String result = PeerProtocol.readString(in);
+                long ttl = in.readLong();
+                String message = PeerProtocol.readString(in);
+                response = execute(() -> {
+                    // 结果保存后再通知，其他节点收到消息时一定能查到结果
+                    local.publish(channel, key, resultKey, result, ttl, message);
+                    broadcaster.accept(channel, message);
+                    return o -> {
+                    };
+                });
+                break;
+            }
+            case PeerProtocol.MESSAGE: {
+                String channel = PeerProtocol.readString(in);
+                String message = PeerProtocol.readString(in);
+                response = execute(() -> {
+                    local.publish(channel, null, null, "", 0, message);
+                    return o -> {
+                    };
+                });
+                break;
+            }
+            default:
+                // 无法确定请求长度，只能断开连接
+                throw new IOException("Unknown debounce peer operation " + op);
+        }
+        if (id == 0) {
+            return;
+        }
+        out.writeInt(id);
+        response.write(out);
+    }
+
+    /**
+     * 执行请求，返回写出状态和返回值的响应
+     */
+    private static PeerProtocol.PayloadWriter execute(Operation operation) {
+        try {
+            PeerProtocol.PayloadWriter result = operation.run();
+            return out -> {
+                out.writeByte(PeerProtocol.STATUS_OK);
+                result.write(out);
+            };
+        } catch (RuntimeException e) {
+            return out -> {
+                out.writeByte(PeerProtocol.STATUS_ERROR);
+                PeerProtocol.writeString(out, String.valueOf(e.getMessage()));
+            };
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        PeerProtocol.PayloadWriter run();
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.debounce.common.strategy;
 
+import com.example.debounce.common.adapter.ServletRequestView;
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+
 import java.util.Map;
 
 /**
@@ -16,6 +19,29 @@ public interface CompatibleDebounceStrategy {
      */
     String generateKey(Map<String, Object> request, String prefix);
 
+    /**
+     * 基于请求视图生成防抖key，默认转换为Map后调用{@link #generateKey(Map, String)}
+     * 实现类可覆盖该方法按需读取字段，避免复制请求头和参数
+     *
+     * @param request HTTP请求视图
+     * @param prefix  防抖key前缀
+     * @return 防抖key
+     */
+    default String generateKey(ServletRequestView request, String prefix) {
+        return generateKey(request.toMap(), prefix);
+    }
+
+    /**
+     * 基于预编译的key模板生成防抖key，默认调用{@link #generateKey(ServletRequestView, String)}
+     *
+     * @param request  HTTP请求视图
+     * @param template key模板
+     * @return 防抖key
+     */
+    default String generateKey(ServletRequestView request, DebounceKeyTemplate template) {
+        return generateKey(request, template.getPrefix());
+    }
+
     /**
      * 获取用户标识
      *
@@ -73,4 +99,44 @@ public interface CompatibleDebounceStrategy {
     default boolean isInvalidIp(String ip) {
         return ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip);
     }
+
+    /**
+     * 获取用户标识
+     *
+     * @param request HTTP请求视图
+     * @return 用户标识
+     */
+    default String getUserIdentifier(ServletRequestView request) {
+        String userId = request.getHeader("X-User-Id");
+        if (userId != null && !userId.isEmpty()) {
+            return userId;
+        }
+        return getClientIp(request);
+    }
+
+    /**
+     * 获取客户端IP地址
+     *
+     * @param request HTTP请求视图
+     * @return IP地址
+     */
+    default String getClientIp(ServletRequestView request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (isInvalidIp(ip)) {
+            ip = request.getHeader("Proxy-Client-IP");
+        }
+        if (isInvalidIp(ip)) {
+            ip = request.getHeader("WL-Proxy-Client-IP");
+        }
+        if (isInvalidIp(ip)) {
+            ip = request.getHeader("HTTP_CLIENT_IP");
+        }
+        if (isInvalidIp(ip)) {
+            ip = request.getHeader("HTTP_X_FORWARDED_FOR");
+        }
+        if (isInvalidIp(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        return ip;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.example.debounce.common.strategy;
 
+import com.example.debounce.common.adapter.ServletRequestView;
+import com.example.debounce.common.fingerprint.Hasher128;
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
@@ -38,6 +41,60 @@ public class CompatibleDefaultDebounceStrategy implements CompatibleDebounceStra
         return keyBuilder.toString();
     }
 
+    @Override
+    public String generateKey(ServletRequestView request, String prefix) {
+        return generateKey(request, DebounceKeyTemplate.of(prefix));
+    }
+
+    @Override
+    public String generateKey(ServletRequestView request, DebounceKeyTemplate template) {
+        // 固定部分"debounce:{prefix}:"已预先拼接
+        StringBuilder keyBuilder = template.newKeyBuilder();
+
+        // 添加请求路径
+        keyBuilder.append(request.getRequestURI()).append(':');
+
+        // 添加用户标识
+        keyBuilder.append(getUserIdentifier(request)).append(':');
+
+        // 添加请求参数的哈希值，直接以十六进制写入key
+        Map<?, ?> parameters = request.getParameterMap();
+        if (parameters != null && !parameters.isEmpty()) {
+            appendParamsHash(keyBuilder, parameters);
+        }
+
+        return keyBuilder.toString();
+    }
+
+    /**
+     * 流式计算请求参数的哈希值
+     * 每个参数单独哈希后累加，结果与参数顺序无关
+     */
+    private void appendParamsHash(StringBuilder keyBuilder, Map<?, ?> parameters) {
+        Hasher128 hasher = Hasher128.current();
+        long sumHigh = 0;
+        long sumLow = 0;
+        for (Map.Entry<?, ?> entry : parameters.entrySet()) {
+            hasher.reset().putString((String) entry.getKey());
+            String[] values = (String[]) entry.getValue();
+            if (values != null) {
+                for (String value : values) {
+                    hasher.putString(value);
+                }
+                hasher.putInt(values.length);
+            }
+            hasher.finish();
+            sumHigh += hasher.high();
+            sumLow += hasher.low();
+        }
+        hasher.reset()
+                .putLong(sumHigh)
+                .putLong(sumLow)
+                .putInt(parameters.size())
+                .finish()
+                .appendHex(keyBuilder);
+    }
+
     /**
      * 生成请求参数的哈希值
      */
@@ -54,4 +111,4 @@ public class CompatibleDefaultDebounceStrategy implements CompatibleDebounceStra
         }
         return null;
     }
-}
\ No newline at end of file
+}
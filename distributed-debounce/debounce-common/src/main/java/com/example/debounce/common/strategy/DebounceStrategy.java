@@ -1,5 +1,6 @@
 package com.example.debounce.common.strategy;
 
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
 import javax.servlet.http.HttpServletRequest;
 
 /**
@@ -15,6 +16,17 @@ public interface DebounceStrategy {
      */
     String generateKey(HttpServletRequest request, String prefix);
 
+    /**
+     * 基于预编译的key模板生成防抖key，默认调用{@link #generateKey(HttpServletRequest, String)}
+     *
+     * @param request  HTTP请求
+     * @param template key模板
+     * @return 防抖key
+     */
+    default String generateKey(HttpServletRequest request, DebounceKeyTemplate template) {
+        return generateKey(request, template.getPrefix());
+    }
+
     /**
      * 获取用户标识
      *
@@ -1,77 +1,199 @@
 package com.example.debounce.common.strategy;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.fingerprint.CanonicalJsonHasher;
+import com.example.debounce.common.fingerprint.Hasher128;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.key.DebounceKeyFormat;
+import com.example.debounce.common.key.DebounceKeyProperties;
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+import com.example.debounce.common.web.CachedBodyHttpServletRequest;
+import com.example.debounce.common.web.ReactiveDebounceWebFilter;
 import javax.servlet.http.HttpServletRequest;
-import org.springframework.util.DigestUtils;
-import org.springframework.util.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.WebUtils;
 
-import java.io.IOException;
-import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 默认防抖策略实现
- * 支持基于用户ID、IP和请求参数的防抖
+ * 支持基于用户ID、IP和请求参数的防抖，Servlet与WebFlux环境下相同的请求生成相同的key。
+ * 紧凑格式下路径、用户标识和参数合并为一个128位指纹，key长度固定
  * @author maxiaoweii
  */
-public class DefaultDebounceStrategy implements DebounceStrategy {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+@Slf4j
+public class DefaultDebounceStrategy implements DebounceStrategy, ReactiveDebounceStrategy {
+
+    private final CanonicalJsonHasher bodyHasher;
+    private final DebounceKeyFormat keyFormat;
+
+    public DefaultDebounceStrategy() {
+        this(CanonicalJsonHasher.DEFAULT);
+    }
+
+    @Autowired
+    public DefaultDebounceStrategy(DebounceBodyProperties bodyProperties, DebounceKeyProperties keyProperties) {
+        this(new CanonicalJsonHasher(bodyProperties.getIncludePaths(), bodyProperties.getIgnorePaths()),
+                keyProperties.getEffectiveFormat());
+    }
+
+    public DefaultDebounceStrategy(CanonicalJsonHasher bodyHasher) {
+        this(bodyHasher, DebounceKeyFormat.READABLE);
+    }
+
+    public DefaultDebounceStrategy(CanonicalJsonHasher bodyHasher, DebounceKeyFormat keyFormat) {
+        this.bodyHasher = bodyHasher;
+        this.keyFormat = keyFormat;
+    }
 
     @Override
     public String generateKey(HttpServletRequest request, String prefix) {
-        StringBuilder keyBuilder = new StringBuilder("debounce:");
-        
-        // 添加前缀
-        if (StringUtils.hasText(prefix)) {
-            keyBuilder.append(prefix).append(":");
+        return generateKey(request, DebounceKeyTemplate.of(prefix));
+    }
+
+    @Override
+    public String generateKey(HttpServletRequest request, DebounceKeyTemplate template) {
+        // 请求路径与用户标识
+        String path = request.getRequestURI();
+        String userIdentifier = getUserIdentifier(request);
+
+        // 请求参数的哈希值
+        Hasher128 hasher = hashParams(request);
+
+        return buildKey(template, path, userIdentifier, hasher);
+    }
+
+    @Override
+    public String generateKey(ServerWebExchange exchange, DebounceKeyTemplate template) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        // 请求路径与getRequestURI一样是未解码的原始路径
+        String path = request.getPath().value();
+        String userIdentifier = getUserIdentifier(request);
+
+        // 查询参数与请求体的哈希值
+        Hasher128 hasher = Hasher128.current();
+        long sumHigh = 0;
+        long sumLow = 0;
+        Map<String, List<String>> parameters = request.getQueryParams();
+        for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+            List<String> values = entry.getValue();
+            hashParameter(hasher, entry.getKey(), values != null && !values.isEmpty() ? values.get(0) : null);
+            sumHigh += hasher.high();
+            sumLow += hasher.low();
+        }
+        byte[] body = ReactiveDebounceWebFilter.getCachedBody(exchange);
+        combineHash(hasher, sumHigh, sumLow, parameters.size(), body, body != null ? body.length : 0,
+                ReactiveDebounceWebFilter.getOverflowHash(exchange), ReactiveDebounceWebFilter.getBodyLength(exchange));
+
+        return buildKey(template, path, userIdentifier, hasher);
+    }
+
+    /**
+     * 可读格式依次拼接路径、用户标识和十六进制的参数哈希；
+     * 紧凑格式将三者再哈希为一个指纹，以原始字节写入key
+     *
+     * @param hasher 已完成参数哈希计算的哈希器
+     */
+    private String buildKey(DebounceKeyTemplate template, String path, String userIdentifier, Hasher128 hasher) {
+        if (keyFormat == DebounceKeyFormat.COMPACT) {
+            long paramsHigh = hasher.high();
+            long paramsLow = hasher.low();
+            hasher.reset()
+                    .putString(path)
+                    .putString(userIdentifier)
+                    .putLong(paramsHigh)
+                    .putLong(paramsLow)
+                    .finish();
+            return CompactDebounceKeys.appendFingerprint(template.newCompactKeyBuilder(), hasher).toString();
+        }
+        // 固定部分"debounce:{prefix}:"已预先拼接
+        StringBuilder keyBuilder = template.newKeyBuilder()
+                .append(path).append(':')
+                .append(userIdentifier).append(':');
+        return hasher.appendHex(keyBuilder).toString();
+    }
+
+    /**
+     * 流式计算URL参数与请求体的哈希值，结果留在哈希器中
+     * 请求体只读取{@link CachedBodyHttpServletRequest}中缓存的字节，不会消费原始输入流
+     */
+    private Hasher128 hashParams(HttpServletRequest request) {
+        Hasher128 hasher = Hasher128.current();
+
+        // URL参数逐个哈希后累加，结果与参数顺序无关
+        long sumHigh = 0;
+        long sumLow = 0;
+        Map<String, String[]> parameters = request.getParameterMap();
+        for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+            String[] values = entry.getValue();
+            hashParameter(hasher, entry.getKey(), values != null && values.length > 0 ? values[0] : null);
+            sumHigh += hasher.high();
+            sumLow += hasher.low();
+        }
+
+        // 请求体参数，超过缓存上限时由已缓存的前缀和剩余部分的溢出哈希组成
+        CachedBodyHttpServletRequest cached = WebUtils.getNativeRequest(request, CachedBodyHttpServletRequest.class);
+        if (cached == null) {
+            return combineHash(hasher, sumHigh, sumLow, parameters.size(), null, 0, null, 0);
         }
-        
-        // 添加请求路径
-        keyBuilder.append(request.getRequestURI()).append(":");
-        
-        // 添加用户标识
-        keyBuilder.append(getUserIdentifier(request)).append(":");
-        
-        // 添加请求参数的哈希值
-        String paramsHash = generateParamsHash(request);
-        if (paramsHash != null) {
-            keyBuilder.append(paramsHash);
+        Hasher128 overflow = cached.isBodyCached() ? null : cached.getOverflowHash();
+        if (!cached.isBodyCached() && overflow == null) {
+            log.warn("Request body of {} exceeds the debounce cache limit and was not read before the key was"
+                    + " generated, debounce is skipped for this request", request.getRequestURI());
         }
-        
-        return keyBuilder.toString();
+        return combineHash(hasher, sumHigh, sumLow, parameters.size(), cached.getBodyBuffer(),
+                cached.getBodyLength(), overflow, cached.getTotalLength());
     }
 
     /**
-     * 生成请求参数的哈希值
+     * 计算单个参数的哈希，结果留在哈希器中
      */
-    private String generateParamsHash(HttpServletRequest request) {
-        try {
-            Map<String, Object> params = new HashMap<>();
-            
-            // 获取URL参数
-            Enumeration<String> paramNames = request.getParameterNames();
-            while (paramNames.hasMoreElements()) {
-                String name = paramNames.nextElement();
-                params.put(name, request.getParameter(name));
-            }
-            
-            // 获取请求体参数
-            String contentType = request.getContentType();
-            if (contentType != null && contentType.contains("application/json")) {
-                try {
-                    Object bodyParams = objectMapper.readValue(request.getInputStream(), Object.class);
-                    params.put("body", bodyParams);
-                } catch (IOException e) {
-                    // 忽略请求体解析错误
-                }
+    private static void hashParameter(Hasher128 hasher, String name, String firstValue) {
+        hasher.reset().putString(name);
+        if (firstValue != null) {
+            hasher.putString(firstValue);
+        }
+        hasher.finish();
+    }
+
+    /**
+     * 合并参数哈希与请求体哈希，结果留在哈希器中
+     * 完整缓存的请求体按规范化JSON哈希，不是合法JSON时按原始字节哈希；
+     * 超过缓存上限的请求体按原始字节哈希已缓存的前缀，再加入剩余部分的溢出哈希和总长度；
+     * 溢出哈希不可用时无法区分不同的请求体，加入随机数使该请求不与其他请求冲突，即不做防抖
+     *
+     * @param bodyLength  已缓存的字节数
+     * @param overflow    超过缓存上限部分的哈希，完整缓存或不可用时为null
+     * @param totalLength 请求体的总字节数
+     */
+    private Hasher128 combineHash(Hasher128 hasher, long sumHigh, long sumLow, int parameterCount,
+                                  byte[] body, int bodyLength, Hasher128 overflow, long totalLength) {
+        hasher.reset()
+                .putLong(sumHigh)
+                .putLong(sumLow)
+                .putInt(parameterCount);
+        if (body == null || bodyLength <= 0) {
+            return hasher.finish();
+        }
+        if (overflow != null) {
+            hasher.putBytes(body, 0, bodyLength)
+                    .putLong(overflow.high())
+                    .putLong(overflow.low())
+                    .putLong(totalLength);
+        } else if (totalLength == bodyLength) {
+            if (!bodyHasher.hash(body, 0, bodyLength, hasher)) {
+                hasher.putBytes(body, 0, bodyLength);
             }
-            
-            // 生成参数哈希值
-            String paramsJson = objectMapper.writeValueAsString(params);
-            return DigestUtils.md5DigestAsHex(paramsJson.getBytes());
-        } catch (Exception e) {
-            return null;
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            hasher.putLong(random.nextLong()).putLong(random.nextLong());
         }
+        return hasher.finish();
     }
-}
\ No newline at end of file
+}
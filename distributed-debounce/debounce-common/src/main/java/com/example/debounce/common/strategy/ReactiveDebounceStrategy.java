@@ -0,0 +1,72 @@
+package com.example.debounce.common.strategy;
+
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+import com.example.debounce.common.web.ReactiveDebounceWebFilter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * WebFlux环境下的防抖策略
+ * 内置的{@link DefaultDebounceStrategy}和{@link UserDebounceStrategy}同时实现了该接口，
+ * 生成的key与Servlet环境相同；JSON请求体由{@link ReactiveDebounceWebFilter}缓存
+ * @author maxiaoweii
+ */
+public interface ReactiveDebounceStrategy {
+
+    /**
+     * 基于预编译的key模板生成防抖key
+     *
+     * @param exchange 当前请求
+     * @param template key模板
+     * @return 防抖key
+     */
+    String generateKey(ServerWebExchange exchange, DebounceKeyTemplate template);
+
+    /**
+     * 获取用户标识
+     *
+     * @param request HTTP请求
+     * @return 用户标识
+     */
+    default String getUserIdentifier(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        if (userId != null && !userId.isEmpty()) {
+            return userId;
+        }
+        return getClientIp(request);
+    }
+
+    /**
+     * 获取客户端IP地址
+     *
+     * @param request HTTP请求
+     * @return IP地址
+     */
+    default String getClientIp(ServerHttpRequest request) {
+        String ip = request.getHeaders().getFirst("X-Forwarded-For");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeaders().getFirst("Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeaders().getFirst("WL-Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeaders().getFirst("HTTP_CLIENT_IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeaders().getFirst("HTTP_X_FORWARDED_FOR");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            ip = remoteAddress != null && remoteAddress.getAddress() != null
+                    ? remoteAddress.getAddress().getHostAddress() : "unknown";
+        }
+        // 如果是多级代理，取第一个IP地址
+        if (ip.contains(",")) {
+            ip = ip.split(",")[0].trim();
+        }
+        return ip;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.debounce.common.strategy;
+
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * 按用户防抖策略
+ * key只包含请求路径和用户标识，不区分请求参数，适合按用户限流
+ * @author maxiaoweii
+ */
+public class UserDebounceStrategy implements DebounceStrategy, ReactiveDebounceStrategy {
+
+    @Override
+    public String generateKey(HttpServletRequest request, String prefix) {
+        return generateKey(request, DebounceKeyTemplate.of(prefix));
+    }
+
+    @Override
+    public String generateKey(HttpServletRequest request, DebounceKeyTemplate template) {
+        return template.newKeyBuilder()
+                .append(request.getRequestURI()).append(':')
+                .append(getUserIdentifier(request))
+                .toString();
+    }
+
+    @Override
+    public String generateKey(ServerWebExchange exchange, DebounceKeyTemplate template) {
+        return template.newKeyBuilder()
+                .append(exchange.getRequest().getPath().value()).append(':')
+                .append(getUserIdentifier(exchange.getRequest()))
+                .toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.debounce.common.timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 哈希时间轮
+ * 单个工作线程按固定刻度推进，同一刻度到期的任务合并后一次性交给处理器，
+ * 适合大量短周期定时任务（锁续期、延迟执行等），调度开销与任务数量无关
+ * @author maxiaoweii
+ */
+@Slf4j
+public class HashedTimingWheel<T> implements AutoCloseable {
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Entry<T>>[] buckets;
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> handler;
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param name       工作线程名称
+     * @param tickMillis 刻度时长，单位毫秒
+     * @param wheelSize  槽数量，会向上取整为2的幂
+     * @param handler    每个刻度到期任务的批量处理器，在工作线程中执行
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<List<T>> handler) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.handler = handler;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 添加定时任务，可在任意线程调用
+     *
+     * @param item        到期时交给处理器的对象
+     * @param delayMillis 延迟时间，单位毫秒
+     */
+    public void schedule(T item, long delayMillis) {
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+        pending.add(new Entry<>(item, deadline));
+    }
+
+    private void run() {
+        List<T> expired = new ArrayList<>();
+        while (running) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            transferPending();
+            collectExpired(buckets[(int) (tick & mask)], expired);
+            if (!expired.isEmpty()) {
+                try {
+                    handler.accept(expired);
+                } catch (RuntimeException e) {
+                    log.warn("Timing wheel handler failed on {} items: {}", expired.size(), e.getMessage());
+                }
+                expired.clear();
+            }
+            tick++;
+        }
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void transferPending() {
+        Entry<T> entry;
+        while ((entry = pending.poll()) != null) {
+            long ticks = Math.max(entry.deadline / tickNanos, tick);
+            entry.rounds = (ticks - tick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(entry);
+        }
+    }
+
+    private static <T> void collectExpired(List<Entry<T>> bucket, List<T> expired) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry<T> entry = bucket.get(i);
+            if (entry.rounds > 0) {
+                entry.rounds--;
+                bucket.set(kept++, entry);
+            } else {
+                expired.add(entry.item);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final long deadline;
+        long rounds;
+
+        Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
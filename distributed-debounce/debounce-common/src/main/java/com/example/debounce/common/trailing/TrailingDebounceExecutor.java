@@ -0,0 +1,522 @@
+package com.example.debounce.common.trailing;
+
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.async.VirtualThreads;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.KeyedMessage;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import com.example.debounce.common.timer.HashedTimingWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 尾沿防抖执行器
+ * 同一key的调用组成一轮（burst），每次调用替换待执行的调用并把截止时间推迟一个窗口，
+ * key在一个窗口内没有新调用后只执行最后一次调用，这一轮的所有调用方共享同一个结果。
+ * 截止时间最多推迟到首次调用后一个窗口加ttl，持续高频调用的客户端也会按该周期拿到结果；
+ * 同步调用方最多等待到截止上限后再加一个ttl和一个窗口，超时按提示信息失败，不会一直占用请求线程。
+ * 截止时间由哈希时间轮检查，每轮只调度一次，推迟截止时间不需要重新调度，几十万个待执行的key只占用一个工作线程。
+ * <p>
+ * 跨节点时每次调用都把本轮的令牌写入存储中的latest标记，最后一次调用所在节点的令牌留在标记中。
+ * 各节点本轮到期后读取标记：令牌是自己的节点获取执行锁后执行，并把结果保存、发布给其他节点；
+ * 令牌属于其他节点的轮次直接等待该节点的结果，因此整个集群每轮只执行一次。
+ * 领导节点在执行前宕机时标记过期，等待的调用方按提示信息失败，不会用较早的请求覆盖较新的数据。
+ * 防抖存储不可用时FAIL_CLOSED直接失败，其他策略在本节点执行
+ * @author maxiaoweii
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TrailingDebounceExecutor implements InitializingBean, DisposableBean {
+
+    public static final String CHANNEL = "debounce:trailing";
+    public static final String LATEST_SUFFIX = ":latest";
+    public static final String RESULT_SUFFIX = ":trailing-result";
+
+    /**
+     * 时间轮刻度，单位毫秒，决定截止时间的精度
+     */
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * 结果在存储中的最短保留时间，覆盖跟随节点检查结果前已发布的情况，单位毫秒
+     */
+    private static final long RESULT_GRACE_MILLIS = 1000;
+
+    private static final char SUCCESS = 'S';
+    private static final char FAILURE = 'F';
+
+    private final DebounceStore debounceStore;
+    private final LeaseWatchdog leaseWatchdog;
+    private final ReplayCodec codec;
+
+    private final Map<String, Burst> pending = new ConcurrentHashMap<>();
+    private final Map<String, Set<Burst>> followers = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Burst> wheel =
+            new HashedTimingWheel<>("debounce-trailing", TICK_MILLIS, 4096, this::onDue);
+    private ExecutorService executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = VirtualThreads.isSupported()
+                ? VirtualThreads.newThreadPerTaskExecutor("debounce-trailing-")
+                : Executors.newCachedThreadPool(new TrailingThreadFactory());
+        debounceStore.subscribe(CHANNEL, this::onMessage);
+    }
+
+    /**
+     * 以尾沿防抖模式执行目标方法
+     *
+     * @param joinPoint       切点
+     * @param method          目标方法，用于还原其他节点的结果
+     * @param asyncReturnType 返回值类型，只支持同步和CompletionStage
+     * @param settings        生效的防抖配置，value为静默窗口
+     * @param key             防抖key，不应包含每次变化的请求体
+     * @param probe           该方法的监控指标
+     * @return 本轮最后一次调用的结果；CompletionStage返回值立即返回共享结果的Future
+     */
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, AsyncReturnType asyncReturnType,
+                          DebounceSettings settings, String key, DebounceMetrics.Probe probe) throws Throwable {
+        Call call = new Call(joinPoint, RequestContextHolder.getRequestAttributes());
+        long window = settings.getValue();
+        long now = System.nanoTime();
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(window);
+        boolean[] created = new boolean[1];
+        // 在桶锁内加入本轮，与到期检查互斥：到期移除后的调用进入新的一轮
+        Burst burst = pending.compute(key, (k, existing) -> {
+            Burst current = existing;
+            if (current == null) {
+                current = new Burst(key, method, asyncReturnType, settings, probe, debounceStore.newOwnerToken(),
+                        now + TimeUnit.MILLISECONDS.toNanos(window + settings.getTtl()));
+                created[0] = true;
+            }
+            current.latest = call;
+            // 截止时间不超过本轮的上限，窗口内不断有新调用时也会按时执行
+            current.deadline = deadline - current.maxDeadline < 0 ? deadline : current.maxDeadline;
+            current.calls++;
+            return current;
+        });
+        if (created[0]) {
+            wheel.schedule(burst, window);
+        }
+        markLatest(burst);
+
+        if (asyncReturnType == AsyncReturnType.COMPLETION_STAGE) {
+            return burst.future.copy();
+        }
+        // 执行锁最多持有一个ttl，跟随节点每个窗口检查一次领导，超过该时长说明本轮无法完成
+        long timeout = burst.maxDeadline - System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(burst.settings.getTtl() + window);
+        try {
+            return burst.future.get(Math.max(timeout, 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            log.debug("Trailing debounce burst {} timed out", CompactDebounceKeys.toDisplay(key));
+            probe.rejected();
+            throw new IllegalStateException(burst.settings.getMessage());
+        }
+    }
+
+    /**
+     * 把本轮令牌写入latest标记，最后写入的节点负责执行；标记需要保留到本轮到期之后
+     */
+    private void markLatest(Burst burst) {
+        if (burst.storeFailed) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            debounceStore.storeResult(burst.key, burst.key + LATEST_SUFFIX, burst.token,
+                    burst.settings.getValue() + burst.settings.getTtl());
+            burst.probe.recordStore(start);
+        } catch (RuntimeException e) {
+            log.debug("Failed to mark trailing debounce burst {}: {}", CompactDebounceKeys.toDisplay(burst.key),
+                    e.getMessage());
+            burst.storeFailed = true;
+        }
+    }
+
+    /**
+     * 时间轮线程上的到期处理，只做状态判断，读写存储和执行目标方法都交给执行器
+     */
+    private void onDue(List<Burst> due) {
+        long now = System.nanoTime();
+        for (Burst burst : due) {
+            if (burst.state != State.COLLECTING) {
+                executor.execute(() -> advance(burst));
+                continue;
+            }
+            boolean[] quiet = new boolean[1];
+            pending.computeIfPresent(burst.key, (k, current) -> {
+                if (current != burst || current.deadline - now > 0) {
+                    return current;
+                }
+                quiet[0] = true;
+                return null;
+            });
+            if (quiet[0]) {
+                burst.state = State.ELECTING;
+                executor.execute(() -> advance(burst));
+            } else if (pending.get(burst.key) == burst) {
+                wheel.schedule(burst, TimeUnit.NANOSECONDS.toMillis(burst.deadline - now) + 1);
+            }
+        }
+    }
+
+    private void advance(Burst burst) {
+        try {
+            switch (burst.state) {
+                case ELECTING:
+                    elect(burst);
+                    break;
+                case FOLLOWING:
+                    checkLeader(burst);
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            storeUnavailable(burst, e);
+        }
+    }
+
+    /**
+     * 本轮静默后读取latest标记，决定由本节点执行还是等待其他节点
+     */
+    private void elect(Burst burst) {
+        if (burst.storeFailed) {
+            storeUnavailable(burst, null);
+            return;
+        }
+        String latest = debounceStore.pollResult(burst.key, burst.key + LATEST_SUFFIX);
+        if (latest == null || latest.isEmpty() || latest.equals(burst.token)) {
+            // 标记丢失时本节点至少持有一次调用，按领导处理
+            burst.state = State.LEADING;
+            lead(burst);
+        } else {
+            follow(burst, latest);
+        }
+    }
+
+    /**
+     * 获取执行锁后执行最后一次调用；上一轮仍在执行时等待一个窗口后重新读取标记，期间可能已被更晚的调用接替
+     */
+    private void lead(Burst burst) {
+        long start = System.nanoTime();
+        boolean acquired = debounceStore.tryAcquire(burst.key, burst.token, burst.settings.getTtl());
+        burst.probe.recordStore(start);
+        if (!acquired) {
+            burst.state = State.ELECTING;
+            wheel.schedule(burst, burst.settings.getValue());
+            return;
+        }
+        burst.state = State.DONE;
+        LeaseWatchdog.Lease lease = burst.settings.isLease()
+                ? leaseWatchdog.watch(burst.key, burst.token, burst.settings.getTtl()) : null;
+        long acquiredAt = System.nanoTime();
+        invoke(burst, (value, error) -> {
+            publish(burst, value, error);
+            if (lease != null) {
+                lease.cancel();
+            }
+            try {
+                debounceStore.release(burst.key, burst.token);
+            } catch (RuntimeException e) {
+                log.debug("Failed to release debounce lock {}: {}", CompactDebounceKeys.toDisplay(burst.key),
+                        e.getMessage());
+            }
+            burst.probe.recordHold(acquiredAt, burst.settings.getValue());
+        });
+    }
+
+    /**
+     * 在最后一次调用的请求上下文中执行目标方法，CompletionStage返回值在完成时回调
+     */
+    private void invoke(Burst burst, Completion completion) {
+        recordCalls(burst);
+        Call call = burst.latest;
+        RequestContextHolder.setRequestAttributes(call.attributes);
+        Object result;
+        try {
+            result = call.joinPoint.proceed();
+        } catch (Throwable e) {
+            complete(burst, null, e, completion);
+            return;
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        if (burst.asyncReturnType == AsyncReturnType.COMPLETION_STAGE && result != null) {
+            ((CompletionStage<?>) result).whenComplete((value, error) -> complete(burst, value,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                    completion));
+        } else {
+            complete(burst, result, null, completion);
+        }
+    }
+
+    private void complete(Burst burst, Object value, Throwable error, Completion completion) {
+        if (completion != null) {
+            completion.accept(value, error);
+        }
+        if (error != null) {
+            burst.future.completeExceptionally(error);
+        } else {
+            burst.future.complete(value);
+        }
+    }
+
+    private void recordCalls(Burst burst) {
+        burst.probe.admitted();
+        for (int i = 1; i < burst.calls; i++) {
+            burst.probe.coalesced();
+        }
+    }
+
+    private void publish(Burst burst, Object value, Throwable error) {
+        String payload;
+        try {
+            payload = error == null ? SUCCESS + codec.encode(value) : String.valueOf(FAILURE);
+        } catch (Exception e) {
+            log.warn("Failed to encode trailing debounce result {}: {}", CompactDebounceKeys.toDisplay(burst.key),
+                    e.getMessage());
+            payload = String.valueOf(FAILURE);
+        }
+        String result = burst.token + '\n' + payload;
+        try {
+            debounceStore.publish(CHANNEL, burst.key, burst.key + RESULT_SUFFIX, result,
+                    Math.max(RESULT_GRACE_MILLIS, burst.settings.getValue() * 2),
+                    KeyedMessage.encode(burst.key, result));
+        } catch (RuntimeException e) {
+            // 跟随节点在领导标记过期后按失败处理
+            log.warn("Failed to publish trailing debounce result {}: {}", CompactDebounceKeys.toDisplay(burst.key),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * 等待持有latest标记的节点发布结果，每个窗口检查一次领导是否仍然存在
+     */
+    private void follow(Burst burst, String leader) {
+        burst.leader = leader;
+        burst.state = State.FOLLOWING;
+        followers.computeIfAbsent(burst.key, k -> ConcurrentHashMap.newKeySet()).add(burst);
+        burst.future.whenComplete((value, error) -> removeFollower(burst));
+        checkLeader(burst);
+    }
+
+    private void checkLeader(Burst burst) {
+        if (burst.future.isDone()) {
+            return;
+        }
+        String result = debounceStore.pollResult(burst.key, burst.key + RESULT_SUFFIX);
+        if (result != null && result.startsWith(burst.leader + '\n')) {
+            completeFromLeader(burst, result.substring(burst.leader.length() + 1));
+            return;
+        }
+        String latest = debounceStore.pollResult(burst.key, burst.key + LATEST_SUFFIX);
+        if (latest != null && !latest.isEmpty()) {
+            // 领导的一轮被更晚的调用接替时改为等待新的领导
+            burst.leader = latest;
+        } else if (result == null) {
+            // 既没有标记也没有执行锁：领导在执行前退出
+            log.debug("Leader of trailing debounce burst {} is gone", CompactDebounceKeys.toDisplay(burst.key));
+            burst.probe.rejected();
+            burst.future.completeExceptionally(new IllegalStateException(burst.settings.getMessage()));
+            return;
+        }
+        wheel.schedule(burst, burst.settings.getValue());
+    }
+
+    private void onMessage(String body) {
+        KeyedMessage message = KeyedMessage.decode(body);
+        if (message == null) {
+            return;
+        }
+        Set<Burst> waiting = followers.get(message.getKey());
+        if (waiting == null) {
+            return;
+        }
+        String result = message.getBody();
+        for (Burst burst : waiting) {
+            if (result.startsWith(burst.leader + '\n')) {
+                executor.execute(() -> completeFromLeader(burst, result.substring(burst.leader.length() + 1)));
+            }
+        }
+    }
+
+    private void completeFromLeader(Burst burst, String payload) {
+        if (burst.future.isDone()) {
+            return;
+        }
+        recordCalls(burst);
+        if (payload.isEmpty() || payload.charAt(0) != SUCCESS) {
+            burst.future.completeExceptionally(new IllegalStateException(burst.settings.getMessage()));
+            return;
+        }
+        try {
+            burst.future.complete(codec.decode(payload.substring(1), burst.resultType));
+        } catch (Exception e) {
+            burst.future.completeExceptionally(new IllegalStateException(burst.settings.getMessage(), e));
+        }
+    }
+
+    private void removeFollower(Burst burst) {
+        followers.computeIfPresent(burst.key, (k, waiting) -> {
+            waiting.remove(burst);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+
+    /**
+     * 防抖存储不可用时按规则的失败策略处理，本轮只在本节点执行
+     */
+    private void storeUnavailable(Burst burst, RuntimeException cause) {
+        if (burst.future.isDone()) {
+            return;
+        }
+        StoreFailurePolicy policy = burst.settings.getFailurePolicy();
+        burst.probe.storeUnavailable(policy);
+        log.debug("Debounce store unavailable for trailing burst {}, applying {}: {}",
+                CompactDebounceKeys.toDisplay(burst.key), policy, cause != null ? cause.getMessage() : "mark failed");
+        if (policy == StoreFailurePolicy.FAIL_CLOSED) {
+            burst.future.completeExceptionally(new IllegalStateException(burst.settings.getMessage()));
+            return;
+        }
+        burst.state = State.DONE;
+        invoke(burst, null);
+    }
+
+    /**
+     * 关闭时尚未执行的调用方按提示信息失败，不再等待
+     */
+    @Override
+    public void destroy() {
+        wheel.close();
+        pending.values().forEach(burst -> burst.future.completeExceptionally(
+                new IllegalStateException(burst.settings.getMessage())));
+        followers.values().forEach(waiting -> waiting.forEach(burst -> burst.future.completeExceptionally(
+                new IllegalStateException(burst.settings.getMessage()))));
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private enum State {
+        /**
+         * 收集调用，截止时间随调用推迟
+         */
+        COLLECTING,
+        /**
+         * 已静默，读取latest标记
+         */
+        ELECTING,
+        /**
+         * 本节点负责执行，等待执行锁
+         */
+        LEADING,
+        /**
+         * 等待其他节点的结果
+         */
+        FOLLOWING,
+        /**
+         * 已执行
+         */
+        DONE
+    }
+
+    @FunctionalInterface
+    private interface Completion {
+        void accept(Object value, Throwable error);
+    }
+
+    private static final class Call {
+        final ProceedingJoinPoint joinPoint;
+        final RequestAttributes attributes;
+
+        Call(ProceedingJoinPoint joinPoint, RequestAttributes attributes) {
+            this.joinPoint = joinPoint;
+            this.attributes = attributes;
+        }
+    }
+
+    private static final class Burst {
+        final String key;
+        final AsyncReturnType asyncReturnType;
+        final Type resultType;
+        final DebounceSettings settings;
+        final DebounceMetrics.Probe probe;
+        final String token;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        volatile State state = State.COLLECTING;
+        volatile Call latest;
+        /**
+         * 截止时间的上限，连续调用不会把本轮推迟到该时间之后
+         */
+        final long maxDeadline;
+        volatile long deadline;
+        volatile boolean storeFailed;
+        volatile String leader;
+        int calls;
+
+        Burst(String key, Method method, AsyncReturnType asyncReturnType, DebounceSettings settings,
+              DebounceMetrics.Probe probe, String token, long maxDeadline) {
+            this.key = key;
+            this.asyncReturnType = asyncReturnType;
+            this.resultType = resultType(method, asyncReturnType);
+            this.settings = settings;
+            this.probe = probe;
+            this.token = token;
+            this.maxDeadline = maxDeadline;
+        }
+
+        /**
+         * CompletionStage返回值按其元素类型还原其他节点的结果
+         */
+        private static Type resultType(Method method, AsyncReturnType asyncReturnType) {
+            Type type = method.getGenericReturnType();
+            if (asyncReturnType == AsyncReturnType.COMPLETION_STAGE && type instanceof ParameterizedType) {
+                return ((ParameterizedType) type).getActualTypeArguments()[0];
+            }
+            return asyncReturnType == AsyncReturnType.COMPLETION_STAGE ? Object.class : type;
+        }
+    }
+
+    private static final class TrailingThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "debounce-trailing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
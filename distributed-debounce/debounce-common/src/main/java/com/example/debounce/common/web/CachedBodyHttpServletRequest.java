@@ -0,0 +1,239 @@
+package com.example.debounce.common.web;
+
+import com.example.debounce.common.fingerprint.Hasher128;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 缓存请求体的请求包装类
+ * 防抖策略与后续的@RequestBody读取的是同一份字节，请求体只从网络读取一次；
+ * 超过上限的请求体只缓存前maxSize+1个字节，已读取的部分与剩余的原始流拼接后交给下游，
+ * 剩余部分在下游读取时计入溢出哈希，不需要缓存
+ * @author maxiaoweii
+ */
+public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+
+    private final byte[] body;
+    private final int length;
+    private final boolean complete;
+    private final ServletInputStream remaining;
+    private final Hasher128 overflow;
+    private long overflowLength;
+    private boolean overflowFinished;
+    private boolean streamUsed;
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int maxSize) throws IOException {
+        super(request);
+        int contentLength = request.getContentLength();
+        int initialSize = contentLength >= 0 ? Math.min(contentLength, maxSize) + 1 : Math.min(maxSize + 1, 1024);
+        byte[] buffer = new byte[initialSize];
+        ServletInputStream in = request.getInputStream();
+        int count = 0;
+        int read;
+        while (count <= maxSize) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxSize + 1));
+            }
+            read = in.read(buffer, count, buffer.length - count);
+            if (read < 0) {
+                break;
+            }
+            count += read;
+        }
+        this.body = buffer;
+        this.length = count;
+        this.complete = count <= maxSize;
+        this.remaining = complete ? null : in;
+        this.overflow = complete ? null : new Hasher128();
+    }
+
+    /**
+     * 请求体是否完整缓存；未完整缓存时由已缓存的前缀和{@link #getOverflowHash()}参与防抖key的计算
+     */
+    public boolean isBodyCached() {
+        return complete;
+    }
+
+    /**
+     * 缓存的请求体字节，有效长度为{@link #getBodyLength()}，调用方不得修改
+     */
+    public byte[] getBodyBuffer() {
+        return body;
+    }
+
+    public int getBodyLength() {
+        return length;
+    }
+
+    /**
+     * 超过缓存上限部分的哈希
+     * 下游已开始读取请求体时（@RequestBody在切面执行前已解析完成）读完并丢弃剩余的字节；
+     * 下游尚未读取时不能消费原始流，返回null
+     *
+     * @return 已完成计算的哈希器，完整缓存、下游尚未读取或读取失败时返回null
+     */
+    public Hasher128 getOverflowHash() {
+        if (complete || !streamUsed) {
+            return null;
+        }
+        if (!overflowFinished) {
+            try {
+                byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+                while (readRemaining(buffer, 0, buffer.length) >= 0) {
+                    // 读到流结束，每次读取都已计入溢出哈希
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return overflow;
+    }
+
+    /**
+     * 请求体的总字节数，超过缓存上限时只有{@link #getOverflowHash()}返回非null后才确定
+     *
+     * @return 未确定时返回-1
+     */
+    public long getTotalLength() {
+        if (complete) {
+            return length;
+        }
+        return overflowFinished ? length + overflowLength : -1;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if (!complete) {
+            if (streamUsed) {
+                throw new IllegalStateException("Request body exceeds the cache limit and has already been read");
+            }
+            streamUsed = true;
+        }
+        return new CachedBodyInputStream();
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    /**
+     * 从原始流读取缓存前缀之后的字节，同时计入溢出哈希
+     */
+    private int readRemaining(byte[] b, int off, int len) throws IOException {
+        if (overflowFinished) {
+            return -1;
+        }
+        int n = remaining.read(b, off, len);
+        if (n < 0) {
+            overflow.finish();
+            overflowFinished = true;
+        } else {
+            overflow.putBytes(b, off, n);
+            overflowLength += n;
+        }
+        return n;
+    }
+
+    /**
+     * 先返回缓存的字节，未完整缓存时再从原始流继续读取
+     */
+    private class CachedBodyInputStream extends ServletInputStream {
+        private int position;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            if (position < length) {
+                return body[position++] & 0xFF;
+            }
+            byte[] single = new byte[1];
+            int n;
+            do {
+                n = read(single, 0, 1);
+            } while (n == 0);
+            return n < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position < length) {
+                int n = Math.min(len, length - position);
+                System.arraycopy(body, position, b, off, n);
+                position += n;
+                return n;
+            }
+            int n = complete ? -1 : readRemaining(b, off, len);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return position < length ? length - position : complete ? 0 : remaining.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished || complete && position >= length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < length || complete || remaining.isReady();
+        }
+
+        /**
+         * 完整缓存时数据已全部就绪，立即回调；否则注册到原始流，缓存的前缀未读完时先通知有数据可读
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (complete) {
+                try {
+                    if (position < length) {
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                } catch (IOException e) {
+                    readListener.onError(e);
+                }
+                return;
+            }
+            remaining.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    readListener.onDataAvailable();
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    if (position < length) {
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.debounce.common.web;
+
+import com.example.debounce.common.aspect.DebounceAspect;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在请求进入DispatcherServlet前执行@Debounce的防抖判断
+ * 启动时由{@link DebounceRoutingIndex}为@Debounce处理器方法建立路由索引，命中的请求从缓存的请求体生成key并加锁，
+ * 被拒绝的请求不再经过处理器参数解析和@RequestBody的反序列化，拒绝异常交给DispatcherServlet使用的异常解析器输出；
+ * 放行的请求由切面直接执行，锁在请求结束（包括异步请求完成）时释放。
+ * 排在安全认证等应用过滤器之后，只有本来会到达DispatcherServlet的请求参与防抖
+ * @author maxiaoweii
+ */
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@RequiredArgsConstructor
+public class DebounceAdmissionFilter extends OncePerRequestFilter
+        implements ApplicationContextAware, SmartInitializingSingleton {
+
+    /**
+     * 过滤器在Web服务器启动时创建，切面和它依赖的存储推迟到容器初始化完成后获取
+     */
+    private final ObjectProvider<DebounceAspect> aspectProvider;
+    private ApplicationContext applicationContext;
+    private DebounceAspect aspect;
+    private DebounceRoutingIndex routingIndex;
+    private List<HandlerExceptionResolver> exceptionResolvers;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return aspect == null || routingIndex == null || routingIndex.size() == 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HandlerMethod handler = routingIndex.lookup(request);
+        if (handler != null && !isBodyComplete(request)) {
+            // 超过缓存上限的请求体在@RequestBody读取后才能计算完整的哈希，交给切面判断
+            handler = null;
+        }
+        Runnable onComplete;
+        try {
+            onComplete = handler != null ? aspect.admitEarly(request, handler.getMethod()) : null;
+        } catch (IllegalStateException e) {
+            reject(request, response, handler, e);
+            return;
+        }
+        if (onComplete == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestCompletion.doFilterUntilComplete(request, response, chain, onComplete);
+    }
+
+    private static boolean isBodyComplete(HttpServletRequest request) {
+        CachedBodyHttpServletRequest cached = WebUtils.getNativeRequest(request, CachedBodyHttpServletRequest.class);
+        return cached == null || cached.isBodyCached();
+    }
+
+    /**
+     * 按DispatcherServlet的方式解析拒绝异常，@ExceptionHandler等已写入响应时结束请求；
+     * 没有解析器处理时与切面中抛出一样交给容器的错误页
+     */
+    private void reject(HttpServletRequest request, HttpServletResponse response, HandlerMethod handler,
+                        IllegalStateException rejection) {
+        for (HandlerExceptionResolver resolver : exceptionResolvers) {
+            ModelAndView modelAndView = resolver.resolveException(request, response, handler, rejection);
+            if (modelAndView != null) {
+                if (modelAndView.isEmpty()) {
+                    return;
+                }
+                // 需要渲染视图的异常处理器只能在DispatcherServlet中执行
+                break;
+            }
+        }
+        throw rejection;
+    }
+
+    /**
+     * 容器初始化完成后建立路由索引，处理器映射和异常解析器与DispatcherServlet使用的相同
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        aspect = aspectProvider.getIfAvailable();
+        List<RequestMappingHandlerMapping> handlerMappings = new ArrayList<>(BeanFactoryUtils
+                .beansOfTypeIncludingAncestors(applicationContext, RequestMappingHandlerMapping.class, true, false)
+                .values());
+        AnnotationAwareOrderComparator.sort(handlerMappings);
+        routingIndex = DebounceRoutingIndex.build(handlerMappings);
+        List<HandlerExceptionResolver> resolvers = new ArrayList<>(BeanFactoryUtils
+                .beansOfTypeIncludingAncestors(applicationContext, HandlerExceptionResolver.class, true, false)
+                .values());
+        AnnotationAwareOrderComparator.sort(resolvers);
+        exceptionResolvers = resolvers;
+        log.info("Indexed {} debounce routes for early admission", routingIndex.size());
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+}
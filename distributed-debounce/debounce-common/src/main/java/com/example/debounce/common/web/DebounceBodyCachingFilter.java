@@ -0,0 +1,36 @@
+package com.example.debounce.common.web;
+
+import com.example.debounce.common.config.DebounceBodyProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 为JSON请求缓存请求体，供防抖策略计算key后由@RequestBody复用
+ * @author maxiaoweii
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class DebounceBodyCachingFilter extends OncePerRequestFilter {
+
+    private final DebounceBodyProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !properties.isEnabled() || contentType == null || !contentType.contains("application/json");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new CachedBodyHttpServletRequest(request, properties.getMaxSize()), response);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.debounce.common.web;
+
+import com.example.debounce.common.annotation.Debounce;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 带@Debounce的处理器方法的路由索引
+ * 启动时从RequestMappingHandlerMapping中取出@Debounce方法的映射，只保留请求方法和已解析的路径模式两个条件，
+ * 请求与这些条件比较后，不需要防抖的请求在这里就结束；命中时再由所属的HandlerMapping解析处理器，
+ * 与DispatcherServlet的选择一致，路径重叠（如/orders/{id}与/orders/draft）或consumes等条件不同时不会误判
+ * @author maxiaoweii
+ */
+@Slf4j
+final class DebounceRoutingIndex {
+
+    private final List<MappingRoutes> mappings;
+    private final Set<Method> methods;
+
+    private DebounceRoutingIndex(List<MappingRoutes> mappings, Set<Method> methods) {
+        this.mappings = mappings;
+        this.methods = methods;
+    }
+
+    /**
+     * @param handlerMappings 按DispatcherServlet的顺序排列的处理器映射
+     */
+    static DebounceRoutingIndex build(Collection<RequestMappingHandlerMapping> handlerMappings) {
+        List<MappingRoutes> mappings = new ArrayList<>();
+        Set<Method> methods = new HashSet<>();
+        for (RequestMappingHandlerMapping handlerMapping : handlerMappings) {
+            List<RequestMappingInfo> routes = new ArrayList<>();
+            handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+                if (AnnotatedElementUtils.hasAnnotation(handlerMethod.getMethod(), Debounce.class)) {
+                    routes.add(info);
+                    methods.add(handlerMethod.getMethod());
+                }
+            });
+            if (!routes.isEmpty()) {
+                mappings.add(new MappingRoutes(handlerMapping, routes));
+            }
+        }
+        return new DebounceRoutingIndex(mappings, methods);
+    }
+
+    /**
+     * 查找请求对应的@Debounce处理器方法
+     *
+     * @return 请求不会由@Debounce方法处理，或者处理器无法在这里确定时返回null
+     */
+    HandlerMethod lookup(HttpServletRequest request) {
+        if (mappings.isEmpty()) {
+            return null;
+        }
+        // 解析的路径在DispatcherServlet中会重新解析，查找结束后恢复原值
+        Object previousPath = request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        try {
+            for (MappingRoutes mapping : mappings) {
+                if (mapping.matches(request)) {
+                    return resolve(mapping.handlerMapping, request);
+                }
+            }
+            return null;
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath((RequestPath) previousPath, request);
+        }
+    }
+
+    private HandlerMethod resolve(RequestMappingHandlerMapping handlerMapping, HttpServletRequest request) {
+        HandlerExecutionChain chain;
+        try {
+            chain = handlerMapping.getHandler(request);
+        } catch (Exception e) {
+            // 请求方法或媒体类型不支持等错误交给DispatcherServlet处理
+            log.debug("Failed to resolve debounce handler for {}: {}", request.getRequestURI(), e.getMessage());
+            return null;
+        }
+        Object handler = chain != null ? chain.getHandler() : null;
+        if (handler instanceof HandlerMethod && methods.contains(((HandlerMethod) handler).getMethod())) {
+            return (HandlerMethod) handler;
+        }
+        return null;
+    }
+
+    int size() {
+        return methods.size();
+    }
+
+    /**
+     * 同一个处理器映射中的@Debounce路由
+     */
+    private static final class MappingRoutes {
+        final RequestMappingHandlerMapping handlerMapping;
+        final List<RequestMappingInfo> routes;
+
+        MappingRoutes(RequestMappingHandlerMapping handlerMapping, List<RequestMappingInfo> routes) {
+            this.handlerMapping = handlerMapping;
+            this.routes = routes;
+        }
+
+        boolean matches(HttpServletRequest request) {
+            // 与HandlerMapping相同的路径匹配方式：PathPattern使用解析后的路径，AntPathMatcher使用查找路径
+            if (handlerMapping.getPatternParser() != null) {
+                ServletRequestPathUtils.parseAndCache(request);
+            } else {
+                handlerMapping.getUrlPathHelper().resolveAndCacheLookupPath(request);
+            }
+            for (RequestMappingInfo route : routes) {
+                if (route.getMethodsCondition().getMatchingCondition(request) != null
+                        && route.getActivePatternsCondition().getMatchingCondition(request) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
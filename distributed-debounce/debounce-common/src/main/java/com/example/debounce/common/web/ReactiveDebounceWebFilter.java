@@ -0,0 +1,124 @@
+package com.example.debounce.common.web;
+
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.fingerprint.Hasher128;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+/**
+ * WebFlux环境下的防抖过滤器，作用与Servlet环境的{@link DebounceBodyCachingFilter}和RequestContextHolder相同：
+ * 为JSON请求缓存请求体，供防抖策略计算key后由@RequestBody复用；
+ * 并把当前请求写入Reactor上下文，响应式防抖切面在订阅时从上下文中读取，不依赖线程绑定
+ * @author maxiaoweii
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class ReactiveDebounceWebFilter implements WebFilter {
+
+    /**
+     * 缓存的请求体，超过上限时只保存与{@link CachedBodyHttpServletRequest}相同长度的前缀
+     */
+    public static final String CACHED_BODY_ATTRIBUTE = ReactiveDebounceWebFilter.class.getName() + ".body";
+
+    /**
+     * 请求体的总字节数，只在超过上限时保存
+     */
+    public static final String BODY_LENGTH_ATTRIBUTE = ReactiveDebounceWebFilter.class.getName() + ".bodyLength";
+
+    /**
+     * 超过上限部分的哈希，只在超过上限时保存
+     */
+    public static final String OVERFLOW_HASH_ATTRIBUTE = ReactiveDebounceWebFilter.class.getName() + ".overflowHash";
+
+    private final DebounceBodyProperties properties;
+
+    /**
+     * 获取缓存的请求体，调用方不得修改
+     *
+     * @return 没有缓存时返回null
+     */
+    public static byte[] getCachedBody(ServerWebExchange exchange) {
+        return exchange.getAttribute(CACHED_BODY_ATTRIBUTE);
+    }
+
+    /**
+     * 获取请求体的总字节数，超过上限时大于缓存的字节数
+     *
+     * @return 没有缓存时返回0
+     */
+    public static long getBodyLength(ServerWebExchange exchange) {
+        Long length = exchange.getAttribute(BODY_LENGTH_ATTRIBUTE);
+        if (length != null) {
+            return length;
+        }
+        byte[] body = getCachedBody(exchange);
+        return body != null ? body.length : 0;
+    }
+
+    /**
+     * 获取请求体超过上限部分的哈希，与{@link CachedBodyHttpServletRequest#getOverflowHash()}的计算方式相同
+     *
+     * @return 没有超过上限时返回null
+     */
+    public static Hasher128 getOverflowHash(ServerWebExchange exchange) {
+        return exchange.getAttribute(OVERFLOW_HASH_ATTRIBUTE);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        MediaType contentType = exchange.getRequest().getHeaders().getContentType();
+        if (!properties.isEnabled() || contentType == null || !MediaType.APPLICATION_JSON.includes(contentType)) {
+            return withExchange(exchange, chain);
+        }
+        // 与@RequestBody的JSON解码一样整体读入内存，之后下游读取的是同一份字节
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    if (body.length <= properties.getMaxSize()) {
+                        exchange.getAttributes().put(CACHED_BODY_ATTRIBUTE, body);
+                    } else {
+                        // 与Servlet环境一样由前缀、溢出哈希和总长度参与防抖key的计算
+                        int prefixLength = properties.getMaxSize() + 1;
+                        exchange.getAttributes().put(CACHED_BODY_ATTRIBUTE, Arrays.copyOf(body, prefixLength));
+                        exchange.getAttributes().put(BODY_LENGTH_ATTRIBUTE, (long) body.length);
+                        exchange.getAttributes().put(OVERFLOW_HASH_ATTRIBUTE, new Hasher128()
+                                .putBytes(body, prefixLength, body.length - prefixLength)
+                                .finish());
+                    }
+                    ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+                        @Override
+                        public Flux<DataBuffer> getBody() {
+                            // 每次订阅都返回新的缓冲，下游可以按需释放
+                            return body.length == 0 ? Flux.empty()
+                                    : Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+                        }
+                    };
+                    return withExchange(exchange.mutate().request(request).build(), chain);
+                });
+    }
+
+    private static Mono<Void> withExchange(ServerWebExchange exchange, WebFilterChain chain) {
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, exchange));
+    }
+}
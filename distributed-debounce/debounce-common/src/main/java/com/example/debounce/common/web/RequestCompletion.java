@@ -0,0 +1,79 @@
+package com.example.debounce.common.web;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在请求真正结束时执行回调，供加锁后放行请求的过滤器释放锁
+ * 处理方法返回Callable、DeferredResult等时请求进入异步处理，chain返回时业务还没有执行完，回调推迟到异步请求完成
+ * @author maxiaoweii
+ */
+public final class RequestCompletion {
+
+    private RequestCompletion() {
+    }
+
+    /**
+     * 执行过滤器链，请求结束（包括异步请求完成或出错）时执行一次回调
+     */
+    public static void doFilterUntilComplete(ServletRequest request, ServletResponse response, FilterChain chain,
+                                             Runnable onComplete) throws IOException, ServletException {
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(onComplete));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                onComplete.run();
+            }
+        }
+    }
+
+    /**
+     * 异步请求完成或出错时执行一次回调
+     */
+    private static class CompletionListener implements AsyncListener {
+        private final Runnable callback;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        CompletionListener(Runnable callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // 超时后容器仍会完成请求，在onComplete中回调
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 再次开始异步处理时监听器会被清除，需要重新注册
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void run() {
+            if (done.compareAndSet(false, true)) {
+                callback.run();
+            }
+        }
+    }
+}
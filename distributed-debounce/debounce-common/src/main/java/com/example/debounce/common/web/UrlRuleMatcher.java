@@ -0,0 +1,183 @@
+package com.example.debounce.common.web;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的URL规则匹配器
+ * 启动时将Ant风格的URL规则编译为按路径段组织的前缀树，匹配耗时只与路径深度有关，与规则数量无关。
+ * 优先级按路径段从左到右比较：字面量 &gt; 段内通配（如file-*.txt） &gt; 单段通配（*、{var}） &gt; 多段通配（**），
+ * 因此多个规则同时匹配时结果是确定的；匹配结果（包括未匹配）按URI缓存，缓存大小有上限
+ * @author maxiaoweii
+ */
+public final class UrlRuleMatcher<T> {
+
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final AntPathMatcher SEGMENT_MATCHER = new AntPathMatcher();
+
+    /**
+     * 缓存中表示未匹配任何规则的占位对象
+     */
+    private static final Rule<?> NO_MATCH = new Rule<>("", null);
+
+    private final Node<T> root = new Node<>();
+    private final int cacheSize;
+    private final Map<String, Rule<?>> cache = new ConcurrentHashMap<>();
+
+    private UrlRuleMatcher(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 编译URL规则
+     *
+     * @param rules URL规则 -&gt; 规则配置
+     */
+    public static <T> UrlRuleMatcher<T> compile(Map<String, T> rules) {
+        return compile(rules, DEFAULT_CACHE_SIZE);
+    }
+
+    public static <T> UrlRuleMatcher<T> compile(Map<String, T> rules, int cacheSize) {
+        UrlRuleMatcher<T> matcher = new UrlRuleMatcher<>(cacheSize);
+        rules.forEach(matcher::add);
+        return matcher;
+    }
+
+    /**
+     * 查找与URI匹配的规则
+     *
+     * @return 优先级最高的规则，没有匹配时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public Rule<T> match(String uri) {
+        Rule<?> cached = cache.get(uri);
+        if (cached == null) {
+            Rule<T> rule = find(root, split(uri), 0);
+            cached = rule != null ? rule : NO_MATCH;
+            if (cache.size() >= cacheSize) {
+                cache.clear();
+            }
+            cache.put(uri, cached);
+        }
+        return cached == NO_MATCH ? null : (Rule<T>) cached;
+    }
+
+    private void add(String pattern, T config) {
+        Node<T> node = root;
+        for (String segment : split(pattern)) {
+            node = node.child(segment);
+        }
+        if (node.rule == null) {
+            node.rule = new Rule<>(pattern, config);
+        }
+    }
+
+    private Rule<T> find(Node<T> node, String[] segments, int index) {
+        if (index == segments.length) {
+            if (node.rule != null) {
+                return node.rule;
+            }
+            // 末尾的**可以匹配零个路径段
+            return node.multi != null ? node.multi.rule : null;
+        }
+        String segment = segments[index];
+        Rule<T> rule;
+        Node<T> literal = node.literals.get(segment);
+        if (literal != null && (rule = find(literal, segments, index + 1)) != null) {
+            return rule;
+        }
+        for (int i = 0; i < node.patterns.size(); i++) {
+            if (SEGMENT_MATCHER.match(node.patternTexts.get(i), segment)
+                    && (rule = find(node.patterns.get(i), segments, index + 1)) != null) {
+                return rule;
+            }
+        }
+        if (node.single != null && (rule = find(node.single, segments, index + 1)) != null) {
+            return rule;
+        }
+        if (node.multi != null) {
+            for (int next = index; next <= segments.length; next++) {
+                if ((rule = find(node.multi, segments, next)) != null) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * 匹配到的规则
+     */
+    public static final class Rule<T> {
+        private final String pattern;
+        private final T config;
+
+        Rule(String pattern, T config) {
+            this.pattern = pattern;
+            this.config = config;
+        }
+
+        /**
+         * 配置中的URL规则
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        public T getConfig() {
+            return config;
+        }
+    }
+
+    private static final class Node<T> {
+        final Map<String, Node<T>> literals = new HashMap<>();
+        final List<String> patternTexts = new ArrayList<>();
+        final List<Node<T>> patterns = new ArrayList<>();
+        Node<T> single;
+        Node<T> multi;
+        Rule<T> rule;
+
+        Node<T> child(String segment) {
+            if ("**".equals(segment)) {
+                return multi != null ? multi : (multi = new Node<>());
+            }
+            if ("*".equals(segment) || isVariable(segment)) {
+                return single != null ? single : (single = new Node<>());
+            }
+            if (SEGMENT_MATCHER.isPattern(segment)) {
+                int index = patternTexts.indexOf(segment);
+                if (index >= 0) {
+                    return patterns.get(index);
+                }
+                Node<T> child = new Node<>();
+                patternTexts.add(segment);
+                patterns.add(child);
+                return child;
+            }
+            return literals.computeIfAbsent(segment, s -> new Node<>());
+        }
+
+        private static boolean isVariable(String segment) {
+            return segment.startsWith("{") && segment.endsWith("}") && segment.indexOf(':') < 0;
+        }
+    }
+}
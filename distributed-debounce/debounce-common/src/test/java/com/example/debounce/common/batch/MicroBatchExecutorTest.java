@@ -0,0 +1,284 @@
+package com.example.debounce.common.batch;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.config.DebounceOverride;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author maxiaoweii
+ */
+class MicroBatchExecutorTest {
+
+    private static final String MESSAGE = "订单正在处理中";
+    private static final long LONG_WINDOW = 10_000;
+
+    private final FailingStore store = new FailingStore();
+    private final OrderService service = new OrderService();
+    private final MicroBatchExecutor batchExecutor = new MicroBatchExecutor(store);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final DebounceMetrics.Probe probe = new DebounceMetrics(new SimpleMeterRegistry(),
+            new DebounceMetricsProperties()).probe(DebounceMetrics.Source.ASPECT, "order");
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        batchExecutor.destroy();
+        store.destroy();
+    }
+
+    @Test
+    void batchClosesWhenFull() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(3, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            results.add(submit(settings, "order-" + i));
+        }
+
+        for (int i = 1; i <= 3; i++) {
+            assertThat(results.get(i - 1).get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-" + i);
+        }
+        assertThat(service.batches).hasSize(1);
+        assertThat(service.batches.get(0)).containsExactlyInAnyOrder("order-1", "order-2", "order-3");
+        // 执行结束后锁已释放
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void batchClosesWhenTheWindowExpires() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(100, 50, StoreFailurePolicy.LOCAL_ONLY);
+
+        Future<Object> first = submit(settings, "order-1");
+        Future<Object> second = submit(settings, "order-2");
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-2");
+        assertThat(service.batches).hasSize(1);
+    }
+
+    @Test
+    void duplicateKeyInTheBatchIsRejected() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(2, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+
+        Future<Object> first = submit(settings, "order-1");
+        assertThatThrownBy(() -> execute(settings, "order-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+        Future<Object> second = submit(settings, "order-2");
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-2");
+        assertThat(service.batches).hasSize(1);
+        assertThat(service.batches.get(0)).hasSize(2);
+    }
+
+    @Test
+    void keysHeldByOtherRequestsAreRejected() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(2, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+        store.tryAcquire(key("order-1"), "other", 10_000);
+
+        Future<Object> held = submit(settings, "order-1");
+        Future<Object> free = submit(settings, "order-2");
+
+        assertThat(free.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-2");
+        assertRejected(held, MESSAGE);
+        assertThat(service.batches.get(0)).containsExactly("order-2");
+    }
+
+    @Test
+    void mismatchedResultCountFailsTheBatch() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(2, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+        service.dropLast = true;
+
+        Future<Object> first = submit(settings, "order-1");
+        Future<Object> second = submit(settings, "order-2");
+
+        assertRejected(first, "Batch method placeAll returned 1 results for 2 calls");
+        assertRejected(second, "Batch method placeAll returned 1 results for 2 calls");
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void failClosedRejectsTheWholeBatch() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(2, LONG_WINDOW, StoreFailurePolicy.FAIL_CLOSED);
+        store.down = true;
+
+        Future<Object> first = submit(settings, "order-1");
+        Future<Object> second = submit(settings, "order-2");
+
+        assertRejected(first, MESSAGE);
+        assertRejected(second, MESSAGE);
+        assertThat(service.batches).isEmpty();
+    }
+
+    @Test
+    void localOnlyRunsTheBatchWithoutLocks() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(2, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+        store.down = true;
+
+        Future<Object> first = submit(settings, "order-1");
+        Future<Object> second = submit(settings, "order-2");
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("placed:order-2");
+    }
+
+    @Test
+    void callersStopWaitingAfterTheLockExpires() throws Exception {
+        batchExecutor.afterPropertiesSet();
+        DebounceSettings settings = settings(1, 20, StoreFailurePolicy.LOCAL_ONLY, 100L);
+        service.gate = new CompletableFuture<>();
+
+        // 批量方法阻塞超过batchWindow加锁的过期时间
+        Future<Object> blocked = submit(settings, "order-1");
+
+        assertRejected(blocked, MESSAGE);
+        service.gate.complete(null);
+    }
+
+    @Test
+    void callersAreRejectedWhenTheBatchCannotBeDispatched() {
+        batchExecutor.afterPropertiesSet();
+        batchExecutor.destroy();
+        DebounceSettings settings = settings(1, LONG_WINDOW, StoreFailurePolicy.LOCAL_ONLY);
+
+        assertThatThrownBy(() -> execute(settings, "order-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+        assertThat(service.batches).isEmpty();
+    }
+
+    @Debounce(value = 5000, mode = DebounceMode.BATCH, batchMethod = "placeAll", message = MESSAGE)
+    private static String place(String orderId) {
+        return orderId;
+    }
+
+    /**
+     * 在调用方线程上执行，等待调用加入批次，保证批次内的顺序与提交顺序一致
+     */
+    private Future<Object> submit(DebounceSettings settings, String orderId) throws InterruptedException {
+        Future<Object> future = callers.submit(() -> execute(settings, orderId));
+        Thread.sleep(20);
+        return future;
+    }
+
+    private Object execute(DebounceSettings settings, String orderId) throws Exception {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getThis()).thenReturn(service);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{orderId});
+        try {
+            return batchExecutor.execute(joinPoint, placeMethod(), settings, key(orderId), probe);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertRejected(Future<Object> result, String message) {
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .getCause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(message);
+    }
+
+    private static String key(String orderId) {
+        return "debounce:order:" + orderId;
+    }
+
+    private static Method placeMethod() {
+        try {
+            return MicroBatchExecutorTest.class.getDeclaredMethod("place", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DebounceSettings settings(int batchSize, long batchWindow, StoreFailurePolicy policy) {
+        return settings(batchSize, batchWindow, policy, null);
+    }
+
+    private static DebounceSettings settings(int batchSize, long batchWindow, StoreFailurePolicy policy,
+                                             Long ttl) {
+        DebounceOverride override = new DebounceOverride();
+        override.setValue(ttl);
+        override.setBatchSize(batchSize);
+        override.setBatchWindow(batchWindow);
+        override.setFailurePolicy(policy);
+        return DebounceSettings.of(1, placeMethod().getAnnotation(Debounce.class), override);
+    }
+
+    /**
+     * 批量方法所在的服务，记录每次批量调用的参数
+     */
+    public static class OrderService {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        volatile boolean dropLast;
+        volatile CompletableFuture<Void> gate;
+
+        public List<String> placeAll(List<String> orderIds) {
+            batches.add(new ArrayList<>(orderIds));
+            CompletableFuture<Void> current = gate;
+            if (current != null) {
+                current.join();
+            }
+            List<String> results = new ArrayList<>();
+            for (String orderId : orderIds) {
+                results.add("placed:" + orderId);
+            }
+            if (dropLast) {
+                results.remove(results.size() - 1);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 可模拟批量加锁失败的存储
+     */
+    private static final class FailingStore extends InMemoryDebounceStore {
+        volatile boolean down;
+
+        @Override
+        public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+            if (down) {
+                throw new DebounceStoreUnavailableException("Debounce store is down");
+            }
+            return super.tryAcquireAll(keys, owners, ttlMillis);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.debounce.common.fingerprint;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author maxiaoweii
+ */
+class CanonicalJsonHasherTest {
+
+    @Test
+    void fieldOrderDoesNotChangeHash() {
+        CanonicalJsonHasher hasher = CanonicalJsonHasher.DEFAULT;
+
+        assertThat(hash(hasher, "{\"a\":1,\"b\":{\"x\":\"1\",\"y\":[1,2]}}"))
+                .isEqualTo(hash(hasher, "{\"b\":{\"y\":[1,2],\"x\":\"1\"},\"a\":1}"));
+    }
+
+    @Test
+    void valuesAndArrayOrderChangeHash() {
+        CanonicalJsonHasher hasher = CanonicalJsonHasher.DEFAULT;
+
+        assertThat(hash(hasher, "{\"a\":1}")).isNotEqualTo(hash(hasher, "{\"a\":2}"));
+        assertThat(hash(hasher, "{\"a\":1}")).isNotEqualTo(hash(hasher, "{\"a\":\"1\"}"));
+        assertThat(hash(hasher, "{\"a\":[1,2]}")).isNotEqualTo(hash(hasher, "{\"a\":[2,1]}"));
+        assertThat(hash(hasher, "{\"a\":{\"b\":1}}")).isNotEqualTo(hash(hasher, "{\"b\":{\"a\":1}}"));
+    }
+
+    @Test
+    void ignoredPathsDoNotChangeHash() {
+        CanonicalJsonHasher hasher = new CanonicalJsonHasher(Collections.emptyList(),
+                Arrays.asList("timestamp", "*.requestId", "items.traceId"));
+
+        String first = "{\"orderNo\":\"A\",\"timestamp\":1,\"meta\":{\"requestId\":\"r1\",\"app\":\"ios\"},"
+                + "\"items\":[{\"sku\":\"S1\",\"traceId\":\"t1\"}]}";
+        String retry = "{\"orderNo\":\"A\",\"timestamp\":2,\"meta\":{\"requestId\":\"r2\",\"app\":\"ios\"},"
+                + "\"items\":[{\"sku\":\"S1\",\"traceId\":\"t2\"}]}";
+
+        assertThat(hash(hasher, first)).isEqualTo(hash(hasher, retry));
+        assertThat(hash(hasher, "{\"orderNo\":\"A\",\"meta\":{\"app\":\"ios\"}}"))
+                .isNotEqualTo(hash(hasher, "{\"orderNo\":\"A\",\"meta\":{\"app\":\"android\"}}"));
+    }
+
+    @Test
+    void onlyIncludedPathsChangeHash() {
+        CanonicalJsonHasher hasher = new CanonicalJsonHasher(Arrays.asList("orderNo", "items.sku"),
+                Collections.emptyList());
+
+        assertThat(hash(hasher, "{\"orderNo\":\"A\",\"remark\":\"x\",\"items\":[{\"sku\":\"S1\",\"quantity\":1}]}"))
+                .isEqualTo(hash(hasher,
+                        "{\"remark\":\"y\",\"items\":[{\"quantity\":2,\"sku\":\"S1\"}],\"orderNo\":\"A\"}"));
+        assertThat(hash(hasher, "{\"orderNo\":\"A\",\"items\":[{\"sku\":\"S1\"}]}"))
+                .isNotEqualTo(hash(hasher, "{\"orderNo\":\"A\",\"items\":[{\"sku\":\"S2\"}]}"));
+        assertThat(hash(hasher, "{\"orderNo\":\"A\"}")).isNotEqualTo(hash(hasher, "{\"orderNo\":\"B\"}"));
+    }
+
+    @Test
+    void ignoredPathInsideIncludedPathDoesNotChangeHash() {
+        CanonicalJsonHasher hasher = new CanonicalJsonHasher(Collections.singletonList("order"),
+                Collections.singletonList("order.timestamp"));
+
+        assertThat(hash(hasher, "{\"order\":{\"no\":\"A\",\"timestamp\":1}}"))
+                .isEqualTo(hash(hasher, "{\"order\":{\"no\":\"A\",\"timestamp\":2}}"));
+    }
+
+    @Test
+    void invalidJsonLeavesTargetUnchanged() {
+        Hasher128 target = new Hasher128().reset().putInt(42);
+        byte[] json = "{\"a\":".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CanonicalJsonHasher.DEFAULT.hash(json, 0, json.length, target)).isFalse();
+        assertThat(target.finish().high()).isEqualTo(new Hasher128().reset().putInt(42).finish().high());
+    }
+
+    @Test
+    void nestingIsLimited() {
+        String json = String.join("", Collections.nCopies(100, "[")) + String.join("", Collections.nCopies(100, "]"));
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CanonicalJsonHasher.DEFAULT.hash(bytes, 0, bytes.length, new Hasher128().reset())).isFalse();
+    }
+
+    private static List<Long> hash(CanonicalJsonHasher hasher, String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Hasher128 target = new Hasher128().reset();
+        assertThat(hasher.hash(bytes, 0, bytes.length, target)).isTrue();
+        target.finish();
+        return Arrays.asList(target.high(), target.low());
+    }
+}
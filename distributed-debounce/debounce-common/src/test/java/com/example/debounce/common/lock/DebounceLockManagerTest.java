@@ -0,0 +1,162 @@
+package com.example.debounce.common.lock;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.config.DebounceOverride;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.prefilter.DebouncePreFilter;
+import com.example.debounce.common.prefilter.DebouncePreFilterProperties;
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author maxiaoweii
+ */
+class DebounceLockManagerTest {
+
+    private static final String KEY = "debounce:order:1";
+    private static final String MESSAGE = "重复提交";
+
+    private final SwitchableStore store = new SwitchableStore();
+    private final LeaseWatchdog leaseWatchdog = new LeaseWatchdog(store);
+    private final RateLimiter rateLimiter = new RateLimiter(store);
+    private final LocalDebounceCache localCache = new LocalDebounceCache();
+    private final DebounceLockManager lockManager = new DebounceLockManager(store, leaseWatchdog, rateLimiter,
+            new DebouncePreFilter(new DebouncePreFilterProperties(), store), localCache);
+    private final DebounceMetrics.Probe probe = new DebounceMetrics(new SimpleMeterRegistry(),
+            new DebounceMetricsProperties()).probe(DebounceMetrics.Source.ASPECT, "order");
+
+    @AfterEach
+    void tearDown() {
+        leaseWatchdog.destroy();
+        rateLimiter.destroy();
+        store.destroy();
+    }
+
+    @Test
+    void lockIsHeldUntilReleased() {
+        DebounceSettings settings = settings(StoreFailurePolicy.FAIL_CLOSED);
+
+        Runnable release = lockManager.acquireLock(KEY, settings, probe);
+        assertThat(release).isNotNull();
+        assertThat(store.size()).isEqualTo(1);
+        assertThatThrownBy(() -> lockManager.acquireLock(KEY, settings, probe))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+
+        release.run();
+        assertThat(store.size()).isZero();
+        assertThat(lockManager.acquireLock(KEY, settings, probe)).isNotNull();
+    }
+
+    @Test
+    void failOpenAdmitsWithoutHoldingAnything() {
+        store.down = true;
+        DebounceSettings settings = settings(StoreFailurePolicy.FAIL_OPEN);
+
+        assertThat(lockManager.acquireLock(KEY, settings, probe)).isNull();
+        assertThat(lockManager.acquireLock(KEY, settings, probe)).isNull();
+        assertThat(localCache.size()).isZero();
+    }
+
+    @Test
+    void failClosedRejectsWithTheMessage() {
+        store.down = true;
+        DebounceSettings settings = settings(StoreFailurePolicy.FAIL_CLOSED);
+
+        assertThatThrownBy(() -> lockManager.acquireLock(KEY, settings, probe))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+        // 本地占用已归还，存储恢复后不会被误拒
+        store.down = false;
+        assertThat(lockManager.acquireLock(KEY, settings, probe)).isNotNull();
+    }
+
+    @Test
+    void localOnlyDebouncesWithinTheNode() {
+        store.down = true;
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        Runnable release = lockManager.acquireLock(KEY, settings, probe);
+        assertThat(release).isNotNull();
+        assertThatThrownBy(() -> lockManager.acquireLock(KEY, settings, probe))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+
+        release.run();
+        assertThat(localCache.size()).isZero();
+        assertThat(lockManager.acquireLock(KEY, settings, probe)).isNotNull();
+    }
+
+    @Test
+    void rateLimitFollowsTheFailurePolicy() {
+        store.down = true;
+
+        DebounceSettings failOpen = settings(StoreFailurePolicy.FAIL_OPEN);
+        lockManager.acquirePermit("debounce:open", failOpen, probe);
+        lockManager.acquirePermit("debounce:open", failOpen, probe);
+
+        DebounceSettings failClosed = settings(StoreFailurePolicy.FAIL_CLOSED);
+        assertThatThrownBy(() -> lockManager.acquirePermit("debounce:closed", failClosed, probe))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+
+        // 每个窗口1个配额，退化为节点内限流
+        DebounceSettings localOnly = settings(StoreFailurePolicy.LOCAL_ONLY);
+        lockManager.acquirePermit("debounce:local", localOnly, probe);
+        assertThatThrownBy(() -> lockManager.acquirePermit("debounce:local", localOnly, probe))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+    }
+
+    @Debounce(value = 5000, message = MESSAGE)
+    private static void debounced() {
+    }
+
+    private static DebounceSettings settings(StoreFailurePolicy policy) {
+        try {
+            Debounce debounce = DebounceLockManagerTest.class.getDeclaredMethod("debounced")
+                    .getAnnotation(Debounce.class);
+            DebounceOverride override = new DebounceOverride();
+            override.setFailurePolicy(policy);
+            return DebounceSettings.of(1, debounce, override);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 可模拟存储不可用的存储
+     */
+    private static final class SwitchableStore extends InMemoryDebounceStore {
+        volatile boolean down;
+
+        @Override
+        public boolean tryAcquire(String key, String owner, long ttlMillis) {
+            if (down) {
+                throw new DebounceStoreUnavailableException("Debounce store is down");
+            }
+            return super.tryAcquire(key, owner, ttlMillis);
+        }
+
+        @Override
+        public long acquirePermit(String key, String owner, RateLimitAlgorithm algorithm, int permits,
+                                  long windowMillis) {
+            if (down) {
+                throw new DebounceStoreUnavailableException("Debounce store is down");
+            }
+            return super.acquirePermit(key, owner, algorithm, permits, windowMillis);
+        }
+    }
+}
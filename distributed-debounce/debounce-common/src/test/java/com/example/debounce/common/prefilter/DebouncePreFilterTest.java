@@ -0,0 +1,185 @@
+package com.example.debounce.common.prefilter;
+
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author maxiaoweii
+ */
+class DebouncePreFilterTest {
+
+    private static final long TTL = 10_000;
+
+    private final GatedStore store = new GatedStore();
+    private DebouncePreFilter preFilter;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.open();
+        if (preFilter != null) {
+            preFilter.destroy();
+        }
+        store.destroy();
+    }
+
+    @Test
+    void onlyNewKeysSkipSynchronousAcquire() {
+        start(DebouncePreFilterProperties.Policy.SKIP, 16);
+
+        DebouncePreFilter.Admission first = preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        DebouncePreFilter.Admission second = preFilter.admit("debounce:order:1", "owner-2", TTL, false);
+        DebouncePreFilter.Admission lease = preFilter.admit("debounce:order:2", "owner-3", TTL, true);
+
+        assertThat(first.isNew()).isTrue();
+        assertThat(second.isNew()).isFalse();
+        assertThat(lease.isNew()).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void lockIsWrittenBehindAndReleasedAfterWrite() throws InterruptedException {
+        start(DebouncePreFilterProperties.Policy.WRITE_BEHIND, 16);
+        store.open();
+
+        DebouncePreFilter.Admission admission = preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        awaitState(admission, DebouncePreFilter.PendingLock.WRITTEN);
+        assertThat(store.tryAcquire("debounce:order:1", "owner-2", TTL)).isFalse();
+
+        preFilter.release(admission, "debounce:order:1", "owner-1");
+        assertThat(store.tryAcquire("debounce:order:1", "owner-2", TTL)).isTrue();
+    }
+
+    @Test
+    void releaseBeforeWriteCancelsTheWrite() throws InterruptedException {
+        start(DebouncePreFilterProperties.Policy.WRITE_BEHIND, 16);
+
+        // 写入线程阻塞在第一个锁上，第二个锁留在队列中
+        DebouncePreFilter.Admission writing = preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        store.awaitEntered();
+        DebouncePreFilter.Admission queued = preFilter.admit("debounce:order:2", "owner-2", TTL, false);
+        preFilter.release(queued, "debounce:order:2", "owner-2");
+        store.open();
+        awaitState(writing, DebouncePreFilter.PendingLock.WRITTEN);
+
+        assertThat(preFilter.getStats().getWriteBehindCancelled()).isEqualTo(1);
+        assertThat(store.tryAcquire("debounce:order:2", "owner-3", TTL)).isTrue();
+    }
+
+    @Test
+    void releaseDuringWriteIsRunByTheWriter() throws InterruptedException {
+        start(DebouncePreFilterProperties.Policy.WRITE_BEHIND, 16);
+
+        DebouncePreFilter.Admission admission = preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        store.awaitEntered();
+        preFilter.release(admission, "debounce:order:1", "owner-1");
+        store.open();
+
+        await(() -> store.releases > 0);
+        assertThat(store.tryAcquire("debounce:order:1", "owner-2", TTL)).isTrue();
+    }
+
+    @Test
+    void failedWriteOnlyAffectsItsBatch() throws InterruptedException {
+        start(DebouncePreFilterProperties.Policy.WRITE_BEHIND, 16);
+        store.failNext = true;
+        store.open();
+
+        DebouncePreFilter.Admission failed = preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        awaitState(failed, DebouncePreFilter.PendingLock.NOT_WRITTEN);
+        // 未写入的锁释放时不访问存储
+        preFilter.release(failed, "debounce:order:1", "owner-1");
+
+        DebouncePreFilter.Admission written = preFilter.admit("debounce:order:2", "owner-2", TTL, false);
+        awaitState(written, DebouncePreFilter.PendingLock.WRITTEN);
+        preFilter.release(written, "debounce:order:2", "owner-2");
+
+        assertThat(store.tryAcquire("debounce:order:2", "owner-3", TTL)).isTrue();
+        assertThat(preFilter.getStats().getWriteBehindConflicts()).isZero();
+    }
+
+    @Test
+    void fullQueueFallsBackToSynchronousAcquire() throws InterruptedException {
+        start(DebouncePreFilterProperties.Policy.WRITE_BEHIND, 1);
+
+        preFilter.admit("debounce:order:1", "owner-1", TTL, false);
+        store.awaitEntered();
+        DebouncePreFilter.Admission queued = preFilter.admit("debounce:order:2", "owner-2", TTL, false);
+        DebouncePreFilter.Admission overflow = preFilter.admit("debounce:order:3", "owner-3", TTL, false);
+
+        assertThat(queued.isNew()).isTrue();
+        assertThat(overflow.isNew()).isFalse();
+        assertThat(preFilter.getStats().getWriteBehindOverflows()).isEqualTo(1);
+    }
+
+    private void start(DebouncePreFilterProperties.Policy policy, int maxPendingWrites) {
+        DebouncePreFilterProperties properties = new DebouncePreFilterProperties();
+        properties.setEnabled(true);
+        properties.setPolicy(policy);
+        properties.setSizeBytes(1024);
+        properties.setMaxPendingWrites(maxPendingWrites);
+        preFilter = new DebouncePreFilter(properties, store);
+        preFilter.afterPropertiesSet();
+    }
+
+    private static void awaitState(DebouncePreFilter.Admission admission, int state) throws InterruptedException {
+        DebouncePreFilter.PendingLock pending = (DebouncePreFilter.PendingLock) admission;
+        await(() -> pending.state.get() == state);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 写入在打开闸门前阻塞，用于控制写入线程的进度
+     */
+    private static final class GatedStore extends InMemoryDebounceStore {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        volatile boolean failNext;
+        volatile int releases;
+
+        @Override
+        public boolean[] tryAcquireAll(List<String> keys, List<String> owners, List<Long> ttlMillis) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DebounceStoreUnavailableException("Interrupted");
+            }
+            if (failNext) {
+                failNext = false;
+                throw new DebounceStoreUnavailableException("Debounce store is down");
+            }
+            return super.tryAcquireAll(keys, owners, ttlMillis);
+        }
+
+        @Override
+        public void releaseAll(List<String> keys, List<String> owners) {
+            super.releaseAll(keys, owners);
+            releases += keys.size();
+        }
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void open() {
+            gate.countDown();
+        }
+    }
+}
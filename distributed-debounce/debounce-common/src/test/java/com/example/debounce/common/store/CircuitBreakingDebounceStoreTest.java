@@ -0,0 +1,223 @@
+package com.example.debounce.common.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author maxiaoweii
+ */
+class CircuitBreakingDebounceStoreTest {
+
+    private static final long TTL = 10_000;
+    private static final long OPEN_MILLIS = 200;
+    private static final int MINIMUM_CALLS = 4;
+
+    private final FlakyStore delegate = new FlakyStore();
+    private CircuitBreakingDebounceStore store;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        delegate.unblock();
+        if (store != null) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    void opensWhenFailureRateIsReached() {
+        start(0);
+        delegate.down = true;
+
+        for (int i = 0; i < MINIMUM_CALLS - 1; i++) {
+            assertUnavailable("debounce:order:" + i);
+        }
+        assertThat(store.getState()).isEqualTo("CLOSED");
+        assertUnavailable("debounce:order:last");
+        assertThat(store.getState()).isEqualTo("OPEN");
+
+        // 熔断期间不再访问存储
+        int calls = delegate.calls.get();
+        assertThatThrownBy(() -> store.tryAcquire("debounce:order:1", "owner", TTL))
+                .isSameAs(DebounceStoreUnavailableException.CIRCUIT_OPEN);
+        assertThat(delegate.calls.get()).isEqualTo(calls);
+    }
+
+    @Test
+    void successfulProbesCloseTheBreaker() throws InterruptedException {
+        start(0);
+        trip();
+        delegate.down = false;
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        assertThat(store.tryAcquire("debounce:order:1", "owner", TTL)).isTrue();
+        assertThat(store.getState()).isEqualTo("HALF_OPEN");
+        assertThat(store.tryAcquire("debounce:order:2", "owner", TTL)).isTrue();
+        assertThat(store.getState()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void failedProbeReopensForLonger() throws InterruptedException {
+        start(0);
+        trip();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        assertUnavailable("debounce:order:1");
+        assertThat(store.getState()).isEqualTo("OPEN");
+
+        // 第二次打开的时长翻倍，首次打开的时长过后仍然熔断
+        delegate.down = false;
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertThatThrownBy(() -> store.tryAcquire("debounce:order:2", "owner", TTL))
+                .isSameAs(DebounceStoreUnavailableException.CIRCUIT_OPEN);
+        Thread.sleep(OPEN_MILLIS + 100);
+        assertThat(store.tryAcquire("debounce:order:2", "owner", TTL)).isTrue();
+        assertThat(store.getState()).isEqualTo("HALF_OPEN");
+    }
+
+    @Test
+    void releasesDeferredWhileOpenAreReplayedAfterRecovery() throws InterruptedException {
+        start(0);
+        assertThat(store.tryAcquire("debounce:order:1", "owner-1", TTL)).isTrue();
+        trip();
+
+        store.release("debounce:order:1", "owner-1");
+        assertThat(delegate.releases.get()).isZero();
+
+        delegate.down = false;
+        Thread.sleep(OPEN_MILLIS + 50);
+        store.tryAcquire("debounce:order:2", "owner", TTL);
+        store.tryAcquire("debounce:order:3", "owner", TTL);
+        assertThat(store.getState()).isEqualTo("CLOSED");
+
+        await(() -> delegate.releases.get() == 1);
+        assertThat(delegate.tryAcquire("debounce:order:1", "owner-2", TTL)).isTrue();
+    }
+
+    @Test
+    void failedReleaseIsReplayedByTheNextSuccessfulCall() throws InterruptedException {
+        start(0);
+        assertThat(store.tryAcquire("debounce:order:1", "owner-1", TTL)).isTrue();
+
+        delegate.down = true;
+        store.release("debounce:order:1", "owner-1");
+        assertThat(store.getState()).isEqualTo("CLOSED");
+
+        delegate.down = false;
+        assertThat(store.tryAcquire("debounce:order:2", "owner", TTL)).isTrue();
+        await(() -> delegate.releases.get() == 1);
+        assertThat(delegate.tryAcquire("debounce:order:1", "owner-2", TTL)).isTrue();
+    }
+
+    @Test
+    void concurrentCallLimitRejectsWithoutCountingFailures() throws InterruptedException {
+        start(1);
+        delegate.block();
+        Thread holder = new Thread(() -> store.tryAcquire("debounce:order:1", "owner", TTL));
+        holder.start();
+        delegate.awaitEntered();
+
+        assertThatThrownBy(() -> store.tryAcquire("debounce:order:2", "owner", TTL))
+                .isSameAs(DebounceStoreUnavailableException.SATURATED);
+        assertThat(store.getState()).isEqualTo("CLOSED");
+
+        delegate.unblock();
+        holder.join(5_000);
+        assertThat(store.tryAcquire("debounce:order:2", "owner", TTL)).isTrue();
+    }
+
+    private void start(int maxConcurrentCalls) {
+        DebounceStoreProperties.Breaker properties = new DebounceStoreProperties.Breaker();
+        properties.setTimeout(Duration.ofSeconds(1));
+        properties.setMinimumCalls(MINIMUM_CALLS);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofMillis(OPEN_MILLIS));
+        properties.setMaxOpenDuration(Duration.ofSeconds(5));
+        properties.setHalfOpenCalls(2);
+        properties.setMaxConcurrentCalls(maxConcurrentCalls);
+        store = new CircuitBreakingDebounceStore(delegate, properties);
+    }
+
+    private void trip() {
+        delegate.down = true;
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            assertUnavailable("debounce:trip:" + i);
+        }
+        assertThat(store.getState()).isEqualTo("OPEN");
+    }
+
+    private void assertUnavailable(String key) {
+        assertThatThrownBy(() -> store.tryAcquire(key, "owner", TTL))
+                .isInstanceOf(DebounceStoreUnavailableException.class);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 可模拟故障和阻塞的存储
+     */
+    private static final class FlakyStore extends InMemoryDebounceStore {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger releases = new AtomicInteger();
+        volatile boolean down;
+        private volatile CountDownLatch gate;
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public boolean tryAcquire(String key, String owner, long ttlMillis) {
+            calls.incrementAndGet();
+            CountDownLatch current = gate;
+            if (current != null) {
+                entered.countDown();
+                try {
+                    current.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (down) {
+                throw new IllegalStateException("Redis is down");
+            }
+            return super.tryAcquire(key, owner, ttlMillis);
+        }
+
+        @Override
+        public void release(String key, String owner) {
+            if (down) {
+                throw new IllegalStateException("Redis is down");
+            }
+            super.release(key, owner);
+            releases.incrementAndGet();
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            CountDownLatch current = gate;
+            gate = null;
+            if (current != null) {
+                current.countDown();
+            }
+        }
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.debounce.common.store.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author maxiaoweii
+ */
+class ClusterMembersTest {
+
+    private static final String A = "10.0.0.1:7100";
+    private static final String B = "10.0.0.2:7100";
+    private static final String C = "10.0.0.3:7100";
+    private static final String D = "10.0.0.4:7100";
+
+    private static final int KEYS = 3000;
+
+    @Test
+    void duplicateMembersAreMergedAndSelfIsResolved() {
+        ClusterMembers members = new ClusterMembers(Arrays.asList(A, B, A, C), B);
+
+        assertThat(members.getMembers()).containsExactly(A, B, C);
+        assertThat(members.isSelf(1)).isTrue();
+        assertThat(members.isSelf(0)).isFalse();
+        assertThat(new ClusterMembers(Arrays.asList(A, B), C).isSelf(0)).isFalse();
+        assertThatThrownBy(() -> new ClusterMembers(Collections.emptyList(), A))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void singleMemberOwnsEveryKey() {
+        ClusterMembers members = new ClusterMembers(Collections.singletonList(A), A);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(members.ownerOf(key(i))).isZero();
+        }
+    }
+
+    @Test
+    void ownerDoesNotDependOnMemberOrder() {
+        Map<String, String> owners = owners(new ClusterMembers(Arrays.asList(A, B, C), A));
+
+        assertThat(owners(new ClusterMembers(Arrays.asList(C, A, B), A))).isEqualTo(owners);
+        assertThat(owners(new ClusterMembers(Arrays.asList(A, B, C), C))).isEqualTo(owners);
+    }
+
+    @Test
+    void keysAreSpreadAcrossMembers() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String owner : owners(new ClusterMembers(Arrays.asList(A, B, C, D), A)).values()) {
+            counts.merge(owner, 1, Integer::sum);
+        }
+
+        assertThat(counts).containsOnlyKeys(A, B, C, D);
+        // 期望每个成员750个，允许约±20%的偏差
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(600, 900));
+    }
+
+    @Test
+    void removingMemberOnlyMovesItsKeys() {
+        Map<String, String> before = owners(new ClusterMembers(Arrays.asList(A, B, C), A));
+        Map<String, String> after = owners(new ClusterMembers(Arrays.asList(A, B), A));
+
+        before.forEach((key, owner) -> {
+            if (owner.equals(C)) {
+                assertThat(after.get(key)).isIn(A, B);
+            } else {
+                assertThat(after.get(key)).isEqualTo(owner);
+            }
+        });
+    }
+
+    @Test
+    void addingMemberOnlyMovesKeysToIt() {
+        Map<String, String> before = owners(new ClusterMembers(Arrays.asList(A, B, C), A));
+        Map<String, String> after = owners(new ClusterMembers(Arrays.asList(A, B, C, D), A));
+
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = after.get(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertThat(owner).isEqualTo(D);
+                moved++;
+            }
+        }
+        assertThat(moved).isPositive();
+    }
+
+    private static Map<String, String> owners(ClusterMembers members) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = key(i);
+            owners.put(key, members.get(members.ownerOf(key)));
+        }
+        return owners;
+    }
+
+    private static String key(int i) {
+        return "debounce:order:/api/orders:" + i;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.debounce.common.store.cluster;
+
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 在本机端口上启动PeerServer，通过PeerClient验证请求与响应的往返
+ * @author maxiaoweii
+ */
+class PeerLoopbackTest {
+
+    private InMemoryDebounceStore local;
+    private PeerServer server;
+    private PeerClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        int port;
+        try (ServerSocket probe = new ServerSocket(0, 1, loopback)) {
+            port = probe.getLocalPort();
+        }
+        local = new InMemoryDebounceStore();
+        server = new PeerServer(new InetSocketAddress(loopback, port), local, (channel, message) -> {
+            throw new IllegalStateException("broadcast failed");
+        });
+        client = new PeerClient(loopback.getHostAddress() + ":" + port, 1000, 5000, 64);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+        local.destroy();
+    }
+
+    @Test
+    void requestIsExecutedOnServerStore() {
+        assertThat(acquire("debounce:order:1", "owner-1")).isTrue();
+        assertThat(acquire("debounce:order:1", "owner-2")).isFalse();
+        assertThat(local.tryAcquire("debounce:order:1", "owner-3", 10_000)).isFalse();
+
+        client.call(PeerProtocol.STORE_RESULT, out -> {
+            PeerProtocol.writeKey(out, "debounce:order:1");
+            PeerProtocol.writeKey(out, "debounce:order:1:result");
+            PeerProtocol.writeString(out, "{\"orderNo\":\"A\"}");
+            out.writeLong(10_000);
+        }, in -> null);
+        String result = client.call(PeerProtocol.POLL_RESULT, out -> {
+            PeerProtocol.writeKey(out, "debounce:order:1");
+            PeerProtocol.writeKey(out, "debounce:order:1:result");
+        }, PeerProtocol::readString);
+
+        assertThat(result).isEqualTo("{\"orderNo\":\"A\"}");
+    }
+
+    @Test
+    void oneWayRequestHasNoResponse() {
+        assertThat(acquire("debounce:order:2", "owner-1")).isTrue();
+
+        client.send(PeerProtocol.RELEASE, out -> {
+            PeerProtocol.writeKey(out, "debounce:order:2");
+            PeerProtocol.writeString(out, "owner-1");
+        });
+
+        // 同一连接上的请求按顺序执行，后续请求返回时释放已完成
+        assertThat(acquire("debounce:order:2", "owner-2")).isTrue();
+    }
+
+    @Test
+    void serverErrorFailsOnlyThatCall() {
+        assertThatThrownBy(() -> client.call(PeerProtocol.PUBLISH, out -> {
+            PeerProtocol.writeString(out, "debounce:channel");
+            PeerProtocol.writeKey(out, "debounce:order:3");
+            PeerProtocol.writeKey(out, "debounce:order:3:result");
+            PeerProtocol.writeString(out, "");
+            out.writeLong(0);
+            PeerProtocol.writeString(out, "done");
+        }, in -> null))
+                .isInstanceOf(DebounceStoreUnavailableException.class)
+                .hasMessageContaining("broadcast failed");
+
+        assertThat(acquire("debounce:order:3", "owner-1")).isTrue();
+    }
+
+    @Test
+    void concurrentCallsReceiveTheirOwnResponses() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Boolean>> first = new ArrayList<>();
+            List<CompletableFuture<Boolean>> second = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String key = "debounce:order:concurrent:" + i;
+                first.add(CompletableFuture.supplyAsync(() -> acquire(key, "owner-1"), executor));
+            }
+            CompletableFuture.allOf(first.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 200; i++) {
+                String key = "debounce:order:concurrent:" + i;
+                second.add(CompletableFuture.supplyAsync(() -> acquire(key, "owner-2"), executor));
+            }
+
+            for (CompletableFuture<Boolean> future : first) {
+                assertThat(future.get()).isTrue();
+            }
+            for (CompletableFuture<Boolean> future : second) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).isFalse();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closedClientRejectsCalls() {
+        client.close();
+
+        assertThatThrownBy(() -> acquire("debounce:order:4", "owner-1"))
+                .isInstanceOf(DebounceStoreUnavailableException.class);
+    }
+
+    private boolean acquire(String key, String owner) {
+        return client.call(PeerProtocol.ACQUIRE, out -> {
+            PeerProtocol.writeKey(out, key);
+            PeerProtocol.writeString(out, owner);
+            out.writeLong(10_000);
+        }, in -> in.readBoolean());
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.debounce.common.strategy;
+
+import com.example.debounce.common.fingerprint.CanonicalJsonHasher;
+import com.example.debounce.common.web.CachedBodyHttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author maxiaoweii
+ */
+class DefaultDebounceStrategyTest {
+
+    private static final int MAX_SIZE = 32;
+
+    private final DefaultDebounceStrategy strategy = new DefaultDebounceStrategy(CanonicalJsonHasher.DEFAULT);
+
+    @Test
+    void cachedBodyIsHashedCanonically() throws IOException {
+        String first = strategy.generateKey(request("{\"a\":1,\"b\":2}"), "order");
+        String reordered = strategy.generateKey(request("{\"b\":2,\"a\":1}"), "order");
+        String changed = strategy.generateKey(request("{\"a\":1,\"b\":3}"), "order");
+
+        assertThat(first).isEqualTo(reordered).isNotEqualTo(changed);
+    }
+
+    @Test
+    void oversizedBodiesWithDifferentPrefixesGetDifferentKeys() throws IOException {
+        byte[] first = body('a', MAX_SIZE * 4);
+        byte[] second = body('a', MAX_SIZE * 4);
+        second[0] = 'b';
+
+        assertThat(keyAfterRead(first))
+                .isEqualTo(keyAfterRead(first.clone()))
+                .isNotEqualTo(keyAfterRead(second));
+    }
+
+    @Test
+    void oversizedBodiesWithSamePrefixAndDifferentLengthsGetDifferentKeys() throws IOException {
+        assertThat(keyAfterRead(body('a', MAX_SIZE * 2))).isNotEqualTo(keyAfterRead(body('a', MAX_SIZE * 3)));
+    }
+
+    @Test
+    void oversizedBodiesWithSamePrefixAndSameLengthGetDifferentKeys() throws IOException {
+        byte[] first = body('a', MAX_SIZE * 4);
+        byte[] second = body('a', MAX_SIZE * 4);
+        second[second.length - 1] = 'z';
+
+        assertThat(keyAfterRead(first)).isNotEqualTo(keyAfterRead(second));
+    }
+
+    @Test
+    void partiallyReadBodyIsDrainedForTheKey() throws IOException {
+        byte[] first = body('a', MAX_SIZE * 4);
+        byte[] second = body('a', MAX_SIZE * 4);
+        second[second.length - 1] = 'z';
+
+        CachedBodyHttpServletRequest request = request(first);
+        assertThat(request.getInputStream().read(new byte[MAX_SIZE * 2])).isPositive();
+
+        assertThat(strategy.generateKey(request, "order"))
+                .isEqualTo(keyAfterRead(first))
+                .isNotEqualTo(keyAfterRead(second));
+        assertThat(request.getTotalLength()).isEqualTo(first.length);
+    }
+
+    @Test
+    void bodyWithoutContentLengthIsHashedAfterRead() throws IOException {
+        byte[] body = body('a', MAX_SIZE * 4);
+        String first = keyAfterRead(request(new ChunkedRequest(body)));
+        String second = keyAfterRead(request(new ChunkedRequest(body.clone())));
+
+        assertThat(first).isEqualTo(second).isEqualTo(keyAfterRead(body));
+    }
+
+    @Test
+    void unreadOversizedBodyIsNotDebounced() throws IOException {
+        byte[] body = body('a', MAX_SIZE * 4);
+        CachedBodyHttpServletRequest first = request(body);
+        CachedBodyHttpServletRequest second = request(body.clone());
+
+        assertThat(strategy.generateKey(first, "order")).isNotEqualTo(strategy.generateKey(second, "order"));
+        // 溢出哈希不可用时不消费原始流，下游仍能读到完整的请求体
+        assertThat(StreamUtils.copyToByteArray(first.getInputStream())).isEqualTo(body);
+    }
+
+    @Test
+    void oversizedBodyIsStillReadableDownstream() throws IOException {
+        byte[] body = body('a', MAX_SIZE * 4);
+        body[body.length - 1] = 'z';
+        CachedBodyHttpServletRequest request = request(body);
+
+        assertThat(request.isBodyCached()).isFalse();
+        assertThat(request.getBodyLength()).isEqualTo(MAX_SIZE + 1);
+        assertThat(StreamUtils.copyToByteArray(request.getInputStream())).isEqualTo(body);
+        assertThat(request.getTotalLength()).isEqualTo(body.length);
+    }
+
+    @Test
+    void cachedBodyNotifiesReadListenerImmediately() throws IOException {
+        CachedBodyHttpServletRequest request = request("{\"a\":1}");
+        InputStream in = request.getInputStream();
+        List<String> events = new ArrayList<>();
+
+        request.getInputStream().setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                events.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertThat(events).containsExactly("data", "done");
+        assertThat(StreamUtils.copyToByteArray(in)).isEqualTo("{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String keyAfterRead(byte[] body) throws IOException {
+        return keyAfterRead(request(body));
+    }
+
+    /**
+     * 与@RequestBody一样在生成key前读完请求体
+     */
+    private String keyAfterRead(CachedBodyHttpServletRequest request) throws IOException {
+        StreamUtils.copyToByteArray(request.getInputStream());
+        return strategy.generateKey(request, "order");
+    }
+
+    private static CachedBodyHttpServletRequest request(String json) throws IOException {
+        return request(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CachedBodyHttpServletRequest request(byte[] body) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContent(body);
+        return request(request);
+    }
+
+    private static CachedBodyHttpServletRequest request(MockHttpServletRequest request) throws IOException {
+        request.addHeader("X-User-Id", "10001");
+        request.setContentType("application/json");
+        return new CachedBodyHttpServletRequest(request, MAX_SIZE);
+    }
+
+    private static byte[] body(char c, int length) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) c);
+        return body;
+    }
+
+    /**
+     * 分块传输的请求，没有Content-Length
+     */
+    private static final class ChunkedRequest extends MockHttpServletRequest {
+
+        ChunkedRequest(byte[] body) {
+            super("POST", "/api/orders");
+            setContent(body);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.debounce.common.trailing;
+
+import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.async.AsyncReturnType;
+import com.example.debounce.common.config.DebounceOverride;
+import com.example.debounce.common.config.DebounceSettings;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.store.DebounceStoreUnavailableException;
+import com.example.debounce.common.store.InMemoryDebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author maxiaoweii
+ */
+class TrailingDebounceExecutorTest {
+
+    private static final String KEY = "debounce:draft:1";
+    private static final String MESSAGE = "草稿保存失败，请重试";
+    private static final long WINDOW = 100;
+
+    private final FailingStore store = new FailingStore();
+    private final LeaseWatchdog leaseWatchdog = new LeaseWatchdog(store);
+    private final DebounceMetrics.Probe probe = new DebounceMetrics(new SimpleMeterRegistry(),
+            new DebounceMetricsProperties()).probe(DebounceMetrics.Source.ASPECT, "draft");
+    private final List<TrailingDebounceExecutor> nodes = new ArrayList<>();
+    private final List<String> invoked = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(TrailingDebounceExecutor::destroy);
+        leaseWatchdog.destroy();
+        store.destroy();
+    }
+
+    @Test
+    void burstCollapsesIntoOneInvocationWithTheLastPayload() throws Throwable {
+        TrailingDebounceExecutor executor = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        List<CompletableFuture<?>> results = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            results.add(executeAsync(executor, settings, "draft-" + i));
+            Thread.sleep(WINDOW / 4);
+        }
+
+        for (CompletableFuture<?> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("draft-3");
+        }
+        assertThat(invoked).containsExactly("draft-3");
+    }
+
+    @Test
+    void synchronousCallersShareTheResult() throws Throwable {
+        TrailingDebounceExecutor executor = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> executeSync(executor, settings,
+                "draft-1"));
+        Thread.sleep(WINDOW / 4);
+        Object second = executeSync(executor, settings, "draft-2");
+
+        assertThat(second).isEqualTo("draft-2");
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("draft-2");
+        assertThat(invoked).containsExactly("draft-2");
+    }
+
+    @Test
+    void continuousCallsAreFlushedAtTheMaxWait() throws Throwable {
+        TrailingDebounceExecutor executor = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        // 调用间隔小于窗口，截止时间一直被推迟，本轮最迟在首次调用后一个窗口加ttl执行
+        CompletableFuture<?> first = executeAsync(executor, settings, "draft-0");
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WINDOW * 5);
+        int sequence = 0;
+        while (System.nanoTime() < end) {
+            Thread.sleep(WINDOW / 4);
+            executeAsync(executor, settings, "draft-" + ++sequence);
+        }
+
+        assertThat(first).isDone();
+        assertThat(invoked).isNotEmpty();
+    }
+
+    @Test
+    void failClosedFailsTheBurstWithTheMessage() {
+        TrailingDebounceExecutor executor = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.FAIL_CLOSED);
+        store.down = true;
+
+        assertThatThrownBy(() -> executeSync(executor, settings, "draft-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+        assertThat(invoked).isEmpty();
+    }
+
+    @Test
+    void localOnlyRunsOnThisNodeWhenTheStoreIsDown() {
+        TrailingDebounceExecutor executor = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+        store.down = true;
+
+        assertThat(executeSync(executor, settings, "draft-1")).isEqualTo("draft-1");
+        assertThat(invoked).containsExactly("draft-1");
+    }
+
+    @Test
+    void followerReceivesTheLeaderResult() throws Throwable {
+        TrailingDebounceExecutor follower = newNode();
+        TrailingDebounceExecutor leader = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        CompletableFuture<?> followed = executeAsync(follower, settings, "draft-1");
+        Thread.sleep(WINDOW / 4);
+        CompletableFuture<?> led = executeAsync(leader, settings, "draft-2");
+
+        assertThat(led.get(5, TimeUnit.SECONDS)).isEqualTo("draft-2");
+        assertThat(followed.get(5, TimeUnit.SECONDS)).isEqualTo("draft-2");
+        assertThat(invoked).containsExactly("draft-2");
+    }
+
+    @Test
+    void followersFailWithTheMessageWhenTheLeaderIsGone() throws Throwable {
+        TrailingDebounceExecutor follower = newNode();
+        TrailingDebounceExecutor leader = newNode();
+        DebounceSettings settings = settings(StoreFailurePolicy.LOCAL_ONLY);
+
+        CompletableFuture<?> followed = executeAsync(follower, settings, "draft-1");
+        Thread.sleep(WINDOW / 4);
+        executeAsync(leader, settings, "draft-2");
+        // 领导节点在本轮到期前退出，latest标记留到过期
+        nodes.remove(leader);
+        leader.destroy();
+
+        assertThatThrownBy(() -> followed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .getCause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage(MESSAGE);
+        assertThat(invoked).isEmpty();
+    }
+
+    @Debounce(value = WINDOW, mode = DebounceMode.TRAILING, message = MESSAGE)
+    CompletableFuture<String> saveAsync(String draft) {
+        return CompletableFuture.completedFuture(draft);
+    }
+
+    @Debounce(value = WINDOW, mode = DebounceMode.TRAILING, message = MESSAGE)
+    String save(String draft) {
+        return draft;
+    }
+
+    private TrailingDebounceExecutor newNode() {
+        TrailingDebounceExecutor executor = new TrailingDebounceExecutor(store, leaseWatchdog, new ReplayCodec());
+        executor.afterPropertiesSet();
+        nodes.add(executor);
+        return executor;
+    }
+
+    private CompletableFuture<?> executeAsync(TrailingDebounceExecutor executor, DebounceSettings settings,
+                                              String draft) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            invoked.add(draft);
+            return CompletableFuture.completedFuture(draft);
+        });
+        return (CompletableFuture<?>) executor.execute(joinPoint, method("saveAsync"),
+                AsyncReturnType.COMPLETION_STAGE, settings, KEY, probe);
+    }
+
+    private Object executeSync(TrailingDebounceExecutor executor, DebounceSettings settings, String draft) {
+        try {
+            ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+            when(joinPoint.proceed()).thenAnswer(invocation -> {
+                invoked.add(draft);
+                return draft;
+            });
+            return executor.execute(joinPoint, method("save"), AsyncReturnType.SYNC, settings, KEY, probe);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method method(String name) {
+        try {
+            return TrailingDebounceExecutorTest.class.getDeclaredMethod(name, String.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DebounceSettings settings(StoreFailurePolicy policy) {
+        DebounceOverride override = new DebounceOverride();
+        override.setFailurePolicy(policy);
+        return DebounceSettings.of(1, method("save").getAnnotation(Debounce.class), override);
+    }
+
+    /**
+     * 可模拟latest标记写入失败的存储
+     */
+    private static final class FailingStore extends InMemoryDebounceStore {
+        volatile boolean down;
+
+        @Override
+        public void storeResult(String key, String resultKey, String result, long ttlMillis) {
+            if (down) {
+                throw new DebounceStoreUnavailableException("Debounce store is down");
+            }
+            super.storeResult(key, resultKey, result, ttlMillis);
+        }
+    }
+}
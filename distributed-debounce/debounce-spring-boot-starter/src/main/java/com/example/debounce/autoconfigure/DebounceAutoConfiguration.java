@@ -0,0 +1,120 @@
+package com.example.debounce.autoconfigure;
+
+import com.example.debounce.common.aspect.CompatibleDebounceAspect;
+import com.example.debounce.common.aspect.DebounceAspect;
+import com.example.debounce.common.aspect.ReactiveDebounceAspect;
+import com.example.debounce.common.batch.MicroBatchExecutor;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.coalesce.SingleFlightExecutor;
+import com.example.debounce.common.config.DebounceBodyProperties;
+import com.example.debounce.common.config.DebounceRuleProperties;
+import com.example.debounce.common.config.DebounceRuleRegistry;
+import com.example.debounce.common.config.DebounceRuleReloader;
+import com.example.debounce.common.key.DebounceKeyProperties;
+import com.example.debounce.common.lock.DebounceLockManager;
+import com.example.debounce.common.lock.LeaseWatchdog;
+import com.example.debounce.common.metrics.DebounceHotKeysEndpoint;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.prefilter.DebouncePreFilter;
+import com.example.debounce.common.prefilter.DebouncePreFilterProperties;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.replay.ReplayCodec;
+import com.example.debounce.common.replay.ResultReplayExecutor;
+import com.example.debounce.common.store.DebounceStoreConfiguration;
+import com.example.debounce.common.store.DebounceStoreProperties;
+import com.example.debounce.common.trailing.TrailingDebounceExecutor;
+import com.example.debounce.common.web.DebounceAdmissionFilter;
+import com.example.debounce.common.web.DebounceBodyCachingFilter;
+import com.example.debounce.common.web.ReactiveDebounceWebFilter;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 防抖自动配置
+ * 按应用类型只注册一个切面：Servlet应用在classpath中有javax.servlet时使用{@link DebounceAspect}，
+ * 只有jakarta.servlet时使用{@link CompatibleDebounceAspect}，WebFlux应用使用{@link ReactiveDebounceAspect}；
+ * 同一个@Debounce方法只会生成一次key、访问一次存储。
+ * 应用不需要扫描com.example.debounce包，扫描后仍会注册多个切面
+ * @author maxiaoweii
+ */
+@AutoConfiguration(after = {RedisAutoConfiguration.class, AopAutoConfiguration.class})
+@ConditionalOnProperty(prefix = "debounce", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties({DebounceStoreProperties.class, DebounceRuleProperties.class,
+        DebounceBodyProperties.class, DebounceKeyProperties.class, DebounceMetricsProperties.class,
+        DebouncePreFilterProperties.class})
+@Import({DebounceStoreConfiguration.class, LocalDebounceCache.class, LeaseWatchdog.class, RateLimiter.class,
+        ReplayCodec.class, DebounceMetrics.class, DebounceRuleRegistry.class})
+public class DebounceAutoConfiguration {
+
+    /**
+     * javax.servlet的Servlet应用（Spring Boot 2）
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "javax.servlet.http.HttpServletRequest")
+    @Import({DebounceAspect.class, DebounceBodyCachingFilter.class, ResultReplayExecutor.class,
+            SingleFlightExecutor.class, TrailingDebounceExecutor.class, MicroBatchExecutor.class,
+            DebouncePreFilter.class, DebounceLockManager.class})
+    static class JavaxServletConfiguration {
+
+        /**
+         * 在DispatcherServlet之前执行拒绝和限流模式的判断，debounce.early-admission.enabled=false时只由切面处理
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnProperty(prefix = "debounce.early-admission", name = "enabled", matchIfMissing = true)
+        @Import(DebounceAdmissionFilter.class)
+        static class EarlyAdmissionConfiguration {
+        }
+    }
+
+    /**
+     * 只有jakarta.servlet的Servlet应用（Spring Boot 3），请求通过{@link CompatibleDebounceAspect}的适配器读取
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "jakarta.servlet.http.HttpServletRequest")
+    @ConditionalOnMissingClass("javax.servlet.http.HttpServletRequest")
+    @Import({CompatibleDebounceAspect.class, ResultReplayExecutor.class, SingleFlightExecutor.class,
+            TrailingDebounceExecutor.class, MicroBatchExecutor.class, DebouncePreFilter.class,
+            DebounceLockManager.class})
+    static class JakartaServletConfiguration {
+    }
+
+    /**
+     * WebFlux应用，响应式存储由{@link DebounceStoreConfiguration}创建
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @Import({ReactiveDebounceAspect.class, ReactiveDebounceWebFilter.class})
+    static class ReactiveConfiguration {
+    }
+
+    /**
+     * 规则热加载从Redis读取覆盖配置
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnBean(StringRedisTemplate.class)
+    @Import(DebounceRuleReloader.class)
+    static class RuleReloaderConfiguration {
+    }
+
+    /**
+     * 热点key端点，需要spring-boot-actuator
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @Import(DebounceHotKeysEndpoint.class)
+    static class HotKeysEndpointConfiguration {
+    }
+}
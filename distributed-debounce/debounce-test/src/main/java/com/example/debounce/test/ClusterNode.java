@@ -0,0 +1,39 @@
+package com.example.debounce.test;
+
+import com.example.debounce.common.store.DebounceStoreProperties;
+import com.example.debounce.common.store.cluster.ClusteredDebounceStore;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.time.Duration;
+
+/**
+ * 只运行集群防抖存储的节点进程，由{@link StoreComparison}在同一台机器上启动多个
+ * 参数以node.为前缀绑定到集群配置，例如--node.self=127.0.0.1:7101 --node.members=127.0.0.1:7101,127.0.0.1:7102；
+ * 启动完成后在标准输出打印READY，标准输入关闭（父进程退出）时结束
+ * @author maxiaoweii
+ */
+public class ClusterNode {
+
+    static final String READY = "READY";
+
+    public static void main(String[] args) throws Exception {
+        Binder binder = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)));
+        DebounceStoreProperties.Cluster cluster = binder.bind("node", DebounceStoreProperties.Cluster.class)
+                .orElseGet(DebounceStoreProperties.Cluster::new);
+        Duration timeout = binder.bind("node.timeout", Duration.class).orElse(Duration.ofMillis(200));
+
+        ClusteredDebounceStore store = new ClusteredDebounceStore(cluster, timeout);
+        store.afterPropertiesSet();
+        System.out.println(READY);
+        System.out.flush();
+        try {
+            while (System.in.read() != -1) {
+                // 等待父进程关闭标准输入
+            }
+        } finally {
+            store.destroy();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.debounce.test;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的压测统计
+ * 延迟从计划发出时间开始计算，请求排队造成的等待同样计入，避免协调遗漏
+ * @author maxiaoweii
+ */
+public class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadEndpoint endpoint;
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder originals = new LongAdder();
+    private final LongAdder originalsAdmitted = new LongAdder();
+    private final LongAdder originalsRejected = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder duplicatesRejected = new LongAdder();
+    private final LongAdder duplicatesReplayed = new LongAdder();
+    private final LongAdder duplicatesAdmitted = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public EndpointStats(LoadEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordLatency(long nanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    void original(boolean admitted) {
+        originals.increment();
+        (admitted ? originalsAdmitted : originalsRejected).increment();
+    }
+
+    void duplicateRejected() {
+        duplicates.increment();
+        duplicatesRejected.increment();
+    }
+
+    void duplicateReplayed() {
+        duplicates.increment();
+        duplicatesReplayed.increment();
+    }
+
+    void duplicateAdmitted() {
+        duplicates.increment();
+        duplicatesAdmitted.increment();
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    public long getCompleted() {
+        return originals.sum() + duplicates.sum() + errors.sum();
+    }
+
+    /**
+     * 汇总为报告中的一节，延迟单位为毫秒
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("endpoint", endpoint.getPath());
+        report.put("requests", getCompleted());
+        report.put("errors", errors.sum());
+
+        Map<String, Object> latencyReport = new LinkedHashMap<>();
+        latencyReport.put("mean", round(latency.getMean() / 1000));
+        latencyReport.put("p50", percentile(50));
+        latencyReport.put("p90", percentile(90));
+        latencyReport.put("p99", percentile(99));
+        latencyReport.put("p99.9", percentile(99.9));
+        latencyReport.put("max", round(latency.getMaxValue() / 1000.0));
+        report.put("latencyMillis", latencyReport);
+
+        Map<String, Object> originalReport = new LinkedHashMap<>();
+        originalReport.put("total", originals.sum());
+        originalReport.put("admitted", originalsAdmitted.sum());
+        originalReport.put("rejected", originalsRejected.sum());
+        report.put("originals", originalReport);
+
+        long duplicateTotal = duplicates.sum();
+        Map<String, Object> duplicateReport = new LinkedHashMap<>();
+        duplicateReport.put("total", duplicateTotal);
+        duplicateReport.put("rejected", duplicatesRejected.sum());
+        duplicateReport.put("replayed", duplicatesReplayed.sum());
+        duplicateReport.put("admitted", duplicatesAdmitted.sum());
+        duplicateReport.put("rejectedRate", rate(duplicatesRejected.sum(), duplicateTotal));
+        duplicateReport.put("replayedRate", rate(duplicatesReplayed.sum(), duplicateTotal));
+        duplicateReport.put("admittedRate", rate(duplicatesAdmitted.sum(), duplicateTotal));
+        report.put("duplicates", duplicateReport);
+        return report;
+    }
+
+    private double percentile(double percentile) {
+        return round(latency.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0 : round((double) count / total);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
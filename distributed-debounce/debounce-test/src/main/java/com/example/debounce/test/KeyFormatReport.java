@@ -0,0 +1,209 @@
+package com.example.debounce.test;
+
+import com.example.debounce.common.fingerprint.CanonicalJsonHasher;
+import com.example.debounce.common.key.CompactDebounceKeys;
+import com.example.debounce.common.key.DebounceKeyFormat;
+import com.example.debounce.common.key.DebounceKeySerializer;
+import com.example.debounce.common.metadata.DebounceKeyTemplate;
+import com.example.debounce.common.store.RedisDebounceStore;
+import com.example.debounce.common.strategy.DefaultDebounceStrategy;
+import com.example.debounce.common.web.CachedBodyHttpServletRequest;
+import com.example.debounce.test.redis.DebounceScripts;
+import com.example.debounce.test.redis.RedisStandIn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 防抖key格式的内存报告
+ * 在Redis协议替身中按两种格式分别写入相同的一批防抖锁，通过MEMORY USAGE统计每个key占用的内存，
+ * 同时统计key的字节数和加锁命令在网络上的字节数：
+ * <pre>
+ * mvn -pl debounce-test spring-boot:run -Dspring-boot.run.main-class=com.example.debounce.test.KeyFormatReport \
+ *     -Dspring-boot.run.arguments="--report.keys=100000"
+ * </pre>
+ * 替身按Redis 7的内存布局估算，不包含过期字典和Redis自身的开销，用于比较两种格式的差异
+ * @author maxiaoweii
+ */
+@Slf4j
+public class KeyFormatReport {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)))
+                .bind("report", Options.class)
+                .orElseGet(Options::new);
+
+        try (RedisStandIn redis = RedisStandIn.start()) {
+            DebounceScripts.register(redis);
+            LettuceConnectionFactory connectionFactory =
+                    new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", redis.getPort()));
+            connectionFactory.afterPropertiesSet();
+            StringRedisTemplate template = DebounceKeySerializer.template(connectionFactory);
+            RedisDebounceStore store = new RedisDebounceStore(template);
+            store.afterPropertiesSet();
+            try {
+                List<Map<String, Object>> formats = new ArrayList<>();
+                for (DebounceKeyFormat format : DebounceKeyFormat.values()) {
+                    log.info("Writing {} {} keys", options.getKeys(), format);
+                    formats.add(measure(format, options, store, template));
+                }
+
+                Map<String, Object> report = new LinkedHashMap<>();
+                report.put("keys", options.getKeys());
+                report.put("users", options.getUsers());
+                report.put("formats", formats);
+                report.put("memorySaving", saving(formats, "avgMemoryUsage"));
+                report.put("keyBytesSaving", saving(formats, "avgKeyBytes"));
+
+                ObjectMapper objectMapper = new ObjectMapper();
+                System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+                File file = new File(options.getOutput());
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+                log.info("Report written to {}", file.getAbsolutePath());
+            } finally {
+                store.destroy();
+                connectionFactory.destroy();
+            }
+        }
+    }
+
+    private static Map<String, Object> measure(DebounceKeyFormat format, Options options, RedisDebounceStore store,
+                                               StringRedisTemplate template) throws IOException {
+        template.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        DefaultDebounceStrategy strategy = new DefaultDebounceStrategy(CanonicalJsonHasher.DEFAULT, format);
+        DebounceKeyTemplate keyTemplate = DebounceKeyTemplate.of(options.getPrefix());
+        byte[] sha = RedisDebounceStore.ACQUIRE_SCRIPT.getSha1().getBytes(StandardCharsets.US_ASCII);
+        String ttl = String.valueOf(options.getTtl().toMillis());
+        // 两种格式使用相同的请求序列
+        Random random = new Random(options.getSeed());
+
+        long keyBytes = 0;
+        long commandBytes = 0;
+        long memory = 0;
+        String sampleKey = null;
+        for (int i = 0; i < options.getKeys(); i++) {
+            String key = strategy.generateKey(orderRequest(random, options.getUsers(), i), keyTemplate);
+            String owner = "report00:" + i;
+            store.tryAcquire(key, owner, options.getTtl().toMillis());
+
+            byte[] serializedKey = DebounceKeySerializer.INSTANCE.serialize(key);
+            keyBytes += serializedKey.length;
+            commandBytes += respBytes("EVALSHA".getBytes(StandardCharsets.US_ASCII), sha, new byte[]{'1'},
+                    serializedKey, owner.getBytes(StandardCharsets.UTF_8), ttl.getBytes(StandardCharsets.US_ASCII));
+            Object usage = template.execute((RedisCallback<Object>) connection -> connection.execute("MEMORY",
+                    "USAGE".getBytes(StandardCharsets.US_ASCII), serializedKey));
+            memory += usage instanceof Number ? ((Number) usage).longValue() : 0;
+            if (sampleKey == null) {
+                sampleKey = CompactDebounceKeys.toDisplay(key);
+            }
+        }
+
+        int keys = Math.max(options.getKeys(), 1);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("format", format);
+        result.put("sampleKey", sampleKey);
+        result.put("avgKeyBytes", round((double) keyBytes / keys));
+        result.put("avgAcquireCommandBytes", round((double) commandBytes / keys));
+        result.put("avgMemoryUsage", round((double) memory / keys));
+        result.put("memoryPerMillionKeysMb", round(memory * 1_000_000.0 / keys / (1024 * 1024)));
+        return result;
+    }
+
+    /**
+     * 订单提交请求，用户标识和订单号随机，与压测工具的订单接口一致
+     */
+    private static HttpServletRequest orderRequest(Random random, int users, int sequence) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setRemoteAddr("10.0.0." + (sequence % 250 + 1));
+        request.addHeader("X-User-Id", String.valueOf(10000 + random.nextInt(users)));
+        request.addParameter("channel", "app");
+        request.setContentType("application/json");
+        request.setContent(("{\"orderNo\":\"ORD-" + sequence + "\",\"amount\":" + (random.nextInt(100000) / 100.0)
+                + ",\"items\":[{\"sku\":\"SKU-" + random.nextInt(1000) + "\",\"quantity\":1}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        return new CachedBodyHttpServletRequest(request, 64 * 1024);
+    }
+
+    /**
+     * 以RESP批量字符串数组发送时的字节数
+     */
+    private static long respBytes(byte[]... args) {
+        long bytes = 1 + String.valueOf(args.length).length() + 2;
+        for (byte[] arg : args) {
+            bytes += 1 + String.valueOf(arg.length).length() + 2 + arg.length + 2;
+        }
+        return bytes;
+    }
+
+    private static double saving(List<Map<String, Object>> formats, String metric) {
+        double readable = (double) formats.get(DebounceKeyFormat.READABLE.ordinal()).get(metric);
+        double compact = (double) formats.get(DebounceKeyFormat.COMPACT.ordinal()).get(metric);
+        return readable == 0 ? 0 : round(1 - compact / readable);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 报告参数，通过命令行以report.为前缀覆盖
+     */
+    @Data
+    public static class Options {
+
+        /**
+         * 每种格式写入的key数量
+         */
+        private int keys = 10000;
+
+        /**
+         * 模拟的用户数量
+         */
+        private int users = 1000;
+
+        /**
+         * 注解中的key前缀
+         */
+        private String prefix = "order";
+
+        /**
+         * 锁的过期时间，需要覆盖统计过程
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 随机数种子
+         */
+        private long seed = 42;
+
+        /**
+         * JSON报告的输出路径
+         */
+        private String output = "target/key-format-report.json";
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.debounce.test;
+
+import java.util.Locale;
+
+/**
+ * 压测的目标接口及其请求体
+ * @author maxiaoweii
+ */
+public enum LoadEndpoint {
+
+    /**
+     * 创建订单，REJECT模式
+     */
+    ORDERS("/api/orders") {
+        @Override
+        String body(String userId, long sequence) {
+            return "{\"userId\":\"" + userId + "\",\"productId\":\"P" + sequence
+                    + "\",\"amount\":1,\"totalPrice\":99.00,\"timestamp\":" + System.currentTimeMillis() + "}";
+        }
+    },
+
+    /**
+     * 支付，REPLAY模式
+     */
+    PAYMENTS("/api/payments/pay") {
+        @Override
+        String body(String userId, long sequence) {
+            return "{\"orderId\":\"ORD" + sequence + "\",\"userId\":\"" + userId
+                    + "\",\"amount\":99.00,\"timestamp\":" + System.currentTimeMillis() + "}";
+        }
+    };
+
+    private final String path;
+
+    LoadEndpoint(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 生成请求体，sequence保证原始请求互不相同；timestamp在防抖配置中被忽略，重复请求携带新的时间戳
+     */
+    abstract String body(String userId, long sequence);
+
+    public static LoadEndpoint of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
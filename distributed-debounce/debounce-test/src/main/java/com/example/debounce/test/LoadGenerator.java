@@ -0,0 +1,229 @@
+package com.example.debounce.test;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 流量生成器
+ * 默认为开环：按固定间隔发出请求而不等待响应，服务变慢时请求不会随之减少；
+ * 配置了并发连接数时为闭环：保持固定数量的请求在途，测量服务在该并发下的吞吐。
+ * 按配置的比例对时间窗口内已发出的请求再次提交相同的业务参数，模拟重复提交
+ * @author maxiaoweii
+ */
+@Slf4j
+public class LoadGenerator implements AutoCloseable {
+
+    private final LoadHarnessOptions options;
+    private final URI baseUri;
+    private final List<LoadEndpoint> endpoints;
+    private final Random random;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final HttpClient httpClient;
+    private final Map<LoadEndpoint, Deque<SentRequest>> recent = new EnumMap<>(LoadEndpoint.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /**
+     * 闭环压测的在途请求名额，开环时为null
+     */
+    private final Semaphore slots;
+    private long sequence;
+
+    public LoadGenerator(LoadHarnessOptions options, URI baseUri, List<LoadEndpoint> endpoints) {
+        this.options = options;
+        this.baseUri = baseUri;
+        this.endpoints = endpoints;
+        this.random = new Random(options.getSeed());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        for (LoadEndpoint endpoint : endpoints) {
+            recent.put(endpoint, new ArrayDeque<>());
+        }
+        this.slots = options.getConnections() > 0 ? new Semaphore(options.getConnections()) : null;
+    }
+
+    /**
+     * 在指定时间内按目标速率发送请求
+     *
+     * @param stats 各接口的统计，预热阶段传null
+     * @return 发出的请求数
+     */
+    public long run(Duration duration, Map<LoadEndpoint, EndpointStats> stats) {
+        if (slots != null) {
+            return runClosedLoop(duration, stats);
+        }
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+        for (long intended = start; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadEndpoint endpoint = endpoints.get((int) (sent % endpoints.size()));
+            send(endpoint, intended, stats == null ? null : stats.get(endpoint));
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * 闭环发送：名额用完时等待在途请求完成，完成一个发出一个
+     */
+    private long runClosedLoop(Duration duration, Map<LoadEndpoint, EndpointStats> stats) {
+        long end = System.nanoTime() + duration.toNanos();
+        long sent = 0;
+        while (true) {
+            long remaining = end - System.nanoTime();
+            try {
+                if (remaining <= 0 || !slots.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            LoadEndpoint endpoint = endpoints.get((int) (sent % endpoints.size()));
+            send(endpoint, System.nanoTime(), stats == null ? null : stats.get(endpoint));
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * 等待已发出的请求全部完成
+     *
+     * @return 超时前全部完成返回true
+     */
+    public boolean drain(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("{} requests still in flight after {}", inFlight.get(), timeout);
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return true;
+    }
+
+    private void send(LoadEndpoint endpoint, long intended, EndpointStats stats) {
+        Deque<SentRequest> window = recent.get(endpoint);
+        prune(window, intended);
+        SentRequest original = !window.isEmpty() && random.nextDouble() < options.getDuplicateRatio()
+                ? pick(window) : null;
+        String userId = original != null ? original.userId : "U" + random.nextInt(options.getUsers());
+        long requestSequence = original != null ? original.sequence : ++sequence;
+
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(endpoint.getPath()))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("X-User-Id", userId)
+                .POST(HttpRequest.BodyPublishers.ofString(endpoint.body(userId, requestSequence)))
+                .build();
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<String>> response =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        response.whenComplete((result, error) -> {
+            long latency = System.nanoTime() - intended;
+            if (stats == null) {
+                done();
+                return;
+            }
+            stats.recordLatency(latency);
+            if (error != null) {
+                stats.error();
+                done();
+            } else if (original == null) {
+                stats.original(isSuccess(result));
+                done();
+            } else if (!isSuccess(result)) {
+                stats.duplicateRejected();
+                done();
+            } else {
+                // 重复请求成功时与原始请求的响应比较：相同为重放，不同说明业务被执行了两次；
+                // 原始请求失败说明重复请求先到达并占用了key，这一对请求仍只执行了一次
+                original.response.whenComplete((originalResult, originalError) -> {
+                    if (originalResult == null || !isSuccess(originalResult)) {
+                        stats.duplicateRejected();
+                    } else if (originalResult.body().equals(result.body())) {
+                        stats.duplicateReplayed();
+                    } else {
+                        stats.duplicateAdmitted();
+                    }
+                    done();
+                });
+            }
+        });
+        if (original == null) {
+            window.addLast(new SentRequest(userId, requestSequence, intended, response));
+        }
+    }
+
+    private void done() {
+        inFlight.decrementAndGet();
+        if (slots != null) {
+            slots.release();
+        }
+    }
+
+    private void prune(Deque<SentRequest> window, long now) {
+        long windowNanos = options.getDuplicateWindow().toNanos();
+        while (!window.isEmpty() && now - window.peekFirst().sentAt > windowNanos) {
+            window.pollFirst();
+        }
+    }
+
+    private SentRequest pick(Deque<SentRequest> window) {
+        int index = random.nextInt(window.size());
+        Iterator<SentRequest> iterator = window.iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class SentRequest {
+        final String userId;
+        final long sequence;
+        final long sentAt;
+        final CompletableFuture<HttpResponse<String>> response;
+
+        SentRequest(String userId, long sequence, long sentAt, CompletableFuture<HttpResponse<String>> response) {
+            this.userId = userId;
+            this.sequence = sequence;
+            this.sentAt = sentAt;
+            this.response = response;
+        }
+    }
+}
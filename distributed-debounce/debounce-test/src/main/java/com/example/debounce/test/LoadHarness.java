@@ -0,0 +1,145 @@
+package com.example.debounce.test;
+
+import com.example.debounce.test.redis.DebounceScripts;
+import com.example.debounce.test.redis.RedisStandIn;
+import com.example.debounce.web.DebounceWebApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 自包含的压测工具
+ * 启动Redis协议替身和DebounceWebApplication，以开环方式向订单和支付接口发送带重复请求的流量，
+ * 输出延迟分位数、重复请求的拒绝/重放/放行比例以及每个请求的Redis命令数。
+ * 不依赖外部Redis和固定端口，可以在CI或本机直接运行：
+ * <pre>
+ * mvn -pl debounce-test spring-boot:run -Dspring-boot.run.arguments="--harness.rate=200 --harness.duration=60s"
+ * </pre>
+ * 比较平台线程与虚拟线程（Java 21+）在1万并发连接下的吞吐：
+ * <pre>
+ * --harness.connections=10000 --harness.virtual-threads=false
+ * --harness.connections=10000 --harness.virtual-threads=true
+ * </pre>
+ * @author maxiaoweii
+ */
+@Slf4j
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        LoadHarnessOptions options = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)))
+                .bind("harness", LoadHarnessOptions.class)
+                .orElseGet(LoadHarnessOptions::new);
+        List<LoadEndpoint> endpoints = options.getEndpoints().stream()
+                .map(LoadEndpoint::of)
+                .collect(Collectors.toList());
+
+        try (RedisStandIn redis = RedisStandIn.start()) {
+            DebounceScripts.register(redis);
+            // 以命令行参数传入，优先级高于debounce-web的application.yml
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(DebounceWebApplication.class)
+                    .run(applicationArgs(options, redis.getPort()));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            try (LoadGenerator generator = new LoadGenerator(options, URI.create("http://127.0.0.1:" + port), endpoints)) {
+                log.info("Warming up for {}", options.getWarmup());
+                generator.run(options.getWarmup(), null);
+                generator.drain(options.getDrainTimeout());
+                redis.resetStats();
+
+                Map<LoadEndpoint, EndpointStats> stats = new EnumMap<>(LoadEndpoint.class);
+                endpoints.forEach(endpoint -> stats.put(endpoint, new EndpointStats(endpoint)));
+                if (options.getConnections() > 0) {
+                    log.info("Running {} concurrent connections for {} on {} threads with duplicate ratio {}",
+                            options.getConnections(), options.getDuration(),
+                            options.isVirtualThreads() ? "virtual" : "platform", options.getDuplicateRatio());
+                } else {
+                    log.info("Running {} req/s for {} with duplicate ratio {}", options.getRate(),
+                            options.getDuration(), options.getDuplicateRatio());
+                }
+                long sent = generator.run(options.getDuration(), stats);
+                generator.drain(options.getDrainTimeout());
+
+                Map<String, Object> report = report(options, sent, stats, redis);
+                ObjectMapper objectMapper = new ObjectMapper();
+                String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+                System.out.println(json);
+                File file = new File(options.getReport());
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+                log.info("Report written to {}", file.getAbsolutePath());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static String[] applicationArgs(LoadHarnessOptions options, int redisPort) {
+        List<String> args = new ArrayList<>(Arrays.asList("--server.port=0",
+                "--spring.redis.host=127.0.0.1",
+                "--spring.redis.port=" + redisPort,
+                // 进程内的Redis替身在压测下延迟不稳定，放宽延迟预算，避免熔断后测到的是节点内防抖
+                "--spring.redis.timeout=10s",
+                "--debounce.store.breaker.timeout=10s",
+                "--debounce.virtual-threads.enabled=" + options.isVirtualThreads(),
+                "--spring.main.banner-mode=off",
+                "--logging.level.com.example.debounce=warn",
+                // 防抖拒绝以异常形式返回，不打印每个被拒绝请求的堆栈
+                "--logging.level.org.apache.catalina.core=off"));
+        if (options.getConnections() > 0) {
+            // 连接数不能成为瓶颈，两种线程模型的差异只来自处理请求的线程
+            args.add("--server.tomcat.max-connections=" + (options.getConnections() + 1000));
+            args.add("--server.tomcat.accept-count=" + options.getConnections());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private static Map<String, Object> report(LoadHarnessOptions options, long sent,
+                                              Map<LoadEndpoint, EndpointStats> stats, RedisStandIn redis) {
+        long completed = stats.values().stream().mapToLong(EndpointStats::getCompleted).sum();
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", options.getRate());
+        config.put("connections", options.getConnections());
+        config.put("virtualThreads", options.isVirtualThreads());
+        config.put("durationSeconds", options.getDuration().getSeconds());
+        config.put("duplicateRatio", options.getDuplicateRatio());
+        config.put("duplicateWindowMillis", options.getDuplicateWindow().toMillis());
+        config.put("users", options.getUsers());
+        config.put("seed", options.getSeed());
+
+        Map<String, Object> redisReport = new LinkedHashMap<>();
+        redisReport.put("commands", redis.getCommandCount());
+        redisReport.put("commandsPerRequest",
+                completed == 0 ? 0 : Math.round(redis.getCommandCount() * 1000.0 / completed) / 1000.0);
+        redisReport.put("byCommand", redis.getCommandCounts());
+
+        List<Map<String, Object>> endpointReports = new ArrayList<>();
+        stats.values().forEach(endpointStats -> endpointReports.add(endpointStats.toReport()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("sent", sent);
+        report.put("completed", completed);
+        report.put("throughput", Math.round(completed * 10000.0 / options.getDuration().toMillis()) / 10.0);
+        report.put("redis", redisReport);
+        report.put("endpoints", endpointReports);
+        return report;
+    }
+}
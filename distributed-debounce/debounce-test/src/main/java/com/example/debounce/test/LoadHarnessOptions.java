@@ -0,0 +1,76 @@
+package com.example.debounce.test;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压测参数，通过命令行以harness.为前缀覆盖，例如--harness.rate=200 --harness.duration=60s
+ * @author maxiaoweii
+ */
+@Data
+public class LoadHarnessOptions {
+
+    /**
+     * 所有接口合计的目标请求速率，单位请求/秒。请求按固定间隔发出，不等待前一个请求完成（开环）
+     */
+    private int rate = 100;
+
+    /**
+     * 并发连接数，大于0时改为闭环压测：保持该数量的请求同时在途，一个完成后立即发出下一个，rate不再生效，
+     * 用于比较不同线程模型在大量并发连接下的吞吐
+     */
+    private int connections = 0;
+
+    /**
+     * 被测应用是否使用虚拟线程处理请求，需要Java 21+
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 预热时间，期间的请求不计入结果
+     */
+    private Duration warmup = Duration.ofSeconds(5);
+
+    /**
+     * 统计时间
+     */
+    private Duration duration = Duration.ofSeconds(30);
+
+    /**
+     * 重复请求的比例，模拟用户重复点击和客户端重试
+     */
+    private double duplicateRatio = 0.2;
+
+    /**
+     * 重复请求只针对该时间窗口内发出的请求，模拟短时间内的重复提交
+     */
+    private Duration duplicateWindow = Duration.ofMillis(500);
+
+    /**
+     * 参与压测的接口：orders、payments
+     */
+    private List<String> endpoints = Arrays.asList("orders", "payments");
+
+    /**
+     * 模拟的用户数量
+     */
+    private int users = 1000;
+
+    /**
+     * 统计结束后等待未完成请求的最长时间
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 随机数种子，相同的种子产生相同的请求序列
+     */
+    private long seed = 42;
+
+    /**
+     * JSON报告的输出路径
+     */
+    private String report = "target/load-report.json";
+}
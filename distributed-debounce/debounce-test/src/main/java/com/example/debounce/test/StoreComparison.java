@@ -0,0 +1,325 @@
+package com.example.debounce.test;
+
+import com.example.debounce.common.key.DebounceKeySerializer;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.DebounceStoreProperties;
+import com.example.debounce.common.store.RedisDebounceStore;
+import com.example.debounce.common.store.cluster.ClusteredDebounceStore;
+import com.example.debounce.test.redis.DebounceScripts;
+import com.example.debounce.test.redis.RedisStandIn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis存储与集群存储的延迟和吞吐对比
+ * 在同一台机器上启动若干{@link ClusterNode}子进程，与当前进程组成集群，然后用相同的线程数和key分布
+ * 分别对Redis存储和集群存储执行加锁、释放，输出加锁延迟分布和每秒完成的加锁次数：
+ * <pre>
+ * mvn -pl debounce-test spring-boot:run -Dspring-boot.run.main-class=com.example.debounce.test.StoreComparison \
+ *     -Dspring-boot.run.arguments="--compare.nodes=3 --compare.threads=32"
+ * </pre>
+ * 未指定compare.redis-host时使用进程内的Redis协议替身，与真实Redis的绝对数值不可比，只用于观察趋势。
+ * 集群的远程释放为单向请求，不计入延迟
+ * @author maxiaoweii
+ */
+@Slf4j
+public class StoreComparison {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(10);
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)))
+                .bind("compare", Options.class)
+                .orElseGet(Options::new);
+
+        List<Map<String, Object>> stores = new ArrayList<>();
+        stores.add(runRedis(options));
+        stores.add(runCluster(options));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("nodes", options.getNodes());
+        report.put("threads", options.getThreads());
+        report.put("keys", options.getKeys());
+        report.put("duration", options.getDuration().toString());
+        report.put("redis", StringUtils.hasText(options.getRedisHost())
+                ? options.getRedisHost() + ":" + options.getRedisPort() : "stand-in");
+        report.put("stores", stores);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        File file = new File(options.getOutput());
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.info("Report written to {}", file.getAbsolutePath());
+    }
+
+    private static Map<String, Object> runRedis(Options options) throws Exception {
+        RedisStandIn standIn = null;
+        String host = options.getRedisHost();
+        int port = options.getRedisPort();
+        if (!StringUtils.hasText(host)) {
+            standIn = RedisStandIn.start();
+            DebounceScripts.register(standIn);
+            host = "127.0.0.1";
+            port = standIn.getPort();
+        }
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        RedisDebounceStore store = new RedisDebounceStore(DebounceKeySerializer.template(connectionFactory));
+        store.afterPropertiesSet();
+        try {
+            log.info("Measuring redis store at {}:{}", host, port);
+            return measure("redis", store, options);
+        } finally {
+            store.destroy();
+            connectionFactory.destroy();
+            if (standIn != null) {
+                standIn.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> runCluster(Options options) throws Exception {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < options.getNodes(); i++) {
+            members.add("127.0.0.1:" + freePort());
+        }
+        List<Process> processes = new ArrayList<>();
+        ClusteredDebounceStore store = null;
+        try {
+            // 第一个成员是当前进程，其余成员各启动一个JVM
+            for (String member : members.subList(1, members.size())) {
+                processes.add(startNode(member, members, options));
+            }
+            DebounceStoreProperties.Cluster cluster = new DebounceStoreProperties.Cluster();
+            cluster.setSelf(members.get(0));
+            cluster.setMembers(members);
+            store = new ClusteredDebounceStore(cluster, options.getTimeout());
+            store.afterPropertiesSet();
+            log.info("Measuring cluster store across {}", members);
+            return measure("cluster", store, options);
+        } finally {
+            if (store != null) {
+                store.destroy();
+            }
+            for (Process process : processes) {
+                process.getOutputStream().close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * 以当前的类路径启动节点进程，等待其打印READY
+     */
+    private static Process startNode(String self, List<String> members, Options options) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + options.getNodeHeap());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ClusterNode.class.getName());
+        command.add("--node.self=" + self);
+        command.add("--node.members=" + String.join(",", members));
+        command.add("--node.timeout=" + options.getTimeout().toMillis() + "ms");
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8));
+        for (String line = reader.readLine(); ; line = reader.readLine()) {
+            if (line == null) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Cluster node " + self + " exited before it was ready");
+            }
+            if (ClusterNode.READY.equals(line)) {
+                break;
+            }
+        }
+        // 继续读取节点的日志输出，避免管道写满后节点阻塞
+        Thread drainer = new Thread(() -> {
+            try {
+                while (reader.readLine() != null) {
+                    // 丢弃
+                }
+            } catch (IOException e) {
+                // 节点退出
+            }
+        }, "cluster-node-output-" + self);
+        drainer.setDaemon(true);
+        drainer.start();
+        return process;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 先预热再计时，每个线程循环执行加锁，成功后释放；预热阶段不记录延迟
+     */
+    private static Map<String, Object> measure(String name, DebounceStore store, Options options) throws Exception {
+        run(store, options, options.getWarmup(), null, new LongAdder(), new LongAdder(), new LongAdder());
+        Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder acquired = new LongAdder();
+        LongAdder busy = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long started = System.nanoTime();
+        run(store, options, options.getDuration(), latency, acquired, busy, errors);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long operations = latency.getTotalCount();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("store", name);
+        result.put("operations", operations);
+        result.put("acquired", acquired.sum());
+        result.put("busy", busy.sum());
+        result.put("errors", errors.sum());
+        result.put("throughputPerSecond", round(operations / seconds));
+        Map<String, Object> latencyReport = new LinkedHashMap<>();
+        latencyReport.put("mean", round(latency.getMean()));
+        latencyReport.put("p50", latency.getValueAtPercentile(50));
+        latencyReport.put("p90", latency.getValueAtPercentile(90));
+        latencyReport.put("p99", latency.getValueAtPercentile(99));
+        latencyReport.put("p99.9", latency.getValueAtPercentile(99.9));
+        latencyReport.put("max", latency.getMaxValue());
+        result.put("acquireLatencyMicros", latencyReport);
+        return result;
+    }
+
+    private static void run(DebounceStore store, Options options, Duration duration, Histogram latency,
+                            LongAdder acquired, LongAdder busy, LongAdder errors) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long ttl = options.getTtl().toMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < options.getThreads(); t++) {
+                String owner = "compare:" + t;
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String key = "debounce:compare:" + random.nextInt(options.getKeys());
+                        long start = System.nanoTime();
+                        try {
+                            boolean locked = store.tryAcquire(key, owner, ttl);
+                            if (latency != null) {
+                                latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+                                        HIGHEST_TRACKABLE_MICROS));
+                                (locked ? acquired : busy).increment();
+                            }
+                            if (locked) {
+                                store.release(key, owner);
+                            }
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 对比参数，通过命令行以compare.为前缀覆盖
+     */
+    @Data
+    public static class Options {
+
+        /**
+         * 集群节点数，包括当前进程
+         */
+        private int nodes = 3;
+
+        /**
+         * 并发调用存储的线程数
+         */
+        private int threads = 16;
+
+        /**
+         * 随机选取的key数量，越少锁竞争越多
+         */
+        private int keys = 10000;
+
+        /**
+         * 锁的过期时间
+         */
+        private Duration ttl = Duration.ofSeconds(5);
+
+        /**
+         * 单次调用的超时，同时作为集群节点间的请求超时
+         */
+        private Duration timeout = Duration.ofSeconds(1);
+
+        /**
+         * 每种存储的预热时长，不计入统计
+         */
+        private Duration warmup = Duration.ofSeconds(5);
+
+        /**
+         * 每种存储的计时时长
+         */
+        private Duration duration = Duration.ofSeconds(20);
+
+        /**
+         * 真实Redis的地址，为空时使用Redis协议替身
+         */
+        private String redisHost;
+
+        private int redisPort = 6379;
+
+        /**
+         * 节点子进程的最大堆
+         */
+        private String nodeHeap = "256m";
+
+        /**
+         * JSON报告的输出路径
+         */
+        private String output = "target/store-comparison.json";
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.debounce.test.redis;
+
+import com.example.debounce.common.store.RedisDebounceStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 防抖组件Lua脚本的等价实现，逐条对应脚本中的redis.call
+ * @author maxiaoweii
+ */
+public final class DebounceScripts {
+
+    private DebounceScripts() {
+    }
+
+    public static void register(RedisStandIn redis) {
+        redis.registerScript("acquire", RedisDebounceStore.ACQUIRE_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> r.set(keys.get(0), args.get(0), Long.parseLong(args.get(1)), true) ? 1L : 0L);
+
+        redis.registerScript("acquire-all", RedisDebounceStore.ACQUIRE_ALL_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    List<Object> result = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        boolean acquired = r.set(keys.get(i), args.get(2 * i), Long.parseLong(args.get(2 * i + 1)), true);
+                        result.add(acquired ? 1L : 0L);
+                    }
+                    return result;
+                });
+
+        redis.registerScript("release", RedisDebounceStore.RELEASE_SCRIPT.getScriptAsString(), (r, keys, args) -> {
+            long released = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                if (args.get(i).equals(r.get(keys.get(i))) && r.delete(keys.get(i))) {
+                    released++;
+                }
+            }
+            return released;
+        });
+
+        redis.registerScript("extend", RedisDebounceStore.EXTEND_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> args.get(0).equals(r.get(keys.get(0)))
+                        && r.pexpire(keys.get(0), Long.parseLong(args.get(1))) ? 1L : 0L);
+
+        redis.registerScript("extend-all", RedisDebounceStore.EXTEND_ALL_SCRIPT.getScriptAsString(), (r, keys, args) -> {
+            List<Object> result = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                boolean extended = args.get(2 * i).equals(r.get(keys.get(i)))
+                        && r.pexpire(keys.get(i), Long.parseLong(args.get(2 * i + 1)));
+                result.add(extended ? 1L : 0L);
+            }
+            return result;
+        });
+
+        redis.registerScript("acquire-or-replay", RedisDebounceStore.ACQUIRE_OR_REPLAY_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    String result = r.get(keys.get(1));
+                    if (result != null) {
+                        return Arrays.asList(2L, result);
+                    }
+                    if (r.set(keys.get(0), args.get(0), Long.parseLong(args.get(1)), true)) {
+                        return Collections.singletonList(1L);
+                    }
+                    return Collections.singletonList(0L);
+                });
+
+        redis.registerScript("poll-result", RedisDebounceStore.POLL_RESULT_SCRIPT.getScriptAsString(), (r, keys, args) -> {
+            String result = r.get(keys.get(1));
+            if (result != null) {
+                return result;
+            }
+            return r.exists(keys.get(0)) ? "" : null;
+        });
+
+        redis.registerScript("token-bucket", RedisDebounceStore.TOKEN_BUCKET_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    long now = System.currentTimeMillis();
+                    long permits = Long.parseLong(args.get(0));
+                    long window = Long.parseLong(args.get(1));
+                    String storedTokens = r.hget(keys.get(0), "tokens");
+                    String storedTs = r.hget(keys.get(0), "ts");
+                    double tokens = storedTokens != null ? Double.parseDouble(storedTokens) : permits;
+                    long ts = storedTs != null ? Long.parseLong(storedTs) : now;
+                    tokens = Math.min(permits, tokens + Math.max(now - ts, 0) * (double) permits / window);
+                    long wait = 0;
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                    } else {
+                        wait = (long) Math.ceil((1 - tokens) * window / permits);
+                    }
+                    r.hset(keys.get(0), "tokens", String.valueOf(tokens));
+                    r.hset(keys.get(0), "ts", String.valueOf(now));
+                    r.pexpire(keys.get(0), window);
+                    return wait;
+                });
+
+        redis.registerScript("sliding-log", RedisDebounceStore.SLIDING_LOG_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    long now = System.currentTimeMillis();
+                    long permits = Long.parseLong(args.get(0));
+                    long window = Long.parseLong(args.get(1));
+                    r.zremrangeByScore(keys.get(0), now - window);
+                    if (r.zcard(keys.get(0)) < permits) {
+                        r.zadd(keys.get(0), now, args.get(2));
+                        r.pexpire(keys.get(0), window);
+                        return 0L;
+                    }
+                    return Math.max(r.zminScore(keys.get(0)).longValue() + window - now, 1);
+                });
+
+        redis.registerScript("sliding-window", RedisDebounceStore.SLIDING_WINDOW_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    long now = System.currentTimeMillis();
+                    long permits = Long.parseLong(args.get(0));
+                    long window = Long.parseLong(args.get(1));
+                    long current = now / window;
+                    long elapsed = now - current * window;
+                    String storedCount = r.hget(keys.get(0), String.valueOf(current));
+                    String storedPrevious = r.hget(keys.get(0), String.valueOf(current - 1));
+                    long count = storedCount != null ? Long.parseLong(storedCount) : 0;
+                    long previous = storedPrevious != null ? Long.parseLong(storedPrevious) : 0;
+                    if ((double) previous * (window - elapsed) / window + count + 1 <= permits) {
+                        r.hset(keys.get(0), String.valueOf(current), String.valueOf(count + 1));
+                        r.hdel(keys.get(0), String.valueOf(current - 2));
+                        r.pexpire(keys.get(0), window * 2);
+                        return 0L;
+                    }
+                    if (count + 1 > permits || previous == 0) {
+                        return window - elapsed;
+                    }
+                    return Math.max((long) Math.ceil(window - elapsed - (double) (permits - count - 1) * window / previous), 1);
+                });
+
+        redis.registerScript("publish", RedisDebounceStore.PUBLISH_SCRIPT.getScriptAsString(),
+                (r, keys, args) -> {
+                    if (!args.get(1).isEmpty()) {
+                        r.set(keys.get(0), args.get(1), Long.parseLong(args.get(2)), false);
+                    }
+                    return r.publish(args.get(0), args.get(3));
+                });
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.debounce.test.redis;
+
+import java.util.Map;
+
+/**
+ * 按Redis 7的内存布局估算MEMORY USAGE的结果
+ * 与Redis的计算方式一致：字典项、key的sds和值对象三部分，分配大小按jemalloc的尺寸级别取整；
+ * 不包含过期字典中的字典项，设置了过期时间的key实际还要多占用一个字典项
+ * @author maxiaoweii
+ */
+final class MemoryUsage {
+
+    /**
+     * dictEntry：key、value、next三个指针
+     */
+    static final int DICT_ENTRY = 24;
+
+    /**
+     * robj：类型、编码、LRU共4字节，引用计数4字节，指针8字节
+     */
+    private static final int REDIS_OBJECT = 16;
+
+    /**
+     * 小于等于该长度的字符串与robj分配在一起（embstr编码）
+     */
+    private static final int EMBSTR_LIMIT = 44;
+
+    private MemoryUsage() {
+    }
+
+    /**
+     * 字符串值的key，key和值中每个字符对应一个字节
+     */
+    static long ofString(String key, String value) {
+        return DICT_ENTRY + sds(key.length()) + stringObject(value);
+    }
+
+    /**
+     * 元素较少时以listpack编码的Hash
+     */
+    static long ofHash(String key, Map<String, String> hash) {
+        // listpack头部6字节、结束标记1字节，每个元素为编码字节、内容和回溯长度
+        long bytes = 7;
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            bytes += listpackEntry(entry.getKey().length()) + listpackEntry(entry.getValue().length());
+        }
+        return DICT_ENTRY + sds(key.length()) + REDIS_OBJECT + allocation(bytes);
+    }
+
+    private static long stringObject(String value) {
+        if (isInteger(value)) {
+            return REDIS_OBJECT;
+        }
+        if (value.length() <= EMBSTR_LIMIT) {
+            // sdshdr8头部3字节、结尾的\0
+            return allocation(REDIS_OBJECT + 3 + value.length() + 1);
+        }
+        return REDIS_OBJECT + sds(value.length());
+    }
+
+    /**
+     * sds的分配大小，头部长度随内容长度变化
+     */
+    private static long sds(int length) {
+        int header = length < 32 ? 1 : length < 256 ? 3 : length < 65536 ? 5 : 9;
+        return allocation(header + length + 1);
+    }
+
+    private static long listpackEntry(int length) {
+        if (length < 64) {
+            return 1 + length + 1;
+        }
+        return length < 4096 ? 2 + length + 2 : 5 + length + 3;
+    }
+
+    private static boolean isInteger(String value) {
+        if (value.isEmpty() || value.length() > 20) {
+            return false;
+        }
+        try {
+            return String.valueOf(Long.parseLong(value)).equals(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * jemalloc的尺寸级别：128字节以内按16字节对齐，之后每次翻倍分为4级
+     */
+    static long allocation(long size) {
+        if (size <= 8) {
+            return 8;
+        }
+        if (size <= 128) {
+            return (size + 15) & ~15L;
+        }
+        long step = Long.highestOneBit(size - 1) >>> 2;
+        return (size + step - 1) / step * step;
+    }
+}
@@ -0,0 +1,658 @@
+package com.example.debounce.test.redis;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的Redis协议替身，供压测工具在没有Redis的环境中启动应用
+ * 支持RESP2协议下防抖组件用到的命令：字符串、Hash、发布订阅和脚本，有序集合只供限流脚本的等价实现使用。
+ * Lua脚本无法直接执行，按脚本原文注册等价的Java实现，EVALSHA/EVAL按SHA1查找；
+ * 所有数据操作和脚本在同一把锁下串行执行，与Redis的单线程语义一致。
+ * 同时按命令统计调用次数，用于计算每个请求的Redis命令数。
+ * 参数和回复按字节原样保存，与Redis一样是二进制安全的；MEMORY USAGE按Redis的内存布局估算
+ * @author maxiaoweii
+ */
+@Slf4j
+public class RedisStandIn implements AutoCloseable {
+
+    private static final AttributeKey<Set<String>> SUBSCRIPTIONS = AttributeKey.valueOf("subscriptions");
+    private static final Status OK = new Status("OK");
+
+    private final Map<String, Entry> data = new HashMap<>();
+    private final Map<String, Set<Channel>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, ScriptHandler> knownScripts = new ConcurrentHashMap<>();
+    private final Map<String, String> scriptNames = new ConcurrentHashMap<>();
+    private final Map<String, ScriptHandler> loadedScripts = new ConcurrentHashMap<>();
+    private final LongAdder commandCount = new LongAdder();
+    private final Map<String, LongAdder> commandCounts = new ConcurrentHashMap<>();
+
+    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+    private final EventLoopGroup workerGroup = new NioEventLoopGroup(2);
+    private Channel serverChannel;
+
+    /**
+     * 在本机随机端口启动
+     */
+    public static RedisStandIn start() throws InterruptedException {
+        RedisStandIn redis = new RedisStandIn();
+        redis.bind(0);
+        return redis;
+    }
+
+    private void bind(int port) throws InterruptedException {
+        serverChannel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline().addLast(new RespDecoder(), new CommandHandler());
+                    }
+                })
+                .bind("127.0.0.1", port)
+                .sync()
+                .channel();
+        log.info("Redis stand-in listening on {}", serverChannel.localAddress());
+    }
+
+    public int getPort() {
+        return ((java.net.InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * 注册脚本的等价实现
+     *
+     * @param name    统计中使用的脚本名称
+     * @param source  脚本原文，SHA1与客户端计算的一致
+     * @param handler 等价实现
+     */
+    public void registerScript(String name, String source, ScriptHandler handler) {
+        String sha1 = sha1(source.getBytes(StandardCharsets.UTF_8));
+        knownScripts.put(sha1, handler);
+        scriptNames.put(sha1, name);
+    }
+
+    /**
+     * 累计执行的命令数
+     */
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    /**
+     * 按命令统计的执行次数，脚本按注册的名称单独统计
+     */
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        commandCounts.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+
+    public void resetStats() {
+        commandCount.reset();
+        commandCounts.clear();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        workerGroup.shutdownGracefully();
+        bossGroup.shutdownGracefully();
+    }
+
+    // ---------------------------------------------------------------- 数据操作，脚本实现通过这些方法访问数据
+
+    public String get(String key) {
+        synchronized (data) {
+            Entry entry = lookup(key);
+            return entry != null && entry.value instanceof String ? (String) entry.value : null;
+        }
+    }
+
+    /**
+     * @param ttlMillis 过期时间，小于等于0表示不过期
+     * @param ifAbsent  是否只在key不存在时设置
+     * @return 是否已设置
+     */
+    public boolean set(String key, String value, long ttlMillis, boolean ifAbsent) {
+        synchronized (data) {
+            if (ifAbsent && lookup(key) != null) {
+                return false;
+            }
+            data.put(key, new Entry(value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0));
+            return true;
+        }
+    }
+
+    public boolean delete(String key) {
+        synchronized (data) {
+            return lookup(key) != null && data.remove(key) != null;
+        }
+    }
+
+    public boolean exists(String key) {
+        synchronized (data) {
+            return lookup(key) != null;
+        }
+    }
+
+    public boolean pexpire(String key, long ttlMillis) {
+        synchronized (data) {
+            Entry entry = lookup(key);
+            if (entry == null) {
+                return false;
+            }
+            entry.expireAt = System.currentTimeMillis() + ttlMillis;
+            return true;
+        }
+    }
+
+    public String hget(String key, String field) {
+        synchronized (data) {
+            Map<String, String> hash = hash(key, false);
+            return hash != null ? hash.get(field) : null;
+        }
+    }
+
+    /**
+     * @return 是否为新增的字段
+     */
+    public boolean hset(String key, String field, String value) {
+        synchronized (data) {
+            return hash(key, true).put(field, value) == null;
+        }
+    }
+
+    public boolean hdel(String key, String field) {
+        synchronized (data) {
+            Map<String, String> hash = hash(key, false);
+            return hash != null && hash.remove(field) != null;
+        }
+    }
+
+    /**
+     * 有序集合中添加成员，成员已存在时更新分数
+     */
+    public void zadd(String key, double score, String member) {
+        synchronized (data) {
+            sortedSet(key, true).put(member, score);
+        }
+    }
+
+    /**
+     * 删除分数小于等于max的成员
+     */
+    public long zremrangeByScore(String key, double max) {
+        synchronized (data) {
+            Map<String, Double> sortedSet = sortedSet(key, false);
+            if (sortedSet == null) {
+                return 0;
+            }
+            int size = sortedSet.size();
+            sortedSet.values().removeIf(score -> score <= max);
+            if (sortedSet.isEmpty()) {
+                data.remove(key);
+            }
+            return size - sortedSet.size();
+        }
+    }
+
+    public long zcard(String key) {
+        synchronized (data) {
+            Map<String, Double> sortedSet = sortedSet(key, false);
+            return sortedSet != null ? sortedSet.size() : 0;
+        }
+    }
+
+    /**
+     * 最小的分数，有序集合不存在时返回null
+     */
+    public Double zminScore(String key) {
+        synchronized (data) {
+            Map<String, Double> sortedSet = sortedSet(key, false);
+            return sortedSet != null ? sortedSet.values().stream().min(Double::compare).orElse(null) : null;
+        }
+    }
+
+    /**
+     * 发布消息
+     *
+     * @return 收到消息的订阅连接数
+     */
+    public long publish(String channel, String message) {
+        Set<Channel> channels = subscribers.get(channel);
+        if (channels == null) {
+            return 0;
+        }
+        List<Object> push = Arrays.asList("message", channel, message);
+        for (Channel subscriber : channels) {
+            ByteBuf buf = subscriber.alloc().buffer();
+            writeReply(buf, push);
+            subscriber.writeAndFlush(buf);
+        }
+        return channels.size();
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            if (!create) {
+                return null;
+            }
+            entry = new Entry(new LinkedHashMap<String, String>(), 0);
+            data.put(key, entry);
+        }
+        return entry.value instanceof Map ? (Map<String, String>) entry.value : null;
+    }
+
+    /**
+     * 有序集合按成员 -> 分数保存，只用于限流脚本，成员数量不超过限流的许可数
+     */
+    private Map<String, Double> sortedSet(String key, boolean create) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            if (!create) {
+                return null;
+            }
+            entry = new Entry(new SortedSet(), 0);
+            data.put(key, entry);
+        }
+        return entry.value instanceof SortedSet ? ((SortedSet) entry.value).scores : null;
+    }
+
+    // ---------------------------------------------------------------- 命令分发
+
+    private Object execute(ChannelHandlerContext ctx, List<String> command) {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        commandCount.increment();
+        if (!name.startsWith("EVAL")) {
+            // 脚本按名称单独统计
+            count(name);
+        }
+        switch (name) {
+            case "PING":
+                return command.size() > 1 ? command.get(1) : new Status("PONG");
+            case "SELECT":
+            case "CLIENT":
+            case "AUTH":
+            case "QUIT":
+                return OK;
+            case "INFO":
+                return "# Server\r\nredis_version:7.0.0\r\nredis_mode:standalone\r\n";
+            case "GET":
+                return get(command.get(1));
+            case "SET":
+                return executeSet(command);
+            case "PSETEX":
+                set(command.get(1), command.get(3), Long.parseLong(command.get(2)), false);
+                return OK;
+            case "SETEX":
+                set(command.get(1), command.get(3), Long.parseLong(command.get(2)) * 1000, false);
+                return OK;
+            case "DEL":
+                return countKeys(command, this::delete);
+            case "EXISTS":
+                return countKeys(command, this::exists);
+            case "PEXPIRE":
+                return pexpire(command.get(1), Long.parseLong(command.get(2))) ? 1L : 0L;
+            case "HGET":
+                return hget(command.get(1), command.get(2));
+            case "HGETALL":
+                synchronized (data) {
+                    Map<String, String> hash = hash(command.get(1), false);
+                    List<Object> entries = new ArrayList<>();
+                    if (hash != null) {
+                        hash.forEach((field, value) -> {
+                            entries.add(field);
+                            entries.add(value);
+                        });
+                    }
+                    return entries;
+                }
+            case "HSET":
+                synchronized (data) {
+                    Map<String, String> hash = hash(command.get(1), true);
+                    long added = 0;
+                    for (int i = 2; i + 1 < command.size(); i += 2) {
+                        if (hash.put(command.get(i), command.get(i + 1)) == null) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }
+            case "PUBLISH":
+                return publish(command.get(1), command.get(2));
+            case "SUBSCRIBE":
+                return subscribe(ctx, command.subList(1, command.size()));
+            case "UNSUBSCRIBE":
+                return unsubscribe(ctx, command.subList(1, command.size()));
+            case "SCRIPT":
+                return executeScriptCommand(command);
+            case "EVALSHA":
+            case "EVAL":
+                return executeScript(name, command);
+            case "FLUSHALL":
+            case "FLUSHDB":
+                synchronized (data) {
+                    data.clear();
+                }
+                return OK;
+            case "DBSIZE":
+                synchronized (data) {
+                    return (long) data.size();
+                }
+            case "MEMORY":
+                return executeMemoryCommand(command);
+            default:
+                return new Error("ERR unknown command '" + command.get(0) + "'");
+        }
+    }
+
+    private Object executeSet(List<String> command) {
+        boolean ifAbsent = false;
+        long ttlMillis = 0;
+        for (int i = 3; i < command.size(); i++) {
+            String option = command.get(i).toUpperCase(Locale.ROOT);
+            if ("NX".equals(option)) {
+                ifAbsent = true;
+            } else if ("PX".equals(option)) {
+                ttlMillis = Long.parseLong(command.get(++i));
+            } else if ("EX".equals(option)) {
+                ttlMillis = Long.parseLong(command.get(++i)) * 1000;
+            } else {
+                return new Error("ERR unsupported SET option " + option);
+            }
+        }
+        return set(command.get(1), command.get(2), ttlMillis, ifAbsent) ? OK : null;
+    }
+
+    private Object executeMemoryCommand(List<String> command) {
+        String subCommand = command.get(1).toUpperCase(Locale.ROOT);
+        if (!"USAGE".equals(subCommand)) {
+            return new Error("ERR unknown MEMORY subcommand '" + subCommand + "'");
+        }
+        synchronized (data) {
+            Entry entry = lookup(command.get(2));
+            if (entry == null) {
+                return null;
+            }
+            if (entry.value instanceof SortedSet) {
+                return new Error("ERR MEMORY USAGE of sorted sets is not supported by the stand-in");
+            }
+            return entry.value instanceof String
+                    ? MemoryUsage.ofString(command.get(2), (String) entry.value)
+                    : MemoryUsage.ofHash(command.get(2), hash(command.get(2), false));
+        }
+    }
+
+    private static long countKeys(List<String> command, java.util.function.Predicate<String> operation) {
+        long count = 0;
+        for (int i = 1; i < command.size(); i++) {
+            if (operation.test(command.get(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Object executeScriptCommand(List<String> command) {
+        String subCommand = command.get(1).toUpperCase(Locale.ROOT);
+        switch (subCommand) {
+            case "LOAD":
+                String sha1 = sha1(command.get(2).getBytes(StandardCharsets.ISO_8859_1));
+                ScriptHandler handler = knownScripts.get(sha1);
+                if (handler == null) {
+                    return new Error("ERR script is not supported by the stand-in");
+                }
+                loadedScripts.put(sha1, handler);
+                return sha1;
+            case "EXISTS":
+                List<Object> result = new ArrayList<>();
+                for (int i = 2; i < command.size(); i++) {
+                    result.add(loadedScripts.containsKey(command.get(i)) ? 1L : 0L);
+                }
+                return result;
+            case "FLUSH":
+                loadedScripts.clear();
+                return OK;
+            default:
+                return new Error("ERR unknown SCRIPT subcommand '" + subCommand + "'");
+        }
+    }
+
+    private Object executeScript(String name, List<String> command) {
+        String sha1 = "EVAL".equals(name) ? sha1(command.get(1).getBytes(StandardCharsets.ISO_8859_1)) : command.get(1);
+        ScriptHandler handler = "EVAL".equals(name) ? knownScripts.get(sha1) : loadedScripts.get(sha1);
+        count(name + " " + scriptNames.getOrDefault(sha1, "unknown"));
+        if (handler == null) {
+            return "EVAL".equals(name) ? new Error("ERR script is not supported by the stand-in")
+                    : new Error("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        if ("EVAL".equals(name)) {
+            loadedScripts.put(sha1, handler);
+        }
+        int numKeys = Integer.parseInt(command.get(2));
+        List<String> keys = command.subList(3, 3 + numKeys);
+        List<String> args = command.subList(3 + numKeys, command.size());
+        synchronized (data) {
+            return handler.execute(this, keys, args);
+        }
+    }
+
+    private Object subscribe(ChannelHandlerContext ctx, List<String> channels) {
+        Set<String> subscriptions = ctx.channel().attr(SUBSCRIPTIONS).setIfAbsent(new LinkedHashSet<>());
+        if (subscriptions == null) {
+            subscriptions = ctx.channel().attr(SUBSCRIPTIONS).get();
+        }
+        List<Object> replies = new ArrayList<>();
+        for (String channel : channels) {
+            subscriptions.add(channel);
+            subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(ctx.channel());
+            replies.add(new Multi(Arrays.asList("subscribe", channel, (long) subscriptions.size())));
+        }
+        return replies;
+    }
+
+    private Object unsubscribe(ChannelHandlerContext ctx, List<String> channels) {
+        Set<String> subscriptions = ctx.channel().attr(SUBSCRIPTIONS).get();
+        List<String> targets = channels.isEmpty() && subscriptions != null ? new ArrayList<>(subscriptions) : channels;
+        List<Object> replies = new ArrayList<>();
+        for (String channel : targets) {
+            if (subscriptions != null) {
+                subscriptions.remove(channel);
+            }
+            Set<Channel> channelSubscribers = subscribers.get(channel);
+            if (channelSubscribers != null) {
+                channelSubscribers.remove(ctx.channel());
+            }
+            replies.add(new Multi(Arrays.asList("unsubscribe", channel,
+                    (long) (subscriptions == null ? 0 : subscriptions.size()))));
+        }
+        return replies;
+    }
+
+    private void count(String name) {
+        commandCounts.computeIfAbsent(name, n -> new LongAdder()).increment();
+    }
+
+    // ---------------------------------------------------------------- RESP编码
+
+    private static void writeReply(ByteBuf buf, Object reply) {
+        if (reply == null) {
+            buf.writeBytes("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof Status) {
+            writeLine(buf, '+', ((Status) reply).text);
+        } else if (reply instanceof Error) {
+            writeLine(buf, '-', ((Error) reply).message);
+        } else if (reply instanceof Long || reply instanceof Integer) {
+            writeLine(buf, ':', reply.toString());
+        } else if (reply instanceof Boolean) {
+            writeLine(buf, ':', (Boolean) reply ? "1" : "0");
+        } else if (reply instanceof List) {
+            List<?> items = (List<?>) reply;
+            writeLine(buf, '*', String.valueOf(items.size()));
+            for (Object item : items) {
+                writeReply(buf, item);
+            }
+        } else {
+            byte[] bytes = reply.toString().getBytes(StandardCharsets.ISO_8859_1);
+            writeLine(buf, '$', String.valueOf(bytes.length));
+            buf.writeBytes(bytes).writeByte('\r').writeByte('\n');
+        }
+    }
+
+    private static void writeLine(ByteBuf buf, char type, String text) {
+        buf.writeByte(type).writeBytes(text.getBytes(StandardCharsets.UTF_8)).writeByte('\r').writeByte('\n');
+    }
+
+    private static String sha1(byte[] source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source);
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 脚本的等价实现，执行时已持有数据锁
+     */
+    @FunctionalInterface
+    public interface ScriptHandler {
+
+        /**
+         * @return Long、String、List或null，null对应Lua中的false/nil
+         */
+        Object execute(RedisStandIn redis, List<String> keys, List<String> args);
+    }
+
+    private static final class Entry {
+        final Object value;
+        long expireAt;
+
+        Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class SortedSet {
+        final Map<String, Double> scores = new HashMap<>();
+    }
+
+    private static final class Status {
+        final String text;
+
+        Status(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Error {
+        final String message;
+
+        Error(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * 多条独立回复，订阅命令对每个频道分别回复
+     */
+    private static final class Multi {
+        final List<Object> reply;
+
+        Multi(List<Object> reply) {
+            this.reply = reply;
+        }
+    }
+
+    private final class CommandHandler extends SimpleChannelInboundHandler<List<String>> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, List<String> command) {
+            Object reply;
+            try {
+                reply = execute(ctx, command);
+            } catch (RuntimeException e) {
+                reply = new Error("ERR " + e.getMessage());
+            }
+            ByteBuf buf = ctx.alloc().buffer();
+            if (reply instanceof List && !((List<?>) reply).isEmpty() && ((List<?>) reply).get(0) instanceof Multi) {
+                for (Object item : (List<?>) reply) {
+                    writeReply(buf, ((Multi) item).reply);
+                }
+            } else {
+                writeReply(buf, reply);
+            }
+            ctx.write(buf);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            Set<String> subscriptions = ctx.channel().attr(SUBSCRIPTIONS).get();
+            if (subscriptions != null) {
+                for (String channel : subscriptions) {
+                    Set<Channel> channelSubscribers = subscribers.get(channel);
+                    if (channelSubscribers != null) {
+                        channelSubscribers.remove(ctx.channel());
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Redis stand-in connection error: {}", cause.getMessage());
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.debounce.test.redis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RESP请求解码器，将客户端发送的多条批量字符串数组解码为参数列表
+ * 参数按ISO-8859-1解码，每个字符对应一个字节，二进制key和值可以原样写回
+ * 数据不完整时不消费缓冲区，等待后续数据到达后重新解码
+ * @author maxiaoweii
+ */
+class RespDecoder extends ByteToMessageDecoder {
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            in.markReaderIndex();
+            List<String> command = readCommand(in);
+            if (command == null) {
+                in.resetReaderIndex();
+                return;
+            }
+            out.add(command);
+        }
+    }
+
+    private static List<String> readCommand(ByteBuf in) {
+        if (in.getByte(in.readerIndex()) != '*') {
+            throw new DecoderException("Only RESP arrays are supported");
+        }
+        in.skipBytes(1);
+        long count = readLine(in);
+        if (count < 0) {
+            return null;
+        }
+        List<String> command = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            if (!in.isReadable()) {
+                return null;
+            }
+            if (in.readByte() != '$') {
+                throw new DecoderException("Expected bulk string");
+            }
+            long length = readLine(in);
+            if (length < 0 || in.readableBytes() < length + 2) {
+                return null;
+            }
+            command.add(in.toString(in.readerIndex(), (int) length, StandardCharsets.ISO_8859_1));
+            in.skipBytes((int) length + 2);
+        }
+        return command;
+    }
+
+    /**
+     * 读取以CRLF结尾的整数，数据不完整时返回-1
+     */
+    private static long readLine(ByteBuf in) {
+        int end = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\r');
+        if (end < 0 || end + 1 >= in.writerIndex()) {
+            return -1;
+        }
+        long value = Long.parseLong(in.toString(in.readerIndex(), end - in.readerIndex(), StandardCharsets.US_ASCII));
+        in.readerIndex(end + 2);
+        return value;
+    }
+}
@@ -2,14 +2,13 @@ package com.example.debounce.web;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.ComponentScan;
 
 /**
  * 分布式防抖示例应用
+ * 防抖组件由debounce-spring-boot-starter自动配置，只扫描本应用的包
  * @author maxiaoweii
  */
 @SpringBootApplication
-@ComponentScan("com.example.debounce")
 public class DebounceWebApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,67 @@
+package com.example.debounce.web.config;
+
+import com.example.debounce.common.async.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程模式，debounce.virtual-threads.enabled=true且运行在Java 21+时生效
+ * Tomcat的请求处理和Spring MVC的异步任务都改为每个任务一个虚拟线程，
+ * 订单、支付服务中的阻塞等待和防抖存储的Redis调用不再占用平台线程；
+ * 低版本JVM上开启时打印警告并继续使用平台线程池
+ * @author maxiaoweii
+ */
+@Slf4j
+@Configuration
+@Conditional(VirtualThreadConfig.OnVirtualThreadsEnabled.class)
+public class VirtualThreadConfig {
+
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Handling requests on virtual threads");
+        return VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+    }
+
+    /**
+     * 替换Tomcat的工作线程池，server.tomcat.threads.max不再限制并发，由server.tomcat.max-connections限制
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Spring MVC执行Callable、WebAsyncTask使用的执行器
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    static class OnVirtualThreadsEnabled implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (!context.getEnvironment().getProperty("debounce.virtual-threads.enabled", Boolean.class, false)) {
+                return false;
+            }
+            if (!VirtualThreads.isSupported()) {
+                log.warn("debounce.virtual-threads.enabled is set but Java {} has no virtual threads, "
+                        + "falling back to platform threads", System.getProperty("java.version"));
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.debounce.web.controller;
 
 import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.strategy.UserDebounceStrategy;
 import com.example.debounce.web.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,9 +27,9 @@ public class OrderController {
 
     /**
      * 创建订单
-     * 使用防抖注解防止重复提交订单
+     * 使用防抖注解防止重复提交订单，订单创建耗时不确定，使用租约模式由看门狗续期
      */
-    @Debounce(value = 5000, message = "订单正在处理中，请勿重复提交", prefix = "order")
+    @Debounce(message = "订单正在处理中，请勿重复提交", prefix = "order", lease = true, leaseTime = 2000)
     @PostMapping
     public ResponseEntity<Map<String, String>> createOrder(@RequestBody Map<String, Object> request) {
         String userId = (String) request.get("userId");
@@ -38,15 +41,45 @@ public class OrderController {
         return ResponseEntity.ok(Collections.singletonMap("订单处理成功 orderId", orderId));
     }
 
+    /**
+     * 查询订单
+     * 使用请求合并模式，相同订单的并发查询只执行一次
+     */
+    @Debounce(value = 2000, prefix = "order-query", mode = DebounceMode.COALESCE)
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrder(@PathVariable String orderId) {
+        return ResponseEntity.ok(orderService.getOrder(orderId));
+    }
+
     /**
      * 取消订单
-     * 使用防抖注解防止重复取消订单
+     * 使用批量执行模式，短时间内不同订单的取消请求合并为一次{@link #cancelOrders}调用，重复取消同一订单仍被拒绝
      */
-    @Debounce(value = 3000, message = "订单取消请求正在处理中，请勿重复操作", prefix = "order")
+    @Debounce(value = 3000, message = "订单取消请求正在处理中，请勿重复操作", prefix = "order",
+            mode = DebounceMode.BATCH, batchMethod = "cancelOrders", batchWindow = 50)
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<Void> cancelOrder(@PathVariable String orderId,
                                           @RequestHeader("X-User-Id") String userId) {
         orderService.cancelOrder(orderId, userId);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * 批量取消订单，参数与{@link #cancelOrder}一一对应
+     */
+    public List<ResponseEntity<Void>> cancelOrders(List<String> orderIds, List<String> userIds) {
+        orderService.cancelOrders(orderIds, userIds);
+        return Collections.nCopies(orderIds.size(), ResponseEntity.ok().build());
+    }
+
+    /**
+     * 保存订单草稿
+     * 使用尾沿防抖模式，key只包含用户，连续编辑时只保存静默1秒后的最后一版草稿
+     */
+    @Debounce(value = 1000, prefix = "order-draft", mode = DebounceMode.TRAILING,
+            strategy = UserDebounceStrategy.class)
+    @PutMapping("/draft")
+    public ResponseEntity<Map<String, Object>> saveDraft(@RequestBody Map<String, Object> draft) {
+        return ResponseEntity.ok(orderService.saveDraft((String) draft.get("userId"), draft));
+    }
 }
\ No newline at end of file
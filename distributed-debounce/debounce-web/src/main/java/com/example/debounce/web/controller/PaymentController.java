@@ -1,6 +1,9 @@
 package com.example.debounce.web.controller;
 
 import com.example.debounce.common.annotation.Debounce;
+import com.example.debounce.common.annotation.DebounceMode;
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.strategy.UserDebounceStrategy;
 import com.example.debounce.web.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +27,10 @@ public class PaymentController {
 
     /**
      * 处理支付请求
-     * 使用防抖注解防止重复支付
+     * 使用幂等重放模式防止重复支付，重复请求直接获得首次支付的结果
      */
-    @Debounce(value = 10000, message = "支付正在处理中，请勿重复提交", prefix = "payment")
+    @Debounce(value = 10000, message = "支付正在处理中，请勿重复提交", prefix = "payment",
+            mode = DebounceMode.REPLAY, replayWindow = 60000)
     @PostMapping("/pay")
     public ResponseEntity<Map<String, String>> processPayment(@RequestBody Map<String, Object> request) {
         String orderId = (String) request.get("orderId");
@@ -39,9 +43,11 @@ public class PaymentController {
 
     /**
      * 处理退款请求
-     * 使用防抖注解防止重复退款
+     * 每个用户每分钟最多发起3次退款
      */
-    @Debounce(value = 8000, message = "退款正在处理中，请勿重复提交", prefix = "refund")
+    @Debounce(value = 60000, message = "退款申请过于频繁，请稍后再试", prefix = "refund",
+            mode = DebounceMode.RATE_LIMIT, rateLimit = RateLimitAlgorithm.SLIDING_LOG, permits = 3,
+            strategy = UserDebounceStrategy.class)
     @PostMapping("/refund")
     public ResponseEntity<Map<String, String>> processRefund(@RequestBody Map<String, Object> request) {
         String orderId = (String) request.get("orderId");
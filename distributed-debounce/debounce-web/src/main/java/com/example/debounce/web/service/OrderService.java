@@ -4,6 +4,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 订单服务
@@ -35,6 +38,27 @@ public class OrderService {
         return orderId;
     }
 
+    /**
+     * 查询订单
+     *
+     * @param orderId 订单ID
+     * @return 订单信息
+     */
+    public Map<String, Object> getOrder(String orderId) {
+        // 模拟订单查询耗时
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<String, Object> order = new HashMap<>();
+        order.put("orderId", orderId);
+        order.put("status", "CREATED");
+        log.info("Loaded order: {}", orderId);
+        return order;
+    }
+
     /**
      * 取消订单
      *
@@ -51,4 +75,42 @@ public class OrderService {
 
         log.info("Cancelled order: {}, userId: {}", orderId, userId);
     }
+
+    /**
+     * 批量取消订单
+     *
+     * @param orderIds 订单ID
+     * @param userIds  与订单ID一一对应的用户ID
+     */
+    public void cancelOrders(List<String> orderIds, List<String> userIds) {
+        // 模拟订单取消耗时，一批订单只写入一次
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.info("Cancelled {} orders: {}, userIds: {}", orderIds.size(), orderIds, userIds);
+    }
+
+    /**
+     * 保存订单草稿
+     *
+     * @param userId 用户ID
+     * @param draft  草稿内容
+     * @return 保存后的草稿
+     */
+    public Map<String, Object> saveDraft(String userId, Map<String, Object> draft) {
+        // 模拟草稿写入耗时
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<String, Object> saved = new HashMap<>(draft);
+        saved.put("savedAt", System.currentTimeMillis());
+        log.info("Saved order draft, userId: {}", userId);
+        return saved;
+    }
 }
\ No newline at end of file
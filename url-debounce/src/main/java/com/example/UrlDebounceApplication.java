@@ -1,12 +1,32 @@
 package com.example;
 
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.metrics.DebounceHotKeysEndpoint;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.metrics.DebounceMetricsProperties;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.store.DebounceStoreConfiguration;
+import com.example.debounce.common.store.DebounceStoreProperties;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 
 /**
+ * 只引入debounce-common的防抖存储、限流器、本地缓存和监控指标，切面等组件不参与扫描；
+ * 显式声明的@ComponentScan会替换@SpringBootApplication自带的扫描配置，因此保留其默认过滤器
  * @author maxiaoweii
  */
 @SpringBootApplication
+@ComponentScan(excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.example\\.debounce\\..*")})
+@Import({DebounceStoreConfiguration.class, DebounceStoreProperties.class, RateLimiter.class,
+        DebounceMetrics.class, DebounceMetricsProperties.class, DebounceHotKeysEndpoint.class, LocalDebounceCache.class})
 public class UrlDebounceApplication {
     public static void main(String[] args) {
         SpringApplication.run(UrlDebounceApplication.class, args);
@@ -1,9 +1,12 @@
 package com.example.config;
 
+import com.example.debounce.common.ratelimit.RateLimitAlgorithm;
+import com.example.debounce.common.store.StoreFailurePolicy;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,10 +22,15 @@ public class DebounceProperties {
      */
     private Map<String, UrlConfig> urls = new HashMap<>();
 
+    /**
+     * 规则热加载配置
+     */
+    private Reload reload = new Reload();
+
     @Data
     public static class UrlConfig {
         /**
-         * 防抖时间(毫秒)
+         * 防抖时间(毫秒)，限流时为窗口长度
          */
         private long time = 1000;
         
@@ -35,5 +43,37 @@ public class DebounceProperties {
          * 是否启用
          */
         private boolean enabled = true;
+
+        /**
+         * 限流算法，为空时只防抖（同一用户同一时间只处理一个请求）
+         */
+        private RateLimitAlgorithm rateLimit;
+
+        /**
+         * 每个窗口放行的请求数，仅在限流时生效
+         */
+        private int permits = 1;
+        /**
+         * 防抖存储不可用时的处理方式，默认退化为节点内防抖
+         */
+        private StoreFailurePolicy failurePolicy = StoreFailurePolicy.LOCAL_ONLY;
+    }
+
+    @Data
+    public static class Reload {
+        /**
+         * 监听的规则文件路径(YAML或JSON)，为空表示不启用
+         */
+        private String file;
+
+        /**
+         * 规则所在的Redis Hash，"version"字段为版本号，其余字段为URL规则 -> 配置的JSON，为空表示不启用
+         */
+        private String redisKey;
+
+        /**
+         * Redis规则的轮询间隔
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
     }
-}
\ No newline at end of file
+}
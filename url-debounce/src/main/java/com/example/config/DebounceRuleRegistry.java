@@ -0,0 +1,37 @@
+package com.example.config;
+
+import com.example.debounce.common.config.RuleSetRegistry;
+import com.example.debounce.common.web.UrlRuleMatcher;
+import org.springframework.stereotype.Component;
+
+/**
+ * URL防抖规则注册表
+ * 每个版本的规则编译为匹配器后整体替换，请求路径不加锁
+ * @author maxiaoweii
+ */
+@Component
+public class DebounceRuleRegistry extends RuleSetRegistry<UrlRuleSet, UrlRuleMatcher<DebounceProperties.UrlConfig>> {
+
+    public DebounceRuleRegistry(DebounceProperties debounceProperties) {
+        super("url-debounce", UrlRuleMatcher.compile(debounceProperties.getUrls()));
+    }
+
+    /**
+     * 查找与URI匹配的规则
+     *
+     * @return 优先级最高的规则，没有匹配时返回null
+     */
+    public UrlRuleMatcher.Rule<DebounceProperties.UrlConfig> match(String requestUri) {
+        return snapshot().getRules().match(requestUri);
+    }
+
+    @Override
+    protected UrlRuleMatcher<DebounceProperties.UrlConfig> compile(UrlRuleSet ruleSet) {
+        return UrlRuleMatcher.compile(ruleSet.getUrls());
+    }
+
+    @Override
+    protected int size(UrlRuleSet ruleSet) {
+        return ruleSet.getUrls().size();
+    }
+}
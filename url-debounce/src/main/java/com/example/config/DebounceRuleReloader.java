@@ -0,0 +1,21 @@
+package com.example.config;
+
+import com.example.debounce.common.config.RuleSetReloader;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * URL防抖规则热加载
+ * 监听本地规则文件的变更，并定期检查Redis Hash中的规则版本，有新版本时重新编译并替换{@link DebounceRuleRegistry}中的匹配器
+ * @author maxiaoweii
+ */
+@Component
+public class DebounceRuleReloader extends RuleSetReloader<UrlRuleSet> {
+
+    public DebounceRuleReloader(DebounceProperties debounceProperties, DebounceRuleRegistry registry,
+                                RedisTemplate<String, String> redisTemplate) {
+        super("url-debounce-rule", debounceProperties.getReload().getFile(),
+                debounceProperties.getReload().getRedisKey(), debounceProperties.getReload().getPollInterval(),
+                UrlRuleSet.class, "urls", registry, redisTemplate);
+    }
+}
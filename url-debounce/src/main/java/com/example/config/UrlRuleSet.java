@@ -0,0 +1,24 @@
+package com.example.config;
+
+import com.example.debounce.common.config.VersionedRuleSet;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个版本的URL防抖规则，版本号只增不减，旧版本的规则不会覆盖新版本
+ * @author maxiaoweii
+ */
+@Data
+public class UrlRuleSet implements VersionedRuleSet {
+    /**
+     * 规则版本
+     */
+    private long version;
+
+    /**
+     * URL规则 -> 配置
+     */
+    private Map<String, DebounceProperties.UrlConfig> urls = new LinkedHashMap<>();
+}
@@ -1,31 +1,42 @@
 package com.example.filter;
 
 import com.example.config.DebounceProperties;
+import com.example.config.DebounceRuleRegistry;
+import com.example.debounce.common.cache.LocalDebounceCache;
+import com.example.debounce.common.metrics.DebounceMetrics;
+import com.example.debounce.common.ratelimit.RateLimiter;
+import com.example.debounce.common.store.DebounceStore;
+import com.example.debounce.common.store.StoreFailurePolicy;
+import com.example.debounce.common.web.RequestCompletion;
+import com.example.debounce.common.web.UrlRuleMatcher;
 import com.example.model.Result;
 import com.example.util.JsonUtil;
 import org.springframework.core.annotation.Order;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 @Component
 @Order(1)
 public class UrlDebounceFilter implements Filter {
-    
-    private final RedisTemplate<String, String> redisTemplate;
-    private final DebounceProperties debounceProperties;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    public UrlDebounceFilter(RedisTemplate<String, String> redisTemplate, 
-                           DebounceProperties debounceProperties) {
-        this.redisTemplate = redisTemplate;
-        this.debounceProperties = debounceProperties;
+
+    private final DebounceStore debounceStore;
+    private final RateLimiter rateLimiter;
+    private final DebounceRuleRegistry ruleRegistry;
+    private final DebounceMetrics metrics;
+    private final LocalDebounceCache localCache;
+
+    public UrlDebounceFilter(DebounceStore debounceStore, RateLimiter rateLimiter,
+                           DebounceRuleRegistry ruleRegistry, DebounceMetrics metrics,
+                           LocalDebounceCache localCache) {
+        this.debounceStore = debounceStore;
+        this.rateLimiter = rateLimiter;
+        this.ruleRegistry = ruleRegistry;
+        this.metrics = metrics;
+        this.localCache = localCache;
     }
 
     @Override
@@ -35,41 +46,108 @@ public class UrlDebounceFilter implements Filter {
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
         String requestUri = httpRequest.getRequestURI();
-        DebounceProperties.UrlConfig urlConfig = getMatchedUrlConfig(requestUri);
+        UrlRuleMatcher.Rule<DebounceProperties.UrlConfig> rule = ruleRegistry.match(requestUri);
+        DebounceProperties.UrlConfig urlConfig = rule != null ? rule.getConfig() : null;
 
         if (urlConfig == null || !urlConfig.isEnabled()) {
             chain.doFilter(request, response);
             return;
         }
 
+        // 指标按配置中的URL规则聚合，不随具体请求路径增长
+        DebounceMetrics.Probe probe = metrics.probe(DebounceMetrics.Source.URL_FILTER, rule.getPattern());
+
+        long start = System.nanoTime();
         String userId = httpRequest.getHeader("userId");
         String redisKey = String.format("debounce:%s:%s", requestUri, userId);
+        probe.recordKey(redisKey, start);
 
-        boolean locked = false;
+        // 限流：窗口内最多放行permits个请求，不持有锁
+        if (urlConfig.getRateLimit() != null) {
+            start = System.nanoTime();
+            boolean permitted;
+            try {
+                permitted = rateLimiter.tryAcquire(redisKey, urlConfig.getRateLimit(), urlConfig.getPermits(),
+                        urlConfig.getTime());
+                probe.recordStore(start);
+            } catch (RuntimeException e) {
+                // 防抖存储不可用，LOCAL_ONLY时退化为节点内限流
+                StoreFailurePolicy policy = urlConfig.getFailurePolicy();
+                probe.storeUnavailable(policy);
+                permitted = policy == StoreFailurePolicy.FAIL_OPEN || policy == StoreFailurePolicy.LOCAL_ONLY
+                        && rateLimiter.tryAcquireLocally(redisKey, urlConfig.getRateLimit(),
+                        urlConfig.getPermits(), urlConfig.getTime());
+            }
+            if (!permitted) {
+                probe.rejected();
+                writeRejection(httpResponse, urlConfig);
+                return;
+            }
+            probe.admitted();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // 释放时比对owner令牌，避免慢请求删除新请求持有的锁
+        String owner = debounceStore.newOwnerToken();
+        boolean locked;
+        start = System.nanoTime();
         try {
-            locked = redisTemplate.opsForValue().setIfAbsent(redisKey, "1", 
-                    urlConfig.getTime(), TimeUnit.MILLISECONDS);
+            locked = debounceStore.tryAcquire(redisKey, owner, urlConfig.getTime());
+            probe.recordStore(start);
+        } catch (RuntimeException e) {
+            doFilterWithoutStore(request, response, chain, urlConfig, redisKey, probe);
+            return;
+        }
 
-            if (!locked) {
-                Result<?> result = Result.error(urlConfig.getMessage());
-                httpResponse.setContentType("application/json;charset=UTF-8");
-                httpResponse.getWriter().write(JsonUtil.toJson(result));
-                return;
+        if (!locked) {
+            probe.rejected();
+            writeRejection(httpResponse, urlConfig);
+            return;
+        }
+
+        probe.admitted();
+        long acquiredAt = System.nanoTime();
+        RequestCompletion.doFilterUntilComplete(request, response, chain, () -> {
+            try {
+                debounceStore.release(redisKey, owner);
+            } catch (RuntimeException e) {
+                // 释放失败时锁在过期后自动删除，不影响本次响应
             }
+            probe.recordHold(acquiredAt, urlConfig.getTime());
+        });
+    }
 
+    /**
+     * 防抖存储不可用时按规则的失败策略处理
+     */
+    private void doFilterWithoutStore(ServletRequest request, ServletResponse response, FilterChain chain,
+                                      DebounceProperties.UrlConfig urlConfig, String redisKey,
+                                      DebounceMetrics.Probe probe) throws IOException, ServletException {
+        StoreFailurePolicy policy = urlConfig.getFailurePolicy();
+        probe.storeUnavailable(policy);
+        if (policy == StoreFailurePolicy.FAIL_OPEN) {
             chain.doFilter(request, response);
-        } finally {
-            if (locked) {
-                redisTemplate.delete(redisKey);
-            }
+            return;
+        }
+        // LOCAL_ONLY退化为节点内防抖
+        long localStamp = policy == StoreFailurePolicy.FAIL_CLOSED ? LocalDebounceCache.NOT_ACQUIRED
+                : localCache.tryAcquire(redisKey, urlConfig.getTime());
+        if (localStamp == LocalDebounceCache.NOT_ACQUIRED) {
+            writeRejection((HttpServletResponse) response, urlConfig);
+            return;
         }
+        long acquiredAt = System.nanoTime();
+        RequestCompletion.doFilterUntilComplete(request, response, chain, () -> {
+            localCache.release(redisKey, localStamp);
+            probe.recordHold(acquiredAt, urlConfig.getTime());
+        });
     }
 
-    private DebounceProperties.UrlConfig getMatchedUrlConfig(String requestUri) {
-        return debounceProperties.getUrls().entrySet().stream()
-                .filter(entry -> pathMatcher.match(entry.getKey(), requestUri))
-                .findFirst()
-                .map(Map.Entry::getValue)
-                .orElse(null);
+    private void writeRejection(HttpServletResponse httpResponse, DebounceProperties.UrlConfig urlConfig)
+            throws IOException {
+        Result<?> result = Result.error(urlConfig.getMessage());
+        httpResponse.setContentType("application/json;charset=UTF-8");
+        httpResponse.getWriter().write(JsonUtil.toJson(result));
     }
-}
\ No newline at end of file
+}